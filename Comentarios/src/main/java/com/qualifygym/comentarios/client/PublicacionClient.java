@@ -25,12 +25,13 @@ public class PublicacionClient {
      */
     public boolean existePublicacion(Long id) {
         try {
-            Map<String, Object> publicacion = webClient.get()
-                    .uri("/publicaciones/{id}", id)
+            // Usa el endpoint liviano de existencia para no transferir la publicación completa
+            Boolean existe = webClient.get()
+                    .uri("/existe/{id}", id)
                     .retrieve()
-                    .bodyToMono(Map.class)
+                    .bodyToMono(Boolean.class)
                     .block();
-            return publicacion != null;
+            return Boolean.TRUE.equals(existe);
         } catch (WebClientResponseException.NotFound e) {
             return false;
         } catch (Exception e) {
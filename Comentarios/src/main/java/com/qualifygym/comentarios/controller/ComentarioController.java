@@ -17,6 +17,8 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.qualifygym.comentarios.dto.HiloComentarios;
+import com.qualifygym.comentarios.dto.PaginaComentarios;
 import com.qualifygym.comentarios.model.Comentario;
 import com.qualifygym.comentarios.service.ComentarioService;
 
@@ -30,6 +32,9 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 @Tag(name = "Comentarios", description = "API para la gestión de comentarios del sistema QualifyGym")
 public class ComentarioController {
 
+    static final String CABECERA_SIGUIENTE_ANTES = "X-Siguiente-Antes-De";
+    static final String CABECERA_SIGUIENTE_DESPUES = "X-Siguiente-Despues-De";
+
     @Autowired
     private ComentarioService comentarioService;
 
@@ -65,15 +70,30 @@ public class ComentarioController {
         }
     }
 
-    @Operation(summary = "Obtener comentarios por publicación", description = "Retorna todos los comentarios asociados a una publicación específica")
+    @Operation(summary = "Obtener comentarios por publicación", description = "Retorna los comentarios asociados a una publicación específica, " +
+            "del más reciente al más antiguo. Con limite, antesDe o despuesDe retorna una página paginada por (fecha de registro, ID): " +
+            "las cabeceras X-Siguiente-Antes-De (si quedan más antiguos) y X-Siguiente-Despues-De traen los cursores de las páginas vecinas")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Lista de comentarios obtenida exitosamente"),
-            @ApiResponse(responseCode = "204", description = "No hay comentarios para esta publicación")
+            @ApiResponse(responseCode = "204", description = "No hay comentarios para esta publicación"),
+            @ApiResponse(responseCode = "400", description = "Cursor inválido o ambos cursores indicados")
     })
     @GetMapping("/comentarios/publicacion/{publicacionId}")
-    public ResponseEntity<List<Comentario>> obtenerComentariosPorPublicacion(
+    public ResponseEntity<?> obtenerComentariosPorPublicacion(
             @PathVariable Long publicacionId,
-            @RequestParam(defaultValue = "false") boolean incluirOcultos) {
+            @RequestParam(defaultValue = "false") boolean incluirOcultos,
+            @RequestParam(required = false) Integer limite,
+            @RequestParam(required = false) String antesDe,
+            @RequestParam(required = false) String despuesDe) {
+        if (limite != null || antesDe != null || despuesDe != null) {
+            try {
+                PaginaComentarios pagina = comentarioService.obtenerPaginaComentariosPorPublicacion(
+                        publicacionId, antesDe, despuesDe, limite != null ? limite : 20, incluirOcultos);
+                return pagina(pagina.getComentarios(), pagina.getSiguienteAntesDe(), pagina.getSiguienteDespuesDe());
+            } catch (RuntimeException e) {
+                return ResponseEntity.badRequest().body(e.getMessage());
+            }
+        }
         List<Comentario> comentarios;
         if (incluirOcultos) {
             comentarios = comentarioService.obtenerComentariosPorPublicacion(publicacionId);
@@ -104,6 +124,37 @@ public class ComentarioController {
         return ResponseEntity.ok(count);
     }
 
+    @Operation(summary = "Contar comentarios de varias publicaciones", description = "Retorna los comentarios visibles y totales " +
+            "(incluidos los ocultos) de cada ID de publicación recibido en una sola llamada (máximo 500 IDs)")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Conteos obtenidos exitosamente"),
+            @ApiResponse(responseCode = "400", description = "Lista de IDs vacía o demasiado grande")
+    })
+    @GetMapping("/comentarios/publicaciones/count")
+    public ResponseEntity<?> contarComentariosPorPublicaciones(@RequestParam List<Long> ids) {
+        try {
+            return ResponseEntity.ok(comentarioService.contarComentariosPorPublicaciones(ids));
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    @Operation(summary = "Comentarios recientes de varias publicaciones", description = "Retorna los comentarios visibles más " +
+            "recientes de cada ID de publicación recibido en una sola llamada (máximo 500 IDs y 10 comentarios por publicación)")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Comentarios recientes obtenidos exitosamente"),
+            @ApiResponse(responseCode = "400", description = "Lista de IDs vacía o demasiado grande")
+    })
+    @GetMapping("/comentarios/publicaciones/recientes")
+    public ResponseEntity<?> obtenerComentariosRecientesPorPublicaciones(@RequestParam List<Long> ids,
+                                                                         @RequestParam(defaultValue = "3") int limite) {
+        try {
+            return ResponseEntity.ok(comentarioService.obtenerComentariosRecientesPorPublicaciones(ids, limite));
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
     @Operation(summary = "Contar comentarios por usuario", description = "Retorna el número total de comentarios realizados por un usuario")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Conteo realizado exitosamente")
@@ -142,6 +193,52 @@ public class ComentarioController {
         }
     }
 
+    @Operation(summary = "Responder comentario", description = "Crea una respuesta a un comentario existente, en la misma publicación. " +
+            "Valida que el usuario exista y que no se supere la profundidad máxima del hilo")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "201", description = "Respuesta creada exitosamente"),
+            @ApiResponse(responseCode = "400", description = "Datos inválidos, comentario o usuario no existe, o hilo demasiado profundo")
+    })
+    @PostMapping("/comentarios/{id}/respuestas")
+    public ResponseEntity<?> responderComentario(@PathVariable Long id, @RequestBody Map<String, Object> datos) {
+        try {
+            String comentario = (String) datos.get("comentario");
+            Long usuarioId = datos.get("usuarioId") != null
+                    ? Long.valueOf(datos.get("usuarioId").toString())
+                    : null;
+
+            if (comentario == null || usuarioId == null) {
+                return ResponseEntity.badRequest()
+                        .body("Faltan campos requeridos: comentario, usuarioId");
+            }
+
+            Comentario respuesta = comentarioService.responderComentario(id, comentario, usuarioId);
+            return ResponseEntity.status(HttpStatus.CREATED).body(respuesta);
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    @Operation(summary = "Obtener hilo de un comentario", description = "Retorna el comentario y sus respuestas en orden de lectura, " +
+            "paginado (limite, máximo 100). El cursor de la página siguiente llega en la cabecera X-Siguiente-Despues-De")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Página del hilo obtenida exitosamente"),
+            @ApiResponse(responseCode = "204", description = "No hay más comentarios en el hilo"),
+            @ApiResponse(responseCode = "400", description = "Comentario no encontrado o cursor inválido")
+    })
+    @GetMapping("/comentarios/{id}/hilo")
+    public ResponseEntity<?> obtenerHilo(@PathVariable Long id,
+                                         @RequestParam(required = false) String despuesDe,
+                                         @RequestParam(defaultValue = "50") int limite,
+                                         @RequestParam(defaultValue = "false") boolean incluirOcultos) {
+        try {
+            HiloComentarios hilo = comentarioService.obtenerHilo(id, despuesDe, limite, incluirOcultos);
+            return pagina(hilo.getComentarios(), null, hilo.getSiguienteDespuesDe());
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
     @Operation(summary = "Actualizar comentario", description = "Actualiza el texto de un comentario existente")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Comentario actualizado exitosamente"),
@@ -212,5 +309,19 @@ public class ComentarioController {
                                  .body("Error al eliminar comentario: " + e.getMessage());
         }
     }
-}
 
+    // Página de comentarios: los cursores de las páginas vecinas van en las cabeceras
+    private ResponseEntity<List<Comentario>> pagina(List<Comentario> comentarios, String siguienteAntesDe, String siguienteDespuesDe) {
+        if (comentarios.isEmpty()) {
+            return ResponseEntity.noContent().build();
+        }
+        ResponseEntity.BodyBuilder respuesta = ResponseEntity.ok();
+        if (siguienteAntesDe != null) {
+            respuesta.header(CABECERA_SIGUIENTE_ANTES, siguienteAntesDe);
+        }
+        if (siguienteDespuesDe != null) {
+            respuesta.header(CABECERA_SIGUIENTE_DESPUES, siguienteDespuesDe);
+        }
+        return respuesta.body(comentarios);
+    }
+}
@@ -0,0 +1,18 @@
+package com.qualifygym.comentarios.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Cantidad de comentarios de una publicación: los visibles y el total (incluidos los ocultos).
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ConteoComentarios {
+
+    private long visibles;
+
+    private long total;
+}
@@ -0,0 +1,25 @@
+package com.qualifygym.comentarios.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.qualifygym.comentarios.model.Comentario;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Página de un hilo de comentarios en orden de lectura (cada comentario seguido de sus respuestas),
+ * con el cursor para pedir la página siguiente.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class HiloComentarios {
+
+    private List<Comentario> comentarios = new ArrayList<>();
+
+    // Ruta del último comentario de la página (usar como "despuesDe"); null si el hilo no tiene más comentarios
+    private String siguienteDespuesDe;
+}
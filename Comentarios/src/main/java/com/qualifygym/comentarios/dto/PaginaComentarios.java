@@ -0,0 +1,28 @@
+package com.qualifygym.comentarios.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.qualifygym.comentarios.model.Comentario;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Página de comentarios de una publicación, del más reciente al más antiguo, con los cursores
+ * (fecha de registro e ID) para pedir la página siguiente en cada dirección.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class PaginaComentarios {
+
+    private List<Comentario> comentarios = new ArrayList<>();
+
+    // Cursor del comentario más antiguo de la página (usar como "antesDe"); null si no hay más antiguos
+    private String siguienteAntesDe;
+
+    // Cursor del comentario más reciente de la página (usar como "despuesDe" para pedir los más nuevos); null si la página está vacía
+    private String siguienteDespuesDe;
+}
@@ -6,8 +6,6 @@ import com.fasterxml.jackson.annotation.JsonFormat;
 
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
-import jakarta.persistence.GeneratedValue;
-import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.Index;
 import jakarta.persistence.PrePersist;
@@ -19,7 +17,8 @@ import lombok.NoArgsConstructor;
 @Entity
 @Table(name = "comentarios", indexes = {
     @Index(name = "idx_usuario_id", columnList = "Usuarios_id_usuario"),
-    @Index(name = "idx_publicacion_id", columnList = "Publicacion_id_publicacion")
+    @Index(name = "idx_publicacion_oculto_fecha", columnList = "Publicacion_id_publicacion, oculto, fecha_registro, id_comentario"),
+    @Index(name = "idx_publicacion_ruta", columnList = "Publicacion_id_publicacion, ruta")
 })
 @Data
 @AllArgsConstructor
@@ -27,9 +26,8 @@ import lombok.NoArgsConstructor;
 public class Comentario {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
     @Column(name = "id_comentario")
-    private Long idComentario;
+    private Long idComentario; // Reservado por bloques en comentarios_secuencia antes del INSERT
 
     @Column(nullable = false, columnDefinition = "TEXT")
     private String comentario;
@@ -54,6 +52,17 @@ public class Comentario {
     @Column(name = "Publicacion_id_publicacion", nullable = false)
     private Long publicacionId; // FK a Publicación (se conectará con el microservicio de publicaciones)
 
+    @Column(name = "id_comentario_padre")
+    private Long comentarioPadreId; // Comentario al que responde (null si es un comentario de primer nivel)
+
+    // Ruta materializada: los IDs de los ancestros y el propio, cada uno con 10 dígitos (ej. 00000000070000000012).
+    // Ordenar por ruta da el orden de lectura del hilo y un subárbol es un rango de rutas con el mismo prefijo
+    @Column(name = "ruta", length = 100)
+    private String ruta;
+
+    @Column(nullable = false)
+    private Integer nivel = 0; // Profundidad en el hilo (0 = comentario de primer nivel)
+
     //Formato para la fecha - se establece como timestamp en milisegundos
     @PrePersist
     public void prePersist() {
@@ -0,0 +1,26 @@
+package com.qualifygym.comentarios.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Entity
+@Table(name = "comentarios_secuencia")
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class SecuenciaComentarios {
+
+    // Única fila de la tabla
+    public static final int ID = 1;
+
+    @Id
+    private Integer id;
+
+    @Column(nullable = false)
+    private Long siguiente; // Próximo ID de comentario sin reservar
+}
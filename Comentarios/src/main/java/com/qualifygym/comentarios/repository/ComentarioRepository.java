@@ -1,9 +1,13 @@
 package com.qualifygym.comentarios.repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -27,9 +31,86 @@ public interface ComentarioRepository extends JpaRepository<Comentario, Long> {
     @Query("SELECT c FROM Comentario c WHERE c.usuarioId = :usuarioId AND c.oculto = false ORDER BY c.fechaRegistro DESC")
     List<Comentario> findByUsuarioIdAndNotOculto(@Param("usuarioId") Long usuarioId);
     
+    // Primera página de comentarios de una publicación, del más reciente al más antiguo
+    // (estados: [false] solo visibles, [false, true] también ocultos)
+    @Query("SELECT c FROM Comentario c WHERE c.publicacionId = :publicacionId AND c.oculto IN :estados " +
+           "ORDER BY c.fechaRegistro DESC, c.idComentario DESC")
+    List<Comentario> findPagina(@Param("publicacionId") Long publicacionId,
+                                @Param("estados") Collection<Boolean> estados,
+                                Pageable pageable);
+
+    // Comentarios anteriores a un cursor (fecha, ID), del más reciente al más antiguo
+    @Query("SELECT c FROM Comentario c WHERE c.publicacionId = :publicacionId AND c.oculto IN :estados " +
+           "AND (c.fechaRegistro < :fecha OR (c.fechaRegistro = :fecha AND c.idComentario < :id)) " +
+           "ORDER BY c.fechaRegistro DESC, c.idComentario DESC")
+    List<Comentario> findPaginaAntesDe(@Param("publicacionId") Long publicacionId,
+                                       @Param("estados") Collection<Boolean> estados,
+                                       @Param("fecha") LocalDateTime fecha,
+                                       @Param("id") Long id,
+                                       Pageable pageable);
+
+    // Comentarios posteriores a un cursor (fecha, ID), del más antiguo al más reciente
+    @Query("SELECT c FROM Comentario c WHERE c.publicacionId = :publicacionId AND c.oculto IN :estados " +
+           "AND (c.fechaRegistro > :fecha OR (c.fechaRegistro = :fecha AND c.idComentario > :id)) " +
+           "ORDER BY c.fechaRegistro ASC, c.idComentario ASC")
+    List<Comentario> findPaginaDespuesDe(@Param("publicacionId") Long publicacionId,
+                                         @Param("estados") Collection<Boolean> estados,
+                                         @Param("fecha") LocalDateTime fecha,
+                                         @Param("id") Long id,
+                                         Pageable pageable);
+
+    // Los N comentarios visibles más recientes de cada publicación de la lista, en una sola consulta con ventana
+    // (ROW_NUMBER por publicación), ordenados por publicación y del más reciente al más antiguo
+    @Query(value = "SELECT id_comentario, comentario, fecha_registro, oculto, fecha_baneo, motivo_baneo, " +
+                   "Usuarios_id_usuario, Publicacion_id_publicacion, id_comentario_padre, ruta, nivel FROM (" +
+                   "SELECT c.*, ROW_NUMBER() OVER (PARTITION BY c.Publicacion_id_publicacion " +
+                   "ORDER BY c.fecha_registro DESC, c.id_comentario DESC) AS posicion " +
+                   "FROM comentarios c WHERE c.Publicacion_id_publicacion IN (:ids) AND c.oculto = false) recientes " +
+                   "WHERE posicion <= :limite " +
+                   "ORDER BY Publicacion_id_publicacion, fecha_registro DESC, id_comentario DESC",
+           nativeQuery = true)
+    List<Comentario> findRecientesPorPublicaciones(@Param("ids") Collection<Long> ids, @Param("limite") int limite);
+
+    // Primera página de un hilo: el comentario de la ruta inicio y sus respuestas (rutas en [inicio, fin)), en orden de lectura
+    @Query("SELECT c FROM Comentario c WHERE c.publicacionId = :publicacionId AND c.ruta >= :inicio AND c.ruta < :fin " +
+           "AND c.oculto IN :estados ORDER BY c.ruta")
+    List<Comentario> findHilo(@Param("publicacionId") Long publicacionId,
+                              @Param("inicio") String inicio,
+                              @Param("fin") String fin,
+                              @Param("estados") Collection<Boolean> estados,
+                              Pageable pageable);
+
+    // Página siguiente de un hilo: comentarios del rango con ruta posterior al cursor, en orden de lectura
+    @Query("SELECT c FROM Comentario c WHERE c.publicacionId = :publicacionId AND c.ruta > :despuesDe AND c.ruta < :fin " +
+           "AND c.oculto IN :estados ORDER BY c.ruta")
+    List<Comentario> findHiloDespuesDe(@Param("publicacionId") Long publicacionId,
+                                       @Param("despuesDe") String despuesDe,
+                                       @Param("fin") String fin,
+                                       @Param("estados") Collection<Boolean> estados,
+                                       Pageable pageable);
+
+    // Eliminar un comentario y su subárbol (rutas en [inicio, fin)); el ID cubre un comentario aún sin ruta
+    @Modifying
+    @Query("DELETE FROM Comentario c WHERE c.publicacionId = :publicacionId " +
+           "AND (c.idComentario = :id OR (c.ruta >= :inicio AND c.ruta < :fin))")
+    int eliminarHilo(@Param("publicacionId") Long publicacionId,
+                     @Param("id") Long id,
+                     @Param("inicio") String inicio,
+                     @Param("fin") String fin);
+
+    // Asignar la ruta de primer nivel a los comentarios creados antes de existir las respuestas (migración única)
+    @Modifying
+    @Query(value = "UPDATE comentarios SET ruta = LPAD(id_comentario, 10, '0') WHERE ruta IS NULL", nativeQuery = true)
+    int asignarRutasPendientes();
+
     // Contar comentarios por publicación
     long countByPublicacionId(Long publicacionId);
     
+    // Cantidad de comentarios de varias publicaciones por estado (publicación, oculto, cantidad), en una sola consulta
+    @Query("SELECT c.publicacionId, c.oculto, COUNT(c) FROM Comentario c WHERE c.publicacionId IN :ids " +
+           "GROUP BY c.publicacionId, c.oculto")
+    List<Object[]> countByPublicacionIdsAndOculto(@Param("ids") Collection<Long> ids);
+
     // Contar comentarios por usuario
     long countByUsuarioId(Long usuarioId);
     
@@ -0,0 +1,30 @@
+package com.qualifygym.comentarios.repository;
+
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.qualifygym.comentarios.model.SecuenciaComentarios;
+
+import jakarta.persistence.LockModeType;
+
+@Repository
+public interface SecuenciaComentariosRepository extends JpaRepository<SecuenciaComentarios, Integer> {
+
+    // Leer la secuencia bloqueando la fila hasta el fin de la transacción (reservas concurrentes de varias instancias)
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM SecuenciaComentarios s WHERE s.id = :id")
+    Optional<SecuenciaComentarios> findParaReservar(@Param("id") Integer id);
+
+    // Crear la secuencia a continuación del mayor ID de comentario existente (sin efecto si ya existe)
+    @Modifying
+    @Query(value = "INSERT INTO comentarios_secuencia (id, siguiente) " +
+                   "SELECT :id, COALESCE(MAX(id_comentario), 0) + 1 FROM comentarios " +
+                   "ON DUPLICATE KEY UPDATE siguiente = siguiente", nativeQuery = true)
+    int crear(@Param("id") Integer id);
+}
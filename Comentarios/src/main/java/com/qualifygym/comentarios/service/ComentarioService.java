@@ -1,24 +1,57 @@
 package com.qualifygym.comentarios.service;
 
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 
 import com.qualifygym.comentarios.client.PublicacionClient;
 import com.qualifygym.comentarios.client.UsuarioClient;
+import com.qualifygym.comentarios.dto.ConteoComentarios;
+import com.qualifygym.comentarios.dto.HiloComentarios;
+import com.qualifygym.comentarios.dto.PaginaComentarios;
 import com.qualifygym.comentarios.model.Comentario;
 import com.qualifygym.comentarios.repository.ComentarioRepository;
 import com.qualifygym.comentarios.service.NotificacionService;
 
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
 import jakarta.transaction.Transactional;
 
 @Service
 @Transactional
 public class ComentarioService {
 
+    static final int MAX_LIMITE_PAGINA = 100;
+
+    // Límite de IDs de publicación por consulta en lote (conteos y comentarios recientes)
+    static final int MAX_IDS_LOTE = 500;
+
+    // Máximo de comentarios recientes por publicación en las vistas previas de los feeds
+    static final int MAX_LIMITE_RECIENTES = 10;
+
+    // Profundidad máxima de las respuestas (cabe en la columna ruta: 10 niveles de 10 dígitos) y máximo por página de un hilo
+    static final int MAX_NIVEL_RESPUESTAS = 9;
+    static final int MAX_LIMITE_HILO = 100;
+    private static final int DIGITOS_SEGMENTO_RUTA = 10;
+
+    // IDs que se reservan de una vez en la secuencia de comentarios
+    static final int BLOQUE_IDS = 50;
+
+    private static final List<Boolean> SOLO_VISIBLES = List.of(false);
+    private static final List<Boolean> TODOS = List.of(false, true);
+
     @Autowired
     private ComentarioRepository comentarioRepository;
 
@@ -31,6 +64,16 @@ public class ComentarioService {
     @Autowired
     private NotificacionService notificacionService;
 
+    @Autowired
+    private SecuenciaComentariosService secuenciaService;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    // Bloque de IDs reservado en memoria: [siguienteId, finBloqueIds)
+    private long siguienteId;
+    private long finBloqueIds;
+
     // Obtener todos los comentarios
     public List<Comentario> obtenerTodosComentarios() {
         return comentarioRepository.findAll();
@@ -51,6 +94,48 @@ public class ComentarioService {
         return comentarioRepository.findByPublicacionIdAndNotOculto(publicacionId);
     }
 
+    // Obtener una página de comentarios de una publicación, paginada por (fecha de registro, ID):
+    // antesDe pide los más antiguos que el cursor, despuesDe los más nuevos, y sin cursor la más reciente
+    public PaginaComentarios obtenerPaginaComentariosPorPublicacion(Long publicacionId, String antesDe, String despuesDe,
+                                                                     int limite, boolean incluirOcultos) {
+        if (antesDe != null && despuesDe != null) {
+            throw new RuntimeException("Indique solo uno de los cursores: antesDe o despuesDe");
+        }
+        int tamano = Math.min(Math.max(limite, 1), MAX_LIMITE_PAGINA);
+        List<Boolean> estados = incluirOcultos ? TODOS : SOLO_VISIBLES;
+        // Se lee uno de más para saber si quedan comentarios en esa dirección
+        PageRequest pagina = PageRequest.of(0, tamano + 1);
+
+        if (despuesDe != null) {
+            Cursor cursor = decodificarCursor(despuesDe);
+            List<Comentario> comentarios = new ArrayList<>(comentarioRepository.findPaginaDespuesDe(
+                    publicacionId, estados, cursor.fecha(), cursor.id(), pagina));
+            // Los más cercanos al cursor, devueltos también del más reciente al más antiguo
+            if (comentarios.size() > tamano) {
+                comentarios = new ArrayList<>(comentarios.subList(0, tamano));
+            }
+            Collections.reverse(comentarios);
+            return new PaginaComentarios(comentarios,
+                    comentarios.isEmpty() ? null : codificarCursor(comentarios.get(comentarios.size() - 1)),
+                    comentarios.isEmpty() ? null : codificarCursor(comentarios.get(0)));
+        }
+
+        List<Comentario> comentarios;
+        if (antesDe != null) {
+            Cursor cursor = decodificarCursor(antesDe);
+            comentarios = comentarioRepository.findPaginaAntesDe(publicacionId, estados, cursor.fecha(), cursor.id(), pagina);
+        } else {
+            comentarios = comentarioRepository.findPagina(publicacionId, estados, pagina);
+        }
+        boolean hayMas = comentarios.size() > tamano;
+        if (hayMas) {
+            comentarios = new ArrayList<>(comentarios.subList(0, tamano));
+        }
+        return new PaginaComentarios(comentarios,
+                hayMas ? codificarCursor(comentarios.get(comentarios.size() - 1)) : null,
+                comentarios.isEmpty() ? null : codificarCursor(comentarios.get(0)));
+    }
+
     // Obtener comentarios por usuario
     public List<Comentario> obtenerComentariosPorUsuario(Long usuarioId) {
         return comentarioRepository.findByUsuarioIdOrderByFechaRegistroDesc(usuarioId);
@@ -85,7 +170,96 @@ public class ComentarioService {
         nuevo.setUsuarioId(usuarioId);
         nuevo.setPublicacionId(publicacionId);
 
-        return comentarioRepository.save(nuevo);
+        // El ID se reserva antes del INSERT para escribir la ruta, que depende de él, en la misma sentencia
+        nuevo.setIdComentario(siguienteId());
+        nuevo.setRuta(segmentoRuta(nuevo.getIdComentario()));
+        nuevo.setNivel(0);
+        entityManager.persist(nuevo);
+        return nuevo;
+    }
+
+    // Responder a un comentario: la respuesta pertenece a la misma publicación y cuelga del hilo del comentario padre
+    public Comentario responderComentario(Long comentarioPadreId, String comentario, Long usuarioId) {
+        if (comentario == null || comentario.trim().isEmpty()) {
+            throw new RuntimeException("El comentario no puede estar vacío");
+        }
+        if (usuarioId == null || usuarioId <= 0) {
+            throw new RuntimeException("El ID de usuario es inválido");
+        }
+        Comentario padre = comentarioRepository.findById(comentarioPadreId)
+                .orElseThrow(() -> new RuntimeException("Comentario no encontrado ID: " + comentarioPadreId));
+        if (padre.getNivel() >= MAX_NIVEL_RESPUESTAS) {
+            throw new RuntimeException("No se puede responder a un comentario con más de " + MAX_NIVEL_RESPUESTAS + " niveles de respuestas");
+        }
+
+        // Validar que el usuario existe
+        if (!usuarioClient.existeUsuario(usuarioId)) {
+            throw new RuntimeException("El usuario con ID " + usuarioId + " no existe");
+        }
+
+        Comentario nuevo = new Comentario();
+        nuevo.setComentario(comentario.trim());
+        nuevo.setFechaRegistro(LocalDateTime.now());
+        nuevo.setOculto(false);
+        nuevo.setUsuarioId(usuarioId);
+        nuevo.setPublicacionId(padre.getPublicacionId());
+        nuevo.setComentarioPadreId(padre.getIdComentario());
+        nuevo.setNivel(padre.getNivel() + 1);
+        nuevo.setIdComentario(siguienteId());
+        nuevo.setRuta(rutaDe(padre) + segmentoRuta(nuevo.getIdComentario()));
+        entityManager.persist(nuevo);
+        return nuevo;
+    }
+
+    // Página de un hilo: el comentario y todas sus respuestas en orden de lectura, con una consulta por rango de rutas.
+    // El costo depende del tamaño de la página y no de la profundidad del hilo
+    public HiloComentarios obtenerHilo(Long id, String despuesDe, int limite, boolean incluirOcultos) {
+        Comentario raiz = comentarioRepository.findById(id)
+                .orElseThrow(() -> new RuntimeException("Comentario no encontrado ID: " + id));
+        String inicio = rutaDe(raiz);
+        String fin = rutaSiguiente(inicio);
+        if (despuesDe != null && (despuesDe.isEmpty() || despuesDe.length() % DIGITOS_SEGMENTO_RUTA != 0
+                || !despuesDe.chars().allMatch(Character::isDigit))) {
+            throw new RuntimeException("El cursor del hilo es inválido");
+        }
+
+        int tamano = Math.max(1, Math.min(limite, MAX_LIMITE_HILO));
+        List<Boolean> estados = incluirOcultos ? TODOS : SOLO_VISIBLES;
+        PageRequest pagina = PageRequest.of(0, tamano + 1);
+        List<Comentario> leidos = despuesDe == null
+                ? comentarioRepository.findHilo(raiz.getPublicacionId(), inicio, fin, estados, pagina)
+                : comentarioRepository.findHiloDespuesDe(raiz.getPublicacionId(), despuesDe, fin, estados, pagina);
+
+        boolean hayMas = leidos.size() > tamano;
+        List<Comentario> comentarios = hayMas ? new ArrayList<>(leidos.subList(0, tamano)) : leidos;
+        String siguiente = hayMas ? comentarios.get(comentarios.size() - 1).getRuta() : null;
+        return new HiloComentarios(comentarios, siguiente);
+    }
+
+    // Segmento de la ruta de un comentario: su ID con ancho fijo, para que el orden de texto coincida con el numérico
+    static String segmentoRuta(Long id) {
+        return String.format("%0" + DIGITOS_SEGMENTO_RUTA + "d", id);
+    }
+
+    // Siguiente ID del bloque reservado; al agotarse se reserva otro bloque en la secuencia
+    private synchronized long siguienteId() {
+        if (siguienteId >= finBloqueIds) {
+            siguienteId = secuenciaService.reservarBloque(BLOQUE_IDS);
+            finBloqueIds = siguienteId + BLOQUE_IDS;
+        }
+        return siguienteId++;
+    }
+
+    // Ruta de un comentario (los creados antes de las respuestas pueden no tenerla aún: son de primer nivel)
+    private static String rutaDe(Comentario comentario) {
+        return comentario.getRuta() != null ? comentario.getRuta() : segmentoRuta(comentario.getIdComentario());
+    }
+
+    // Menor ruta posterior a todo el subárbol de una ruta: la misma con su último segmento incrementado en uno.
+    // Las rutas solo tienen dígitos, así que el rango [ruta, siguiente) no depende de la colación de la columna
+    static String rutaSiguiente(String ruta) {
+        int corte = ruta.length() - DIGITOS_SEGMENTO_RUTA;
+        return ruta.substring(0, corte) + segmentoRuta(Long.parseLong(ruta.substring(corte)) + 1);
     }
 
     // Actualizar comentario
@@ -144,12 +318,13 @@ public class ComentarioService {
         return comentarioRepository.save(existente);
     }
 
-    // Eliminar comentario
+    // Eliminar un comentario con todas sus respuestas: el subárbol es el rango de rutas del comentario,
+    // así ninguna respuesta queda colgando de un padre inexistente
     public void eliminarComentario(Long id) {
-        if (!comentarioRepository.existsById(id)) {
-            throw new RuntimeException("Comentario no encontrado ID: " + id);
-        }
-        comentarioRepository.deleteById(id);
+        Comentario existente = comentarioRepository.findById(id)
+                .orElseThrow(() -> new RuntimeException("Comentario no encontrado ID: " + id));
+        String inicio = rutaDe(existente);
+        comentarioRepository.eliminarHilo(existente.getPublicacionId(), existente.getIdComentario(), inicio, rutaSiguiente(inicio));
     }
 
     // Contar comentarios por publicación
@@ -157,9 +332,72 @@ public class ComentarioService {
         return comentarioRepository.countByPublicacionId(publicacionId);
     }
 
+    // Contar los comentarios visibles y totales de varias publicaciones en una sola consulta (id -> conteo).
+    // Las publicaciones sin comentarios se devuelven con conteos en cero, en el orden recibido
+    public Map<Long, ConteoComentarios> contarComentariosPorPublicaciones(List<Long> publicacionIds) {
+        List<Long> unicos = validarIdsLote(publicacionIds);
+        Map<Long, ConteoComentarios> conteos = new LinkedHashMap<>();
+        for (Long id : unicos) {
+            conteos.put(id, new ConteoComentarios());
+        }
+        for (Object[] fila : comentarioRepository.countByPublicacionIdsAndOculto(unicos)) {
+            ConteoComentarios conteo = conteos.get((Long) fila[0]);
+            long cantidad = ((Number) fila[2]).longValue();
+            conteo.setTotal(conteo.getTotal() + cantidad);
+            if (!Boolean.TRUE.equals(fila[1])) {
+                conteo.setVisibles(conteo.getVisibles() + cantidad);
+            }
+        }
+        return conteos;
+    }
+
+    // Los comentarios visibles más recientes de varias publicaciones en una sola consulta (id -> comentarios,
+    // del más reciente al más antiguo). Las publicaciones sin comentarios se devuelven con una lista vacía
+    public Map<Long, List<Comentario>> obtenerComentariosRecientesPorPublicaciones(List<Long> publicacionIds, int limite) {
+        List<Long> unicos = validarIdsLote(publicacionIds);
+        int tamano = Math.max(1, Math.min(limite, MAX_LIMITE_RECIENTES));
+        Map<Long, List<Comentario>> recientes = new LinkedHashMap<>();
+        for (Long id : unicos) {
+            recientes.put(id, new ArrayList<>());
+        }
+        for (Comentario comentario : comentarioRepository.findRecientesPorPublicaciones(unicos, tamano)) {
+            recientes.get(comentario.getPublicacionId()).add(comentario);
+        }
+        return recientes;
+    }
+
+    private List<Long> validarIdsLote(List<Long> publicacionIds) {
+        if (publicacionIds == null || publicacionIds.isEmpty()) {
+            throw new RuntimeException("Debe indicar al menos un ID de publicación");
+        }
+        List<Long> unicos = new ArrayList<>(new LinkedHashSet<>(publicacionIds));
+        if (unicos.size() > MAX_IDS_LOTE) {
+            throw new RuntimeException("Se permiten como máximo " + MAX_IDS_LOTE + " IDs por consulta");
+        }
+        return unicos;
+    }
+
     // Contar comentarios por usuario
     public long contarComentariosPorUsuario(Long usuarioId) {
         return comentarioRepository.countByUsuarioId(usuarioId);
     }
-}
 
+    private record Cursor(LocalDateTime fecha, Long id) {
+    }
+
+    // Cursor opaco de un comentario: su fecha de registro y su ID, en Base64 apto para URL
+    static String codificarCursor(Comentario comentario) {
+        String valor = comentario.getFechaRegistro() + "_" + comentario.getIdComentario();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(valor.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static Cursor decodificarCursor(String cursor) {
+        try {
+            String valor = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separador = valor.lastIndexOf('_');
+            return new Cursor(LocalDateTime.parse(valor.substring(0, separador)), Long.valueOf(valor.substring(separador + 1)));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException | DateTimeParseException e) {
+            throw new RuntimeException("El cursor de la página es inválido");
+        }
+    }
+}
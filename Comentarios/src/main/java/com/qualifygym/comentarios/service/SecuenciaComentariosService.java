@@ -0,0 +1,55 @@
+package com.qualifygym.comentarios.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import com.qualifygym.comentarios.model.SecuenciaComentarios;
+import com.qualifygym.comentarios.repository.ComentarioRepository;
+import com.qualifygym.comentarios.repository.SecuenciaComentariosRepository;
+
+import jakarta.transaction.Transactional;
+
+// Reserva de IDs de comentario por bloques en comentarios_secuencia: con el ID conocido antes del INSERT,
+// la ruta del comentario se escribe en el mismo INSERT
+@Service
+public class SecuenciaComentariosService {
+
+    @Autowired
+    private SecuenciaComentariosRepository secuenciaRepository;
+
+    @Autowired
+    private ComentarioRepository comentarioRepository;
+
+    // Migración única al arrancar por primera vez con la secuencia; los arranques siguientes solo leen su fila por clave
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void inicializar() {
+        if (!secuenciaRepository.existsById(SecuenciaComentarios.ID)) {
+            migrar();
+        }
+    }
+
+    // Reservar un bloque de IDs consecutivos en su propia transacción, para no retener la fila de la secuencia
+    // mientras dura la del comentario. Retorna el primer ID del bloque
+    @Transactional(Transactional.TxType.REQUIRES_NEW)
+    public long reservarBloque(int cantidad) {
+        SecuenciaComentarios secuencia = secuenciaRepository.findParaReservar(SecuenciaComentarios.ID).orElse(null);
+        if (secuencia == null) {
+            migrar();
+            secuencia = secuenciaRepository.findParaReservar(SecuenciaComentarios.ID)
+                    .orElseThrow(() -> new RuntimeException("No se pudo crear la secuencia de comentarios"));
+        }
+        long inicio = secuencia.getSiguiente();
+        secuencia.setSiguiente(inicio + cantidad);
+        return inicio;
+    }
+
+    // Completa la ruta de los comentarios anteriores a las respuestas (desde entonces todo comentario se crea con ruta)
+    // y crea la secuencia; su fila marca que la migración ya se hizo
+    private void migrar() {
+        comentarioRepository.asignarRutasPendientes();
+        secuenciaRepository.crear(SecuenciaComentarios.ID);
+    }
+}
@@ -4,6 +4,9 @@ import static org.springframework.test.web.servlet.request.MockMvcRequestBuilder
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 import static org.mockito.Mockito.*;
 
+import com.qualifygym.comentarios.dto.ConteoComentarios;
+import com.qualifygym.comentarios.dto.HiloComentarios;
+import com.qualifygym.comentarios.dto.PaginaComentarios;
 import com.qualifygym.comentarios.model.Comentario;
 import com.qualifygym.comentarios.service.ComentarioService;
 import org.junit.jupiter.api.BeforeEach;
@@ -16,7 +19,9 @@ import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 
 import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 /**
@@ -374,4 +379,121 @@ class ComentarioControllerTest {
 
         verify(comentarioService, times(1)).contarComentariosPorUsuario(usuarioId);
     }
+
+    /**
+     * Test: GET /comentarios/publicacion/{id}?limite - Página de comentarios
+     * Verifica que los cursores de las páginas vecinas viajan en las cabeceras y que un cursor inválido retorna 400
+     */
+    @Test
+    void obtenerComentariosPorPublicacion_paginado_deberiaRetornarCursoresEnCabeceras() throws Exception {
+        // Arrange
+        when(comentarioService.obtenerPaginaComentariosPorPublicacion(1L, null, null, 10, false))
+                .thenReturn(new PaginaComentarios(List.of(comentarioTest), "c-antes", "c-despues"));
+        when(comentarioService.obtenerPaginaComentariosPorPublicacion(1L, "malo", null, 20, false))
+                .thenThrow(new RuntimeException("El cursor de la página es inválido"));
+
+        // Act & Assert
+        mockMvc.perform(get("/api/v1/comentario/comentarios/publicacion/{publicacionId}", 1L).param("limite", "10"))
+               .andExpect(status().isOk())
+               .andExpect(header().string("X-Siguiente-Antes-De", "c-antes"))
+               .andExpect(header().string("X-Siguiente-Despues-De", "c-despues"))
+               .andExpect(jsonPath("$[0].comentario").value("Comentario de prueba"));
+        mockMvc.perform(get("/api/v1/comentario/comentarios/publicacion/{publicacionId}", 1L).param("antesDe", "malo"))
+               .andExpect(status().isBadRequest())
+               .andExpect(content().string("El cursor de la página es inválido"));
+
+        verify(comentarioService, never()).obtenerComentariosVisiblesPorPublicacion(anyLong());
+    }
+
+    /**
+     * Test: GET /comentarios/publicaciones/count?ids - Contar comentarios de varias publicaciones
+     * Verifica que retorna los conteos por ID y que una lista inválida retorna 400
+     */
+    @Test
+    void contarComentariosPorPublicaciones_deberiaRetornarConteosPorId() throws Exception {
+        // Arrange
+        Map<Long, ConteoComentarios> conteos = new LinkedHashMap<>();
+        conteos.put(1L, new ConteoComentarios(3L, 5L));
+        conteos.put(2L, new ConteoComentarios(0L, 0L));
+        when(comentarioService.contarComentariosPorPublicaciones(List.of(1L, 2L))).thenReturn(conteos);
+        when(comentarioService.contarComentariosPorPublicaciones(List.of(9L)))
+                .thenThrow(new RuntimeException("Se permiten como máximo 500 IDs por consulta"));
+
+        // Act & Assert
+        mockMvc.perform(get("/api/v1/comentario/comentarios/publicaciones/count").param("ids", "1,2"))
+               .andExpect(status().isOk())
+               .andExpect(jsonPath("$['1'].visibles").value(3))
+               .andExpect(jsonPath("$['1'].total").value(5))
+               .andExpect(jsonPath("$['2'].total").value(0));
+        mockMvc.perform(get("/api/v1/comentario/comentarios/publicaciones/count").param("ids", "9"))
+               .andExpect(status().isBadRequest());
+    }
+
+    /**
+     * Test: GET /comentarios/publicaciones/recientes?ids - Comentarios recientes de varias publicaciones
+     * Verifica que retorna los comentarios por ID con 3 por publicación si no se indica el límite
+     */
+    @Test
+    void obtenerComentariosRecientesPorPublicaciones_deberiaRetornarComentariosPorId() throws Exception {
+        // Arrange
+        Map<Long, List<Comentario>> recientes = new LinkedHashMap<>();
+        recientes.put(1L, List.of(comentarioTest));
+        recientes.put(2L, List.of());
+        when(comentarioService.obtenerComentariosRecientesPorPublicaciones(List.of(1L, 2L), 3)).thenReturn(recientes);
+
+        // Act & Assert
+        mockMvc.perform(get("/api/v1/comentario/comentarios/publicaciones/recientes").param("ids", "1,2"))
+               .andExpect(status().isOk())
+               .andExpect(jsonPath("$['1'][0].comentario").value("Comentario de prueba"))
+               .andExpect(jsonPath("$['2']").isEmpty());
+    }
+
+    /**
+     * Test: POST /comentarios/{id}/respuestas - Responder comentario
+     * Verifica que crea la respuesta con status 201 y que faltando campos retorna 400
+     */
+    @Test
+    void responderComentario_deberiaRetornarStatus201() throws Exception {
+        // Arrange
+        Comentario respuesta = new Comentario();
+        respuesta.setIdComentario(2L);
+        respuesta.setComentario("Respuesta");
+        respuesta.setComentarioPadreId(1L);
+        respuesta.setRuta("00000000010000000002");
+        respuesta.setNivel(1);
+        when(comentarioService.responderComentario(1L, "Respuesta", 1L)).thenReturn(respuesta);
+
+        // Act & Assert
+        mockMvc.perform(post("/api/v1/comentario/comentarios/{id}/respuestas", 1L)
+               .contentType(MediaType.APPLICATION_JSON)
+               .content("{\"comentario\": \"Respuesta\", \"usuarioId\": 1}"))
+               .andExpect(status().isCreated())
+               .andExpect(jsonPath("$.comentarioPadreId").value(1L))
+               .andExpect(jsonPath("$.nivel").value(1));
+        mockMvc.perform(post("/api/v1/comentario/comentarios/{id}/respuestas", 1L)
+               .contentType(MediaType.APPLICATION_JSON)
+               .content("{\"comentario\": \"Respuesta\"}"))
+               .andExpect(status().isBadRequest());
+    }
+
+    /**
+     * Test: GET /comentarios/{id}/hilo - Página de un hilo
+     * Verifica que retorna el hilo con el cursor de la página siguiente en la cabecera
+     */
+    @Test
+    void obtenerHilo_deberiaRetornarPaginaConCursor() throws Exception {
+        // Arrange
+        when(comentarioService.obtenerHilo(1L, null, 50, false))
+                .thenReturn(new HiloComentarios(List.of(comentarioTest), "0000000001"));
+        when(comentarioService.obtenerHilo(1L, "0000000001", 50, false))
+                .thenReturn(new HiloComentarios(List.of(), null));
+
+        // Act & Assert
+        mockMvc.perform(get("/api/v1/comentario/comentarios/{id}/hilo", 1L))
+               .andExpect(status().isOk())
+               .andExpect(header().string("X-Siguiente-Despues-De", "0000000001"))
+               .andExpect(jsonPath("$[0].comentario").value("Comentario de prueba"));
+        mockMvc.perform(get("/api/v1/comentario/comentarios/{id}/hilo", 1L).param("despuesDe", "0000000001"))
+               .andExpect(status().isNoContent());
+    }
 }
@@ -5,6 +5,9 @@ import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.Mockito.*;
 
+import com.qualifygym.comentarios.dto.ConteoComentarios;
+import com.qualifygym.comentarios.dto.HiloComentarios;
+import com.qualifygym.comentarios.dto.PaginaComentarios;
 import com.qualifygym.comentarios.model.Comentario;
 import com.qualifygym.comentarios.repository.ComentarioRepository;
 import com.qualifygym.comentarios.client.UsuarioClient;
@@ -14,11 +17,15 @@ import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.data.domain.PageRequest;
+
+import jakarta.persistence.EntityManager;
 
 import java.time.LocalDateTime;
 import java.util.Optional;
 import java.util.List;
 import java.util.ArrayList;
+import java.util.Map;
 
 /**
  * Tests unitarios para ComentarioService
@@ -39,6 +46,12 @@ class ComentarioServiceTest {
     @Mock
     private PublicacionClient publicacionClient;
 
+    @Mock
+    private SecuenciaComentariosService secuenciaService;
+
+    @Mock
+    private EntityManager entityManager;
+
     @InjectMocks
     private ComentarioService comentarioService;
 
@@ -75,16 +88,7 @@ class ComentarioServiceTest {
         // Configurar mocks para validar que usuario y publicación existen
         when(usuarioClient.existeUsuario(usuarioId)).thenReturn(true);
         when(publicacionClient.existePublicacion(publicacionId)).thenReturn(true);
-        
-        Comentario guardado = new Comentario();
-        guardado.setIdComentario(1L);
-        guardado.setComentario(comentario);
-        guardado.setUsuarioId(usuarioId);
-        guardado.setPublicacionId(publicacionId);
-        guardado.setFechaRegistro(LocalDateTime.now());
-        guardado.setOculto(false);
-
-        when(comentarioRepository.save(any(Comentario.class))).thenReturn(guardado);
+        when(secuenciaService.reservarBloque(ComentarioService.BLOQUE_IDS)).thenReturn(1L);
 
         // Act
         Comentario resultado = comentarioService.crearComentario(comentario, usuarioId, publicacionId);
@@ -96,11 +100,39 @@ class ComentarioServiceTest {
         assertEquals(publicacionId, resultado.getPublicacionId());
         assertFalse(resultado.getOculto());
         assertNotNull(resultado.getFechaRegistro());
+        // La ruta se calcula con el ID reservado y se escribe en el mismo INSERT
+        assertEquals(1L, resultado.getIdComentario());
+        assertEquals("0000000001", resultado.getRuta());
         
         // Verificar que se validaron usuario y publicación
         verify(usuarioClient, times(1)).existeUsuario(usuarioId);
         verify(publicacionClient, times(1)).existePublicacion(publicacionId);
-        verify(comentarioRepository, times(1)).save(any(Comentario.class));
+        verify(entityManager, times(1)).persist(resultado);
+        verify(comentarioRepository, never()).save(any(Comentario.class));
+    }
+
+    /**
+     * Test: Crear varios comentarios
+     * Verifica que los IDs salen de un mismo bloque reservado y solo se consulta la secuencia al agotarlo
+     */
+    @Test
+    void crearComentario_variasVeces_debeReservarIdsPorBloque() {
+        // Arrange
+        when(usuarioClient.existeUsuario(1L)).thenReturn(true);
+        when(publicacionClient.existePublicacion(1L)).thenReturn(true);
+        when(secuenciaService.reservarBloque(ComentarioService.BLOQUE_IDS)).thenReturn(100L, 500L);
+
+        // Act
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i <= ComentarioService.BLOQUE_IDS; i++) {
+            ids.add(comentarioService.crearComentario("Comentario " + i, 1L, 1L).getIdComentario());
+        }
+
+        // Assert
+        assertEquals(100L, ids.get(0));
+        assertEquals(100L + ComentarioService.BLOQUE_IDS - 1, ids.get(ComentarioService.BLOQUE_IDS - 1));
+        assertEquals(500L, ids.get(ComentarioService.BLOQUE_IDS));
+        verify(secuenciaService, times(2)).reservarBloque(ComentarioService.BLOQUE_IDS);
     }
 
     /**
@@ -115,7 +147,7 @@ class ComentarioServiceTest {
         });
         
         // Verificar que no se guardó nada
-        verify(comentarioRepository, never()).save(any(Comentario.class));
+        verify(entityManager, never()).persist(any());
     }
 
     /**
@@ -136,7 +168,7 @@ class ComentarioServiceTest {
         assertTrue(exception.getMessage().contains("El usuario con ID 999 no existe"));
         verify(usuarioClient, times(1)).existeUsuario(usuarioIdInexistente);
         verify(publicacionClient, never()).existePublicacion(anyLong());
-        verify(comentarioRepository, never()).save(any(Comentario.class));
+        verify(entityManager, never()).persist(any());
     }
 
     /**
@@ -158,7 +190,7 @@ class ComentarioServiceTest {
         assertTrue(exception.getMessage().contains("La publicación con ID 999 no existe"));
         verify(usuarioClient, times(1)).existeUsuario(1L);
         verify(publicacionClient, times(1)).existePublicacion(publicacionIdInexistente);
-        verify(comentarioRepository, never()).save(any(Comentario.class));
+        verify(entityManager, never()).persist(any());
     }
 
     /**
@@ -275,15 +307,29 @@ class ComentarioServiceTest {
     void eliminarComentario_debeEliminarComentario() {
         // Arrange
         Long id = 1L;
-        // El servicio verifica que El comentario existe antes de eliminar
-        when(comentarioRepository.existsById(id)).thenReturn(true);
-        doNothing().when(comentarioRepository).deleteById(id);
+        comentarioTest.setRuta("0000000001");
+        when(comentarioRepository.findById(id)).thenReturn(Optional.of(comentarioTest));
         
         // Act
         comentarioService.eliminarComentario(id);
         
-        // Assert
-        verify(comentarioRepository, times(1)).deleteById(id);
+        // Assert: se elimina el subárbol completo (rango de rutas del comentario) con una sola sentencia
+        verify(comentarioRepository, times(1)).eliminarHilo(1L, id, "0000000001", "0000000002");
+        verify(comentarioRepository, never()).deleteById(anyLong());
+    }
+
+    /**
+     * Test: Eliminar comentario inexistente
+     * Verifica que el servicio lanza una excepción y no elimina nada
+     */
+    @Test
+    void eliminarComentario_conIdInexistente_debeLanzarExcepcion() {
+        // Arrange
+        when(comentarioRepository.findById(99L)).thenReturn(Optional.empty());
+
+        // Act & Assert
+        assertThrows(RuntimeException.class, () -> comentarioService.eliminarComentario(99L));
+        verify(comentarioRepository, never()).eliminarHilo(any(), any(), any(), any());
     }
 
     /**
@@ -414,4 +460,271 @@ class ComentarioServiceTest {
         assertEquals(3L, resultado);
         verify(comentarioRepository, times(1)).countByUsuarioId(usuarioId);
     }
+
+    /**
+     * Test: Primera página de comentarios
+     * Verifica que se lee uno de más para saber si hay más antiguos y que los cursores apuntan a los extremos
+     */
+    @Test
+    void obtenerPaginaComentarios_sinCursor_debeRetornarPrimeraPaginaConCursores() {
+        // Arrange
+        LocalDateTime fecha = LocalDateTime.of(2026, 10, 19, 12, 0, 0, 123456000);
+        List<Comentario> leidos = List.of(comentario(3L, fecha), comentario(2L, fecha), comentario(1L, fecha.minusMinutes(5)));
+        when(comentarioRepository.findPagina(1L, List.of(false), PageRequest.of(0, 3))).thenReturn(leidos);
+
+        // Act
+        PaginaComentarios pagina = comentarioService.obtenerPaginaComentariosPorPublicacion(1L, null, null, 2, false);
+
+        // Assert
+        assertEquals(List.of(3L, 2L), pagina.getComentarios().stream().map(Comentario::getIdComentario).toList());
+        assertEquals(ComentarioService.codificarCursor(leidos.get(1)), pagina.getSiguienteAntesDe());
+        assertEquals(ComentarioService.codificarCursor(leidos.get(0)), pagina.getSiguienteDespuesDe());
+    }
+
+    /**
+     * Test: Página anterior a un cursor
+     * Verifica que el cursor se decodifica a (fecha, ID) y que la última página no trae cursor de más antiguos
+     */
+    @Test
+    void obtenerPaginaComentarios_antesDe_debeConsultarDesdeElCursor() {
+        // Arrange
+        LocalDateTime fecha = LocalDateTime.of(2026, 10, 19, 12, 0, 0, 123456000);
+        String cursor = ComentarioService.codificarCursor(comentario(2L, fecha));
+        when(comentarioRepository.findPaginaAntesDe(1L, List.of(false, true), fecha, 2L, PageRequest.of(0, 21)))
+                .thenReturn(List.of(comentario(1L, fecha)));
+
+        // Act
+        PaginaComentarios pagina = comentarioService.obtenerPaginaComentariosPorPublicacion(1L, cursor, null, 20, true);
+
+        // Assert
+        assertEquals(1, pagina.getComentarios().size());
+        assertNull(pagina.getSiguienteAntesDe());
+        assertNotNull(pagina.getSiguienteDespuesDe());
+    }
+
+    /**
+     * Test: Página posterior a un cursor
+     * Verifica que se devuelven los más cercanos al cursor, también del más reciente al más antiguo
+     */
+    @Test
+    void obtenerPaginaComentarios_despuesDe_debeRetornarLosMasCercanosEnOrdenDescendente() {
+        // Arrange
+        LocalDateTime fecha = LocalDateTime.of(2026, 10, 19, 12, 0);
+        String cursor = ComentarioService.codificarCursor(comentario(1L, fecha));
+        when(comentarioRepository.findPaginaDespuesDe(1L, List.of(false), fecha, 1L, PageRequest.of(0, 3)))
+                .thenReturn(List.of(comentario(2L, fecha), comentario(3L, fecha.plusMinutes(1)), comentario(4L, fecha.plusMinutes(2))));
+
+        // Act
+        PaginaComentarios pagina = comentarioService.obtenerPaginaComentariosPorPublicacion(1L, null, cursor, 2, false);
+
+        // Assert
+        assertEquals(List.of(3L, 2L), pagina.getComentarios().stream().map(Comentario::getIdComentario).toList());
+        assertEquals(ComentarioService.codificarCursor(comentario(2L, fecha)), pagina.getSiguienteAntesDe());
+        assertEquals(ComentarioService.codificarCursor(comentario(3L, fecha.plusMinutes(1))), pagina.getSiguienteDespuesDe());
+    }
+
+    /**
+     * Test: Cursores inválidos
+     * Verifica que se rechaza un cursor mal formado y que no se aceptan ambos cursores a la vez
+     */
+    @Test
+    void obtenerPaginaComentarios_conCursorInvalido_debeLanzarExcepcion() {
+        String cursor = ComentarioService.codificarCursor(comentarioTest);
+        assertThrows(RuntimeException.class, () -> comentarioService.obtenerPaginaComentariosPorPublicacion(1L, "no-es-cursor", null, 20, false));
+        assertThrows(RuntimeException.class, () -> comentarioService.obtenerPaginaComentariosPorPublicacion(1L, cursor, cursor, 20, false));
+        verifyNoInteractions(comentarioRepository);
+    }
+
+    private Comentario comentario(Long id, LocalDateTime fecha) {
+        Comentario comentario = new Comentario();
+        comentario.setIdComentario(id);
+        comentario.setComentario("Comentario " + id);
+        comentario.setFechaRegistro(fecha);
+        comentario.setOculto(false);
+        comentario.setUsuarioId(1L);
+        comentario.setPublicacionId(1L);
+        return comentario;
+    }
+
+    /**
+     * Test: Contar comentarios de varias publicaciones
+     * Verifica que una sola consulta agrupada da visibles y totales, sin IDs repetidos y con ceros para las que no tienen comentarios
+     */
+    @Test
+    void contarComentariosPorPublicaciones_debeAgruparVisiblesYTotales() {
+        // Arrange
+        List<Object[]> filas = List.of(
+                new Object[] { 1L, false, 3L },
+                new Object[] { 1L, true, 2L },
+                new Object[] { 2L, true, 1L });
+        when(comentarioRepository.countByPublicacionIdsAndOculto(List.of(3L, 1L, 2L))).thenReturn(filas);
+
+        // Act
+        Map<Long, ConteoComentarios> conteos = comentarioService.contarComentariosPorPublicaciones(List.of(3L, 1L, 2L, 1L));
+
+        // Assert
+        assertEquals(List.of(3L, 1L, 2L), List.copyOf(conteos.keySet()));
+        assertEquals(new ConteoComentarios(0L, 0L), conteos.get(3L));
+        assertEquals(new ConteoComentarios(3L, 5L), conteos.get(1L));
+        assertEquals(new ConteoComentarios(0L, 1L), conteos.get(2L));
+        verify(comentarioRepository, times(1)).countByPublicacionIdsAndOculto(anyCollection());
+    }
+
+    /**
+     * Test: Contar comentarios con una lista de IDs inválida
+     * Verifica que se rechazan las listas vacías o de más IDs que el máximo sin consultar la base de datos
+     */
+    @Test
+    void contarComentariosPorPublicaciones_conListaInvalida_debeLanzarExcepcion() {
+        List<Long> demasiados = new ArrayList<>();
+        for (long id = 1; id <= ComentarioService.MAX_IDS_LOTE + 1; id++) {
+            demasiados.add(id);
+        }
+        assertThrows(RuntimeException.class, () -> comentarioService.contarComentariosPorPublicaciones(List.of()));
+        assertThrows(RuntimeException.class, () -> comentarioService.contarComentariosPorPublicaciones(demasiados));
+        verifyNoInteractions(comentarioRepository);
+    }
+
+    /**
+     * Test: Comentarios recientes de varias publicaciones
+     * Verifica que una sola consulta con ventana se reparte por publicación, con lista vacía para las que no tienen comentarios
+     */
+    @Test
+    void obtenerComentariosRecientesPorPublicaciones_debeAgruparPorPublicacion() {
+        // Arrange
+        LocalDateTime fecha = LocalDateTime.of(2026, 10, 19, 12, 0);
+        Comentario otraPublicacion = comentario(5L, fecha);
+        otraPublicacion.setPublicacionId(2L);
+        when(comentarioRepository.findRecientesPorPublicaciones(List.of(2L, 1L, 3L), 3))
+                .thenReturn(List.of(comentario(4L, fecha), comentario(3L, fecha.minusMinutes(1)), otraPublicacion));
+
+        // Act
+        Map<Long, List<Comentario>> recientes = comentarioService.obtenerComentariosRecientesPorPublicaciones(List.of(2L, 1L, 3L, 2L), 3);
+
+        // Assert
+        assertEquals(List.of(2L, 1L, 3L), List.copyOf(recientes.keySet()));
+        assertEquals(List.of(4L, 3L), recientes.get(1L).stream().map(Comentario::getIdComentario).toList());
+        assertEquals(List.of(5L), recientes.get(2L).stream().map(Comentario::getIdComentario).toList());
+        assertTrue(recientes.get(3L).isEmpty());
+    }
+
+    /**
+     * Test: Límite de comentarios recientes
+     * Verifica que el límite por publicación se ajusta al rango permitido antes de consultar
+     */
+    @Test
+    void obtenerComentariosRecientesPorPublicaciones_debeAjustarLimite() {
+        // Arrange
+        when(comentarioRepository.findRecientesPorPublicaciones(anyCollection(), anyInt())).thenReturn(List.of());
+
+        // Act
+        comentarioService.obtenerComentariosRecientesPorPublicaciones(List.of(1L), 50);
+        comentarioService.obtenerComentariosRecientesPorPublicaciones(List.of(1L), 0);
+
+        // Assert
+        verify(comentarioRepository).findRecientesPorPublicaciones(List.of(1L), ComentarioService.MAX_LIMITE_RECIENTES);
+        verify(comentarioRepository).findRecientesPorPublicaciones(List.of(1L), 1);
+        assertThrows(RuntimeException.class, () -> comentarioService.obtenerComentariosRecientesPorPublicaciones(null, 3));
+    }
+
+    /**
+     * Test: Responder a un comentario
+     * Verifica que la respuesta hereda la publicación, cuelga del padre y su ruta es la del padre más su propio ID
+     */
+    @Test
+    void responderComentario_debeCrearRespuestaConRutaDelPadre() {
+        // Arrange
+        Comentario padre = comentario(7L, LocalDateTime.of(2026, 10, 19, 12, 0));
+        padre.setPublicacionId(3L);
+        padre.setRuta("0000000002" + "0000000007");
+        padre.setNivel(1);
+        when(comentarioRepository.findById(7L)).thenReturn(Optional.of(padre));
+        when(usuarioClient.existeUsuario(1L)).thenReturn(true);
+        when(secuenciaService.reservarBloque(ComentarioService.BLOQUE_IDS)).thenReturn(12L);
+
+        // Act
+        Comentario respuesta = comentarioService.responderComentario(7L, "  Respuesta  ", 1L);
+
+        // Assert
+        assertEquals("Respuesta", respuesta.getComentario());
+        assertEquals(3L, respuesta.getPublicacionId());
+        assertEquals(7L, respuesta.getComentarioPadreId());
+        assertEquals(2, respuesta.getNivel());
+        assertEquals("000000000200000000070000000012", respuesta.getRuta());
+        verify(entityManager, times(1)).persist(respuesta);
+        verify(publicacionClient, never()).existePublicacion(anyLong());
+    }
+
+    /**
+     * Test: Responder en un hilo demasiado profundo
+     * Verifica que no se crean respuestas por debajo de la profundidad máxima
+     */
+    @Test
+    void responderComentario_conProfundidadMaxima_debeLanzarExcepcion() {
+        // Arrange
+        Comentario padre = comentario(7L, LocalDateTime.of(2026, 10, 19, 12, 0));
+        padre.setNivel(ComentarioService.MAX_NIVEL_RESPUESTAS);
+        when(comentarioRepository.findById(7L)).thenReturn(Optional.of(padre));
+
+        // Act & Assert
+        assertThrows(RuntimeException.class, () -> comentarioService.responderComentario(7L, "Respuesta", 1L));
+        assertThrows(RuntimeException.class, () -> comentarioService.responderComentario(99L, "Respuesta", 1L));
+        verify(entityManager, never()).persist(any());
+    }
+
+    /**
+     * Test: Página de un hilo
+     * Verifica que se consulta el rango de rutas del subárbol y que el cursor es la ruta del último comentario si hay más
+     */
+    @Test
+    void obtenerHilo_debeConsultarRangoDelSubarbol() {
+        // Arrange
+        LocalDateTime fecha = LocalDateTime.of(2026, 10, 19, 12, 0);
+        Comentario raiz = comentario(9L, fecha);
+        raiz.setRuta("0000000009");
+        Comentario respuesta = comentario(10L, fecha);
+        respuesta.setRuta("00000000090000000010");
+        Comentario otra = comentario(11L, fecha);
+        otra.setRuta("00000000090000000011");
+        when(comentarioRepository.findById(9L)).thenReturn(Optional.of(raiz));
+        when(comentarioRepository.findHilo(1L, "0000000009", "0000000010", List.of(false), PageRequest.of(0, 3)))
+                .thenReturn(List.of(raiz, respuesta, otra));
+        when(comentarioRepository.findHiloDespuesDe(1L, "00000000090000000010", "0000000010", List.of(false, true), PageRequest.of(0, 3)))
+                .thenReturn(List.of(otra));
+
+        // Act
+        HiloComentarios primera = comentarioService.obtenerHilo(9L, null, 2, false);
+        HiloComentarios segunda = comentarioService.obtenerHilo(9L, primera.getSiguienteDespuesDe(), 2, true);
+
+        // Assert
+        assertEquals(List.of(9L, 10L), primera.getComentarios().stream().map(Comentario::getIdComentario).toList());
+        assertEquals("00000000090000000010", primera.getSiguienteDespuesDe());
+        assertEquals(List.of(11L), segunda.getComentarios().stream().map(Comentario::getIdComentario).toList());
+        assertNull(segunda.getSiguienteDespuesDe());
+    }
+
+    /**
+     * Test: Hilo con cursor inválido
+     * Verifica que se rechazan cursores que no son una ruta
+     */
+    @Test
+    void obtenerHilo_conCursorInvalido_debeLanzarExcepcion() {
+        // Arrange
+        when(comentarioRepository.findById(1L)).thenReturn(Optional.of(comentarioTest));
+
+        // Act & Assert
+        assertThrows(RuntimeException.class, () -> comentarioService.obtenerHilo(1L, "12345", 20, false));
+        assertThrows(RuntimeException.class, () -> comentarioService.obtenerHilo(1L, "00000000a1", 20, false));
+        verify(comentarioRepository, never()).findHiloDespuesDe(any(), any(), any(), any(), any());
+    }
+
+    /**
+     * Test: Límite del rango de un subárbol
+     * Verifica que la ruta siguiente incrementa solo el último segmento
+     */
+    @Test
+    void rutaSiguiente_debeIncrementarUltimoSegmento() {
+        assertEquals("0000000010", ComentarioService.rutaSiguiente("0000000009"));
+        assertEquals("00000000090000000100", ComentarioService.rutaSiguiente("00000000090000000099"));
+    }
 }
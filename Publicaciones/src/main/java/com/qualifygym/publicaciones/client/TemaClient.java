@@ -1,5 +1,7 @@
 package com.qualifygym.publicaciones.client;
 
+import java.util.Collection;
+import java.util.LinkedHashSet;
 import java.util.Map;
 
 import org.springframework.beans.factory.annotation.Value;
@@ -7,9 +9,15 @@ import org.springframework.stereotype.Component;
 import org.springframework.web.reactive.function.client.WebClient;
 import org.springframework.web.reactive.function.client.WebClientResponseException;
 
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
 @Component
 public class TemaClient {
 
+    // Consultas simultáneas como máximo al verificar varios temas
+    private static final int CONCURRENCIA_VERIFICACION = 16;
+
     private final WebClient webClient;
 
     public TemaClient(@Value("${tema-service.url}") String temaServiceUrl) {
@@ -56,5 +64,27 @@ public class TemaClient {
             throw new RuntimeException("Error al obtener tema: " + e.getMessage());
         }
     }
-}
 
+    /**
+     * Verifica la existencia de varios temas, cada ID una sola vez y con consultas simultáneas acotadas
+     * @param ids IDs de los temas (los repetidos se consultan una vez)
+     * @return Map de ID a true si existe, false en caso contrario
+     */
+    public Map<Long, Boolean> existenTemas(Collection<Long> ids) {
+        try {
+            return Flux.fromIterable(new LinkedHashSet<>(ids))
+                    .flatMap(id -> webClient.get()
+                            .uri("/temas/{id}", id)
+                            .retrieve()
+                            .bodyToMono(Map.class)
+                            .map(encontrado -> true)
+                            .defaultIfEmpty(false)
+                            .onErrorResume(WebClientResponseException.NotFound.class, e -> Mono.just(false))
+                            .map(existe -> Map.entry(id, existe)), CONCURRENCIA_VERIFICACION)
+                    .collectMap(Map.Entry::getKey, Map.Entry::getValue)
+                    .block();
+        } catch (Exception e) {
+            throw new RuntimeException("Error al verificar temas: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package com.qualifygym.publicaciones.config;
+
+import java.io.IOException;
+
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Identifica al cliente de cada petición y transporta su marca de lectura propia.
+ *
+ * El cliente se identifica por la cabecera {@code X-Usuario-Id} si viene informada y, si no,
+ * por la dirección remota. La marca de lectura propia es el instante (ms) hasta el que sus
+ * lecturas deben ir a la primaria tras una escritura: la fija el {@link EnrutadorDataSource} al
+ * confirmar y viaja con el propio cliente (cookie y cabecera {@code X-Lectura-Primaria-Hasta}),
+ * de modo que la respeta cualquier instancia detrás del balanceador.
+ */
+public class ClienteLecturaFilter extends OncePerRequestFilter {
+
+    public static final String CABECERA_USUARIO = "X-Usuario-Id";
+    public static final String CABECERA_LECTURA_PRIMARIA = "X-Lectura-Primaria-Hasta";
+    public static final String COOKIE_LECTURA_PRIMARIA = "lectura-primaria-hasta";
+
+    private static final ThreadLocal<Peticion> PETICION_ACTUAL = new ThreadLocal<>();
+
+    /**
+     * Obtener el cliente de la petición en curso
+     * @return Identificador del cliente, o null fuera de una petición HTTP
+     */
+    public static String clienteActual() {
+        Peticion peticion = PETICION_ACTUAL.get();
+        return peticion != null ? peticion.cliente : null;
+    }
+
+    /**
+     * Obtener la marca de lectura propia de la petición en curso
+     * @return Instante (ms) hasta el que las lecturas deben ir a la primaria, o 0 si no hay marca
+     */
+    static long lecturaPrimariaHasta() {
+        Peticion peticion = PETICION_ACTUAL.get();
+        return peticion != null ? peticion.lecturaPrimariaHasta : 0;
+    }
+
+    /**
+     * Fijar la marca de lectura propia tras una escritura confirmada: la respetan las lecturas
+     * siguientes de esta petición y se devuelve al cliente para las siguientes peticiones
+     * @param hasta Instante (ms) hasta el que las lecturas deben ir a la primaria
+     * @param ventanaMs Duración de la ventana, para la caducidad de la cookie
+     */
+    static void registrarEscritura(long hasta, long ventanaMs) {
+        Peticion peticion = PETICION_ACTUAL.get();
+        if (peticion == null) {
+            return;
+        }
+        peticion.lecturaPrimariaHasta = Math.max(peticion.lecturaPrimariaHasta, hasta);
+        HttpServletResponse response = peticion.response;
+        if (response.isCommitted()) {
+            return;
+        }
+        String valor = Long.toString(peticion.lecturaPrimariaHasta);
+        response.setHeader(CABECERA_LECTURA_PRIMARIA, valor);
+        Cookie cookie = new Cookie(COOKIE_LECTURA_PRIMARIA, valor);
+        cookie.setPath("/");
+        cookie.setHttpOnly(true);
+        cookie.setMaxAge((int) Math.max(1, (ventanaMs + 999) / 1000));
+        response.addCookie(cookie);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String usuario = request.getHeader(CABECERA_USUARIO);
+        Peticion peticion = new Peticion(
+                usuario != null && !usuario.isBlank() ? "usuario:" + usuario.trim() : "ip:" + request.getRemoteAddr(),
+                response,
+                leerMarca(request));
+        PETICION_ACTUAL.set(peticion);
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            PETICION_ACTUAL.remove();
+        }
+    }
+
+    // La cabecera tiene prioridad (clientes de API); si no viene, se usa la cookie (navegadores)
+    private static long leerMarca(HttpServletRequest request) {
+        String valor = request.getHeader(CABECERA_LECTURA_PRIMARIA);
+        if ((valor == null || valor.isBlank()) && request.getCookies() != null) {
+            for (Cookie cookie : request.getCookies()) {
+                if (COOKIE_LECTURA_PRIMARIA.equals(cookie.getName())) {
+                    valor = cookie.getValue();
+                    break;
+                }
+            }
+        }
+        if (valor == null || valor.isBlank()) {
+            return 0;
+        }
+        try {
+            return Long.parseLong(valor.trim());
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    private static final class Peticion {
+        private final String cliente;
+        private final HttpServletResponse response;
+        private long lecturaPrimariaHasta;
+
+        private Peticion(String cliente, HttpServletResponse response, long lecturaPrimariaHasta) {
+            this.cliente = cliente;
+            this.response = response;
+            this.lecturaPrimariaHasta = lecturaPrimariaHasta;
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.qualifygym.publicaciones.config;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * DataSource que enruta las conexiones entre la base de datos primaria y sus réplicas de lectura.
+ *
+ * Las transacciones marcadas {@code readOnly} se reparten entre las réplicas (round-robin);
+ * todo lo demás va a la primaria. Para no mostrarle a un cliente datos anteriores a su propia
+ * escritura (retraso de replicación), después de confirmar una transacción de escritura sus
+ * lecturas siguen yendo a la primaria durante una ventana configurable. La ventana no se guarda
+ * en la instancia: viaja con el cliente como marca de {@link ClienteLecturaFilter}, así que la
+ * respeta la instancia que atienda su siguiente petición.
+ *
+ * Debe usarse detrás de un {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy}
+ * para que la conexión se obtenga cuando la transacción ya sabe si es de solo lectura.
+ */
+public class EnrutadorDataSource extends AbstractRoutingDataSource {
+
+    static final String PRIMARIA = "primaria";
+
+    private final List<String> replicas;
+    private final long ventanaLecturaPropiaMs;
+    private final AtomicInteger siguiente = new AtomicInteger();
+
+    /**
+     * @param primaria DataSource de la base de datos primaria
+     * @param replicas DataSources de las réplicas de lectura (puede estar vacía)
+     * @param ventanaLecturaPropiaMs Tiempo que las lecturas de un cliente van a la primaria tras su escritura
+     */
+    public EnrutadorDataSource(DataSource primaria, List<DataSource> replicas, long ventanaLecturaPropiaMs) {
+        Map<Object, Object> destinos = new LinkedHashMap<>();
+        destinos.put(PRIMARIA, primaria);
+        for (int i = 0; i < replicas.size(); i++) {
+            destinos.put("replica-" + (i + 1), replicas.get(i));
+        }
+        this.replicas = destinos.keySet().stream().skip(1).map(String::valueOf).toList();
+        this.ventanaLecturaPropiaMs = ventanaLecturaPropiaMs;
+        setTargetDataSources(destinos);
+        setDefaultTargetDataSource(primaria);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            return PRIMARIA;
+        }
+
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            registrarEscrituraAlConfirmar();
+            return PRIMARIA;
+        }
+        if (replicas.isEmpty() || leeSusPropiasEscrituras(ClienteLecturaFilter.lecturaPrimariaHasta())) {
+            return PRIMARIA;
+        }
+        return replicas.get(Math.floorMod(siguiente.getAndIncrement(), replicas.size()));
+    }
+
+    /**
+     * Indica si una marca de lectura propia sigue vigente. Una marca más lejana que la ventana
+     * configurada no la pudo emitir este servicio y se ignora, para que un cliente no fije sus
+     * lecturas en la primaria indefinidamente
+     * @param hasta Instante (ms) hasta el que el cliente pide leer de la primaria (0 si no hay marca)
+     * @return true si el cliente está dentro de su ventana de lectura propia
+     */
+    boolean leeSusPropiasEscrituras(long hasta) {
+        long ahora = System.currentTimeMillis();
+        return hasta >= ahora && hasta <= ahora + ventanaLecturaPropiaMs;
+    }
+
+    // La ventana empieza al confirmar: antes de eso la escritura aún no existe ni en la primaria
+    private void registrarEscrituraAlConfirmar() {
+        if (replicas.isEmpty() || !TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                ClienteLecturaFilter.registrarEscritura(
+                        System.currentTimeMillis() + ventanaLecturaPropiaMs, ventanaLecturaPropiaMs);
+            }
+        });
+    }
+}
@@ -0,0 +1,81 @@
+package com.qualifygym.publicaciones.config;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+/**
+ * Configuración del DataSource con réplicas de lectura
+ *
+ * La primaria se construye a partir de {@code spring.datasource.*}; las réplicas se declaran
+ * en {@code replicas.datasource.urls} (separadas por comas). Sin réplicas configuradas todas
+ * las conexiones van a la primaria, igual que con el DataSource por defecto de Spring Boot.
+ */
+@Configuration
+public class ReplicaLecturaConfig {
+
+    @Value("${replicas.datasource.urls:}")
+    private List<String> urlsReplicas = new ArrayList<>();
+
+    @Value("${replicas.datasource.username:}")
+    private String usuarioReplicas;
+
+    @Value("${replicas.datasource.password:}")
+    private String passwordReplicas;
+
+    @Value("${replicas.datasource.ventana-lectura-propia-ms:5000}")
+    private long ventanaLecturaPropiaMs = 5000;
+
+    /**
+     * DataSource de la aplicación: enrutador primaria/réplicas detrás de un proxy perezoso,
+     * para que la conexión real se elija cuando la transacción ya está iniciada
+     *
+     * @param properties Propiedades {@code spring.datasource.*} de la primaria
+     * @return DataSource enrutado
+     */
+    @Bean
+    public DataSource dataSource(DataSourceProperties properties) {
+        HikariDataSource primaria = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        primaria.setPoolName("primaria");
+
+        List<DataSource> replicas = new ArrayList<>();
+        for (String url : urlsReplicas) {
+            if (url == null || url.isBlank()) {
+                continue;
+            }
+            HikariDataSource replica = properties.initializeDataSourceBuilder()
+                    .type(HikariDataSource.class)
+                    .url(url.trim())
+                    .username(usuarioReplicas == null || usuarioReplicas.isBlank() ? properties.determineUsername() : usuarioReplicas)
+                    .password(usuarioReplicas == null || usuarioReplicas.isBlank() ? properties.determinePassword() : passwordReplicas)
+                    .build();
+            replica.setPoolName("replica-" + (replicas.size() + 1));
+            replica.setReadOnly(true);
+            replicas.add(replica);
+        }
+
+        EnrutadorDataSource enrutador = new EnrutadorDataSource(primaria, replicas, ventanaLecturaPropiaMs);
+        enrutador.afterPropertiesSet();
+        return new LazyConnectionDataSourceProxy(enrutador);
+    }
+
+    /**
+     * Registra el filtro que identifica al cliente de cada petición (lectura de sus propias escrituras)
+     *
+     * @return Registro del filtro
+     */
+    @Bean
+    public FilterRegistrationBean<ClienteLecturaFilter> clienteLecturaFilter() {
+        return new FilterRegistrationBean<>(new ClienteLecturaFilter());
+    }
+}
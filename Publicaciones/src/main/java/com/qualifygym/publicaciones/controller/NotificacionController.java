@@ -1,6 +1,7 @@
 package com.qualifygym.publicaciones.controller;
 
 import java.util.List;
+import java.util.Map;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
@@ -13,6 +14,8 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
 import com.qualifygym.publicaciones.model.Notificacion;
+import com.qualifygym.publicaciones.model.NotificacionOutbox;
+import com.qualifygym.publicaciones.service.NotificacionOutboxService;
 import com.qualifygym.publicaciones.service.NotificacionService;
 
 import io.swagger.v3.oas.annotations.Operation;
@@ -28,6 +31,9 @@ public class NotificacionController {
     @Autowired
     private NotificacionService notificacionService;
 
+    @Autowired
+    private NotificacionOutboxService notificacionOutboxService;
+
     @Operation(summary = "Obtener todas las notificaciones de un usuario", 
                description = "Retorna todas las notificaciones de un usuario, ordenadas por fecha descendente")
     @ApiResponses(value = {
@@ -125,5 +131,27 @@ public class NotificacionController {
             return ResponseEntity.badRequest().body(e.getMessage());
         }
     }
-}
 
+    @Operation(summary = "Estado del outbox de notificaciones", 
+               description = "Retorna cuántas notificaciones de moderación están pendientes, entregadas o fallidas")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Estado obtenido exitosamente")
+    })
+    @GetMapping("/notificaciones/outbox/estado")
+    public ResponseEntity<Map<String, Long>> obtenerEstadoOutbox() {
+        return ResponseEntity.ok(Map.of(
+                "pendientes", notificacionOutboxService.contarPorEstado(NotificacionOutbox.Estado.PENDIENTE),
+                "entregadas", notificacionOutboxService.contarPorEstado(NotificacionOutbox.Estado.ENTREGADA),
+                "fallidas", notificacionOutboxService.contarPorEstado(NotificacionOutbox.Estado.FALLIDA)));
+    }
+
+    @Operation(summary = "Reencolar notificaciones fallidas", 
+               description = "Vuelve a dejar pendientes las notificaciones que agotaron sus reintentos de entrega")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Notificaciones reencoladas exitosamente")
+    })
+    @PutMapping("/notificaciones/outbox/reencolar")
+    public ResponseEntity<Integer> reencolarNotificacionesFallidas() {
+        return ResponseEntity.ok(notificacionOutboxService.reencolarFallidas());
+    }
+}
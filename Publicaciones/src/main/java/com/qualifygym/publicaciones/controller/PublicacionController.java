@@ -1,11 +1,26 @@
 package com.qualifygym.publicaciones.controller;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.function.Supplier;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -13,12 +28,31 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+import com.qualifygym.publicaciones.config.ClienteLecturaFilter;
+import com.qualifygym.publicaciones.dto.CambiosPublicaciones;
+import com.qualifygym.publicaciones.dto.EtiquetaConteo;
+import com.qualifygym.publicaciones.dto.PaginaPublicaciones;
+import com.qualifygym.publicaciones.dto.ProgresoImportacion;
+import com.qualifygym.publicaciones.dto.PublicacionReferencia;
+import com.qualifygym.publicaciones.dto.PublicacionResumen;
+import com.qualifygym.publicaciones.model.ActividadDiaria;
+import com.qualifygym.publicaciones.model.BorradorPublicacion;
 import com.qualifygym.publicaciones.model.Publicacion;
+import com.qualifygym.publicaciones.service.GuardadasPublicacionService;
+import com.qualifygym.publicaciones.service.ImportacionPublicacionesService;
 import com.qualifygym.publicaciones.service.PublicacionService;
+import com.qualifygym.publicaciones.service.SilenciadosService;
+import com.qualifygym.publicaciones.service.VersionFeedsService;
 
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
@@ -30,24 +64,66 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 @Tag(name = "Publicaciones", description = "API para la gestión de publicaciones del sistema QualifyGym")
 public class PublicacionController {
 
+    // Las modificaciones de una publicación exigen la versión leída para no pisar cambios concurrentes
+    private static final String FALTA_VERSION = "Debe indicar version (la recibida al leer la publicación)";
+
     @Autowired
     private PublicacionService publicacionService;
 
-    @Operation(summary = "Obtener todas las publicaciones", description = "Retorna una lista de todas las publicaciones registradas en el sistema")
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private VersionFeedsService versionFeedsService;
+
+    @Autowired
+    private GuardadasPublicacionService guardadasPublicacionService;
+
+    @Autowired
+    private SilenciadosService silenciadosService;
+
+    @Autowired
+    private ImportacionPublicacionesService importacionPublicacionesService;
+
+    // Cabecera con el cursor de la página siguiente de un feed paginado
+    static final String CABECERA_SIGUIENTE = "X-Siguiente-Antes-De";
+
+    @Operation(summary = "Obtener todas las publicaciones", description = "Retorna una lista de todas las publicaciones registradas en el sistema. " +
+            "Por defecto retorna resúmenes (vista previa de la descripción, sin datos de baneo) sin los autores silenciados por el usuario " +
+            "de X-Usuario-Id; con completo=true o incluirOcultas=true retorna las publicaciones completas. Con limite (y antesDe) los " +
+            "resúmenes se paginan por clave (fecha, ID) de la más reciente a la más antigua y la cabecera X-Siguiente-Antes-De trae " +
+            "el cursor de la página siguiente")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Lista de publicaciones obtenida exitosamente"),
-            @ApiResponse(responseCode = "204", description = "No hay publicaciones registradas")
+            @ApiResponse(responseCode = "204", description = "No hay publicaciones registradas"),
+            @ApiResponse(responseCode = "304", description = "El listado no cambió desde el ETag indicado en If-None-Match"),
+            @ApiResponse(responseCode = "400", description = "Cursor inválido")
     })
     @GetMapping("/publicaciones")
-    public ResponseEntity<List<Publicacion>> obtenerTodasPublicaciones(
-            @RequestParam(defaultValue = "false") boolean incluirOcultas) {
-        List<Publicacion> publicaciones;
+    public ResponseEntity<?> obtenerTodasPublicaciones(
+            @RequestParam(defaultValue = "false") boolean incluirOcultas,
+            @RequestParam(defaultValue = "false") boolean completo,
+            @RequestParam(required = false) String antesDe,
+            @RequestParam(required = false) Integer limite,
+            @RequestHeader(value = ClienteLecturaFilter.CABECERA_USUARIO, required = false) Long usuarioId,
+            WebRequest request) {
+        // La versión se toma antes de consultar: un cambio concurrente solo puede hacer el ETag más conservador
+        String etag = versionFeedsService.etagGlobal(variante(incluirOcultas, completo, usuarioId));
+        if (etag != null && request.checkNotModified(etag)) {
+            return null;
+        }
+        List<?> publicaciones;
         if (incluirOcultas) {
             publicaciones = publicacionService.obtenerTodasPublicaciones();
-        } else {
+        } else if (completo) {
             publicaciones = publicacionService.obtenerPublicacionesVisibles();
+        } else if (limite != null || antesDe != null) {
+            return pagina(() -> publicacionService.obtenerPaginaResumenesVisibles(antesDe, limiteFeed(limite), usuarioId), usuarioId);
+        } else {
+            publicaciones = guardadasPublicacionService.marcar(
+                    silenciadosService.filtrar(publicacionService.obtenerResumenesVisibles(), usuarioId), usuarioId);
         }
-        return publicaciones.isEmpty() ? ResponseEntity.noContent().build() : ResponseEntity.ok(publicaciones);
+        return listado(publicaciones);
     }
 
     @Operation(summary = "Obtener publicación por ID", description = "Retorna la información de una publicación específica por su ID")
@@ -61,6 +137,7 @@ public class PublicacionController {
         try {
             Optional<Publicacion> publicacion = publicacionService.obtenerPublicacionPorId(id);
             if (publicacion.isPresent()) {
+                publicacionService.registrarVista(publicacion.get(), ClienteLecturaFilter.clienteActual());
                 return ResponseEntity.ok(publicacion.get());
             } else {
                 return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Publicación no encontrada");
@@ -71,51 +148,347 @@ public class PublicacionController {
         }
     }
 
-    @Operation(summary = "Obtener publicaciones por tema", description = "Retorna todas las publicaciones asociadas a un tema específico")
+    @Operation(summary = "Obtener vistas únicas de publicación", description = "Retorna los visitantes distintos aproximados " +
+            "(HyperLogLog, error ~1,6 %) de una publicación desde siempre y entre desde y hasta (por defecto, hoy)")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Vistas únicas obtenidas exitosamente"),
+            @ApiResponse(responseCode = "400", description = "Rango de días inválido")
+    })
+    @GetMapping("/publicaciones/{id}/vistas")
+    public ResponseEntity<?> obtenerVistasUnicas(
+            @PathVariable Long id,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate desde,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate hasta) {
+        try {
+            LocalDate fin = hasta != null ? hasta : LocalDate.now();
+            LocalDate inicio = desde != null ? desde : fin;
+            Map<String, Object> respuesta = new LinkedHashMap<>();
+            respuesta.put("idPublicacion", id);
+            respuesta.put("unicas", publicacionService.contarVistasUnicas(id));
+            respuesta.put("desde", inicio.toString());
+            respuesta.put("hasta", fin.toString());
+            respuesta.put("unicasPeriodo", publicacionService.contarVistasUnicas(id, inicio, fin));
+            return ResponseEntity.ok(respuesta);
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    @Operation(summary = "Obtener vistas únicas de un tema", description = "Retorna los visitantes distintos aproximados de las " +
+            "publicaciones de un tema entre desde y hasta (por defecto, hoy); quien vio varias publicaciones o varios días cuenta una vez")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Vistas únicas obtenidas exitosamente"),
+            @ApiResponse(responseCode = "400", description = "Rango de días inválido")
+    })
+    @GetMapping("/publicaciones/vistas/tema/{temaId}")
+    public ResponseEntity<?> obtenerVistasUnicasPorTema(
+            @PathVariable Long temaId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate desde,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate hasta) {
+        try {
+            LocalDate fin = hasta != null ? hasta : LocalDate.now();
+            LocalDate inicio = desde != null ? desde : fin;
+            Map<String, Object> respuesta = new LinkedHashMap<>();
+            respuesta.put("temaId", temaId);
+            respuesta.put("desde", inicio.toString());
+            respuesta.put("hasta", fin.toString());
+            respuesta.put("unicas", publicacionService.contarVistasUnicasPorTema(temaId, inicio, fin));
+            return ResponseEntity.ok(respuesta);
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    @Operation(summary = "Obtener estadísticas diarias por tema", description = "Retorna, por día y tema, las publicaciones con " +
+            "fecha en ese día, cuántas están ocultas y cuántas visibles, entre desde y hasta (por defecto, los últimos 30 días). " +
+            "Se sirve de los resúmenes diarios, sin agrupar la tabla de publicaciones")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Estadísticas obtenidas exitosamente"),
+            @ApiResponse(responseCode = "400", description = "Rango de días inválido")
+    })
+    @GetMapping("/publicaciones/estadisticas")
+    public ResponseEntity<?> obtenerEstadisticas(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate desde,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate hasta,
+            @RequestParam(required = false) Long temaId) {
+        try {
+            LocalDate fin = hasta != null ? hasta : LocalDate.now();
+            LocalDate inicio = desde != null ? desde : fin.minusDays(29);
+            List<ActividadDiaria> dias = publicacionService.obtenerEstadisticas(inicio, fin, temaId);
+            Map<String, Object> respuesta = new LinkedHashMap<>();
+            respuesta.put("desde", inicio.toString());
+            respuesta.put("hasta", fin.toString());
+            if (temaId != null) {
+                respuesta.put("temaId", temaId);
+            }
+            respuesta.put("publicadas", dias.stream().mapToLong(ActividadDiaria::getPublicadas).sum());
+            respuesta.put("dias", dias);
+            return ResponseEntity.ok(respuesta);
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    @Operation(summary = "Obtener publicaciones relacionadas", description = "Retorna las publicaciones visibles con la descripción más " +
+            "similar a la de una publicación (índice MinHash en memoria), de más a menos similar")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Lista de publicaciones relacionadas obtenida exitosamente"),
+            @ApiResponse(responseCode = "204", description = "No hay publicaciones relacionadas")
+    })
+    @GetMapping("/publicaciones/{id}/relacionadas")
+    public ResponseEntity<List<PublicacionResumen>> obtenerPublicacionesRelacionadas(
+            @PathVariable Long id,
+            @RequestParam(defaultValue = "10") int limite,
+            @RequestHeader(value = ClienteLecturaFilter.CABECERA_USUARIO, required = false) Long usuarioId) {
+        List<PublicacionResumen> publicaciones = guardadasPublicacionService.marcar(
+                publicacionService.obtenerPublicacionesRelacionadas(id, limite), usuarioId);
+        return publicaciones.isEmpty() ? ResponseEntity.noContent().build() : ResponseEntity.ok(publicaciones);
+    }
+
+    @Operation(summary = "Obtener publicaciones por etiqueta", description = "Retorna una página de publicaciones visibles con un hashtag, " +
+            "de más reciente a más antigua. Para la página siguiente, enviar en antesDe el ID de la última publicación recibida")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Página de publicaciones obtenida exitosamente"),
+            @ApiResponse(responseCode = "204", description = "No hay (más) publicaciones con esta etiqueta"),
+            @ApiResponse(responseCode = "400", description = "Etiqueta inválida")
+    })
+    @GetMapping("/publicaciones/tag/{tag}")
+    public ResponseEntity<?> obtenerPublicacionesPorEtiqueta(
+            @PathVariable String tag,
+            @RequestParam(required = false) Long antesDe,
+            @RequestParam(defaultValue = "20") int limite,
+            @RequestHeader(value = ClienteLecturaFilter.CABECERA_USUARIO, required = false) Long usuarioId) {
+        try {
+            List<PublicacionResumen> publicaciones = guardadasPublicacionService.marcar(
+                    publicacionService.obtenerPublicacionesPorEtiqueta(tag, antesDe, limite), usuarioId);
+            return publicaciones.isEmpty() ? ResponseEntity.noContent().build() : ResponseEntity.ok(publicaciones);
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    @Operation(summary = "Contar publicaciones por etiqueta", description = "Retorna el número de publicaciones visibles con un hashtag")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Conteo realizado exitosamente"),
+            @ApiResponse(responseCode = "400", description = "Etiqueta inválida")
+    })
+    @GetMapping("/publicaciones/tag/{tag}/count")
+    public ResponseEntity<?> contarPublicacionesPorEtiqueta(@PathVariable String tag) {
+        try {
+            return ResponseEntity.ok(publicacionService.contarPublicacionesPorEtiqueta(tag));
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    @Operation(summary = "Obtener etiquetas populares", description = "Retorna los hashtags con más publicaciones visibles, de mayor a menor")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Lista de etiquetas obtenida exitosamente"),
+            @ApiResponse(responseCode = "204", description = "No hay publicaciones con etiquetas")
+    })
+    @GetMapping("/publicaciones/tags/populares")
+    public ResponseEntity<List<EtiquetaConteo>> obtenerEtiquetasPopulares(@RequestParam(defaultValue = "20") int limite) {
+        List<EtiquetaConteo> etiquetas = publicacionService.obtenerEtiquetasPopulares(limite);
+        return etiquetas.isEmpty() ? ResponseEntity.noContent().build() : ResponseEntity.ok(etiquetas);
+    }
+
+    @Operation(summary = "Obtener publicaciones calientes", description = "Retorna las publicaciones visibles con más actividad reciente " +
+            "(puntaje con decaimiento temporal), de mayor a menor")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Lista de publicaciones obtenida exitosamente"),
+            @ApiResponse(responseCode = "204", description = "No hay publicaciones con actividad reciente")
+    })
+    @GetMapping("/publicaciones/calientes")
+    public ResponseEntity<List<PublicacionResumen>> obtenerPublicacionesCalientes(
+            @RequestParam(defaultValue = "20") int limite,
+            @RequestHeader(value = ClienteLecturaFilter.CABECERA_USUARIO, required = false) Long usuarioId) {
+        List<PublicacionResumen> publicaciones = guardadasPublicacionService.marcar(
+                publicacionService.obtenerPublicacionesCalientes(null, limite), usuarioId);
+        return publicaciones.isEmpty() ? ResponseEntity.noContent().build() : ResponseEntity.ok(publicaciones);
+    }
+
+    @Operation(summary = "Obtener publicaciones calientes por tema", description = "Retorna las publicaciones visibles de un tema con más actividad reciente, de mayor a menor")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Lista de publicaciones obtenida exitosamente"),
+            @ApiResponse(responseCode = "204", description = "No hay publicaciones con actividad reciente en este tema")
+    })
+    @GetMapping("/publicaciones/tema/{temaId}/calientes")
+    public ResponseEntity<List<PublicacionResumen>> obtenerPublicacionesCalientesPorTema(
+            @PathVariable Long temaId,
+            @RequestParam(defaultValue = "20") int limite,
+            @RequestHeader(value = ClienteLecturaFilter.CABECERA_USUARIO, required = false) Long usuarioId) {
+        List<PublicacionResumen> publicaciones = guardadasPublicacionService.marcar(
+                publicacionService.obtenerPublicacionesCalientes(temaId, limite), usuarioId);
+        return publicaciones.isEmpty() ? ResponseEntity.noContent().build() : ResponseEntity.ok(publicaciones);
+    }
+
+    @Operation(summary = "Exportar publicaciones (NDJSON)", description = "Exporta todas las publicaciones, incluidas las ocultas, como NDJSON " +
+            "(una publicación JSON por línea) escrito a medida que se leen de la base de datos, con memoria constante. " +
+            "Con desde (ISO-8601, p. ej. 2025-01-31T00:00:00) solo exporta las creadas desde esa fecha")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Exportación transmitida exitosamente"),
+            @ApiResponse(responseCode = "400", description = "Fecha desde inválida")
+    })
+    @GetMapping(value = "/publicaciones/exportar", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportarPublicaciones(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime desde) {
+        ObjectWriter escritor = objectMapper.writerFor(Publicacion.class);
+        StreamingResponseBody cuerpo = salida -> publicacionService.exportarPublicaciones(desde, publicacion -> {
+            try {
+                salida.write(escritor.writeValueAsBytes(publicacion));
+                salida.write('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(cuerpo);
+    }
+
+    @Operation(summary = "Importar publicaciones", description = "Importa publicaciones en masa desde NDJSON (un objeto por línea) o CSV " +
+            "(con cabecera) según el Content-Type. Campos: titulo, descripcion, usuarioId, temaId y, opcionales, imageUrl, fecha y oculta. " +
+            "La respuesta se transmite como NDJSON: una línea por cada registro rechazado (linea, error), el avance tras cada lote " +
+            "y un resumen final con finalizada")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Importación transmitida (revisar errores y el resumen final)")
+    })
+    @PostMapping(value = "/publicaciones/importar", consumes = { MediaType.APPLICATION_NDJSON_VALUE, "text/csv" },
+            produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> importarPublicaciones(
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType tipo, InputStream entrada) {
+        ImportacionPublicacionesService.Formato formato = tipo.isCompatibleWith(MediaType.parseMediaType("text/csv"))
+                ? ImportacionPublicacionesService.Formato.CSV
+                : ImportacionPublicacionesService.Formato.NDJSON;
+        ObjectWriter escritor = objectMapper.writerFor(ProgresoImportacion.class);
+        StreamingResponseBody cuerpo = salida -> {
+            ProgresoImportacion resumen = importacionPublicacionesService.importar(
+                    new InputStreamReader(entrada, StandardCharsets.UTF_8), formato, evento -> escribirEvento(salida, escritor, evento));
+            escribirEvento(salida, escritor, resumen);
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(cuerpo);
+    }
+
+    // Cada evento de la importación es una línea; el avance se envía de inmediato para que el cliente lo vea
+    private static void escribirEvento(OutputStream salida, ObjectWriter escritor, ProgresoImportacion evento) {
+        try {
+            salida.write(escritor.writeValueAsBytes(evento));
+            salida.write('\n');
+            if (evento.getLinea() == null) {
+                salida.flush();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Operation(summary = "Obtener cambios de publicaciones (sincronización incremental)", description = "Retorna los cambios posteriores a la secuencia desde " +
+            "(último cambio por publicación, con su resumen actual si sigue visible) y la nueva marca para la próxima consulta. " +
+            "Sin desde, o con una marca ya descartada del registro, retorna reiniciar=true y una marca inicial: el cliente debe recargar el feed completo")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Cambios obtenidos exitosamente")
+    })
+    @GetMapping("/publicaciones/cambios")
+    public ResponseEntity<CambiosPublicaciones> obtenerCambios(
+            @RequestParam(required = false) Long desde,
+            @RequestParam(defaultValue = "500") int limite) {
+        return ResponseEntity.ok(publicacionService.obtenerCambios(desde, limite));
+    }
+
+    @Operation(summary = "Obtener publicaciones por tema", description = "Retorna todas las publicaciones asociadas a un tema específico. " +
+            "Por defecto retorna resúmenes sin los autores silenciados por el usuario; con completo=true o incluirOcultas=true retorna " +
+            "las publicaciones completas. Con limite (y antesDe) los resúmenes se paginan por clave como en el feed general")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Lista de publicaciones obtenida exitosamente"),
-            @ApiResponse(responseCode = "204", description = "No hay publicaciones para este tema")
+            @ApiResponse(responseCode = "204", description = "No hay publicaciones para este tema"),
+            @ApiResponse(responseCode = "304", description = "El listado no cambió desde el ETag indicado en If-None-Match"),
+            @ApiResponse(responseCode = "400", description = "Cursor inválido")
     })
     @GetMapping("/publicaciones/tema/{temaId}")
-    public ResponseEntity<List<Publicacion>> obtenerPublicacionesPorTema(
+    public ResponseEntity<?> obtenerPublicacionesPorTema(
             @PathVariable Long temaId,
-            @RequestParam(defaultValue = "false") boolean incluirOcultas) {
-        List<Publicacion> publicaciones;
+            @RequestParam(defaultValue = "false") boolean incluirOcultas,
+            @RequestParam(defaultValue = "false") boolean completo,
+            @RequestParam(required = false) String antesDe,
+            @RequestParam(required = false) Integer limite,
+            @RequestHeader(value = ClienteLecturaFilter.CABECERA_USUARIO, required = false) Long usuarioId,
+            WebRequest request) {
+        String etag = versionFeedsService.etagTema(temaId, variante(incluirOcultas, completo, usuarioId));
+        if (etag != null && request.checkNotModified(etag)) {
+            return null;
+        }
+        List<?> publicaciones;
         if (incluirOcultas) {
             publicaciones = publicacionService.obtenerPublicacionesPorTema(temaId);
-        } else {
+        } else if (completo) {
             publicaciones = publicacionService.obtenerPublicacionesVisiblesPorTema(temaId);
+        } else if (limite != null || antesDe != null) {
+            return pagina(() -> publicacionService.obtenerPaginaResumenesVisiblesPorTema(temaId, antesDe, limiteFeed(limite), usuarioId), usuarioId);
+        } else {
+            publicaciones = guardadasPublicacionService.marcar(
+                    silenciadosService.filtrar(publicacionService.obtenerResumenesVisiblesPorTema(temaId), usuarioId), usuarioId);
         }
-        return publicaciones.isEmpty() ? ResponseEntity.noContent().build() : ResponseEntity.ok(publicaciones);
+        return listado(publicaciones);
     }
 
-    @Operation(summary = "Obtener publicaciones por usuario", description = "Retorna todas las publicaciones creadas por un usuario específico")
+    @Operation(summary = "Obtener publicaciones por usuario", description = "Retorna todas las publicaciones creadas por un usuario específico. " +
+            "Por defecto retorna resúmenes; con completo=true o incluirOcultas=true retorna las publicaciones completas")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Lista de publicaciones obtenida exitosamente"),
-            @ApiResponse(responseCode = "204", description = "El usuario no tiene publicaciones")
+            @ApiResponse(responseCode = "204", description = "El usuario no tiene publicaciones"),
+            @ApiResponse(responseCode = "304", description = "El listado no cambió desde el ETag indicado en If-None-Match")
     })
     @GetMapping("/publicaciones/usuario/{usuarioId}")
-    public ResponseEntity<List<Publicacion>> obtenerPublicacionesPorUsuario(
+    public ResponseEntity<List<?>> obtenerPublicacionesPorUsuario(
             @PathVariable Long usuarioId,
-            @RequestParam(defaultValue = "false") boolean incluirOcultas) {
-        List<Publicacion> publicaciones;
+            @RequestParam(defaultValue = "false") boolean incluirOcultas,
+            @RequestParam(defaultValue = "false") boolean completo,
+            @RequestHeader(value = ClienteLecturaFilter.CABECERA_USUARIO, required = false) Long solicitanteId,
+            WebRequest request) {
+        String etag = versionFeedsService.etagUsuario(usuarioId, variante(incluirOcultas, completo, solicitanteId));
+        if (etag != null && request.checkNotModified(etag)) {
+            return null;
+        }
+        List<?> publicaciones;
         if (incluirOcultas) {
             publicaciones = publicacionService.obtenerPublicacionesPorUsuario(usuarioId);
-        } else {
+        } else if (completo) {
             publicaciones = publicacionService.obtenerPublicacionesVisiblesPorUsuario(usuarioId);
+        } else {
+            publicaciones = guardadasPublicacionService.marcar(
+                    publicacionService.obtenerResumenesVisiblesPorUsuario(usuarioId), solicitanteId);
         }
-        return publicaciones.isEmpty() ? ResponseEntity.noContent().build() : ResponseEntity.ok(publicaciones);
+        return listado(publicaciones);
     }
 
-    @Operation(summary = "Buscar publicaciones", description = "Busca publicaciones por texto en título o descripción")
+    @Operation(summary = "Buscar publicaciones", description = "Busca publicaciones por texto en título o descripción. " +
+            "Por defecto retorna resúmenes sin los autores silenciados por el usuario; con completo=true retorna las publicaciones " +
+            "completas. Con limite (y antesDe) los resúmenes se paginan por clave como en el feed general")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Búsqueda realizada exitosamente"),
-            @ApiResponse(responseCode = "204", description = "No se encontraron publicaciones")
+            @ApiResponse(responseCode = "204", description = "No se encontraron publicaciones"),
+            @ApiResponse(responseCode = "304", description = "El resultado no cambió desde el ETag indicado en If-None-Match"),
+            @ApiResponse(responseCode = "400", description = "Cursor inválido")
     })
     @GetMapping("/publicaciones/buscar")
-    public ResponseEntity<List<Publicacion>> buscarPublicaciones(@RequestParam String query) {
-        List<Publicacion> publicaciones = publicacionService.buscarPublicaciones(query);
-        return publicaciones.isEmpty() ? ResponseEntity.noContent().build() : ResponseEntity.ok(publicaciones);
+    public ResponseEntity<?> buscarPublicaciones(
+            @RequestParam String query,
+            @RequestParam(defaultValue = "false") boolean completo,
+            @RequestParam(required = false) String antesDe,
+            @RequestParam(required = false) Integer limite,
+            @RequestHeader(value = ClienteLecturaFilter.CABECERA_USUARIO, required = false) Long usuarioId,
+            WebRequest request) {
+        // Una búsqueda puede incluir publicaciones de cualquier tema: se usa la versión global
+        String etag = versionFeedsService.etagGlobal(variante(false, completo, usuarioId));
+        if (etag != null && request.checkNotModified(etag)) {
+            return null;
+        }
+        if (!completo && (limite != null || antesDe != null)) {
+            return pagina(() -> publicacionService.buscarPaginaResumenes(query, antesDe, limiteFeed(limite), usuarioId), usuarioId);
+        }
+        List<?> publicaciones = completo
+                ? publicacionService.buscarPublicaciones(query)
+                : guardadasPublicacionService.marcar(
+                        silenciadosService.filtrar(publicacionService.buscarResumenes(query), usuarioId), usuarioId);
+        return listado(publicaciones);
     }
 
     @Operation(summary = "Contar publicaciones por tema", description = "Retorna el número total de publicaciones asociadas a un tema")
@@ -168,19 +541,29 @@ public class PublicacionController {
         }
     }
 
-    @Operation(summary = "Actualizar publicación", description = "Actualiza el título y/o descripción de una publicación existente")
+    @Operation(summary = "Actualizar publicación", description = "Actualiza el título y/o descripción de una publicación existente. " +
+            "Requiere version (la recibida al leerla): la actualización solo se aplica si nadie la modificó entretanto. " +
+            "La respuesta lleva el estado de la publicación (versión, visibilidad, tema, usuario, fecha) y los campos modificados")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Publicación actualizada exitosamente"),
-            @ApiResponse(responseCode = "400", description = "Datos inválidos o publicación no encontrada")
+            @ApiResponse(responseCode = "400", description = "Datos inválidos o publicación no encontrada"),
+            @ApiResponse(responseCode = "409", description = "La publicación cambió desde la versión indicada"),
+            @ApiResponse(responseCode = "428", description = "Falta la versión de la publicación")
     })
     @PutMapping("/publicaciones/{id}")
     public ResponseEntity<?> actualizarPublicacion(@PathVariable Long id, @RequestBody Map<String, Object> datos) {
         try {
             String titulo = (String) datos.get("titulo");
             String descripcion = (String) datos.get("descripcion");
+            Long version = leerVersion(datos);
+            if (version == null) {
+                return ResponseEntity.status(HttpStatus.PRECONDITION_REQUIRED).body(FALTA_VERSION);
+            }
 
-            Publicacion actualizada = publicacionService.actualizarPublicacion(id, titulo, descripcion);
+            Publicacion actualizada = publicacionService.actualizarPublicacion(id, titulo, descripcion, version);
             return ResponseEntity.ok(actualizada);
+        } catch (OptimisticLockingFailureException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
         } catch (RuntimeException e) {
             return ResponseEntity.badRequest().body(e.getMessage());
         }
@@ -189,14 +572,22 @@ public class PublicacionController {
     @Operation(summary = "Actualizar imagen de publicación", description = "Actualiza la URL de la imagen asociada a una publicación")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Imagen actualizada exitosamente"),
-            @ApiResponse(responseCode = "400", description = "Publicación no encontrada")
+            @ApiResponse(responseCode = "400", description = "Publicación no encontrada"),
+            @ApiResponse(responseCode = "409", description = "La publicación cambió desde la versión indicada"),
+            @ApiResponse(responseCode = "428", description = "Falta la versión de la publicación")
     })
     @PutMapping("/publicaciones/{id}/imagen")
     public ResponseEntity<?> actualizarImagenPublicacion(@PathVariable Long id, @RequestBody Map<String, Object> datos) {
         try {
             String imageUrl = (String) datos.get("imageUrl");
-            Publicacion actualizada = publicacionService.actualizarImagenPublicacion(id, imageUrl);
+            Long version = leerVersion(datos);
+            if (version == null) {
+                return ResponseEntity.status(HttpStatus.PRECONDITION_REQUIRED).body(FALTA_VERSION);
+            }
+            Publicacion actualizada = publicacionService.actualizarImagenPublicacion(id, imageUrl, version);
             return ResponseEntity.ok(actualizada);
+        } catch (OptimisticLockingFailureException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
         } catch (RuntimeException e) {
             return ResponseEntity.badRequest().body(e.getMessage());
         }
@@ -205,14 +596,22 @@ public class PublicacionController {
     @Operation(summary = "Ocultar publicación", description = "Oculta una publicación (moderación). La publicación no será visible para los usuarios")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Publicación ocultada exitosamente"),
-            @ApiResponse(responseCode = "400", description = "Publicación no encontrada")
+            @ApiResponse(responseCode = "400", description = "Publicación no encontrada"),
+            @ApiResponse(responseCode = "409", description = "La publicación cambió desde la versión indicada"),
+            @ApiResponse(responseCode = "428", description = "Falta la versión de la publicación")
     })
     @PutMapping("/publicaciones/{id}/ocultar")
     public ResponseEntity<?> ocultarPublicacion(@PathVariable Long id, @RequestBody Map<String, Object> datos) {
         try {
             String motivoBaneo = (String) datos.get("motivoBaneo");
-            Publicacion oculta = publicacionService.ocultarPublicacion(id, motivoBaneo);
+            Long version = leerVersion(datos);
+            if (version == null) {
+                return ResponseEntity.status(HttpStatus.PRECONDITION_REQUIRED).body(FALTA_VERSION);
+            }
+            Publicacion oculta = publicacionService.ocultarPublicacion(id, motivoBaneo, version);
             return ResponseEntity.ok(oculta);
+        } catch (OptimisticLockingFailureException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
         } catch (RuntimeException e) {
             return ResponseEntity.badRequest().body(e.getMessage());
         }
@@ -221,13 +620,312 @@ public class PublicacionController {
     @Operation(summary = "Mostrar publicación", description = "Muestra una publicación previamente oculta (desocultar)")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Publicación mostrada exitosamente"),
-            @ApiResponse(responseCode = "400", description = "Publicación no encontrada")
+            @ApiResponse(responseCode = "400", description = "Publicación no encontrada"),
+            @ApiResponse(responseCode = "409", description = "La publicación cambió desde la versión indicada"),
+            @ApiResponse(responseCode = "428", description = "Falta la versión de la publicación")
     })
     @PutMapping("/publicaciones/{id}/mostrar")
-    public ResponseEntity<?> mostrarPublicacion(@PathVariable Long id) {
+    public ResponseEntity<?> mostrarPublicacion(@PathVariable Long id, @RequestParam(required = false) Long version) {
         try {
-            Publicacion mostrada = publicacionService.mostrarPublicacion(id);
+            if (version == null) {
+                return ResponseEntity.status(HttpStatus.PRECONDITION_REQUIRED).body(FALTA_VERSION);
+            }
+            Publicacion mostrada = publicacionService.mostrarPublicacion(id, version);
             return ResponseEntity.ok(mostrada);
+        } catch (OptimisticLockingFailureException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    @Operation(summary = "Ocultar publicaciones en lote", description = "Oculta muchas publicaciones con una sola operación (moderación masiva). " +
+            "Acepta una lista de IDs (ids) o un filtro por usuario (usuarioId) y ventana de tiempo (ultimosMinutos)")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Publicaciones ocultadas exitosamente"),
+            @ApiResponse(responseCode = "400", description = "Datos inválidos o faltantes")
+    })
+    @PutMapping("/publicaciones/lote/ocultar")
+    public ResponseEntity<?> ocultarPublicacionesEnLote(@RequestBody Map<String, Object> datos) {
+        try {
+            String motivoBaneo = (String) datos.get("motivoBaneo");
+            List<Long> ids = leerIds(datos.get("ids"));
+            int procesadas;
+            if (ids != null) {
+                procesadas = publicacionService.ocultarPublicaciones(ids, motivoBaneo);
+            } else {
+                procesadas = publicacionService.ocultarPublicacionesDeUsuarioDesde(
+                        leerLong(datos.get("usuarioId")), leerDesde(datos), motivoBaneo);
+            }
+            return ResponseEntity.ok(Map.of("procesadas", procesadas));
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    @Operation(summary = "Mostrar publicaciones en lote", description = "Muestra muchas publicaciones ocultas con una sola operación. " +
+            "Acepta una lista de IDs (ids) o un filtro por usuario (usuarioId) y ventana de tiempo (ultimosMinutos)")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Publicaciones mostradas exitosamente"),
+            @ApiResponse(responseCode = "400", description = "Datos inválidos o faltantes")
+    })
+    @PutMapping("/publicaciones/lote/mostrar")
+    public ResponseEntity<?> mostrarPublicacionesEnLote(@RequestBody Map<String, Object> datos) {
+        try {
+            List<Long> ids = leerIds(datos.get("ids"));
+            int procesadas;
+            if (ids != null) {
+                procesadas = publicacionService.mostrarPublicaciones(ids);
+            } else {
+                procesadas = publicacionService.mostrarPublicacionesDeUsuarioDesde(
+                        leerLong(datos.get("usuarioId")), leerDesde(datos));
+            }
+            return ResponseEntity.ok(Map.of("procesadas", procesadas));
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    @Operation(summary = "Guardar publicación", description = "Agrega una publicación a las guardadas de un usuario para leerla más tarde")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Publicación guardada exitosamente"),
+            @ApiResponse(responseCode = "400", description = "Publicación no encontrada, usuario inválido o máximo de guardadas alcanzado")
+    })
+    @PutMapping("/publicaciones/{id}/guardar")
+    public ResponseEntity<?> guardarPublicacion(@PathVariable Long id, @RequestBody Map<String, Object> datos) {
+        try {
+            publicacionService.guardarPublicacion(id, leerLong(datos.get("usuarioId")));
+            return ResponseEntity.ok(Map.of("idPublicacion", id, "guardada", true));
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    @Operation(summary = "Quitar publicación guardada", description = "Quita una publicación de las guardadas de un usuario")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Publicación quitada de las guardadas"),
+            @ApiResponse(responseCode = "400", description = "Usuario inválido")
+    })
+    @DeleteMapping("/publicaciones/{id}/guardar")
+    public ResponseEntity<?> quitarPublicacionGuardada(@PathVariable Long id, @RequestParam Long usuarioId) {
+        try {
+            publicacionService.quitarPublicacionGuardada(id, usuarioId);
+            return ResponseEntity.ok(Map.of("idPublicacion", id, "guardada", false));
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    @Operation(summary = "Obtener publicaciones guardadas", description = "Retorna una página de las publicaciones visibles guardadas por un usuario, " +
+            "de ID mayor a menor. Para la página siguiente, enviar en antesDe el ID de la última publicación recibida")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Página de publicaciones obtenida exitosamente"),
+            @ApiResponse(responseCode = "204", description = "El usuario no tiene (más) publicaciones guardadas")
+    })
+    @GetMapping("/publicaciones/guardadas/usuario/{usuarioId}")
+    public ResponseEntity<List<PublicacionResumen>> obtenerPublicacionesGuardadas(
+            @PathVariable Long usuarioId,
+            @RequestParam(required = false) Long antesDe,
+            @RequestParam(defaultValue = "20") int limite) {
+        List<PublicacionResumen> publicaciones = publicacionService.obtenerPublicacionesGuardadas(usuarioId, antesDe, limite);
+        return publicaciones.isEmpty() ? ResponseEntity.noContent().build() : ResponseEntity.ok(publicaciones);
+    }
+
+    @Operation(summary = "Reaccionar a publicación", description = "Registra un \"me gusta\" de un usuario a una publicación visible. " +
+            "Cada usuario reacciona una sola vez; repetir la petición no cambia el total")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Reacción registrada"),
+            @ApiResponse(responseCode = "400", description = "Publicación no encontrada u oculta, o usuario inválido")
+    })
+    @PutMapping("/publicaciones/{id}/reaccion")
+    public ResponseEntity<?> reaccionarPublicacion(@PathVariable Long id, @RequestBody Map<String, Object> datos) {
+        try {
+            publicacionService.reaccionarPublicacion(id, leerLong(datos.get("usuarioId")));
+            return ResponseEntity.ok(Map.of("idPublicacion", id, "reaccionada", true,
+                    "total", publicacionService.contarReacciones(id)));
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    @Operation(summary = "Quitar reacción", description = "Quita el \"me gusta\" de un usuario a una publicación")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Reacción quitada"),
+            @ApiResponse(responseCode = "400", description = "Usuario inválido")
+    })
+    @DeleteMapping("/publicaciones/{id}/reaccion")
+    public ResponseEntity<?> quitarReaccionPublicacion(@PathVariable Long id, @RequestParam Long usuarioId) {
+        try {
+            publicacionService.quitarReaccionPublicacion(id, usuarioId);
+            return ResponseEntity.ok(Map.of("idPublicacion", id, "reaccionada", false,
+                    "total", publicacionService.contarReacciones(id)));
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    @Operation(summary = "Obtener reacciones de publicación", description = "Retorna el total de reacciones de una publicación y, " +
+            "si se indica usuarioId, si ese usuario reaccionó")
+    @ApiResponse(responseCode = "200", description = "Reacciones obtenidas exitosamente")
+    @GetMapping("/publicaciones/{id}/reacciones")
+    public ResponseEntity<Map<String, Object>> obtenerReacciones(@PathVariable Long id, @RequestParam(required = false) Long usuarioId) {
+        Map<String, Object> respuesta = new LinkedHashMap<>();
+        respuesta.put("idPublicacion", id);
+        respuesta.put("total", publicacionService.contarReacciones(id));
+        if (usuarioId != null) {
+            respuesta.put("reaccionada", publicacionService.haReaccionado(id, usuarioId));
+        }
+        return ResponseEntity.ok(respuesta);
+    }
+
+    @Operation(summary = "Contar reacciones de varias publicaciones", description = "Retorna el total de reacciones de cada ID recibido " +
+            "en una sola llamada (máximo 500 IDs)")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Totales obtenidos exitosamente"),
+            @ApiResponse(responseCode = "400", description = "Lista de IDs vacía o demasiado grande")
+    })
+    @GetMapping("/publicaciones/reacciones")
+    public ResponseEntity<?> contarReacciones(@RequestParam List<Long> ids) {
+        try {
+            return ResponseEntity.ok(publicacionService.contarReacciones(ids));
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    @Operation(summary = "Silenciar autor", description = "Oculta las publicaciones de un autor en los feeds (todas, por tema y búsqueda) " +
+            "del usuario indicado en usuarioId")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Autor silenciado exitosamente"),
+            @ApiResponse(responseCode = "400", description = "Autor inexistente, usuario inválido o máximo de silenciados alcanzado")
+    })
+    @PutMapping("/publicaciones/usuario/{autorId}/silenciar")
+    public ResponseEntity<?> silenciarAutor(@PathVariable Long autorId, @RequestBody Map<String, Object> datos) {
+        try {
+            publicacionService.silenciarAutor(leerLong(datos.get("usuarioId")), autorId);
+            return ResponseEntity.ok(Map.of("autorId", autorId, "silenciado", true));
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    @Operation(summary = "Dejar de silenciar autor", description = "Vuelve a mostrar las publicaciones de un autor en los feeds del usuario")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Autor ya no silenciado"),
+            @ApiResponse(responseCode = "400", description = "Usuario inválido")
+    })
+    @DeleteMapping("/publicaciones/usuario/{autorId}/silenciar")
+    public ResponseEntity<?> quitarSilenciado(@PathVariable Long autorId, @RequestParam Long usuarioId) {
+        try {
+            publicacionService.quitarSilenciado(usuarioId, autorId);
+            return ResponseEntity.ok(Map.of("autorId", autorId, "silenciado", false));
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    @Operation(summary = "Obtener autores silenciados", description = "Retorna una página de los IDs de autores silenciados por un usuario, " +
+            "de mayor a menor. Para la página siguiente, enviar en antesDe el último ID recibido")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Página de silenciados obtenida exitosamente"),
+            @ApiResponse(responseCode = "204", description = "El usuario no tiene (más) autores silenciados")
+    })
+    @GetMapping("/publicaciones/silenciados/usuario/{usuarioId}")
+    public ResponseEntity<List<Long>> obtenerSilenciados(
+            @PathVariable Long usuarioId,
+            @RequestParam(required = false) Long antesDe,
+            @RequestParam(defaultValue = "50") int limite) {
+        List<Long> silenciados = publicacionService.obtenerSilenciados(usuarioId, antesDe, limite);
+        return silenciados.isEmpty() ? ResponseEntity.noContent().build() : ResponseEntity.ok(silenciados);
+    }
+
+    @Operation(summary = "Crear borrador", description = "Crea un borrador de publicación. Título, descripción, tema e imagen son " +
+            "opcionales hasta publicarlo")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "201", description = "Borrador creado exitosamente"),
+            @ApiResponse(responseCode = "400", description = "Datos inválidos o máximo de borradores alcanzado")
+    })
+    @PostMapping("/publicaciones/borradores")
+    public ResponseEntity<?> crearBorrador(@RequestBody Map<String, Object> datos) {
+        try {
+            BorradorPublicacion borrador = publicacionService.crearBorrador(leerLong(datos.get("usuarioId")),
+                    (String) datos.get("titulo"), (String) datos.get("descripcion"), leerLong(datos.get("temaId")),
+                    (String) datos.get("imageUrl"));
+            return ResponseEntity.status(HttpStatus.CREATED).body(borrador);
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    @Operation(summary = "Autoguardar borrador", description = "Reemplaza el contenido de un borrador. Los autoguardados se agrupan " +
+            "en memoria y solo el último de cada ventana se escribe en la base de datos")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Contenido guardado"),
+            @ApiResponse(responseCode = "400", description = "Datos inválidos o borrador no encontrado")
+    })
+    @PutMapping("/publicaciones/borradores/{id}")
+    public ResponseEntity<?> autoguardarBorrador(@PathVariable Long id, @RequestBody Map<String, Object> datos) {
+        try {
+            BorradorPublicacion borrador = publicacionService.autoguardarBorrador(id, leerLong(datos.get("usuarioId")),
+                    (String) datos.get("titulo"), (String) datos.get("descripcion"), leerLong(datos.get("temaId")),
+                    (String) datos.get("imageUrl"));
+            return ResponseEntity.ok(borrador);
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    @Operation(summary = "Obtener borrador", description = "Retorna un borrador del usuario con su último contenido autoguardado")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Borrador encontrado"),
+            @ApiResponse(responseCode = "404", description = "Borrador no encontrado")
+    })
+    @GetMapping("/publicaciones/borradores/{id}")
+    public ResponseEntity<?> obtenerBorrador(@PathVariable Long id, @RequestParam Long usuarioId) {
+        Optional<BorradorPublicacion> borrador = publicacionService.obtenerBorrador(id, usuarioId);
+        if (borrador.isPresent()) {
+            return ResponseEntity.ok(borrador.get());
+        }
+        return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Borrador no encontrado");
+    }
+
+    @Operation(summary = "Obtener borradores de un usuario", description = "Retorna los borradores del usuario, del último modificado al primero")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Borradores obtenidos exitosamente"),
+            @ApiResponse(responseCode = "204", description = "El usuario no tiene borradores")
+    })
+    @GetMapping("/publicaciones/borradores/usuario/{usuarioId}")
+    public ResponseEntity<List<BorradorPublicacion>> obtenerBorradores(@PathVariable Long usuarioId) {
+        List<BorradorPublicacion> borradores = publicacionService.obtenerBorradores(usuarioId);
+        return borradores.isEmpty() ? ResponseEntity.noContent().build() : ResponseEntity.ok(borradores);
+    }
+
+    @Operation(summary = "Publicar borrador", description = "Crea la publicación con el último contenido del borrador y elimina el borrador. " +
+            "Valida que el contenido esté completo y que el tema exista")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "201", description = "Publicación creada exitosamente"),
+            @ApiResponse(responseCode = "400", description = "Borrador no encontrado o contenido incompleto")
+    })
+    @PostMapping("/publicaciones/borradores/{id}/publicar")
+    public ResponseEntity<?> publicarBorrador(@PathVariable Long id, @RequestBody Map<String, Object> datos) {
+        try {
+            Publicacion publicada = publicacionService.publicarBorrador(id, leerLong(datos.get("usuarioId")));
+            return ResponseEntity.status(HttpStatus.CREATED).body(publicada);
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    @Operation(summary = "Eliminar borrador", description = "Descarta un borrador del usuario")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Borrador eliminado"),
+            @ApiResponse(responseCode = "400", description = "Borrador no encontrado")
+    })
+    @DeleteMapping("/publicaciones/borradores/{id}")
+    public ResponseEntity<?> eliminarBorrador(@PathVariable Long id, @RequestParam Long usuarioId) {
+        try {
+            publicacionService.eliminarBorrador(id, usuarioId);
+            return ResponseEntity.ok("Borrador eliminado exitosamente");
         } catch (RuntimeException e) {
             return ResponseEntity.badRequest().body(e.getMessage());
         }
@@ -260,11 +958,121 @@ public class PublicacionController {
     @GetMapping("/existe/{id}")
     public ResponseEntity<Boolean> existePublicacion(@PathVariable Long id) {
         try {
-            Optional<Publicacion> publicacion = publicacionService.obtenerPublicacionPorId(id);
-            return ResponseEntity.ok(publicacion.isPresent());
+            return ResponseEntity.ok(publicacionService.existePublicacion(id));
         } catch (Exception e) {
             return ResponseEntity.ok(false);
         }
     }
-}
 
+    @Operation(summary = "Verificar si varias publicaciones existen", description = "Retorna, para cada ID recibido, si la publicación existe. " +
+            "Permite a otros microservicios validar varias referencias en una sola llamada (máximo 500 IDs)")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Verificación exitosa"),
+            @ApiResponse(responseCode = "400", description = "Lista de IDs vacía o demasiado grande")
+    })
+    @GetMapping("/existen")
+    public ResponseEntity<?> existenPublicaciones(@RequestParam List<Long> ids) {
+        try {
+            return ResponseEntity.ok(publicacionService.existenPublicaciones(ids));
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    @Operation(summary = "Obtener referencias de varias publicaciones", description = "Retorna una vista mínima (id, usuario, tema y visibilidad) " +
+            "de las publicaciones existentes entre los IDs recibidos (máximo 500 IDs)")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Referencias obtenidas exitosamente"),
+            @ApiResponse(responseCode = "400", description = "Lista de IDs vacía o demasiado grande")
+    })
+    @GetMapping("/publicaciones/referencias")
+    public ResponseEntity<?> obtenerReferenciasPublicaciones(@RequestParam List<Long> ids) {
+        try {
+            List<PublicacionReferencia> referencias = publicacionService.obtenerReferenciasPublicaciones(ids);
+            return ResponseEntity.ok(referencias);
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    // Convierte el arreglo JSON de IDs del cuerpo a una lista de Long (null si no viene)
+    private List<Long> leerIds(Object valor) {
+        if (valor == null) {
+            return null;
+        }
+        if (!(valor instanceof List<?> lista)) {
+            throw new RuntimeException("El campo ids debe ser una lista");
+        }
+        List<Long> ids = new ArrayList<>(lista.size());
+        for (Object id : lista) {
+            ids.add(leerLong(id));
+        }
+        return ids;
+    }
+
+    private Long leerLong(Object valor) {
+        return valor != null ? Long.valueOf(valor.toString()) : null;
+    }
+
+    // Ventana de moderación masiva: "ultimosMinutos" hacia atrás desde ahora (por defecto 60)
+    private LocalDateTime leerDesde(Map<String, Object> datos) {
+        Long minutos = leerLong(datos.get("ultimosMinutos"));
+        if (minutos == null) {
+            minutos = 60L;
+        }
+        if (minutos <= 0) {
+            throw new RuntimeException("ultimosMinutos debe ser mayor que cero");
+        }
+        return LocalDateTime.now().minusMinutes(minutos);
+    }
+
+    // Variante de la representación de un listado, parte del ETag. Los resúmenes pedidos por un usuario
+    // identificado llevan sus marcas de guardada y omiten a sus silenciados: la variante incluye ambas versiones
+    private String variante(boolean incluirOcultas, boolean completo, Long usuarioId) {
+        if (incluirOcultas || completo) {
+            return incluirOcultas ? "o" : "c";
+        }
+        if (usuarioId == null) {
+            return "r";
+        }
+        long silenciados = silenciadosService.version(usuarioId);
+        return "r" + usuarioId + "." + guardadasPublicacionService.version(usuarioId) + (silenciados != 0 ? "." + silenciados : "");
+    }
+
+    // Página de un feed paginado por clave: el cursor de la siguiente va en la cabecera X-Siguiente-Antes-De.
+    // Una página puede venir vacía con cursor si todo lo leído era de autores silenciados
+    private ResponseEntity<?> pagina(Supplier<PaginaPublicaciones> consulta, Long usuarioId) {
+        PaginaPublicaciones pagina;
+        try {
+            pagina = consulta.get();
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+        List<PublicacionResumen> publicaciones = guardadasPublicacionService.marcar(pagina.getPublicaciones(), usuarioId);
+        if (publicaciones.isEmpty() && pagina.getSiguienteAntesDe() == null) {
+            return ResponseEntity.noContent().build();
+        }
+        ResponseEntity.BodyBuilder respuesta = ResponseEntity.ok().varyBy(ClienteLecturaFilter.CABECERA_USUARIO);
+        if (pagina.getSiguienteAntesDe() != null) {
+            respuesta.header(CABECERA_SIGUIENTE, pagina.getSiguienteAntesDe());
+        }
+        return respuesta.body(publicaciones);
+    }
+
+    private static int limiteFeed(Integer limite) {
+        return limite != null ? limite : 20;
+    }
+
+    // Respuesta de un listado con ETag; varía según el usuario de la petición por las marcas de guardada
+    private static ResponseEntity<List<?>> listado(List<?> publicaciones) {
+        return publicaciones.isEmpty()
+                ? ResponseEntity.noContent().build()
+                : ResponseEntity.ok().varyBy(ClienteLecturaFilter.CABECERA_USUARIO).body(publicaciones);
+    }
+
+    // Versión esperada enviada por el cliente (control de concurrencia optimista)
+    private static Long leerVersion(Map<String, Object> datos) {
+        Object version = datos.get("version");
+        return version != null ? Long.valueOf(version.toString()) : null;
+    }
+}
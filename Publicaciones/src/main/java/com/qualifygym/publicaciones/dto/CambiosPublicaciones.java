@@ -0,0 +1,45 @@
+package com.qualifygym.publicaciones.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.qualifygym.publicaciones.model.CambioPublicacion;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Respuesta de sincronización incremental: cambios posteriores a la marca del cliente
+ * y la nueva marca desde la que debe pedir la próxima vez.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class CambiosPublicaciones {
+
+    // Secuencia hasta la que quedan incluidos los cambios (usar como "desde" en la próxima consulta)
+    private Long marca;
+
+    // true si quedan más cambios después de la marca
+    private boolean hayMas;
+
+    // true si la marca del cliente es anterior al registro retenido: debe recargar el feed completo
+    private boolean reiniciar;
+
+    private List<Cambio> cambios = new ArrayList<>();
+
+    /**
+     * Último cambio de una publicación dentro de la respuesta. {@code publicacion} trae el
+     * resumen actual cuando la publicación está visible; si es null, el cliente debe quitarla.
+     */
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class Cambio {
+        private Long seq;
+        private Long idPublicacion;
+        private CambioPublicacion.Tipo tipo;
+        private PublicacionResumen publicacion;
+    }
+}
@@ -0,0 +1,18 @@
+package com.qualifygym.publicaciones.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Hashtag con el número de publicaciones visibles que lo usan.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class EtiquetaConteo {
+
+    private String etiqueta;
+
+    private long total;
+}
@@ -0,0 +1,22 @@
+package com.qualifygym.publicaciones.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Página de un feed paginado por clave: los resúmenes y el cursor para pedir la siguiente.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class PaginaPublicaciones {
+
+    private List<PublicacionResumen> publicaciones = new ArrayList<>();
+
+    // Cursor (fecha e ID) de la última publicación recorrida (usar como "antesDe" en la próxima consulta); null si no hay más
+    private String siguienteAntesDe;
+}
@@ -0,0 +1,41 @@
+package com.qualifygym.publicaciones.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Evento de una importación masiva, transmitido como una línea NDJSON.
+ *
+ * Una línea rechazada trae {@code linea} y {@code error}; el avance tras cada lote trae los
+ * contadores, y el último evento además {@code finalizada} (false si la importación se detuvo,
+ * con el motivo en {@code error}).
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ProgresoImportacion {
+
+    private Long linea; // Línea (o primera línea del registro CSV) de la entrada
+
+    private String error;
+
+    private Long procesadas;
+
+    private Long importadas;
+
+    private Long errores;
+
+    private Boolean finalizada;
+
+    public static ProgresoImportacion error(long linea, String error) {
+        return new ProgresoImportacion(linea, error, null, null, null, null);
+    }
+
+    public static ProgresoImportacion avance(long procesadas, long importadas, long errores) {
+        return new ProgresoImportacion(null, null, procesadas, importadas, errores, null);
+    }
+}
@@ -0,0 +1,23 @@
+package com.qualifygym.publicaciones.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Vista mínima de una publicación para que otros microservicios validen referencias
+ * (existencia, dueño, tema y visibilidad) sin cargar el texto completo.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class PublicacionReferencia {
+
+    private Long idPublicacion;
+
+    private Long usuarioId;
+
+    private Long temaId;
+
+    private Boolean oculta;
+}
@@ -0,0 +1,60 @@
+package com.qualifygym.publicaciones.dto;
+
+import java.time.LocalDateTime;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Resumen de una publicación para los listados (feeds).
+ *
+ * Se construye directamente desde JPQL, por lo que la base de datos solo entrega los primeros
+ * caracteres de la descripción y nunca los datos de baneo.
+ */
+@Data
+@NoArgsConstructor
+public class PublicacionResumen {
+
+    // Largo máximo de la vista previa; las consultas piden un carácter más para saber si se truncó
+    public static final int LARGO_VISTA_PREVIA = 200;
+
+    private Long idPublicacion;
+
+    private String titulo;
+
+    private String vistaPrevia; // Primeros caracteres de la descripción
+
+    @JsonFormat(pattern = "dd-MM-yyyy HH:mm", timezone = "America/Santiago")
+    private LocalDateTime fecha;
+
+    private Long usuarioId;
+
+    private Long temaId;
+
+    private String imageUrl;
+
+    // Si el usuario de la petición guardó la publicación; se omite cuando no se identifica al usuario
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Boolean guardada;
+
+    public PublicacionResumen(Long idPublicacion, String titulo, String descripcion, LocalDateTime fecha,
+                              Long usuarioId, Long temaId, String imageUrl) {
+        this.idPublicacion = idPublicacion;
+        this.titulo = titulo;
+        this.vistaPrevia = truncar(descripcion);
+        this.fecha = fecha;
+        this.usuarioId = usuarioId;
+        this.temaId = temaId;
+        this.imageUrl = imageUrl;
+    }
+
+    private static String truncar(String descripcion) {
+        if (descripcion == null || descripcion.length() <= LARGO_VISTA_PREVIA) {
+            return descripcion;
+        }
+        return descripcion.substring(0, LARGO_VISTA_PREVIA).trim() + "…";
+    }
+}
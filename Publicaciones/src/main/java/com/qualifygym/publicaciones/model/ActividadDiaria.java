@@ -0,0 +1,58 @@
+package com.qualifygym.publicaciones.model;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.IdClass;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Resumen diario de publicaciones de un tema, para las estadísticas.
+ *
+ * Cuenta las publicaciones (recientes y archivadas) con fecha en ese día y ese tema, y cuántas de
+ * ellas están ocultas. Se mantiene sumando deltas al crear, ocultar, mostrar y eliminar, de modo
+ * que las consultas por rango de días no agrupan la tabla {@code publicaciones}.
+ */
+@Entity
+@Table(name = "publicaciones_actividad_diaria")
+@IdClass(ActividadDiaria.Clave.class)
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ActividadDiaria {
+
+    @Id
+    @Column(name = "dia")
+    private LocalDate dia;
+
+    @Id
+    @Column(name = "tema_id")
+    private Long temaId;
+
+    @Column(nullable = false)
+    private Long publicadas;
+
+    @Column(nullable = false)
+    private Long ocultas;
+
+    // Publicaciones del día que siguen visibles
+    public long getVisibles() {
+        return publicadas - ocultas;
+    }
+
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class Clave implements Serializable {
+
+        private LocalDate dia;
+
+        private Long temaId;
+    }
+}
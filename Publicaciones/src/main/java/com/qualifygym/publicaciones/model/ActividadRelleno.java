@@ -0,0 +1,33 @@
+package com.qualifygym.publicaciones.model;
+
+import java.time.LocalDate;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Último día ya recalculado por el relleno del histórico de {@code publicaciones_actividad_diaria}.
+ *
+ * Hay una sola fila; se actualiza en la misma transacción que cada tramo recalculado, de modo que
+ * al arrancar el relleno continúa desde el día siguiente en lugar de recorrer de nuevo la historia.
+ */
+@Entity
+@Table(name = "publicaciones_actividad_relleno")
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ActividadRelleno {
+
+    public static final int ID = 1;
+
+    @Id
+    private Integer id;
+
+    @Column(nullable = false)
+    private LocalDate hasta;
+}
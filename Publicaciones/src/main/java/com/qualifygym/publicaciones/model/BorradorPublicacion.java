@@ -0,0 +1,56 @@
+package com.qualifygym.publicaciones.model;
+
+import java.time.LocalDateTime;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Borrador de una publicación que el usuario aún no publica.
+ *
+ * Todos los campos de contenido son opcionales mientras se edita; se validan al publicar.
+ * El autoguardado no escribe cada cambio: se acumula en memoria y se vuelca periódicamente.
+ */
+@Entity
+@Table(name = "publicaciones_borradores", indexes = {
+    @Index(name = "idx_borradores_usuario", columnList = "usuario_id")
+})
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class BorradorPublicacion {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id_borrador")
+    private Long idBorrador;
+
+    @Column(name = "usuario_id", nullable = false)
+    private Long usuarioId;
+
+    @Column(length = 200)
+    private String titulo;
+
+    @Column(columnDefinition = "TEXT")
+    private String descripcion;
+
+    @Column(name = "tema_id")
+    private Long temaId;
+
+    @Column(name = "image_url", length = 500)
+    private String imageUrl;
+
+    @JsonFormat(pattern = "dd-MM-yyyy HH:mm:ss", timezone = "America/Santiago")
+    @Column(name = "fecha_actualizacion", nullable = false)
+    private LocalDateTime fechaActualizacion;
+}
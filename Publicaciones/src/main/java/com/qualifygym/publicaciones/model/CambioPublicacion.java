@@ -0,0 +1,70 @@
+package com.qualifygym.publicaciones.model;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Evento del registro de cambios de publicaciones (sincronización incremental).
+ *
+ * La secuencia es autoincremental y solo crece, por lo que un cliente puede pedir
+ * los cambios posteriores a la última secuencia que aplicó.
+ */
+@Entity
+@Table(name = "publicaciones_cambios", indexes = {
+    @Index(name = "idx_cambios_fecha", columnList = "fecha")
+})
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class CambioPublicacion {
+
+    public enum Tipo {
+        CREADA,
+        ACTUALIZADA,
+        OCULTADA,
+        MOSTRADA,
+        ELIMINADA,
+        ARCHIVADA
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "seq")
+    private Long seq;
+
+    @Column(name = "publicacion_id", nullable = false)
+    private Long publicacionId;
+
+    @Column(name = "tema_id")
+    private Long temaId;
+
+    @Column(name = "usuario_id")
+    private Long usuarioId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private Tipo tipo;
+
+    @Column(nullable = false)
+    private LocalDateTime fecha;
+
+    @PrePersist
+    public void prePersist() {
+        if (this.fecha == null) {
+            this.fecha = LocalDateTime.now();
+        }
+    }
+}
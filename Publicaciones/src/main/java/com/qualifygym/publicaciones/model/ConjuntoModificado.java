@@ -0,0 +1,62 @@
+package com.qualifygym.publicaciones.model;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.Id;
+import jakarta.persistence.IdClass;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Última modificación del conjunto de un usuario (publicaciones guardadas o autores silenciados).
+ *
+ * Cada cambio actualiza la fecha de la fila del usuario en la misma transacción; cada instancia
+ * lee las filas recientes y recarga de su tabla los conjuntos de esos usuarios, de modo que todas
+ * acaban con el mismo contenido en memoria. Hay una fila por usuario y tipo, así que no crece con
+ * el número de cambios.
+ */
+@Entity
+@Table(name = "publicaciones_conjuntos_modificados", indexes = {
+    @Index(name = "idx_conjuntos_modificados_fecha", columnList = "tipo, fecha")
+})
+@IdClass(ConjuntoModificado.Clave.class)
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ConjuntoModificado {
+
+    public enum Tipo {
+        GUARDADAS,
+        SILENCIADOS
+    }
+
+    @Id
+    @Enumerated(EnumType.STRING)
+    @Column(length = 20)
+    private Tipo tipo;
+
+    @Id
+    @Column(name = "usuario_id")
+    private Long usuarioId;
+
+    @Column(nullable = false)
+    private LocalDateTime fecha;
+
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class Clave implements Serializable {
+
+        private Tipo tipo;
+
+        private Long usuarioId;
+    }
+}
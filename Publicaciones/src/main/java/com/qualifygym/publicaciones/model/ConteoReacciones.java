@@ -0,0 +1,30 @@
+package com.qualifygym.publicaciones.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Total de reacciones persistido de una publicación.
+ *
+ * Vive fuera de {@code publicaciones} para que los volcados periódicos de reacciones no bloqueen
+ * la fila de la publicación; se actualiza sumando deltas agregados, nunca una fila por reacción.
+ */
+@Entity
+@Table(name = "publicaciones_reacciones_conteo")
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ConteoReacciones {
+
+    @Id
+    @Column(name = "publicacion_id")
+    private Long publicacionId;
+
+    @Column(nullable = false)
+    private Long total;
+}
@@ -0,0 +1,48 @@
+package com.qualifygym.publicaciones.model;
+
+import java.io.Serializable;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.IdClass;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Hashtag normalizado de una publicación (sin '#', en minúsculas y sin tildes).
+ *
+ * La clave primaria (etiqueta, publicacion_id) mantiene juntas y ordenadas por ID las
+ * publicaciones de cada etiqueta; el índice por publicación sirve para editar y eliminar.
+ */
+@Entity
+@Table(name = "publicaciones_etiquetas", indexes = {
+    @Index(name = "idx_etiquetas_publicacion", columnList = "publicacion_id")
+})
+@IdClass(EtiquetaPublicacion.Clave.class)
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class EtiquetaPublicacion {
+
+    @Id
+    @Column(length = 50)
+    private String etiqueta;
+
+    @Id
+    @Column(name = "publicacion_id")
+    private Long publicacionId;
+
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class Clave implements Serializable {
+
+        private String etiqueta;
+
+        private Long publicacionId;
+    }
+}
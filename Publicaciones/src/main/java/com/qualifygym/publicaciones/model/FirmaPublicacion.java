@@ -0,0 +1,31 @@
+package com.qualifygym.publicaciones.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Firma MinHash persistida de la descripción de una publicación (publicaciones relacionadas).
+ *
+ * Se guarda para reconstruir el índice en memoria al iniciar sin volver a procesar el texto
+ * de todas las publicaciones.
+ */
+@Entity
+@Table(name = "publicaciones_firmas")
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class FirmaPublicacion {
+
+    @Id
+    @Column(name = "publicacion_id")
+    private Long publicacionId;
+
+    // Valores mínimos de cada función hash, 4 bytes por valor (big-endian)
+    @Column(nullable = false, columnDefinition = "VARBINARY(512)")
+    private byte[] firma;
+}
@@ -3,6 +3,7 @@ package com.qualifygym.publicaciones.model;
 import java.time.LocalDateTime;
 
 import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
@@ -47,6 +48,10 @@ public class Notificacion {
     @Column(nullable = false)
     private Boolean leida = false; // Indica si la notificación ha sido leída
 
+    @JsonIgnore
+    @Column(name = "outbox_id", unique = true)
+    private Long outboxId; // Entrada del outbox que originó la notificación (entrega idempotente)
+
     @PrePersist
     public void prePersist() {
         if (this.fechaCreacion == null) {
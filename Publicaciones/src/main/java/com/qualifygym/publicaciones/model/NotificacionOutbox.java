@@ -0,0 +1,89 @@
+package com.qualifygym.publicaciones.model;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Entrada de la bandeja de salida (outbox) de notificaciones.
+ *
+ * Se escribe en la misma transacción que la operación de moderación y un despachador
+ * en segundo plano la convierte en {@link Notificacion}. Mientras no se entregue,
+ * la entrada permanece en la tabla, por lo que ninguna notificación se pierde.
+ */
+@Entity
+@Table(name = "notificaciones_outbox", indexes = {
+    @Index(name = "idx_outbox_estado_proximo", columnList = "estado, proximo_intento, id_outbox")
+})
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class NotificacionOutbox {
+
+    public enum Estado {
+        PENDIENTE,
+        ENTREGADA,
+        FALLIDA
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id_outbox")
+    private Long idOutbox;
+
+    @Column(name = "usuario_id", nullable = false)
+    private Long usuarioId; // Usuario que recibirá la notificación
+
+    @Column(name = "publicacion_id", nullable = false)
+    private Long publicacionId; // Publicación relacionada
+
+    @Column(nullable = false, columnDefinition = "TEXT")
+    private String mensaje;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private Estado estado = Estado.PENDIENTE;
+
+    @Column(nullable = false)
+    private Integer intentos = 0;
+
+    @Column(name = "proximo_intento", nullable = false)
+    private LocalDateTime proximoIntento; // No se despacha antes de esta fecha (backoff)
+
+    @Column(name = "ultimo_error", length = 500)
+    private String ultimoError;
+
+    @Column(name = "fecha_creacion", nullable = false)
+    private LocalDateTime fechaCreacion;
+
+    @Column(name = "fecha_entrega")
+    private LocalDateTime fechaEntrega;
+
+    @PrePersist
+    public void prePersist() {
+        if (this.fechaCreacion == null) {
+            this.fechaCreacion = LocalDateTime.now();
+        }
+        if (this.proximoIntento == null) {
+            this.proximoIntento = this.fechaCreacion;
+        }
+        if (this.estado == null) {
+            this.estado = Estado.PENDIENTE;
+        }
+        if (this.intentos == null) {
+            this.intentos = 0;
+        }
+    }
+}
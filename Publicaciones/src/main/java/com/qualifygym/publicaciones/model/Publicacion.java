@@ -12,6 +12,7 @@ import jakarta.persistence.Id;
 import jakarta.persistence.Index;
 import jakarta.persistence.PrePersist;
 import jakarta.persistence.Table;
+import jakarta.persistence.Version;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -19,7 +20,9 @@ import lombok.NoArgsConstructor;
 @Entity
 @Table(name = "publicaciones", indexes = {
     @Index(name = "idx_usuario_id", columnList = "Usuarios_id_usuario"),
-    @Index(name = "idx_tema_id", columnList = "Tema_id_tema")
+    @Index(name = "idx_tema_oculta_fecha", columnList = "Tema_id_tema, oculta, fecha, id_publicacion"),
+    @Index(name = "idx_fecha", columnList = "fecha"),
+    @Index(name = "idx_oculta_fecha", columnList = "oculta, fecha, id_publicacion")
 })
 @Data
 @AllArgsConstructor
@@ -60,6 +63,10 @@ public class Publicacion {
     @Column(name = "imageUrl", length = 500)
     private String imageUrl; // URL o path de la imagen de la publicación
 
+    @Version
+    @Column(nullable = false, columnDefinition = "BIGINT DEFAULT 0")
+    private Long version = 0L; // Control de concurrencia optimista: el cliente la reenvía al modificar
+
     //Formato para la fecha - se establece como timestamp en milisegundos
     @PrePersist
     public void prePersist() {
@@ -0,0 +1,81 @@
+package com.qualifygym.publicaciones.model;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Publicación antigua movida fuera de la tabla caliente {@code publicaciones}.
+ *
+ * Tiene las mismas columnas (y el mismo ID) que {@link Publicacion} más la fecha de archivo.
+ * Las publicaciones archivadas son de solo lectura: se consultan por ID, en el historial del
+ * usuario y en las exportaciones, pero ya no aparecen en los feeds.
+ */
+@Entity
+@Table(name = "publicaciones_archivo", indexes = {
+    @Index(name = "idx_archivo_usuario_fecha", columnList = "Usuarios_id_usuario, fecha"),
+    @Index(name = "idx_archivo_tema", columnList = "Tema_id_tema"),
+    @Index(name = "idx_archivo_fecha", columnList = "fecha")
+})
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class PublicacionArchivada {
+
+    @Id
+    @Column(name = "id_publicacion")
+    private Long idPublicacion;
+
+    @Column(nullable = false, length = 200)
+    private String titulo;
+
+    @Column(nullable = false)
+    private LocalDateTime fecha;
+
+    @Column(nullable = false, columnDefinition = "TEXT")
+    private String descripcion;
+
+    @Column(nullable = false)
+    private Boolean oculta = false;
+
+    @Column(name = "fecha_baneo")
+    private LocalDateTime fechaBaneo;
+
+    @Column(name = "motivo_baneo", columnDefinition = "TEXT")
+    private String motivoBaneo;
+
+    @Column(name = "Usuarios_id_usuario", nullable = false)
+    private Long usuarioId;
+
+    @Column(name = "Tema_id_tema", nullable = false)
+    private Long temaId;
+
+    @Column(name = "imageUrl", length = 500)
+    private String imageUrl;
+
+    @Column(name = "fecha_archivo", nullable = false)
+    private LocalDateTime fechaArchivo;
+
+    // Vista como Publicacion (no administrada), para responder igual que con una publicación caliente
+    public Publicacion aPublicacion() {
+        Publicacion publicacion = new Publicacion();
+        publicacion.setIdPublicacion(idPublicacion);
+        publicacion.setTitulo(titulo);
+        publicacion.setFecha(fecha);
+        publicacion.setDescripcion(descripcion);
+        publicacion.setOculta(oculta);
+        publicacion.setFechaBaneo(fechaBaneo);
+        publicacion.setMotivoBaneo(motivoBaneo);
+        publicacion.setUsuarioId(usuarioId);
+        publicacion.setTemaId(temaId);
+        publicacion.setImageUrl(imageUrl);
+        return publicacion;
+    }
+}
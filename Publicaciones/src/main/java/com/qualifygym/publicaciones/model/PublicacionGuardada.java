@@ -0,0 +1,52 @@
+package com.qualifygym.publicaciones.model;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.IdClass;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Publicación guardada por un usuario para leerla más tarde.
+ *
+ * La clave primaria (usuario_id, publicacion_id) deja juntas y ordenadas las guardadas de cada
+ * usuario para reconstruir el conjunto en memoria; el índice por publicación sirve al eliminarla.
+ */
+@Entity
+@Table(name = "publicaciones_guardadas", indexes = {
+    @Index(name = "idx_guardadas_publicacion", columnList = "publicacion_id")
+})
+@IdClass(PublicacionGuardada.Clave.class)
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class PublicacionGuardada {
+
+    @Id
+    @Column(name = "usuario_id")
+    private Long usuarioId;
+
+    @Id
+    @Column(name = "publicacion_id")
+    private Long publicacionId;
+
+    @Column(nullable = false)
+    private LocalDateTime fecha;
+
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class Clave implements Serializable {
+
+        private Long usuarioId;
+
+        private Long publicacionId;
+    }
+}
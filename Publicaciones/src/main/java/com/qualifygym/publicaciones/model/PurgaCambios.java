@@ -0,0 +1,32 @@
+package com.qualifygym.publicaciones.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Última secuencia eliminada del registro de cambios por la retención.
+ *
+ * Hay una sola fila; se actualiza en la misma transacción que cada purga. Un cliente cuya marca
+ * sea anterior ya no puede recibir todos sus cambios y debe recargar el feed, aunque la purga
+ * haya vaciado el registro.
+ */
+@Entity
+@Table(name = "publicaciones_cambios_purga")
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class PurgaCambios {
+
+    public static final int ID = 1;
+
+    @Id
+    private Integer id;
+
+    @Column(name = "hasta_seq", nullable = false)
+    private Long hastaSeq;
+}
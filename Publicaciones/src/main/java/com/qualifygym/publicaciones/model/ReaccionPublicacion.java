@@ -0,0 +1,47 @@
+package com.qualifygym.publicaciones.model;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.IdClass;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Reacción ("me gusta") de un usuario a una publicación. La clave primaria impide que un
+ * usuario reaccione dos veces a la misma publicación.
+ */
+@Entity
+@Table(name = "publicaciones_reacciones")
+@IdClass(ReaccionPublicacion.Clave.class)
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ReaccionPublicacion {
+
+    @Id
+    @Column(name = "publicacion_id")
+    private Long publicacionId;
+
+    @Id
+    @Column(name = "usuario_id")
+    private Long usuarioId;
+
+    @Column(nullable = false)
+    private LocalDateTime fecha;
+
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class Clave implements Serializable {
+
+        private Long publicacionId;
+
+        private Long usuarioId;
+    }
+}
@@ -0,0 +1,49 @@
+package com.qualifygym.publicaciones.model;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.IdClass;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Autor silenciado por un usuario: sus publicaciones no aparecen en los feeds de ese usuario.
+ *
+ * La clave primaria (usuario_id, silenciado_id) deja juntos y ordenados los silenciados de cada
+ * usuario para reconstruir el conjunto en memoria.
+ */
+@Entity
+@Table(name = "publicaciones_silenciados")
+@IdClass(UsuarioSilenciado.Clave.class)
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class UsuarioSilenciado {
+
+    @Id
+    @Column(name = "usuario_id")
+    private Long usuarioId;
+
+    @Id
+    @Column(name = "silenciado_id")
+    private Long silenciadoId;
+
+    @Column(nullable = false)
+    private LocalDateTime fecha;
+
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class Clave implements Serializable {
+
+        private Long usuarioId;
+
+        private Long silenciadoId;
+    }
+}
@@ -0,0 +1,71 @@
+package com.qualifygym.publicaciones.model;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.Id;
+import jakarta.persistence.IdClass;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Sketch HyperLogLog persistido con los visitantes distintos de una publicación o de un tema.
+ *
+ * En lugar de guardar cada par (visitante, publicación) se guarda un sketch de a lo sumo 4 KB por
+ * ámbito y día, del que se estima cuántos visitantes distintos hubo. El acumulado histórico de una
+ * publicación usa {@link #DIA_HISTORICO} como día.
+ */
+@Entity
+@Table(name = "publicaciones_vistas_unicas", indexes = {
+    @Index(name = "idx_vistas_unicas_dia", columnList = "dia")
+})
+@IdClass(VistasUnicas.Clave.class)
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class VistasUnicas {
+
+    public static final LocalDate DIA_HISTORICO = LocalDate.of(1970, 1, 1);
+
+    public enum Ambito {
+        PUBLICACION,
+        PUBLICACION_DIA,
+        TEMA_DIA
+    }
+
+    @Id
+    @Enumerated(EnumType.STRING)
+    @Column(length = 20)
+    private Ambito ambito;
+
+    // ID de la publicación o del tema, según el ámbito
+    @Id
+    @Column(name = "clave")
+    private Long clave;
+
+    @Id
+    @Column(name = "dia")
+    private LocalDate dia;
+
+    @Column(nullable = false, columnDefinition = "VARBINARY(4097)")
+    private byte[] sketch;
+
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class Clave implements Serializable {
+
+        private Ambito ambito;
+
+        private Long clave;
+
+        private LocalDate dia;
+    }
+}
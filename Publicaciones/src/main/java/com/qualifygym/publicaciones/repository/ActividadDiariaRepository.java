@@ -0,0 +1,22 @@
+package com.qualifygym.publicaciones.repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.qualifygym.publicaciones.model.ActividadDiaria;
+
+@Repository
+public interface ActividadDiariaRepository extends JpaRepository<ActividadDiaria, ActividadDiaria.Clave> {
+
+    // Resúmenes entre dos días (inclusive), de un tema o de todos (temaId null)
+    @Query("SELECT a FROM ActividadDiaria a WHERE a.dia BETWEEN :desde AND :hasta " +
+           "AND (:temaId IS NULL OR a.temaId = :temaId) ORDER BY a.dia, a.temaId")
+    List<ActividadDiaria> findEntreDias(@Param("desde") LocalDate desde,
+                                        @Param("hasta") LocalDate hasta,
+                                        @Param("temaId") Long temaId);
+}
@@ -0,0 +1,41 @@
+package com.qualifygym.publicaciones.repository;
+
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.qualifygym.publicaciones.model.BorradorPublicacion;
+
+import jakarta.persistence.LockModeType;
+
+@Repository
+public interface BorradorPublicacionRepository extends JpaRepository<BorradorPublicacion, Long> {
+
+    // Borrador de un usuario (un usuario no puede leer ni modificar borradores ajenos)
+    Optional<BorradorPublicacion> findByIdBorradorAndUsuarioId(Long idBorrador, Long usuarioId);
+
+    // Borrador de un usuario bloqueado hasta el fin de la transacción (publicarlo sin que un volcado lo cambie)
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT b FROM BorradorPublicacion b WHERE b.idBorrador = :idBorrador AND b.usuarioId = :usuarioId")
+    Optional<BorradorPublicacion> findParaPublicar(@Param("idBorrador") Long idBorrador, @Param("usuarioId") Long usuarioId);
+
+    // Verificar que un borrador existe y pertenece al usuario
+    boolean existsByIdBorradorAndUsuarioId(Long idBorrador, Long usuarioId);
+
+    // Borradores de un usuario, del último modificado al primero
+    List<BorradorPublicacion> findByUsuarioIdOrderByFechaActualizacionDesc(Long usuarioId);
+
+    // Contar borradores de un usuario
+    long countByUsuarioId(Long usuarioId);
+
+    // Eliminar un borrador del usuario
+    @Modifying
+    @Query("DELETE FROM BorradorPublicacion b WHERE b.idBorrador = :idBorrador AND b.usuarioId = :usuarioId")
+    int eliminar(@Param("idBorrador") Long idBorrador, @Param("usuarioId") Long usuarioId);
+}
@@ -0,0 +1,42 @@
+package com.qualifygym.publicaciones.repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.qualifygym.publicaciones.model.CambioPublicacion;
+
+@Repository
+public interface CambioPublicacionRepository extends JpaRepository<CambioPublicacion, Long> {
+
+    // Cambios posteriores a una secuencia, en orden de secuencia
+    @Query("SELECT c FROM CambioPublicacion c WHERE c.seq > :desde ORDER BY c.seq ASC")
+    List<CambioPublicacion> findPosteriores(@Param("desde") Long desde, Pageable pageable);
+
+    // Secuencia más reciente del registro
+    @Query("SELECT MAX(c.seq) FROM CambioPublicacion c")
+    Long findMaxSeq();
+
+    // Secuencia más antigua que sigue en el registro
+    @Query("SELECT MIN(c.seq) FROM CambioPublicacion c")
+    Long findMinSeq();
+
+    // Secuencia más reciente registrada antes de una fecha (corte de la retención)
+    @Query("SELECT MAX(c.seq) FROM CambioPublicacion c WHERE c.fecha < :antesDe")
+    Long findMaxSeqAnteriorA(@Param("antesDe") LocalDateTime antesDe);
+
+    // Secuencia más reciente registrada hasta una fecha
+    @Query("SELECT MAX(c.seq) FROM CambioPublicacion c WHERE c.fecha <= :hasta")
+    Long findMaxSeqHasta(@Param("hasta") LocalDateTime hasta);
+
+    // Eliminar los cambios hasta una secuencia (retención del registro)
+    @Modifying
+    @Query("DELETE FROM CambioPublicacion c WHERE c.seq <= :hastaSeq")
+    int eliminarHastaSeq(@Param("hastaSeq") Long hastaSeq);
+}
@@ -0,0 +1,34 @@
+package com.qualifygym.publicaciones.repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.qualifygym.publicaciones.model.ConjuntoModificado;
+
+@Repository
+public interface ConjuntoModificadoRepository extends JpaRepository<ConjuntoModificado, ConjuntoModificado.Clave> {
+
+    // Pares (usuario, fecha) de los conjuntos de un tipo modificados desde una fecha
+    @Query("SELECT c.usuarioId, c.fecha FROM ConjuntoModificado c WHERE c.tipo = :tipo AND c.fecha >= :desde")
+    List<Object[]> findModificadosDesde(@Param("tipo") ConjuntoModificado.Tipo tipo, @Param("desde") LocalDateTime desde);
+
+    // Marcar como modificado el conjunto de un usuario
+    @Modifying
+    @Query(value = "INSERT INTO publicaciones_conjuntos_modificados (tipo, usuario_id, fecha) VALUES (:tipo, :usuarioId, :fecha) " +
+                   "ON DUPLICATE KEY UPDATE fecha = VALUES(fecha)", nativeQuery = true)
+    int marcar(@Param("tipo") String tipo, @Param("usuarioId") Long usuarioId, @Param("fecha") LocalDateTime fecha);
+
+    // Marcar como modificadas las guardadas de los usuarios que guardaron alguna de las publicaciones
+    @Modifying
+    @Query(value = "INSERT INTO publicaciones_conjuntos_modificados (tipo, usuario_id, fecha) " +
+                   "SELECT DISTINCT 'GUARDADAS', g.usuario_id, :fecha FROM publicaciones_guardadas g WHERE g.publicacion_id IN :ids " +
+                   "ON DUPLICATE KEY UPDATE fecha = :fecha", nativeQuery = true)
+    int marcarGuardadasDePublicaciones(@Param("ids") Collection<Long> ids, @Param("fecha") LocalDateTime fecha);
+}
@@ -0,0 +1,25 @@
+package com.qualifygym.publicaciones.repository;
+
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.qualifygym.publicaciones.model.ConteoReacciones;
+
+@Repository
+public interface ConteoReaccionesRepository extends JpaRepository<ConteoReacciones, Long> {
+
+    // Totales persistidos (publicación, total) de varias publicaciones
+    @Query("SELECT c.publicacionId, c.total FROM ConteoReacciones c WHERE c.publicacionId IN :ids")
+    List<Object[]> findTotales(@Param("ids") Collection<Long> ids);
+
+    // Eliminar los totales de varias publicaciones (eliminación)
+    @Modifying
+    @Query("DELETE FROM ConteoReacciones c WHERE c.publicacionId IN :ids")
+    int eliminarPorPublicacionIds(@Param("ids") Collection<Long> ids);
+}
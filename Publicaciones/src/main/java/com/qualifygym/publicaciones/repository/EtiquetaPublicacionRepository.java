@@ -0,0 +1,53 @@
+package com.qualifygym.publicaciones.repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.qualifygym.publicaciones.model.EtiquetaPublicacion;
+
+import jakarta.persistence.QueryHint;
+
+@Repository
+public interface EtiquetaPublicacionRepository extends JpaRepository<EtiquetaPublicacion, EtiquetaPublicacion.Clave> {
+
+    // Etiquetas de una publicación
+    @Query("SELECT e.etiqueta FROM EtiquetaPublicacion e WHERE e.publicacionId = :publicacionId")
+    List<String> findEtiquetasByPublicacionId(@Param("publicacionId") Long publicacionId);
+
+    // Pares (etiqueta, publicación) de varias publicaciones
+    @Query("SELECT e FROM EtiquetaPublicacion e WHERE e.publicacionId IN :ids")
+    List<EtiquetaPublicacion> findByPublicacionIds(@Param("ids") Collection<Long> ids);
+
+    // Recorrer las etiquetas de las publicaciones visibles (carga del índice al iniciar)
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT e.etiqueta, e.publicacionId FROM EtiquetaPublicacion e, Publicacion p " +
+           "WHERE p.idPublicacion = e.publicacionId AND p.oculta = false ORDER BY e.etiqueta, e.publicacionId")
+    Stream<Object[]> streamVisibles();
+
+    // Agregar una etiqueta a una publicación
+    @Modifying
+    @Query(value = "INSERT INTO publicaciones_etiquetas (etiqueta, publicacion_id) VALUES (:etiqueta, :publicacionId)", nativeQuery = true)
+    int insertar(@Param("etiqueta") String etiqueta, @Param("publicacionId") Long publicacionId);
+
+    // Quitar algunas etiquetas de una publicación
+    @Modifying
+    @Query("DELETE FROM EtiquetaPublicacion e WHERE e.publicacionId = :publicacionId AND e.etiqueta IN :etiquetas")
+    int eliminarEtiquetas(@Param("publicacionId") Long publicacionId, @Param("etiquetas") Collection<String> etiquetas);
+
+    // Eliminar las etiquetas de varias publicaciones (eliminación y archivo)
+    @Modifying
+    @Query("DELETE FROM EtiquetaPublicacion e WHERE e.publicacionId IN :ids")
+    int eliminarPorIds(@Param("ids") Collection<Long> ids);
+}
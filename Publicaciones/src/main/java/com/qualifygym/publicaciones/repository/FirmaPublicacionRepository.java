@@ -0,0 +1,32 @@
+package com.qualifygym.publicaciones.repository;
+
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.qualifygym.publicaciones.model.FirmaPublicacion;
+
+@Repository
+public interface FirmaPublicacionRepository extends JpaRepository<FirmaPublicacion, Long> {
+
+    // Recorrer las firmas en orden de ID por páginas (carga del índice al iniciar)
+    @Query("SELECT f FROM FirmaPublicacion f WHERE f.publicacionId > :despuesDe ORDER BY f.publicacionId ASC")
+    List<FirmaPublicacion> findPosteriores(@Param("despuesDe") Long despuesDe, Pageable pageable);
+
+    // Guardar o reemplazar la firma de una publicación en una sola sentencia
+    @Modifying
+    @Query(value = "INSERT INTO publicaciones_firmas (publicacion_id, firma) VALUES (:id, :firma) " +
+                   "ON DUPLICATE KEY UPDATE firma = VALUES(firma)", nativeQuery = true)
+    int guardar(@Param("id") Long publicacionId, @Param("firma") byte[] firma);
+
+    // Eliminar las firmas de varias publicaciones (eliminación y archivo)
+    @Modifying
+    @Query("DELETE FROM FirmaPublicacion f WHERE f.publicacionId IN :ids")
+    int eliminarPorIds(@Param("ids") Collection<Long> ids);
+}
@@ -0,0 +1,38 @@
+package com.qualifygym.publicaciones.repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.qualifygym.publicaciones.model.NotificacionOutbox;
+
+@Repository
+public interface NotificacionOutboxRepository extends JpaRepository<NotificacionOutbox, Long> {
+
+    // Buscar entradas pendientes cuyo próximo intento ya venció, en orden de llegada
+    @Query("SELECT o FROM NotificacionOutbox o WHERE o.estado = com.qualifygym.publicaciones.model.NotificacionOutbox.Estado.PENDIENTE " +
+           "AND o.proximoIntento <= :ahora ORDER BY o.idOutbox ASC")
+    List<NotificacionOutbox> findPendientesVencidas(@Param("ahora") LocalDateTime ahora, Pageable pageable);
+
+    // Marcar un lote de entradas como entregadas en una sola sentencia
+    @Modifying
+    @Query("UPDATE NotificacionOutbox o SET o.estado = com.qualifygym.publicaciones.model.NotificacionOutbox.Estado.ENTREGADA, " +
+           "o.fechaEntrega = :fecha, o.ultimoError = null WHERE o.idOutbox IN :ids")
+    int marcarEntregadas(@Param("ids") Collection<Long> ids, @Param("fecha") LocalDateTime fecha);
+
+    // Volver a dejar pendientes las entradas que agotaron sus reintentos
+    @Modifying
+    @Query("UPDATE NotificacionOutbox o SET o.estado = com.qualifygym.publicaciones.model.NotificacionOutbox.Estado.PENDIENTE, " +
+           "o.intentos = 0, o.proximoIntento = :ahora WHERE o.estado = com.qualifygym.publicaciones.model.NotificacionOutbox.Estado.FALLIDA")
+    int reencolarFallidas(@Param("ahora") LocalDateTime ahora);
+
+    // Contar entradas en un estado (monitoreo del outbox)
+    long countByEstado(NotificacionOutbox.Estado estado);
+}
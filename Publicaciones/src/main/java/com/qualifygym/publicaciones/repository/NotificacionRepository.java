@@ -1,5 +1,6 @@
 package com.qualifygym.publicaciones.repository;
 
+import java.util.Collection;
 import java.util.List;
 
 import org.springframework.data.jpa.repository.JpaRepository;
@@ -27,5 +28,9 @@ public interface NotificacionRepository extends JpaRepository<Notificacion, Long
     // Buscar notificaciones por publicación
     @Query("SELECT n FROM Notificacion n WHERE n.publicacionId = :publicacionId ORDER BY n.fechaCreacion DESC")
     List<Notificacion> findByPublicacionId(@Param("publicacionId") Long publicacionId);
+
+    // Entradas del outbox que ya fueron entregadas como notificación (evita duplicados al reintentar)
+    @Query("SELECT n.outboxId FROM Notificacion n WHERE n.outboxId IN :outboxIds")
+    List<Long> findOutboxIdsEntregados(@Param("outboxIds") Collection<Long> outboxIds);
 }
 
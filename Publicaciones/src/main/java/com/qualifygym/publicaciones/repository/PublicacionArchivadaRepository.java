@@ -0,0 +1,81 @@
+package com.qualifygym.publicaciones.repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.qualifygym.publicaciones.dto.PublicacionReferencia;
+import com.qualifygym.publicaciones.dto.PublicacionResumen;
+import com.qualifygym.publicaciones.model.PublicacionArchivada;
+
+import jakarta.persistence.QueryHint;
+
+@Repository
+public interface PublicacionArchivadaRepository extends JpaRepository<PublicacionArchivada, Long> {
+
+    // Copiar al archivo un bloque de publicaciones calientes, conservando su ID
+    @Modifying
+    @Query(value = "INSERT INTO publicaciones_archivo (id_publicacion, titulo, fecha, descripcion, oculta, fecha_baneo, motivo_baneo, " +
+                   "Usuarios_id_usuario, Tema_id_tema, image_url, fecha_archivo) " +
+                   "SELECT id_publicacion, titulo, fecha, descripcion, oculta, fecha_baneo, motivo_baneo, " +
+                   "Usuarios_id_usuario, Tema_id_tema, image_url, :fechaArchivo FROM publicaciones WHERE id_publicacion IN (:ids)",
+           nativeQuery = true)
+    int copiarDesdePublicaciones(@Param("ids") Collection<Long> ids, @Param("fechaArchivo") LocalDateTime fechaArchivo);
+
+    // Historial archivado de un usuario, ordenado por fecha descendente
+    List<PublicacionArchivada> findByUsuarioIdOrderByFechaDesc(Long usuarioId);
+
+    // Historial archivado visible de un usuario
+    @Query("SELECT a FROM PublicacionArchivada a WHERE a.usuarioId = :usuarioId AND a.oculta = false ORDER BY a.fecha DESC")
+    List<PublicacionArchivada> findByUsuarioIdAndNotOculta(@Param("usuarioId") Long usuarioId);
+
+    // Resúmenes del historial archivado visible de un usuario
+    @Query("SELECT new com.qualifygym.publicaciones.dto.PublicacionResumen(" +
+           "a.idPublicacion, a.titulo, SUBSTRING(a.descripcion, 1, 201), a.fecha, a.usuarioId, a.temaId, a.imageUrl) " +
+           "FROM PublicacionArchivada a WHERE a.usuarioId = :usuarioId AND a.oculta = false ORDER BY a.fecha DESC")
+    List<PublicacionResumen> findResumenesByUsuarioIdAndNotOculta(@Param("usuarioId") Long usuarioId);
+
+    // IDs (de una lista) que están en el archivo
+    @Query("SELECT a.idPublicacion FROM PublicacionArchivada a WHERE a.idPublicacion IN :ids")
+    List<Long> findIdsExistentes(@Param("ids") Collection<Long> ids);
+
+    // Referencias mínimas de publicaciones archivadas
+    @Query("SELECT new com.qualifygym.publicaciones.dto.PublicacionReferencia(a.idPublicacion, a.usuarioId, a.temaId, a.oculta) " +
+           "FROM PublicacionArchivada a WHERE a.idPublicacion IN :ids")
+    List<PublicacionReferencia> findReferenciasByIds(@Param("ids") Collection<Long> ids);
+
+    // Obtener (id, tema, fecha, oculta) de publicaciones archivadas (resúmenes diarios por tema)
+    @Query("SELECT a.idPublicacion, a.temaId, a.fecha, a.oculta FROM PublicacionArchivada a WHERE a.idPublicacion IN :ids")
+    List<Object[]> findIdTemaFechaOcultaByIds(@Param("ids") Collection<Long> ids);
+
+    // Contar publicaciones archivadas por tema
+    long countByTemaId(Long temaId);
+
+    // Contar publicaciones archivadas por usuario
+    long countByUsuarioId(Long usuarioId);
+
+    // Recorrer el archivo en orden de ID como stream de solo lectura (exportación)
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT a FROM PublicacionArchivada a ORDER BY a.idPublicacion ASC")
+    Stream<PublicacionArchivada> streamTodas();
+
+    // Recorrer las publicaciones archivadas creadas desde una fecha (exportación incremental)
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT a FROM PublicacionArchivada a WHERE a.fecha >= :desde ORDER BY a.idPublicacion ASC")
+    Stream<PublicacionArchivada> streamDesde(@Param("desde") LocalDateTime desde);
+}
@@ -0,0 +1,55 @@
+package com.qualifygym.publicaciones.repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.qualifygym.publicaciones.model.PublicacionGuardada;
+
+import jakarta.persistence.QueryHint;
+
+@Repository
+public interface PublicacionGuardadaRepository extends JpaRepository<PublicacionGuardada, PublicacionGuardada.Clave> {
+
+    // Recorrer todas las guardadas agrupadas por usuario (carga de los conjuntos al iniciar)
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT g.usuarioId, g.publicacionId FROM PublicacionGuardada g ORDER BY g.usuarioId, g.publicacionId")
+    Stream<Object[]> streamTodas();
+
+    // Guardadas de varios usuarios agrupadas por usuario (recarga de sus conjuntos)
+    @Query("SELECT g.usuarioId, g.publicacionId FROM PublicacionGuardada g WHERE g.usuarioId IN :usuarioIds " +
+           "ORDER BY g.usuarioId, g.publicacionId")
+    List<Object[]> findByUsuarioIds(@Param("usuarioIds") Collection<Long> usuarioIds);
+
+    // Pares (usuario, publicación) de varias publicaciones
+    @Query("SELECT g.usuarioId, g.publicacionId FROM PublicacionGuardada g WHERE g.publicacionId IN :ids")
+    List<Object[]> findUsuariosByPublicacionIds(@Param("ids") Collection<Long> ids);
+
+    // Guardar una publicación para un usuario (sin efecto si ya estaba guardada)
+    @Modifying
+    @Query(value = "INSERT INTO publicaciones_guardadas (usuario_id, publicacion_id, fecha) VALUES (:usuarioId, :publicacionId, :fecha) " +
+                   "ON DUPLICATE KEY UPDATE fecha = fecha", nativeQuery = true)
+    int insertar(@Param("usuarioId") Long usuarioId, @Param("publicacionId") Long publicacionId, @Param("fecha") LocalDateTime fecha);
+
+    // Quitar una publicación de las guardadas de un usuario
+    @Modifying
+    @Query("DELETE FROM PublicacionGuardada g WHERE g.usuarioId = :usuarioId AND g.publicacionId = :publicacionId")
+    int eliminar(@Param("usuarioId") Long usuarioId, @Param("publicacionId") Long publicacionId);
+
+    // Quitar varias publicaciones de las guardadas de todos los usuarios (eliminación)
+    @Modifying
+    @Query("DELETE FROM PublicacionGuardada g WHERE g.publicacionId IN :ids")
+    int eliminarPorPublicacionIds(@Param("ids") Collection<Long> ids);
+}
@@ -1,17 +1,35 @@
 package com.qualifygym.publicaciones.repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import com.qualifygym.publicaciones.dto.PublicacionReferencia;
+import com.qualifygym.publicaciones.dto.PublicacionResumen;
 import com.qualifygym.publicaciones.model.Publicacion;
 
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+
 @Repository
 public interface PublicacionRepository extends JpaRepository<Publicacion, Long> {
+
+    // Proyección de resumen para feeds: solo un fragmento de la descripción y sin datos de baneo
+    String SELECT_RESUMEN = "SELECT new com.qualifygym.publicaciones.dto.PublicacionResumen(" +
+            "p.idPublicacion, p.titulo, SUBSTRING(p.descripcion, 1, 201), p.fecha, p.usuarioId, p.temaId, p.imageUrl) " +
+            "FROM Publicacion p ";
     
     // Buscar publicaciones por ID de usuario, ordenadas por fecha descendente
     List<Publicacion> findByUsuarioIdOrderByFechaDesc(Long usuarioId);
@@ -35,14 +53,195 @@ public interface PublicacionRepository extends JpaRepository<Publicacion, Long>
     @Query("SELECT p FROM Publicacion p WHERE (p.titulo LIKE %:query% OR p.descripcion LIKE %:query%) AND p.oculta = false ORDER BY p.fecha DESC")
     List<Publicacion> searchPublicaciones(@Param("query") String query);
     
+    // Resúmenes de publicaciones visibles, ordenados por fecha descendente
+    @Query(SELECT_RESUMEN + "WHERE p.oculta = false ORDER BY p.fecha DESC")
+    List<PublicacionResumen> findResumenesNotOculta();
+
+    // Resúmenes de publicaciones visibles de un tema
+    @Query(SELECT_RESUMEN + "WHERE p.temaId = :temaId AND p.oculta = false ORDER BY p.fecha DESC")
+    List<PublicacionResumen> findResumenesByTemaIdAndNotOculta(@Param("temaId") Long temaId);
+
+    // Resúmenes de publicaciones visibles de un usuario
+    @Query(SELECT_RESUMEN + "WHERE p.usuarioId = :usuarioId AND p.oculta = false ORDER BY p.fecha DESC")
+    List<PublicacionResumen> findResumenesByUsuarioIdAndNotOculta(@Param("usuarioId") Long usuarioId);
+
+    // Resúmenes de la búsqueda por título o descripción
+    @Query(SELECT_RESUMEN + "WHERE (p.titulo LIKE %:query% OR p.descripcion LIKE %:query%) AND p.oculta = false ORDER BY p.fecha DESC")
+    List<PublicacionResumen> searchResumenes(@Param("query") String query);
+
+    // Página de resúmenes visibles por clave (fecha, ID), de la más reciente a la más antigua (feed paginado,
+    // recorre el índice idx_oculta_fecha)
+    @Query(SELECT_RESUMEN + "WHERE p.oculta = false AND (p.fecha < :fecha OR (p.fecha = :fecha AND p.idPublicacion < :id)) " +
+           "ORDER BY p.fecha DESC, p.idPublicacion DESC")
+    List<PublicacionResumen> findPaginaResumenesNotOculta(@Param("fecha") LocalDateTime fecha, @Param("id") Long id, Pageable pageable);
+
+    // Página de resúmenes visibles de un tema por clave (fecha, ID), sobre el índice idx_tema_oculta_fecha
+    @Query(SELECT_RESUMEN + "WHERE p.temaId = :temaId AND p.oculta = false " +
+           "AND (p.fecha < :fecha OR (p.fecha = :fecha AND p.idPublicacion < :id)) ORDER BY p.fecha DESC, p.idPublicacion DESC")
+    List<PublicacionResumen> findPaginaResumenesByTemaIdAndNotOculta(@Param("temaId") Long temaId, @Param("fecha") LocalDateTime fecha,
+                                                                     @Param("id") Long id, Pageable pageable);
+
+    // Página de resúmenes de la búsqueda por título o descripción, por clave (fecha, ID)
+    @Query(SELECT_RESUMEN + "WHERE (p.titulo LIKE %:query% OR p.descripcion LIKE %:query%) AND p.oculta = false " +
+           "AND (p.fecha < :fecha OR (p.fecha = :fecha AND p.idPublicacion < :id)) ORDER BY p.fecha DESC, p.idPublicacion DESC")
+    List<PublicacionResumen> searchPaginaResumenes(@Param("query") String query, @Param("fecha") LocalDateTime fecha,
+                                                   @Param("id") Long id, Pageable pageable);
+
+    // Resúmenes de las publicaciones visibles dentro de una lista de IDs (sin orden garantizado)
+    @Query(SELECT_RESUMEN + "WHERE p.idPublicacion IN :ids AND p.oculta = false")
+    List<PublicacionResumen> findResumenesVisiblesByIds(@Param("ids") Collection<Long> ids);
+
     // Contar publicaciones por tema
     long countByTemaId(Long temaId);
     
     // Contar publicaciones por usuario
     long countByUsuarioId(Long usuarioId);
+
+    // Contar los autores con alguna publicación visible
+    @Query("SELECT COUNT(DISTINCT p.usuarioId) FROM Publicacion p WHERE p.oculta = false")
+    long countAutoresVisibles();
     
+    // (id, usuario, tema, fecha) de las publicaciones visibles dentro de una lista de IDs, bloqueadas hasta ocultarlas
+    // (moderación masiva: las filas leídas son exactamente las que oculta el UPDATE)
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT p.idPublicacion, p.usuarioId, p.temaId, p.fecha FROM Publicacion p WHERE p.idPublicacion IN :ids AND p.oculta = false")
+    List<Object[]> findVisiblesParaOcultarByIds(@Param("ids") Collection<Long> ids);
+
+    // (id, usuario, tema, fecha) de las publicaciones visibles de un usuario desde una fecha, bloqueadas hasta ocultarlas
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT p.idPublicacion, p.usuarioId, p.temaId, p.fecha FROM Publicacion p " +
+           "WHERE p.usuarioId = :usuarioId AND p.fecha >= :desde AND p.oculta = false")
+    List<Object[]> findVisiblesParaOcultarByUsuarioDesde(@Param("usuarioId") Long usuarioId, @Param("desde") LocalDateTime desde);
+
+    // (id, tema, fecha) de las publicaciones ocultas dentro de una lista de IDs, bloqueadas hasta mostrarlas
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT p.idPublicacion, p.temaId, p.fecha FROM Publicacion p WHERE p.idPublicacion IN :ids AND p.oculta = true")
+    List<Object[]> findOcultasParaMostrarByIds(@Param("ids") Collection<Long> ids);
+
+    // (id, tema, fecha) de las publicaciones ocultas de un usuario desde una fecha, bloqueadas hasta mostrarlas
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT p.idPublicacion, p.temaId, p.fecha FROM Publicacion p " +
+           "WHERE p.usuarioId = :usuarioId AND p.fecha >= :desde AND p.oculta = true")
+    List<Object[]> findOcultasParaMostrarByUsuarioDesde(@Param("usuarioId") Long usuarioId, @Param("desde") LocalDateTime desde);
+
+    // Ocultar varias publicaciones en una sola sentencia
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Publicacion p SET p.oculta = true, p.fechaBaneo = :fecha, p.motivoBaneo = :motivo, p.version = p.version + 1 " +
+           "WHERE p.idPublicacion IN :ids AND p.oculta = false")
+    int ocultarPorIds(@Param("ids") Collection<Long> ids, @Param("fecha") LocalDateTime fecha, @Param("motivo") String motivo);
+
+    // Mostrar varias publicaciones en una sola sentencia
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Publicacion p SET p.oculta = false, p.fechaBaneo = null, p.motivoBaneo = null, p.version = p.version + 1 " +
+           "WHERE p.idPublicacion IN :ids AND p.oculta = true")
+    int mostrarPorIds(@Param("ids") Collection<Long> ids);
+
+    // Actualizar título y/o descripción (null conserva el valor) si la versión coincide
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Publicacion p SET p.titulo = COALESCE(:titulo, p.titulo), p.descripcion = COALESCE(:descripcion, p.descripcion), " +
+           "p.version = p.version + 1 WHERE p.idPublicacion = :id AND p.version = :version")
+    int actualizarContenido(@Param("id") Long id, @Param("titulo") String titulo,
+                            @Param("descripcion") String descripcion, @Param("version") Long version);
+
+    // Actualizar la imagen si la versión coincide
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Publicacion p SET p.imageUrl = :imageUrl, p.version = p.version + 1 " +
+           "WHERE p.idPublicacion = :id AND p.version = :version")
+    int actualizarImagen(@Param("id") Long id, @Param("imageUrl") String imageUrl, @Param("version") Long version);
+
+    // Ocultar una publicación si la versión coincide (un motivo null conserva el anterior)
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Publicacion p SET p.oculta = true, p.fechaBaneo = :fecha, p.motivoBaneo = COALESCE(:motivo, p.motivoBaneo), " +
+           "p.version = p.version + 1 WHERE p.idPublicacion = :id AND p.version = :version")
+    int ocultar(@Param("id") Long id, @Param("fecha") LocalDateTime fecha, @Param("motivo") String motivo,
+                @Param("version") Long version);
+
+    // Ocultar una publicación si la versión coincide y estaba visible (sin filas, estaba oculta o cambió la versión)
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Publicacion p SET p.oculta = true, p.fechaBaneo = :fecha, p.motivoBaneo = COALESCE(:motivo, p.motivoBaneo), " +
+           "p.version = p.version + 1 WHERE p.idPublicacion = :id AND p.version = :version AND p.oculta = false")
+    int ocultarSiVisible(@Param("id") Long id, @Param("fecha") LocalDateTime fecha, @Param("motivo") String motivo,
+                         @Param("version") Long version);
+
+    // Mostrar una publicación si la versión coincide
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Publicacion p SET p.oculta = false, p.fechaBaneo = null, p.motivoBaneo = null, p.version = p.version + 1 " +
+           "WHERE p.idPublicacion = :id AND p.version = :version")
+    int mostrar(@Param("id") Long id, @Param("version") Long version);
+
+    // Mostrar una publicación si la versión coincide y estaba oculta (sin filas, estaba visible o cambió la versión)
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Publicacion p SET p.oculta = false, p.fechaBaneo = null, p.motivoBaneo = null, p.version = p.version + 1 " +
+           "WHERE p.idPublicacion = :id AND p.version = :version AND p.oculta = true")
+    int mostrarSiOculta(@Param("id") Long id, @Param("version") Long version);
+
+    // Estado (id, versión, oculta, tema, usuario, fecha) de una publicación, sin título ni descripción
+    @Query("SELECT p.idPublicacion, p.version, p.oculta, p.temaId, p.usuarioId, p.fecha FROM Publicacion p WHERE p.idPublicacion = :id")
+    List<Object[]> findEstadoById(@Param("id") Long id);
+
+    // Obtener (id, tema, fecha) de las publicaciones visibles desde una fecha (carga del ranking caliente)
+    @Query("SELECT p.idPublicacion, p.temaId, p.fecha FROM Publicacion p WHERE p.oculta = false AND p.fecha >= :desde")
+    List<Object[]> findVisiblesIdTemaFechaDesde(@Param("desde") LocalDateTime desde);
+
+    // Obtener (id, tema, fecha) de las publicaciones visibles dentro de una lista de IDs
+    @Query("SELECT p.idPublicacion, p.temaId, p.fecha FROM Publicacion p WHERE p.idPublicacion IN :ids AND p.oculta = false")
+    List<Object[]> findVisiblesIdTemaFechaByIds(@Param("ids") Collection<Long> ids);
+
+    // Obtener (id, tema, usuario) de una lista de IDs, en orden de ID (registro masivo de cambios)
+    @Query("SELECT p.idPublicacion, p.temaId, p.usuarioId FROM Publicacion p WHERE p.idPublicacion IN :ids ORDER BY p.idPublicacion")
+    List<Object[]> findIdTemaUsuarioByIds(@Param("ids") Collection<Long> ids);
+
+    // Obtener (id, tema, fecha, oculta) de una lista de IDs (resúmenes diarios por tema)
+    @Query("SELECT p.idPublicacion, p.temaId, p.fecha, p.oculta FROM Publicacion p WHERE p.idPublicacion IN :ids")
+    List<Object[]> findIdTemaFechaOcultaByIds(@Param("ids") Collection<Long> ids);
+
+    // IDs existentes dentro de una lista (solo recorre la clave primaria)
+    @Query("SELECT p.idPublicacion FROM Publicacion p WHERE p.idPublicacion IN :ids")
+    List<Long> findIdsExistentes(@Param("ids") Collection<Long> ids);
+
+    // Referencias mínimas (sin descripción ni datos de baneo) de varias publicaciones
+    @Query("SELECT new com.qualifygym.publicaciones.dto.PublicacionReferencia(p.idPublicacion, p.usuarioId, p.temaId, p.oculta) " +
+           "FROM Publicacion p WHERE p.idPublicacion IN :ids")
+    List<PublicacionReferencia> findReferenciasByIds(@Param("ids") Collection<Long> ids);
+
     // Buscar por ID usando el nombre de columna
     @Query("SELECT p FROM Publicacion p WHERE p.idPublicacion = :id")
     Optional<Publicacion> findByIdPublicacion(@Param("id") Long id);
-}
 
+    // Recorrer todas las publicaciones en orden de ID como stream de solo lectura (exportación)
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT p FROM Publicacion p ORDER BY p.idPublicacion ASC")
+    Stream<Publicacion> streamTodas();
+
+    // Recorrer las publicaciones creadas desde una fecha como stream de solo lectura (exportación incremental)
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT p FROM Publicacion p WHERE p.fecha >= :desde ORDER BY p.idPublicacion ASC")
+    Stream<Publicacion> streamDesde(@Param("desde") LocalDateTime desde);
+
+    // IDs de un bloque de publicaciones anteriores a una fecha, bloqueados para moverlos al archivo
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT p.idPublicacion FROM Publicacion p WHERE p.fecha < :antesDe ORDER BY p.idPublicacion ASC")
+    List<Long> findIdsAnterioresA(@Param("antesDe") LocalDateTime antesDe, Pageable pageable);
+
+    // (id, descripción) de publicaciones sin firma MinHash, en orden de ID (relleno del índice de relacionadas)
+    @Query("SELECT p.idPublicacion, p.descripcion FROM Publicacion p WHERE p.idPublicacion > :despuesDe " +
+           "AND NOT EXISTS (SELECT f.publicacionId FROM FirmaPublicacion f WHERE f.publicacionId = p.idPublicacion) " +
+           "ORDER BY p.idPublicacion ASC")
+    List<Object[]> findSinFirma(@Param("despuesDe") Long despuesDe, Pageable pageable);
+
+    // (id, descripción, oculta) de publicaciones que mencionan algún hashtag, en orden de ID (relleno de etiquetas)
+    @Query("SELECT p.idPublicacion, p.descripcion, p.oculta FROM Publicacion p WHERE p.idPublicacion > :despuesDe " +
+           "AND p.descripcion LIKE '%#%' ORDER BY p.idPublicacion ASC")
+    List<Object[]> findConHashtagDesde(@Param("despuesDe") Long despuesDe, Pageable pageable);
+
+    // Eliminar un bloque de publicaciones en una sola sentencia (ya copiadas al archivo)
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("DELETE FROM Publicacion p WHERE p.idPublicacion IN :ids")
+    int eliminarPorIds(@Param("ids") Collection<Long> ids);
+}
@@ -0,0 +1,20 @@
+package com.qualifygym.publicaciones.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.qualifygym.publicaciones.model.PurgaCambios;
+
+@Repository
+public interface PurgaCambiosRepository extends JpaRepository<PurgaCambios, Integer> {
+
+    // Registrar la última secuencia purgada sin retroceder nunca la marca
+    @Modifying
+    @Query(value = "INSERT INTO publicaciones_cambios_purga (id, hasta_seq) VALUES (:id, :hastaSeq) " +
+                   "ON DUPLICATE KEY UPDATE hasta_seq = GREATEST(hasta_seq, VALUES(hasta_seq))",
+           nativeQuery = true)
+    int registrar(@Param("id") Integer id, @Param("hastaSeq") Long hastaSeq);
+}
@@ -0,0 +1,26 @@
+package com.qualifygym.publicaciones.repository;
+
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.qualifygym.publicaciones.model.ReaccionPublicacion;
+
+@Repository
+public interface ReaccionPublicacionRepository extends JpaRepository<ReaccionPublicacion, ReaccionPublicacion.Clave> {
+
+    // Pares (publicación, usuario) ya persistidos entre unas publicaciones y unos usuarios (volcado de pendientes)
+    @Query("SELECT r.publicacionId, r.usuarioId FROM ReaccionPublicacion r " +
+           "WHERE r.publicacionId IN :publicacionIds AND r.usuarioId IN :usuarioIds")
+    List<Object[]> findPares(@Param("publicacionIds") Collection<Long> publicacionIds, @Param("usuarioIds") Collection<Long> usuarioIds);
+
+    // Eliminar las reacciones de varias publicaciones (eliminación)
+    @Modifying
+    @Query("DELETE FROM ReaccionPublicacion r WHERE r.publicacionId IN :ids")
+    int eliminarPorPublicacionIds(@Param("ids") Collection<Long> ids);
+}
@@ -0,0 +1,46 @@
+package com.qualifygym.publicaciones.repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.qualifygym.publicaciones.model.UsuarioSilenciado;
+
+import jakarta.persistence.QueryHint;
+
+@Repository
+public interface UsuarioSilenciadoRepository extends JpaRepository<UsuarioSilenciado, UsuarioSilenciado.Clave> {
+
+    // Recorrer todos los silenciados agrupados por usuario (carga de los conjuntos al iniciar)
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT s.usuarioId, s.silenciadoId FROM UsuarioSilenciado s ORDER BY s.usuarioId, s.silenciadoId")
+    Stream<Object[]> streamTodos();
+
+    // Silenciados de varios usuarios agrupados por usuario (recarga de sus conjuntos)
+    @Query("SELECT s.usuarioId, s.silenciadoId FROM UsuarioSilenciado s WHERE s.usuarioId IN :usuarioIds " +
+           "ORDER BY s.usuarioId, s.silenciadoId")
+    List<Object[]> findByUsuarioIds(@Param("usuarioIds") Collection<Long> usuarioIds);
+
+    // Silenciar un autor para un usuario (sin efecto si ya estaba silenciado)
+    @Modifying
+    @Query(value = "INSERT INTO publicaciones_silenciados (usuario_id, silenciado_id, fecha) VALUES (:usuarioId, :silenciadoId, :fecha) " +
+                   "ON DUPLICATE KEY UPDATE fecha = fecha", nativeQuery = true)
+    int insertar(@Param("usuarioId") Long usuarioId, @Param("silenciadoId") Long silenciadoId, @Param("fecha") LocalDateTime fecha);
+
+    // Dejar de silenciar un autor
+    @Modifying
+    @Query("DELETE FROM UsuarioSilenciado s WHERE s.usuarioId = :usuarioId AND s.silenciadoId = :silenciadoId")
+    int eliminar(@Param("usuarioId") Long usuarioId, @Param("silenciadoId") Long silenciadoId);
+}
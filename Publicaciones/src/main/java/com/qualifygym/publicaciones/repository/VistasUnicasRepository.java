@@ -0,0 +1,44 @@
+package com.qualifygym.publicaciones.repository;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.qualifygym.publicaciones.model.VistasUnicas;
+
+import jakarta.persistence.LockModeType;
+
+@Repository
+public interface VistasUnicasRepository extends JpaRepository<VistasUnicas, VistasUnicas.Clave> {
+
+    // Sketches de varias claves de un ámbito y día, bloqueados hasta el fin de la transacción (volcado)
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT v FROM VistasUnicas v WHERE v.ambito = :ambito AND v.clave IN :claves AND v.dia = :dia")
+    List<VistasUnicas> findParaActualizar(@Param("ambito") VistasUnicas.Ambito ambito,
+                                          @Param("claves") Collection<Long> claves,
+                                          @Param("dia") LocalDate dia);
+
+    // Sketches de una clave entre dos días (inclusive)
+    @Query("SELECT v FROM VistasUnicas v WHERE v.ambito = :ambito AND v.clave = :clave AND v.dia BETWEEN :desde AND :hasta")
+    List<VistasUnicas> findEntreDias(@Param("ambito") VistasUnicas.Ambito ambito,
+                                     @Param("clave") Long clave,
+                                     @Param("desde") LocalDate desde,
+                                     @Param("hasta") LocalDate hasta);
+
+    // Eliminar los sketches diarios anteriores a un día (retención)
+    @Modifying
+    @Query("DELETE FROM VistasUnicas v WHERE v.ambito IN :ambitos AND v.dia < :limite")
+    int eliminarAnteriores(@Param("ambitos") Collection<VistasUnicas.Ambito> ambitos, @Param("limite") LocalDate limite);
+
+    // Eliminar los sketches de varias publicaciones (eliminación)
+    @Modifying
+    @Query("DELETE FROM VistasUnicas v WHERE v.ambito IN :ambitos AND v.clave IN :ids")
+    int eliminarPorClaves(@Param("ambitos") Collection<VistasUnicas.Ambito> ambitos, @Param("ids") Collection<Long> ids);
+}
@@ -0,0 +1,384 @@
+package com.qualifygym.publicaciones.service;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.qualifygym.publicaciones.model.ActividadDiaria;
+import com.qualifygym.publicaciones.model.ActividadRelleno;
+import com.qualifygym.publicaciones.repository.ActividadDiariaRepository;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Resúmenes diarios de publicaciones por tema ({@code publicaciones_actividad_diaria}).
+ *
+ * Crear, ocultar, mostrar y eliminar suman un delta en memoria al (día de la publicación, tema)
+ * cuando su transacción se confirma. Un volcado periódico escribe los deltas acumulados con un
+ * upsert por fila, así una ráfaga de publicaciones en un tema es una sola escritura por volcado.
+ * Las consultas leen los resúmenes por rango de días y les suman lo aún no volcado, sin agrupar
+ * la tabla {@code publicaciones}.
+ *
+ * El relleno del histórico recalcula, por tramos de días y fuera del día en curso, los resúmenes a
+ * partir de {@code publicaciones} y {@code publicaciones_archivo}. El último día recalculado se
+ * guarda en {@code publicaciones_actividad_relleno}: tras el primer recorrido, cada día se recalcula
+ * una sola vez después de terminar (corrigiendo cualquier desvío de sus deltas), sin volver a
+ * recorrer la historia en cada arranque.
+ */
+@Service
+public class ActividadDiariaService {
+
+    @Autowired
+    private ActividadDiariaRepository actividadRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${actividad.publicaciones.tamano-lote:500}")
+    private int tamanoLote = 500;
+
+    @Value("${actividad.publicaciones.dias-relleno:31}")
+    private int diasRelleno = 31;
+
+    @Value("${actividad.publicaciones.max-dias-consulta:366}")
+    private int maxDiasConsulta = 366;
+
+    private record Clave(LocalDate dia, long temaId) {
+    }
+
+    private record Delta(LongAdder publicadas, LongAdder ocultas) {
+    }
+
+    // Recuento en curso y los deltas de su rango confirmados mientras dura: ya están en el recuento
+    private record Recuento(LocalDate desde, LocalDate hasta, Map<Clave, Delta> deltas) {
+
+        boolean incluye(LocalDate dia) {
+            return !dia.isBefore(desde) && !dia.isAfter(hasta);
+        }
+    }
+
+    // Deltas aún no volcados y los tomados por el volcado en curso; sumar comparte el lock de lectura
+    // y tomar todos los pendientes toma el de escritura
+    private Map<Clave, Delta> pendientes = new ConcurrentHashMap<>();
+    private final Map<Clave, Delta> enVuelo = new ConcurrentHashMap<>();
+    private final ReentrantReadWriteLock deltasLock = new ReentrantReadWriteLock();
+    private volatile Recuento recuento;
+
+    private final ReentrantLock volcando = new ReentrantLock();
+
+    // Primer día que falta recalcular en el relleno del histórico (null: aún no se leyó el marcador)
+    private volatile LocalDate rellenoDesde;
+
+    /**
+     * Registrar una publicación nueva. Se aplica al confirmar la transacción del llamador.
+     */
+    public void registrarCreada(Long temaId, LocalDateTime fecha, boolean oculta) {
+        sumar(temaId, fecha, 1, oculta ? 1 : 0);
+    }
+
+    /**
+     * Registrar que una publicación pasó a estar oculta (true) o visible (false)
+     */
+    public void registrarVisibilidad(Long temaId, LocalDateTime fecha, boolean oculta) {
+        sumar(temaId, fecha, 0, oculta ? 1 : -1);
+    }
+
+    /**
+     * Registrar una publicación eliminada (reciente o archivada)
+     */
+    public void registrarEliminada(Long temaId, LocalDateTime fecha, boolean oculta) {
+        sumar(temaId, fecha, -1, oculta ? -1 : 0);
+    }
+
+    /**
+     * Resúmenes diarios entre dos días (inclusive), incluidos los deltas aún no volcados
+     * @param temaId Tema, o null para todos
+     * @return Un resumen por día y tema con publicaciones, ordenados por día y tema
+     * @throws RuntimeException si el rango es inválido o supera el máximo de días
+     */
+    public List<ActividadDiaria> obtener(LocalDate desde, LocalDate hasta, Long temaId) {
+        if (desde == null || hasta == null || desde.isAfter(hasta) || ChronoUnit.DAYS.between(desde, hasta) >= maxDiasConsulta) {
+            throw new RuntimeException("El rango de días es inválido (máximo " + maxDiasConsulta + " días)");
+        }
+        Map<Clave, ActividadDiaria> resumenes = new HashMap<>();
+        for (ActividadDiaria actividad : actividadRepository.findEntreDias(desde, hasta, temaId)) {
+            resumenes.put(new Clave(actividad.getDia(), actividad.getTemaId()), actividad);
+        }
+        deltasLock.readLock().lock();
+        try {
+            Recuento actual = recuento;
+            List<Map<Clave, Delta>> noVolcados = actual != null
+                    ? List.of(pendientes, enVuelo, actual.deltas()) : List.of(pendientes, enVuelo);
+            for (Map<Clave, Delta> deltas : noVolcados) {
+                for (Map.Entry<Clave, Delta> delta : deltas.entrySet()) {
+                    Clave clave = delta.getKey();
+                    if (clave.dia().isBefore(desde) || clave.dia().isAfter(hasta) || (temaId != null && clave.temaId() != temaId)) {
+                        continue;
+                    }
+                    ActividadDiaria actividad = resumenes.computeIfAbsent(clave,
+                            k -> new ActividadDiaria(k.dia(), k.temaId(), 0L, 0L));
+                    actividad.setPublicadas(actividad.getPublicadas() + delta.getValue().publicadas().sum());
+                    actividad.setOcultas(actividad.getOcultas() + delta.getValue().ocultas().sum());
+                }
+            }
+        } finally {
+            deltasLock.readLock().unlock();
+        }
+        List<ActividadDiaria> resultado = new ArrayList<>();
+        for (ActividadDiaria actividad : resumenes.values()) {
+            // Un delta puede adelantarse al relleno de un día aún sin resumen: nunca se informa negativo
+            long publicadas = Math.max(0L, actividad.getPublicadas());
+            if (publicadas > 0) {
+                resultado.add(new ActividadDiaria(actividad.getDia(), actividad.getTemaId(), publicadas,
+                        Math.min(publicadas, Math.max(0L, actividad.getOcultas()))));
+            }
+        }
+        resultado.sort(Comparator.comparing(ActividadDiaria::getDia).thenComparing(ActividadDiaria::getTemaId));
+        return resultado;
+    }
+
+    // Ejecución periódica del volcado
+    @Scheduled(fixedDelayString = "${actividad.publicaciones.volcado-ms:5000}")
+    public void volcarProgramado() {
+        volcar();
+    }
+
+    // Persistir lo pendiente al detener la aplicación
+    @PreDestroy
+    public void alCerrar() {
+        volcar();
+    }
+
+    /**
+     * Sumar a los resúmenes los deltas pendientes, por lotes, cada uno en su propia transacción.
+     * Si un lote falla, lo que quedaba por volcar vuelve a quedar pendiente.
+     * @return Número de resúmenes actualizados
+     */
+    public int volcar() {
+        if (!volcando.tryLock()) {
+            return 0;
+        }
+        try {
+            return volcarTodo();
+        } finally {
+            volcando.unlock();
+        }
+    }
+
+    /**
+     * Recalcular el siguiente tramo del histórico (hasta ayer) a partir de las publicaciones.
+     * Continúa desde el día siguiente al último recalculado (guardado en la base de datos) o, la
+     * primera vez, desde el día de la publicación más antigua; avanza {@code dias-relleno} días por
+     * ejecución. Al llegar a ayer queda a la espera de que termine el día en curso.
+     * @return Número de días recalculados
+     */
+    @Scheduled(fixedDelayString = "${actividad.publicaciones.relleno-ms:60000}", initialDelayString = "${actividad.publicaciones.relleno-ms:60000}")
+    public int rellenarHistorico() {
+        LocalDate hoy = LocalDate.now();
+        LocalDate desde = rellenoDesde;
+        if (desde == null) {
+            LocalDate rellenado = rellenadoHasta();
+            desde = rellenado != null ? rellenado.plusDays(1) : primerDia();
+            if (desde == null) {
+                rellenoDesde = hoy;
+                return 0;
+            }
+        }
+        if (!desde.isBefore(hoy)) {
+            rellenoDesde = desde;
+            return 0;
+        }
+        LocalDate hasta = desde.plusDays(diasRelleno - 1L);
+        if (!hasta.isBefore(hoy)) {
+            hasta = hoy.minusDays(1);
+        }
+        recalcular(desde, hasta, true);
+        rellenoDesde = hasta.plusDays(1);
+        return (int) ChronoUnit.DAYS.between(desde, hasta) + 1;
+    }
+
+    /**
+     * Reemplazar los resúmenes entre dos días (inclusive) por el recuento de las publicaciones recientes
+     * y archivadas. Vuelca antes los deltas pendientes, y los del rango que se confirman mientras dura
+     * el recuento se descartan si este se confirma (ya están contados en él), para que ninguno se sume
+     * dos veces.
+     */
+    public void recalcular(LocalDate desde, LocalDate hasta) {
+        recalcular(desde, hasta, false);
+    }
+
+    // Con marcar, guarda en la misma transacción que el tramo quedó recalculado
+    private void recalcular(LocalDate desde, LocalDate hasta, boolean marcar) {
+        volcando.lock();
+        Recuento abierto = new Recuento(desde, hasta, new ConcurrentHashMap<>());
+        boolean confirmado = false;
+        try {
+            cambiarRecuento(abierto);
+            volcarTodo();
+            Timestamp inicio = Timestamp.valueOf(desde.atStartOfDay());
+            Timestamp fin = Timestamp.valueOf(hasta.plusDays(1).atStartOfDay());
+            new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+                jdbcTemplate.update("DELETE FROM publicaciones_actividad_diaria WHERE dia >= ? AND dia <= ?",
+                        Date.valueOf(desde), Date.valueOf(hasta));
+                jdbcTemplate.update(
+                        "INSERT INTO publicaciones_actividad_diaria (dia, tema_id, publicadas, ocultas) " +
+                        "SELECT dia, tema_id, SUM(publicadas), SUM(ocultas) FROM (" +
+                        "SELECT DATE(fecha) AS dia, Tema_id_tema AS tema_id, COUNT(*) AS publicadas, " +
+                        "SUM(CASE WHEN oculta = true THEN 1 ELSE 0 END) AS ocultas " +
+                        "FROM publicaciones WHERE fecha >= ? AND fecha < ? GROUP BY DATE(fecha), Tema_id_tema " +
+                        "UNION ALL " +
+                        "SELECT DATE(fecha), Tema_id_tema, COUNT(*), SUM(CASE WHEN oculta = true THEN 1 ELSE 0 END) " +
+                        "FROM publicaciones_archivo WHERE fecha >= ? AND fecha < ? GROUP BY DATE(fecha), Tema_id_tema" +
+                        ") recuento GROUP BY dia, tema_id",
+                        inicio, fin, inicio, fin);
+                if (marcar) {
+                    jdbcTemplate.update(
+                            "INSERT INTO publicaciones_actividad_relleno (id, hasta) VALUES (?, ?) " +
+                            "ON DUPLICATE KEY UPDATE hasta = GREATEST(hasta, VALUES(hasta))",
+                            ActividadRelleno.ID, Date.valueOf(hasta));
+                }
+                // Las escrituras sobre filas del rango esperan a los candados del recuento: lo que se
+                // confirme desde aquí no está contado en él y vuelve a sumarse como delta
+                cambiarRecuento(null);
+            });
+            confirmado = true;
+        } finally {
+            cambiarRecuento(null);
+            if (!confirmado) {
+                devolver(abierto.deltas());
+            }
+            volcando.unlock();
+        }
+    }
+
+    private void sumar(Long temaId, LocalDateTime fecha, long publicadas, long ocultas) {
+        if (temaId == null || fecha == null) {
+            return;
+        }
+        Clave clave = new Clave(fecha.toLocalDate(), temaId);
+        TransaccionesUtil.alConfirmar(() -> {
+            deltasLock.readLock().lock();
+            try {
+                Recuento actual = recuento;
+                Map<Clave, Delta> destino = actual != null && actual.incluye(clave.dia()) ? actual.deltas() : pendientes;
+                Delta delta = destino.computeIfAbsent(clave, k -> new Delta(new LongAdder(), new LongAdder()));
+                delta.publicadas().add(publicadas);
+                delta.ocultas().add(ocultas);
+            } finally {
+                deltasLock.readLock().unlock();
+            }
+        });
+    }
+
+    // Requiere el candado de volcado
+    private int volcarTodo() {
+        // Se toman todos los pendientes de una vez: nadie puede estar sumando sobre el mapa tomado
+        deltasLock.writeLock().lock();
+        try {
+            if (pendientes.isEmpty()) {
+                return 0;
+            }
+            enVuelo.putAll(pendientes);
+            pendientes = new ConcurrentHashMap<>();
+        } finally {
+            deltasLock.writeLock().unlock();
+        }
+
+        TransactionTemplate transaccion = new TransactionTemplate(transactionManager);
+        List<Map.Entry<Clave, Delta>> deltas = new ArrayList<>(enVuelo.entrySet());
+        int volcados = 0;
+        for (int i = 0; i < deltas.size(); i += tamanoLote) {
+            List<Map.Entry<Clave, Delta>> lote = deltas.subList(i, Math.min(i + tamanoLote, deltas.size()));
+            try {
+                transaccion.executeWithoutResult(status -> persistir(lote));
+            } catch (RuntimeException e) {
+                devolver(enVuelo);
+                throw e;
+            }
+            for (Map.Entry<Clave, Delta> delta : lote) {
+                enVuelo.remove(delta.getKey());
+            }
+            volcados += lote.size();
+        }
+        return volcados;
+    }
+
+    private void persistir(List<Map.Entry<Clave, Delta>> lote) {
+        List<Object[]> filas = new ArrayList<>(lote.size());
+        for (Map.Entry<Clave, Delta> delta : lote) {
+            long publicadas = delta.getValue().publicadas().sum();
+            long ocultas = delta.getValue().ocultas().sum();
+            if (publicadas != 0 || ocultas != 0) {
+                filas.add(new Object[] { Date.valueOf(delta.getKey().dia()), delta.getKey().temaId(), publicadas, ocultas });
+            }
+        }
+        if (!filas.isEmpty()) {
+            jdbcTemplate.batchUpdate(
+                    "INSERT INTO publicaciones_actividad_diaria (dia, tema_id, publicadas, ocultas) VALUES (?, ?, ?, ?) " +
+                    "ON DUPLICATE KEY UPDATE publicadas = publicadas + VALUES(publicadas), ocultas = ocultas + VALUES(ocultas)",
+                    filas);
+        }
+    }
+
+    // Lo que quedaba por volcar (o un recuento fallido dejó sin contar) se suma a lo llegado entretanto
+    private void devolver(Map<Clave, Delta> deltas) {
+        deltasLock.writeLock().lock();
+        try {
+            for (Map.Entry<Clave, Delta> delta : deltas.entrySet()) {
+                Delta destino = pendientes.computeIfAbsent(delta.getKey(), k -> new Delta(new LongAdder(), new LongAdder()));
+                destino.publicadas().add(delta.getValue().publicadas().sum());
+                destino.ocultas().add(delta.getValue().ocultas().sum());
+            }
+            deltas.clear();
+        } finally {
+            deltasLock.writeLock().unlock();
+        }
+    }
+
+    // Con el lock de escritura ningún delta queda a medio sumar en el mapa del recuento anterior
+    private void cambiarRecuento(Recuento nuevo) {
+        deltasLock.writeLock().lock();
+        try {
+            recuento = nuevo;
+        } finally {
+            deltasLock.writeLock().unlock();
+        }
+    }
+
+    // Último día recalculado por el relleno, o null si nunca se completó un tramo
+    private LocalDate rellenadoHasta() {
+        List<Date> hasta = jdbcTemplate.queryForList(
+                "SELECT hasta FROM publicaciones_actividad_relleno WHERE id = ?", Date.class, ActividadRelleno.ID);
+        return hasta.isEmpty() || hasta.get(0) == null ? null : hasta.get(0).toLocalDate();
+    }
+
+    // Día de la publicación más antigua, reciente o archivada
+    private LocalDate primerDia() {
+        Timestamp reciente = jdbcTemplate.queryForObject("SELECT MIN(fecha) FROM publicaciones", Timestamp.class);
+        Timestamp archivada = jdbcTemplate.queryForObject("SELECT MIN(fecha) FROM publicaciones_archivo", Timestamp.class);
+        Timestamp primera = reciente == null || (archivada != null && archivada.before(reciente)) ? archivada : reciente;
+        return primera != null ? primera.toLocalDateTime().toLocalDate() : null;
+    }
+}
@@ -0,0 +1,109 @@
+package com.qualifygym.publicaciones.service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.qualifygym.publicaciones.model.CambioPublicacion;
+import com.qualifygym.publicaciones.repository.PublicacionArchivadaRepository;
+import com.qualifygym.publicaciones.repository.PublicacionRepository;
+
+/**
+ * Archivo de publicaciones antiguas.
+ *
+ * Mueve las publicaciones con más antigüedad que la configurada desde la tabla caliente
+ * {@code publicaciones} a {@code publicaciones_archivo}, de modo que los feeds y sus índices
+ * solo recorren el conjunto reciente. El traslado se hace por bloques, cada uno en su propia
+ * transacción (copiar y luego eliminar), para no mantener bloqueos largos sobre la tabla.
+ */
+@Service
+public class ArchivoPublicacionesService {
+
+    @Autowired
+    private PublicacionRepository publicacionRepository;
+
+    @Autowired
+    private PublicacionArchivadaRepository archivadaRepository;
+
+    @Autowired
+    private CambiosPublicacionService cambiosPublicacionService;
+
+    @Autowired
+    private RelacionadasPublicacionService relacionadasPublicacionService;
+
+    @Autowired
+    private EtiquetasPublicacionService etiquetasPublicacionService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${archivo.publicaciones.meses-en-caliente:12}")
+    private int mesesEnCaliente = 12;
+
+    @Value("${archivo.publicaciones.tamano-lote:500}")
+    private int tamanoLote = 500;
+
+    @Value("${archivo.publicaciones.max-lotes-por-ejecucion:200}")
+    private int maxLotesPorEjecucion = 200;
+
+    // Ejecución periódica del archivo (por defecto, de madrugada)
+    @Scheduled(cron = "${archivo.publicaciones.cron:0 30 3 * * *}")
+    public void archivarProgramado() {
+        archivarAntiguas();
+    }
+
+    /**
+     * Mover al archivo las publicaciones anteriores al corte de antigüedad.
+     * Cada ejecución procesa como máximo {@code max-lotes-por-ejecucion} bloques; lo que quede
+     * pendiente se retoma en la siguiente.
+     * @return Número de publicaciones archivadas
+     */
+    public int archivarAntiguas() {
+        return archivarAnterioresA(LocalDateTime.now().minusMonths(mesesEnCaliente));
+    }
+
+    /**
+     * Mover al archivo las publicaciones anteriores a una fecha
+     * @param antesDe Fecha de corte (exclusiva)
+     * @return Número de publicaciones archivadas
+     */
+    public int archivarAnterioresA(LocalDateTime antesDe) {
+        TransactionTemplate transaccion = new TransactionTemplate(transactionManager);
+        int archivadas = 0;
+
+        for (int lote = 0; lote < maxLotesPorEjecucion; lote++) {
+            Integer movidas = transaccion.execute(status -> moverLote(antesDe));
+            if (movidas == null || movidas == 0) {
+                break;
+            }
+            archivadas += movidas;
+            if (movidas < tamanoLote) {
+                break;
+            }
+        }
+        return archivadas;
+    }
+
+    // Copia un bloque al archivo y lo elimina de la tabla caliente; las filas quedan bloqueadas
+    // desde la selección para que ninguna modificación concurrente se pierda entre ambos pasos
+    private int moverLote(LocalDateTime antesDe) {
+        List<Long> ids = publicacionRepository.findIdsAnterioresA(antesDe, PageRequest.of(0, tamanoLote));
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        archivadaRepository.copiarDesdePublicaciones(ids, LocalDateTime.now());
+        // Las archivadas salen de los feeds: se registra como cambio para la sincronización y los ETags
+        cambiosPublicacionService.registrarLote(ids, CambioPublicacion.Tipo.ARCHIVADA);
+        relacionadasPublicacionService.quitar(ids);
+        etiquetasPublicacionService.quitar(ids);
+        publicacionRepository.eliminarPorIds(ids);
+        return ids.size();
+    }
+}
@@ -0,0 +1,274 @@
+package com.qualifygym.publicaciones.service;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.qualifygym.publicaciones.model.BorradorPublicacion;
+import com.qualifygym.publicaciones.repository.BorradorPublicacionRepository;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Borradores de publicaciones con autoguardado agrupado en memoria.
+ *
+ * Crear un borrador inserta la fila para obtener su ID, pero cada autoguardado posterior solo
+ * reemplaza en memoria el contenido pendiente de ese (usuario, borrador): gana la última escritura.
+ * Un volcado cada {@code borradores.publicaciones.volcado-ms} escribe con lotes JDBC un único
+ * {@code UPDATE} por borrador modificado en la ventana, sin importar cuántos autoguardados recibió,
+ * y con un máximo de lotes por volcado. El {@code UPDATE} solo escribe si la fila no tiene un contenido
+ * más nuevo (volcado por otra instancia), y las lecturas superponen lo pendiente a lo persistido solo si
+ * es más reciente. Publicar vuelca antes lo pendiente de esta instancia y publica la fila persistida,
+ * bloqueada hasta el fin de la transacción.
+ */
+@Service
+public class BorradoresPublicacionService {
+
+    static final int MAX_BORRADORES_POR_USUARIO = 50;
+
+    @Autowired
+    private BorradorPublicacionRepository borradorRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${borradores.publicaciones.tamano-lote:500}")
+    private int tamanoLote = 500;
+
+    @Value("${borradores.publicaciones.max-lotes-volcado:20}")
+    private int maxLotesVolcado = 20;
+
+    private record Clave(long borradorId, long usuarioId) {
+    }
+
+    private record Contenido(String titulo, String descripcion, Long temaId, String imageUrl, LocalDateTime fecha) {
+    }
+
+    // Último contenido aún no persistido por borrador y el tomado por el volcado en curso
+    private final Map<Clave, Contenido> pendientes = new ConcurrentHashMap<>();
+    private final Map<Clave, Contenido> enVuelo = new ConcurrentHashMap<>();
+
+    private final ReentrantLock volcando = new ReentrantLock();
+
+    /**
+     * Crear un borrador. Se une a la transacción del llamador.
+     * @throws RuntimeException si el usuario alcanzó el máximo de borradores
+     */
+    public BorradorPublicacion crear(Long usuarioId, String titulo, String descripcion, Long temaId, String imageUrl) {
+        if (borradorRepository.countByUsuarioId(usuarioId) >= MAX_BORRADORES_POR_USUARIO) {
+            throw new RuntimeException("Se permiten como máximo " + MAX_BORRADORES_POR_USUARIO + " borradores por usuario");
+        }
+        return borradorRepository.save(
+                new BorradorPublicacion(null, usuarioId, titulo, descripcion, temaId, imageUrl, LocalDateTime.now()));
+    }
+
+    /**
+     * Autoguardar el contenido de un borrador. No escribe en la base de datos: reemplaza el contenido
+     * pendiente, que se persiste en el siguiente volcado.
+     * @return El borrador con el contenido recién guardado
+     * @throws RuntimeException si el borrador no existe o es de otro usuario
+     */
+    public BorradorPublicacion autoguardar(Long usuarioId, Long borradorId, String titulo, String descripcion,
+                                           Long temaId, String imageUrl) {
+        Clave clave = new Clave(borradorId, usuarioId);
+        // Solo el primer autoguardado de cada ventana consulta si el borrador existe
+        if (!pendientes.containsKey(clave) && !enVuelo.containsKey(clave)
+                && !borradorRepository.existsByIdBorradorAndUsuarioId(borradorId, usuarioId)) {
+            throw new RuntimeException("Borrador no encontrado ID: " + borradorId);
+        }
+        Contenido contenido = new Contenido(titulo, descripcion, temaId, imageUrl, LocalDateTime.now());
+        pendientes.put(clave, contenido);
+        return aBorrador(clave, contenido);
+    }
+
+    /**
+     * Obtener un borrador del usuario con su contenido más reciente (incluye lo aún no volcado)
+     */
+    public Optional<BorradorPublicacion> obtener(Long usuarioId, Long borradorId) {
+        Clave clave = new Clave(borradorId, usuarioId);
+        // Lo pendiente se lee antes que la fila: un volcado que termina entretanto ya dejó su contenido en ella
+        Contenido contenido = ultimoContenido(clave);
+        return borradorRepository.findByIdBorradorAndUsuarioId(borradorId, usuarioId)
+                .map(borrador -> masReciente(clave, contenido, borrador));
+    }
+
+    /**
+     * Obtener un borrador para publicarlo: primero persiste lo pendiente en esta instancia (sin pisar un
+     * contenido más nuevo) y después lee la fila bloqueándola, para que ningún volcado la cambie mientras
+     * se publica. Se une a la transacción del llamador.
+     */
+    public Optional<BorradorPublicacion> obtenerParaPublicar(Long usuarioId, Long borradorId) {
+        Clave clave = new Clave(borradorId, usuarioId);
+        Contenido contenido = ultimoContenido(clave);
+        if (contenido != null) {
+            persistir(Map.of(clave, contenido));
+        }
+        return borradorRepository.findParaPublicar(borradorId, usuarioId);
+    }
+
+    /**
+     * Borradores de un usuario con su contenido más reciente, del último modificado al primero
+     */
+    public List<BorradorPublicacion> listar(Long usuarioId) {
+        Map<Long, Contenido> contenidos = new LinkedHashMap<>();
+        for (Clave clave : pendientes.keySet()) {
+            if (clave.usuarioId() == usuarioId) {
+                contenidos.put(clave.borradorId(), ultimoContenido(clave));
+            }
+        }
+        for (Clave clave : enVuelo.keySet()) {
+            if (clave.usuarioId() == usuarioId) {
+                contenidos.putIfAbsent(clave.borradorId(), ultimoContenido(clave));
+            }
+        }
+        List<BorradorPublicacion> borradores = new ArrayList<>();
+        for (BorradorPublicacion borrador : borradorRepository.findByUsuarioIdOrderByFechaActualizacionDesc(usuarioId)) {
+            Contenido contenido = contenidos.get(borrador.getIdBorrador());
+            borradores.add(masReciente(new Clave(borrador.getIdBorrador(), usuarioId), contenido, borrador));
+        }
+        if (!contenidos.isEmpty()) {
+            borradores.sort(Comparator.comparing(BorradorPublicacion::getFechaActualizacion).reversed());
+        }
+        return borradores;
+    }
+
+    /**
+     * Eliminar un borrador (al descartarlo o al publicarlo). Se une a la transacción del llamador.
+     * @return true si el borrador existía
+     */
+    public boolean eliminar(Long usuarioId, Long borradorId) {
+        Clave clave = new Clave(borradorId, usuarioId);
+        boolean eliminado = borradorRepository.eliminar(borradorId, usuarioId) > 0;
+        // Un volcado en curso sobre la fila borrada no actualiza nada
+        TransaccionesUtil.alConfirmar(() -> pendientes.remove(clave));
+        return eliminado;
+    }
+
+    /**
+     * Número de borradores con contenido pendiente de volcar
+     */
+    public int contarPendientes() {
+        return pendientes.size();
+    }
+
+    // Ejecución periódica del volcado: la ventana en la que gana la última escritura
+    @Scheduled(fixedDelayString = "${borradores.publicaciones.volcado-ms:5000}")
+    public void volcarProgramado() {
+        volcar();
+    }
+
+    // Persistir lo pendiente al detener la aplicación
+    @PreDestroy
+    public void alCerrar() {
+        volcar();
+    }
+
+    /**
+     * Persistir el último contenido de cada borrador modificado, por lotes, cada uno en su propia transacción.
+     * Si un lote falla, su contenido vuelve a quedar pendiente salvo que llegara uno más nuevo.
+     * @return Número de borradores persistidos
+     */
+    public int volcar() {
+        if (!volcando.tryLock()) {
+            return 0;
+        }
+        try {
+            TransactionTemplate transaccion = new TransactionTemplate(transactionManager);
+            int volcados = 0;
+            for (int lote = 0; lote < maxLotesVolcado && !pendientes.isEmpty(); lote++) {
+                Map<Clave, Contenido> contenidos = tomarLote();
+                if (contenidos.isEmpty()) {
+                    break;
+                }
+                try {
+                    transaccion.executeWithoutResult(status -> persistir(contenidos));
+                } catch (RuntimeException e) {
+                    devolver(contenidos);
+                    throw e;
+                }
+                contenidos.forEach(enVuelo::remove);
+                volcados += contenidos.size();
+            }
+            return volcados;
+        } finally {
+            volcando.unlock();
+        }
+    }
+
+    // Lo pendiente manda sobre lo que está volcándose
+    private Contenido ultimoContenido(Clave clave) {
+        Contenido contenido = pendientes.get(clave);
+        return contenido != null ? contenido : enVuelo.get(clave);
+    }
+
+    // Lo pendiente solo si no es más antiguo que lo persistido (otra instancia pudo volcar algo más nuevo)
+    private static BorradorPublicacion masReciente(Clave clave, Contenido contenido, BorradorPublicacion persistido) {
+        return contenido != null && !contenido.fecha().isBefore(persistido.getFechaActualizacion())
+                ? aBorrador(clave, contenido)
+                : persistido;
+    }
+
+    private Map<Clave, Contenido> tomarLote() {
+        Map<Clave, Contenido> lote = new LinkedHashMap<>();
+        for (Map.Entry<Clave, Contenido> pendiente : pendientes.entrySet()) {
+            if (lote.size() >= tamanoLote) {
+                break;
+            }
+            Clave clave = pendiente.getKey();
+            Contenido contenido = pendiente.getValue();
+            // Pasa a en vuelo antes de dejar de estar pendiente para que ninguna lectura vea la fila sin él;
+            // si entretanto llegó un autoguardado más nuevo, queda para el siguiente volcado
+            enVuelo.put(clave, contenido);
+            if (pendientes.remove(clave, contenido)) {
+                lote.put(clave, contenido);
+            } else {
+                enVuelo.remove(clave, contenido);
+            }
+        }
+        return lote;
+    }
+
+    // Un contenido más antiguo que el de la fila (volcado por otra instancia) no actualiza nada y se descarta
+    private void persistir(Map<Clave, Contenido> contenidos) {
+        List<Object[]> filas = new ArrayList<>(contenidos.size());
+        for (Map.Entry<Clave, Contenido> entrada : contenidos.entrySet()) {
+            Contenido contenido = entrada.getValue();
+            Timestamp fecha = Timestamp.valueOf(contenido.fecha());
+            filas.add(new Object[] { contenido.titulo(), contenido.descripcion(), contenido.temaId(), contenido.imageUrl(),
+                    fecha, entrada.getKey().borradorId(), entrada.getKey().usuarioId(), fecha });
+        }
+        jdbcTemplate.batchUpdate(
+                "UPDATE publicaciones_borradores SET titulo = ?, descripcion = ?, tema_id = ?, image_url = ?, " +
+                "fecha_actualizacion = ? WHERE id_borrador = ? AND usuario_id = ? AND fecha_actualizacion <= ?", filas);
+    }
+
+    private void devolver(Map<Clave, Contenido> contenidos) {
+        for (Map.Entry<Clave, Contenido> entrada : contenidos.entrySet()) {
+            pendientes.putIfAbsent(entrada.getKey(), entrada.getValue());
+            enVuelo.remove(entrada.getKey(), entrada.getValue());
+        }
+    }
+
+    private static BorradorPublicacion aBorrador(Clave clave, Contenido contenido) {
+        return new BorradorPublicacion(clave.borradorId(), clave.usuarioId(), contenido.titulo(), contenido.descripcion(),
+                contenido.temaId(), contenido.imageUrl(), contenido.fecha());
+    }
+}
@@ -0,0 +1,286 @@
+package com.qualifygym.publicaciones.service;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.qualifygym.publicaciones.dto.CambiosPublicaciones;
+import com.qualifygym.publicaciones.dto.PublicacionResumen;
+import com.qualifygym.publicaciones.model.CambioPublicacion;
+import com.qualifygym.publicaciones.model.Publicacion;
+import com.qualifygym.publicaciones.model.PurgaCambios;
+import com.qualifygym.publicaciones.repository.CambioPublicacionRepository;
+import com.qualifygym.publicaciones.repository.PublicacionRepository;
+import com.qualifygym.publicaciones.repository.PurgaCambiosRepository;
+
+/**
+ * Registro de cambios de publicaciones para la sincronización incremental de clientes.
+ *
+ * {@link PublicacionService} registra cada creación, actualización, ocultamiento, muestra y
+ * eliminación dentro de su propia transacción, así que el registro solo contiene cambios
+ * confirmados. Los clientes piden los cambios posteriores a su marca y reciben, por publicación,
+ * solo el último cambio junto con su resumen actual. Cada registro publica además un
+ * {@link CambioRegistrado}, que se procesa al confirmar (p. ej. versiones de feeds para ETags).
+ */
+@Service
+public class CambiosPublicacionService {
+
+    static final int MAX_LIMITE_CAMBIOS = 1000;
+
+    // Tamaño de bloque del registro masivo (acota la cláusula IN)
+    private static final int TAMANO_BLOQUE = 1000;
+
+    /**
+     * Cambio registrado en la transacción en curso. Sin tema ni usuario, puede afectar a cualquier feed.
+     * @param temaId Tema de la publicación, o null
+     * @param usuarioId Autor de la publicación, o null
+     * @param seq Secuencia del cambio (o una cota superior en registros masivos)
+     */
+    public record CambioRegistrado(Long temaId, Long usuarioId, long seq) {
+    }
+
+    // Cambios leídos del registro hasta el primer hueco reciente, con la marca alcanzada
+    record Lote(List<CambioPublicacion> cambios, long marca, boolean hayMas) {
+    }
+
+    @Autowired
+    private CambioPublicacionRepository cambioRepository;
+
+    @Autowired
+    private PublicacionRepository publicacionRepository;
+
+    @Autowired
+    private PurgaCambiosRepository purgaRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    // Máximo de secuencias de un mismo hueco cuyo primer avistamiento se registra
+    private static final int MAX_SEGUIMIENTO_HUECO = 1000;
+
+    // Tiempo que un hueco en la secuencia debe verse abierto para darlo por definitivo (transacción revertida).
+    // Debe superar la duración de la transacción de escritura más larga
+    @Value("${cambios.publicaciones.margen-huecos-ms:10000}")
+    private long margenHuecosMs = 10000;
+
+    // Momento (ms) en que se vio por primera vez cada secuencia ausente con cambios posteriores ya confirmados
+    private final Map<Long, Long> huecosVistos = new ConcurrentHashMap<>();
+
+    @Value("${cambios.publicaciones.retencion-dias:30}")
+    private int retencionDias = 30;
+
+    /**
+     * Registrar un cambio de una publicación. Se une a la transacción del llamador.
+     * @param publicacion Publicación modificada
+     * @param tipo Tipo de cambio
+     */
+    @Transactional
+    public void registrar(Publicacion publicacion, CambioPublicacion.Tipo tipo) {
+        registrar(publicacion.getIdPublicacion(), publicacion.getTemaId(), publicacion.getUsuarioId(), tipo);
+    }
+
+    /**
+     * Registrar un cambio de una publicación. Se une a la transacción del llamador.
+     * @param publicacionId ID de la publicación
+     * @param temaId Tema de la publicación
+     * @param usuarioId Autor de la publicación
+     * @param tipo Tipo de cambio
+     */
+    @Transactional
+    public void registrar(Long publicacionId, Long temaId, Long usuarioId, CambioPublicacion.Tipo tipo) {
+        CambioPublicacion cambio = new CambioPublicacion();
+        cambio.setPublicacionId(publicacionId);
+        cambio.setTemaId(temaId);
+        cambio.setUsuarioId(usuarioId);
+        cambio.setTipo(tipo);
+        cambio.setFecha(LocalDateTime.now());
+        CambioPublicacion guardado = cambioRepository.save(cambio);
+        eventPublisher.publishEvent(new CambioRegistrado(temaId, usuarioId, guardado.getSeq()));
+    }
+
+    /**
+     * Registrar el mismo cambio para varias publicaciones con un lote JDBC de INSERT por bloque
+     * (moderación masiva, archivo e importación). Las publicaciones deben seguir en la tabla caliente.
+     *
+     * No se usa INSERT ... SELECT: InnoDB lo trata como inserción masiva y, con
+     * {@code innodb_autoinc_lock_mode=2}, deja huecos en la secuencia al final de cada sentencia, que
+     * detendrían la sincronización y las versiones de feeds durante el margen de huecos. Un INSERT
+     * con filas conocidas (el lote se reescribe como INSERT multifila) reserva exactamente las que inserta.
+     * @param publicacionIds IDs de las publicaciones
+     * @param tipo Tipo de cambio
+     * @return Número de cambios registrados
+     */
+    @Transactional
+    public int registrarLote(Collection<Long> publicacionIds, CambioPublicacion.Tipo tipo) {
+        if (publicacionIds == null || publicacionIds.isEmpty()) {
+            return 0;
+        }
+        List<Long> ids = new ArrayList<>(publicacionIds);
+        Timestamp ahora = Timestamp.valueOf(LocalDateTime.now());
+        int registrados = 0;
+        for (int i = 0; i < ids.size(); i += TAMANO_BLOQUE) {
+            List<Object[]> filas = new ArrayList<>();
+            for (Object[] fila : publicacionRepository.findIdTemaUsuarioByIds(ids.subList(i, Math.min(i + TAMANO_BLOQUE, ids.size())))) {
+                filas.add(new Object[] {fila[0], fila[1], fila[2], tipo.name(), ahora});
+            }
+            if (filas.isEmpty()) {
+                continue;
+            }
+            jdbcTemplate.batchUpdate(
+                    "INSERT INTO publicaciones_cambios (publicacion_id, tema_id, usuario_id, tipo, fecha) VALUES (?, ?, ?, ?, ?)",
+                    filas);
+            registrados += filas.size();
+        }
+        Long ultima = cambioRepository.findMaxSeq();
+        if (ultima != null) {
+            eventPublisher.publishEvent(new CambioRegistrado(null, null, ultima));
+        }
+        return registrados;
+    }
+
+    /**
+     * Obtener los cambios posteriores a la marca del cliente
+     * @param desde Última secuencia aplicada por el cliente, o null para obtener solo una marca inicial
+     * @param limite Número máximo de eventos a leer del registro
+     * @return Cambios compactados por publicación y la nueva marca
+     */
+    @Transactional(readOnly = true)
+    public CambiosPublicaciones obtenerCambios(Long desde, int limite) {
+        int tamano = Math.min(Math.max(limite, 1), MAX_LIMITE_CAMBIOS);
+        LocalDateTime limiteHuecos = LocalDateTime.now().minusNanos(margenHuecosMs * 1_000_000L);
+        CambiosPublicaciones respuesta = new CambiosPublicaciones();
+
+        // Sin marca, o con una marca anterior a lo purgado, el cliente debe recargar el feed completo.
+        // Se compara con la última secuencia purgada y no con la mínima retenida: tras vaciarse el registro
+        // no queda ninguna fila con la que detectar que la marca del cliente se quedó atrás
+        long purgadaHasta = obtenerPurgadaHasta();
+        if (desde == null || desde < purgadaHasta) {
+            Long marca = cambioRepository.findMaxSeqHasta(limiteHuecos);
+            respuesta.setMarca(marca != null ? Math.max(marca, purgadaHasta) : purgadaHasta);
+            respuesta.setReiniciar(true);
+            return respuesta;
+        }
+
+        Lote lote = leerConfirmados(desde, tamano);
+        Map<Long, CambioPublicacion> ultimoPorPublicacion = new LinkedHashMap<>();
+        for (CambioPublicacion cambio : lote.cambios()) {
+            ultimoPorPublicacion.remove(cambio.getPublicacionId());
+            ultimoPorPublicacion.put(cambio.getPublicacionId(), cambio);
+        }
+
+        respuesta.setMarca(lote.marca());
+        respuesta.setHayMas(lote.hayMas());
+        respuesta.setCambios(compactar(ultimoPorPublicacion));
+        return respuesta;
+    }
+
+    /**
+     * Secuencia más reciente del registro
+     * @return Última secuencia, o 0 si el registro está vacío
+     */
+    @Transactional(readOnly = true)
+    public long obtenerUltimaSeq() {
+        Long ultima = cambioRepository.findMaxSeq();
+        return ultima != null ? ultima : 0L;
+    }
+
+    // Lee los cambios posteriores a una secuencia. Un hueco puede ser una transacción aún sin confirmar,
+    // así que la marca se detiene antes; solo se salta cuando lleva el margen abierto desde que se vio por
+    // primera vez. La fecha de los cambios posteriores no sirve: se asigna al insertar, no al confirmar
+    @Transactional(readOnly = true)
+    Lote leerConfirmados(long desde, int tamano) {
+        long ahora = System.currentTimeMillis();
+        List<CambioPublicacion> pendientes = cambioRepository.findPosteriores(desde, PageRequest.of(0, tamano + 1));
+        boolean hayMas = pendientes.size() > tamano;
+        long marca = desde;
+        List<CambioPublicacion> confirmados = new ArrayList<>(Math.min(pendientes.size(), tamano));
+        for (CambioPublicacion cambio : pendientes.subList(0, Math.min(pendientes.size(), tamano))) {
+            if (cambio.getSeq() != marca + 1 && !huecoAbandonado(marca + 1, cambio.getSeq() - 1, ahora)) {
+                hayMas = true;
+                break;
+            }
+            confirmados.add(cambio);
+            marca = cambio.getSeq();
+        }
+        return new Lote(confirmados, marca, hayMas);
+    }
+
+    // Un hueco se da por abandonado cuando su primera secuencia lleva el margen abierta desde su primer avistamiento
+    private boolean huecoAbandonado(long primera, long ultima, long ahora) {
+        Long vistoMs = huecosVistos.get(primera);
+        if (vistoMs == null) {
+            for (long seq = primera; seq <= Math.min(ultima, primera + MAX_SEGUIMIENTO_HUECO - 1); seq++) {
+                huecosVistos.putIfAbsent(seq, ahora);
+            }
+            vistoMs = huecosVistos.get(primera);
+        }
+        return ahora - vistoMs >= margenHuecosMs;
+    }
+
+    // Eliminar los cambios más antiguos que la retención configurada, registrando en la misma transacción
+    // la última secuencia eliminada
+    @Scheduled(cron = "${cambios.publicaciones.cron-limpieza:0 0 4 * * *}")
+    @Transactional
+    public int limpiarAntiguos() {
+        Long corte = cambioRepository.findMaxSeqAnteriorA(LocalDateTime.now().minusDays(retencionDias));
+        if (corte == null) {
+            return 0;
+        }
+        int eliminados = cambioRepository.eliminarHastaSeq(corte);
+        purgaRepository.registrar(PurgaCambios.ID, corte);
+        huecosVistos.keySet().removeIf(seq -> seq <= corte);
+        return eliminados;
+    }
+
+    // Última secuencia purgada. Sin purgas registradas (registro previo a la marca), se deduce de la mínima retenida
+    private long obtenerPurgadaHasta() {
+        PurgaCambios purga = purgaRepository.findById(PurgaCambios.ID).orElse(null);
+        if (purga != null) {
+            return purga.getHastaSeq();
+        }
+        Long minSeq = cambioRepository.findMinSeq();
+        return minSeq != null ? minSeq - 1 : 0L;
+    }
+
+    // Último cambio por publicación, con el resumen actual de las que siguen visibles
+    private List<CambiosPublicaciones.Cambio> compactar(Map<Long, CambioPublicacion> ultimoPorPublicacion) {
+        List<Long> visibles = new ArrayList<>();
+        for (CambioPublicacion cambio : ultimoPorPublicacion.values()) {
+            if (cambio.getTipo() == CambioPublicacion.Tipo.CREADA || cambio.getTipo() == CambioPublicacion.Tipo.ACTUALIZADA
+                    || cambio.getTipo() == CambioPublicacion.Tipo.MOSTRADA) {
+                visibles.add(cambio.getPublicacionId());
+            }
+        }
+        Map<Long, PublicacionResumen> resumenes = new HashMap<>();
+        if (!visibles.isEmpty()) {
+            for (PublicacionResumen resumen : publicacionRepository.findResumenesVisiblesByIds(visibles)) {
+                resumenes.put(resumen.getIdPublicacion(), resumen);
+            }
+        }
+
+        List<CambiosPublicaciones.Cambio> cambios = new ArrayList<>(ultimoPorPublicacion.size());
+        for (CambioPublicacion cambio : ultimoPorPublicacion.values()) {
+            cambios.add(new CambiosPublicaciones.Cambio(cambio.getSeq(), cambio.getPublicacionId(),
+                    cambio.getTipo(), resumenes.get(cambio.getPublicacionId())));
+        }
+        return cambios;
+    }
+}
@@ -0,0 +1,272 @@
+package com.qualifygym.publicaciones.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Conjunto inmutable de IDs comprimido al estilo Roaring.
+ *
+ * Los IDs se agrupan por sus bits altos ({@code id >>> 16}); cada grupo guarda los 16 bits bajos
+ * en un arreglo ordenado de {@code char} (2 bytes por ID) mientras tiene hasta
+ * {@value #MAX_ARREGLO} elementos, y en un mapa de 65536 bits (8 KB) si es más denso. Consultar
+ * pertenencia es una búsqueda binaria sobre los grupos y otra (o un acceso a bit) dentro del grupo.
+ * Agregar o quitar devuelve un conjunto nuevo que comparte los grupos no modificados, de modo que
+ * las lecturas concurrentes no necesitan bloqueo.
+ */
+final class ConjuntoIds {
+
+    static final ConjuntoIds VACIO = new ConjuntoIds(new long[0], new Object[0], new int[0], 0);
+
+    // Por encima de este tamaño un grupo ocupa menos como mapa de bits que como arreglo
+    private static final int MAX_ARREGLO = 4096;
+    private static final int PALABRAS_MAPA = 1024;
+
+    // Bits altos de cada grupo (ordenados), su contenedor (char[] o long[]) y su cardinalidad
+    private final long[] claves;
+    private final Object[] contenedores;
+    private final int[] tamanos;
+    private final int tamano;
+
+    private ConjuntoIds(long[] claves, Object[] contenedores, int[] tamanos, int tamano) {
+        this.claves = claves;
+        this.contenedores = contenedores;
+        this.tamanos = tamanos;
+        this.tamano = tamano;
+    }
+
+    /**
+     * Construir un conjunto a partir de IDs ordenados de forma ascendente y sin repetir
+     * @param ids IDs ordenados
+     * @return Conjunto con esos IDs
+     */
+    static ConjuntoIds desde(long[] ids) {
+        if (ids.length == 0) {
+            return VACIO;
+        }
+        long[] claves = new long[ids.length];
+        Object[] contenedores = new Object[ids.length];
+        int[] tamanos = new int[ids.length];
+        int grupos = 0;
+        int inicio = 0;
+        while (inicio < ids.length) {
+            long clave = ids[inicio] >>> 16;
+            int fin = inicio;
+            while (fin < ids.length && ids[fin] >>> 16 == clave) {
+                fin++;
+            }
+            char[] valores = new char[fin - inicio];
+            for (int i = inicio; i < fin; i++) {
+                valores[i - inicio] = (char) ids[i];
+            }
+            claves[grupos] = clave;
+            contenedores[grupos] = valores.length > MAX_ARREGLO ? aMapa(valores) : valores;
+            tamanos[grupos] = valores.length;
+            grupos++;
+            inicio = fin;
+        }
+        return new ConjuntoIds(Arrays.copyOf(claves, grupos), Arrays.copyOf(contenedores, grupos),
+                Arrays.copyOf(tamanos, grupos), ids.length);
+    }
+
+    boolean contiene(long id) {
+        if (id < 0) {
+            return false;
+        }
+        int pos = Arrays.binarySearch(claves, id >>> 16);
+        return pos >= 0 && contiene(contenedores[pos], (char) id);
+    }
+
+    int tamano() {
+        return tamano;
+    }
+
+    /**
+     * Conjunto con el ID agregado (el mismo conjunto si ya lo contenía)
+     */
+    ConjuntoIds con(long id) {
+        if (id < 0 || contiene(id)) {
+            return this;
+        }
+        char valor = (char) id;
+        int pos = Arrays.binarySearch(claves, id >>> 16);
+        if (pos < 0) {
+            int ins = -pos - 1;
+            return new ConjuntoIds(insertar(claves, ins, id >>> 16), insertar(contenedores, ins, new char[] { valor }),
+                    insertar(tamanos, ins, 1), tamano + 1);
+        }
+        Object contenedor = contenedores[pos];
+        Object nuevo;
+        if (contenedor instanceof char[] valores) {
+            nuevo = valores.length < MAX_ARREGLO ? insertarValor(valores, valor) : conValor(aMapa(valores), valor);
+        } else {
+            nuevo = conValor(((long[]) contenedor).clone(), valor);
+        }
+        return reemplazar(pos, nuevo, tamanos[pos] + 1, tamano + 1);
+    }
+
+    /**
+     * Conjunto sin el ID (el mismo conjunto si no lo contenía)
+     */
+    ConjuntoIds sin(long id) {
+        if (!contiene(id)) {
+            return this;
+        }
+        char valor = (char) id;
+        int pos = Arrays.binarySearch(claves, id >>> 16);
+        if (tamanos[pos] == 1) {
+            return new ConjuntoIds(quitar(claves, pos), quitar(contenedores, pos), quitar(tamanos, pos), tamano - 1);
+        }
+        Object contenedor = contenedores[pos];
+        Object nuevo;
+        if (contenedor instanceof char[] valores) {
+            nuevo = quitarValor(valores, valor);
+        } else {
+            long[] mapa = ((long[]) contenedor).clone();
+            mapa[valor >>> 6] &= ~(1L << valor);
+            nuevo = tamanos[pos] - 1 <= MAX_ARREGLO ? aArreglo(mapa, tamanos[pos] - 1) : mapa;
+        }
+        return reemplazar(pos, nuevo, tamanos[pos] - 1, tamano - 1);
+    }
+
+    /**
+     * IDs menores que antesDe, de mayor a menor
+     * @param antesDe Cota superior exclusiva
+     * @param limite Número máximo de IDs
+     * @return IDs en orden descendente
+     */
+    List<Long> paginaDescendente(long antesDe, int limite) {
+        List<Long> pagina = new ArrayList<>(Math.min(limite, tamano));
+        for (int i = claves.length - 1; i >= 0 && pagina.size() < limite; i--) {
+            long base = claves[i] << 16;
+            if (base >= antesDe) {
+                continue;
+            }
+            if (contenedores[i] instanceof char[] valores) {
+                for (int j = valores.length - 1; j >= 0 && pagina.size() < limite; j--) {
+                    long id = base | valores[j];
+                    if (id < antesDe) {
+                        pagina.add(id);
+                    }
+                }
+            } else {
+                long[] mapa = (long[]) contenedores[i];
+                for (int w = PALABRAS_MAPA - 1; w >= 0 && pagina.size() < limite; w--) {
+                    long palabra = mapa[w];
+                    while (palabra != 0 && pagina.size() < limite) {
+                        int bit = 63 - Long.numberOfLeadingZeros(palabra);
+                        long id = base | ((long) w << 6) | bit;
+                        if (id < antesDe) {
+                            pagina.add(id);
+                        }
+                        palabra &= ~(1L << bit);
+                    }
+                }
+            }
+        }
+        return pagina;
+    }
+
+    private ConjuntoIds reemplazar(int pos, Object contenedor, int tamanoContenedor, int nuevoTamano) {
+        Object[] nuevosContenedores = contenedores.clone();
+        nuevosContenedores[pos] = contenedor;
+        int[] nuevosTamanos = tamanos.clone();
+        nuevosTamanos[pos] = tamanoContenedor;
+        return new ConjuntoIds(claves, nuevosContenedores, nuevosTamanos, nuevoTamano);
+    }
+
+    private static boolean contiene(Object contenedor, char valor) {
+        if (contenedor instanceof char[] valores) {
+            return Arrays.binarySearch(valores, valor) >= 0;
+        }
+        return (((long[]) contenedor)[valor >>> 6] & (1L << valor)) != 0;
+    }
+
+    private static long[] aMapa(char[] valores) {
+        long[] mapa = new long[PALABRAS_MAPA];
+        for (char valor : valores) {
+            mapa[valor >>> 6] |= 1L << valor;
+        }
+        return mapa;
+    }
+
+    private static char[] aArreglo(long[] mapa, int cardinalidad) {
+        char[] valores = new char[cardinalidad];
+        int i = 0;
+        for (int w = 0; w < PALABRAS_MAPA; w++) {
+            long palabra = mapa[w];
+            while (palabra != 0) {
+                valores[i++] = (char) ((w << 6) | Long.numberOfTrailingZeros(palabra));
+                palabra &= palabra - 1;
+            }
+        }
+        return valores;
+    }
+
+    private static long[] conValor(long[] mapa, char valor) {
+        mapa[valor >>> 6] |= 1L << valor;
+        return mapa;
+    }
+
+    private static char[] insertarValor(char[] valores, char valor) {
+        int ins = -Arrays.binarySearch(valores, valor) - 1;
+        char[] nuevos = new char[valores.length + 1];
+        System.arraycopy(valores, 0, nuevos, 0, ins);
+        nuevos[ins] = valor;
+        System.arraycopy(valores, ins, nuevos, ins + 1, valores.length - ins);
+        return nuevos;
+    }
+
+    private static char[] quitarValor(char[] valores, char valor) {
+        int pos = Arrays.binarySearch(valores, valor);
+        char[] nuevos = new char[valores.length - 1];
+        System.arraycopy(valores, 0, nuevos, 0, pos);
+        System.arraycopy(valores, pos + 1, nuevos, pos, valores.length - pos - 1);
+        return nuevos;
+    }
+
+    private static long[] insertar(long[] arreglo, int pos, long valor) {
+        long[] nuevo = new long[arreglo.length + 1];
+        System.arraycopy(arreglo, 0, nuevo, 0, pos);
+        nuevo[pos] = valor;
+        System.arraycopy(arreglo, pos, nuevo, pos + 1, arreglo.length - pos);
+        return nuevo;
+    }
+
+    private static int[] insertar(int[] arreglo, int pos, int valor) {
+        int[] nuevo = new int[arreglo.length + 1];
+        System.arraycopy(arreglo, 0, nuevo, 0, pos);
+        nuevo[pos] = valor;
+        System.arraycopy(arreglo, pos, nuevo, pos + 1, arreglo.length - pos);
+        return nuevo;
+    }
+
+    private static Object[] insertar(Object[] arreglo, int pos, Object valor) {
+        Object[] nuevo = new Object[arreglo.length + 1];
+        System.arraycopy(arreglo, 0, nuevo, 0, pos);
+        nuevo[pos] = valor;
+        System.arraycopy(arreglo, pos, nuevo, pos + 1, arreglo.length - pos);
+        return nuevo;
+    }
+
+    private static long[] quitar(long[] arreglo, int pos) {
+        long[] nuevo = new long[arreglo.length - 1];
+        System.arraycopy(arreglo, 0, nuevo, 0, pos);
+        System.arraycopy(arreglo, pos + 1, nuevo, pos, arreglo.length - pos - 1);
+        return nuevo;
+    }
+
+    private static int[] quitar(int[] arreglo, int pos) {
+        int[] nuevo = new int[arreglo.length - 1];
+        System.arraycopy(arreglo, 0, nuevo, 0, pos);
+        System.arraycopy(arreglo, pos + 1, nuevo, pos, arreglo.length - pos - 1);
+        return nuevo;
+    }
+
+    private static Object[] quitar(Object[] arreglo, int pos) {
+        Object[] nuevo = new Object[arreglo.length - 1];
+        System.arraycopy(arreglo, 0, nuevo, 0, pos);
+        System.arraycopy(arreglo, pos + 1, nuevo, pos, arreglo.length - pos - 1);
+        return nuevo;
+    }
+}
@@ -0,0 +1,215 @@
+package com.qualifygym.publicaciones.service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Conjuntos de IDs por usuario persistidos en una tabla y mantenidos en memoria.
+ *
+ * Cada usuario tiene un {@link ConjuntoIds} inmutable con su versión; cada cambio confirmado
+ * reemplaza el conjunto del usuario. La versión es una huella del contenido (suma de un hash de
+ * cada ID), así que todas las instancias, y la misma instancia tras reiniciar, dan la misma
+ * versión para el mismo conjunto persistido; forma parte del ETag de los feeds que dependen de él.
+ * Los cambios hechos en otras instancias llegan con {@link #refrescar}, que recarga los usuarios
+ * marcados como modificados. Es la base común de las publicaciones guardadas y de los autores
+ * silenciados: cada servicio aporta su tabla y su uso del conjunto (marcar o filtrar feeds).
+ */
+final class ConjuntosPorUsuario {
+
+    // Solape entre lecturas de modificados: cubre transacciones que confirman tarde y el desfase de relojes
+    static final Duration MARGEN_REFRESCO = Duration.ofSeconds(30);
+
+    // Tamaño de bloque al recargar usuarios (acota la cláusula IN)
+    private static final int TAMANO_BLOQUE = 1000;
+
+    private record Conjunto(ConjuntoIds ids, long version) {
+    }
+
+    private final int maximo;
+    private final String mensajeMaximo;
+
+    private final Map<Long, Conjunto> porUsuario = new ConcurrentHashMap<>();
+
+    // Momento de la última lectura de modificados y la fecha de modificación ya aplicada por usuario
+    private LocalDateTime refrescadoHasta;
+    private final Map<Long, LocalDateTime> aplicados = new HashMap<>();
+
+    /**
+     * @param maximo Máximo de IDs por usuario
+     * @param mensajeMaximo Mensaje de error al superar el máximo
+     */
+    ConjuntosPorUsuario(int maximo, String mensajeMaximo) {
+        this.maximo = maximo;
+        this.mensajeMaximo = mensajeMaximo;
+    }
+
+    /**
+     * Cargar los conjuntos de todos los usuarios
+     * @param filas Pares (usuario, id) ordenados por usuario y luego por id
+     */
+    synchronized void cargar(Stream<Object[]> filas) {
+        refrescadoHasta = LocalDateTime.now();
+        agrupar(filas, porUsuario::put);
+    }
+
+    /**
+     * Recargar los conjuntos de los usuarios modificados desde la lectura anterior (incluidos los
+     * cambios hechos en otras instancias). Las lecturas se solapan {@link #MARGEN_REFRESCO}; un
+     * usuario solo se recarga si su fecha de modificación cambió desde la última vez que se aplicó.
+     * @param modificadosDesde Pares (usuario, fecha de modificación) desde una fecha
+     * @param leer Pares (usuario, id) de varios usuarios, ordenados por usuario y luego por id
+     * @return Número de usuarios recargados
+     */
+    synchronized int refrescar(Function<LocalDateTime, List<Object[]>> modificadosDesde,
+                               Function<Collection<Long>, List<Object[]>> leer) {
+        LocalDateTime ahora = LocalDateTime.now();
+        LocalDateTime desde = (refrescadoHasta != null ? refrescadoHasta : ahora).minus(MARGEN_REFRESCO);
+        List<Long> usuarios = new ArrayList<>();
+        for (Object[] fila : modificadosDesde.apply(desde)) {
+            LocalDateTime fecha = (LocalDateTime) fila[1];
+            if (!fecha.equals(aplicados.put((Long) fila[0], fecha))) {
+                usuarios.add((Long) fila[0]);
+            }
+        }
+        aplicados.values().removeIf(fecha -> fecha.isBefore(desde));
+
+        for (int i = 0; i < usuarios.size(); i += TAMANO_BLOQUE) {
+            List<Long> bloque = usuarios.subList(i, Math.min(i + TAMANO_BLOQUE, usuarios.size()));
+            Set<Long> vacios = new HashSet<>(bloque);
+            agrupar(leer.apply(bloque).stream(), (usuarioId, conjunto) -> {
+                porUsuario.put(usuarioId, conjunto);
+                vacios.remove(usuarioId);
+            });
+            vacios.forEach(porUsuario::remove);
+        }
+        refrescadoHasta = ahora;
+        return usuarios.size();
+    }
+
+    /**
+     * Agregar un ID al conjunto de un usuario. La escritura se une a la transacción del llamador
+     * y la memoria se actualiza al confirmar; si el ID ya estaba no se escribe nada.
+     * @param insertar Inserción de la fila en la tabla (y marca de modificado)
+     * @throws RuntimeException si el usuario alcanzó el máximo
+     */
+    void agregar(Long usuarioId, Long id, Runnable insertar) {
+        ConjuntoIds actuales = conjunto(usuarioId);
+        if (actuales.contiene(id)) {
+            return;
+        }
+        if (actuales.tamano() >= maximo) {
+            throw new RuntimeException(mensajeMaximo);
+        }
+        insertar.run();
+        TransaccionesUtil.alConfirmar(() -> actualizar(usuarioId, id, true));
+    }
+
+    /**
+     * Quitar un ID del conjunto de un usuario. La escritura se une a la transacción del llamador.
+     * @param eliminar Eliminación de la fila en la tabla (y marca de modificado)
+     */
+    void quitar(Long usuarioId, Long id, Runnable eliminar) {
+        eliminar.run();
+        TransaccionesUtil.alConfirmar(() -> actualizar(usuarioId, id, false));
+    }
+
+    /**
+     * Quitar de la memoria, al confirmar, pares ya eliminados de la tabla por el llamador
+     * @param pares Pares (usuario, id)
+     */
+    void quitarAlConfirmar(List<Object[]> pares) {
+        TransaccionesUtil.alConfirmar(() -> pares.forEach(par -> actualizar((Long) par[0], (Long) par[1], false)));
+    }
+
+    boolean contiene(Long usuarioId, Long id) {
+        return usuarioId != null && id != null && conjunto(usuarioId).contiene(id);
+    }
+
+    /**
+     * Página del conjunto de un usuario (paginación por clave, de ID mayor a menor)
+     * @param antesDe Solo IDs menores que este, o null para la primera página
+     */
+    List<Long> pagina(Long usuarioId, Long antesDe, int limite) {
+        return conjunto(usuarioId).paginaDescendente(antesDe != null ? antesDe : Long.MAX_VALUE, limite);
+    }
+
+    int contar(Long usuarioId) {
+        return conjunto(usuarioId).tamano();
+    }
+
+    /**
+     * Versión del conjunto de un usuario: huella de su contenido
+     * @return Versión (0 si el conjunto está vacío)
+     */
+    long version(Long usuarioId) {
+        Conjunto actual = usuarioId != null ? porUsuario.get(usuarioId) : null;
+        return actual != null ? actual.version() : 0L;
+    }
+
+    ConjuntoIds conjunto(Long usuarioId) {
+        Conjunto actual = usuarioId != null ? porUsuario.get(usuarioId) : null;
+        return actual != null ? actual.ids() : ConjuntoIds.VACIO;
+    }
+
+    private void actualizar(Long usuarioId, Long id, boolean presente) {
+        porUsuario.compute(usuarioId, (clave, actual) -> {
+            ConjuntoIds ids = actual != null ? actual.ids() : ConjuntoIds.VACIO;
+            ConjuntoIds nuevos = presente ? ids.con(id) : ids.sin(id);
+            if (nuevos == ids) {
+                return actual;
+            }
+            if (nuevos.tamano() == 0) {
+                return null;
+            }
+            long version = actual != null ? actual.version() : 0L;
+            return new Conjunto(nuevos, presente ? version + huella(id) : version - huella(id));
+        });
+    }
+
+    // Agrupa pares (usuario, id) ordenados en un conjunto por usuario
+    private static void agrupar(Stream<Object[]> filas, BiConsumer<Long, Conjunto> destino) {
+        long[] ids = new long[16];
+        int cantidad = 0;
+        long version = 0L;
+        Long usuarioActual = null;
+        for (Object[] fila : (Iterable<Object[]>) filas::iterator) {
+            Long usuarioId = (Long) fila[0];
+            if (!usuarioId.equals(usuarioActual)) {
+                if (usuarioActual != null) {
+                    destino.accept(usuarioActual, new Conjunto(ConjuntoIds.desde(Arrays.copyOf(ids, cantidad)), version));
+                }
+                usuarioActual = usuarioId;
+                cantidad = 0;
+                version = 0L;
+            }
+            if (cantidad == ids.length) {
+                ids = Arrays.copyOf(ids, cantidad * 2);
+            }
+            ids[cantidad++] = (Long) fila[1];
+            version += huella((Long) fila[1]);
+        }
+        if (usuarioActual != null) {
+            destino.accept(usuarioActual, new Conjunto(ConjuntoIds.desde(Arrays.copyOf(ids, cantidad)), version));
+        }
+    }
+
+    // Mezcla de 64 bits (finalizador de SplitMix64): IDs cercanos dan huellas independientes
+    private static long huella(long id) {
+        long z = id + 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,193 @@
+package com.qualifygym.publicaciones.service;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Detección de publicaciones casi duplicadas del mismo usuario mediante SimHash.
+ *
+ * Cada publicación nueva se resume en una huella de 64 bits calculada sobre las palabras del
+ * título y la descripción; textos con pequeñas variaciones producen huellas a poca distancia de
+ * Hamming. Las huellas recientes se indexan en memoria por usuario y bandas de 8 bits: dos huellas
+ * a distancia 7 o menos coinciden por completo en al menos una de las ocho bandas, así que solo
+ * se comparan las candidatas que comparten banda. La verificación ocurre antes de las
+ * validaciones remotas y de la inserción, y la huella se libera si la creación no se confirma.
+ */
+@Service
+public class DuplicadosPublicacionService {
+
+    private static final int BANDAS = 8;
+    private static final int BITS_BANDA = 64 / BANDAS;
+
+    // Con menos palabras distintas la huella es poco estable y no se verifica
+    private static final int MIN_PALABRAS = 3;
+
+    @Value("${duplicados.publicaciones.habilitado:true}")
+    private boolean habilitado = true;
+
+    @Value("${duplicados.publicaciones.ventana-minutos:10}")
+    private long ventanaMinutos = 10;
+
+    // Distancia de Hamming máxima para considerar dos textos casi idénticos (hasta 7 se detecta siempre;
+    // textos sin relación quedan típicamente a más de 20)
+    @Value("${duplicados.publicaciones.distancia-maxima:6}")
+    private int distanciaMaxima = 6;
+
+    @Value("${duplicados.publicaciones.max-huellas:200000}")
+    private int maxHuellas = 200_000;
+
+    private record Huella(long usuarioId, long simhash, long instanteMs) {
+    }
+
+    // Índice por (usuario, banda, valor de la banda) y cola por antigüedad para expirar; protegidos por this
+    private final Map<Long, List<Huella>> indice = new HashMap<>();
+    private final ArrayDeque<Huella> recientes = new ArrayDeque<>();
+
+    /**
+     * Verificar que el usuario no publicó recientemente un texto casi idéntico y reservar la huella
+     * del nuevo. Si la transacción en curso no se confirma, la huella se libera.
+     * @param usuarioId Autor de la publicación
+     * @param titulo Título de la publicación
+     * @param descripcion Descripción de la publicación
+     * @throws RuntimeException si hay una publicación casi idéntica del mismo usuario dentro de la ventana
+     */
+    public void verificarYReservar(Long usuarioId, String titulo, String descripcion) {
+        if (!habilitado) {
+            return;
+        }
+        List<String> palabras = TextoPublicacion.palabras(titulo + " " + descripcion);
+        if (new HashSet<>(palabras).size() < MIN_PALABRAS) {
+            return;
+        }
+        Huella huella = new Huella(usuarioId, simhash(palabras), System.currentTimeMillis());
+
+        synchronized (this) {
+            expirar(huella.instanteMs());
+            if (buscarCercana(huella) != null) {
+                throw new RuntimeException("La publicación es casi idéntica a otra publicada recientemente por el mismo usuario");
+            }
+            agregar(huella);
+        }
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        liberar(huella);
+                    }
+                }
+            });
+        }
+    }
+
+    /**
+     * Huella SimHash de 64 bits de un texto
+     * @param texto Texto a resumir
+     * @return Huella del texto (0 si no tiene palabras)
+     */
+    public static long simhash(String texto) {
+        return simhash(TextoPublicacion.palabras(texto));
+    }
+
+    /**
+     * Distancia de Hamming entre dos huellas
+     * @return Número de bits distintos
+     */
+    public static int distancia(long a, long b) {
+        return Long.bitCount(a ^ b);
+    }
+
+    // Cada palabra suma (o resta) su frecuencia en cada bit según su hash
+    private static long simhash(List<String> palabras) {
+        int[] pesos = new int[64];
+        for (String palabra : palabras) {
+            long hash = TextoPublicacion.hash64(palabra);
+            for (int bit = 0; bit < 64; bit++) {
+                pesos[bit] += ((hash >>> bit) & 1L) != 0 ? 1 : -1;
+            }
+        }
+        long huella = 0L;
+        for (int bit = 0; bit < 64; bit++) {
+            if (pesos[bit] > 0) {
+                huella |= 1L << bit;
+            }
+        }
+        return huella;
+    }
+
+    private Huella buscarCercana(Huella huella) {
+        for (int banda = 0; banda < BANDAS; banda++) {
+            List<Huella> candidatas = indice.get(clave(huella, banda));
+            if (candidatas == null) {
+                continue;
+            }
+            for (Huella candidata : candidatas) {
+                if (candidata.usuarioId() == huella.usuarioId()
+                        && distancia(candidata.simhash(), huella.simhash()) <= distanciaMaxima) {
+                    return candidata;
+                }
+            }
+        }
+        return null;
+    }
+
+    private void agregar(Huella huella) {
+        for (int banda = 0; banda < BANDAS; banda++) {
+            indice.computeIfAbsent(clave(huella, banda), k -> new ArrayList<>(2)).add(huella);
+        }
+        recientes.addLast(huella);
+        while (recientes.size() > maxHuellas) {
+            quitarDelIndice(recientes.pollFirst());
+        }
+    }
+
+    private synchronized void liberar(Huella huella) {
+        if (recientes.removeLastOccurrence(huella)) {
+            quitarDelIndice(huella);
+        }
+    }
+
+    // Las huellas entran en orden de llegada: basta con retirar las más antiguas fuera de la ventana
+    private void expirar(long ahoraMs) {
+        long limite = ahoraMs - ventanaMinutos * 60_000L;
+        while (!recientes.isEmpty() && recientes.peekFirst().instanteMs() < limite) {
+            quitarDelIndice(recientes.pollFirst());
+        }
+    }
+
+    private void quitarDelIndice(Huella huella) {
+        for (int banda = 0; banda < BANDAS; banda++) {
+            Long clave = clave(huella, banda);
+            List<Huella> candidatas = indice.get(clave);
+            if (candidatas != null) {
+                Iterator<Huella> it = candidatas.iterator();
+                while (it.hasNext()) {
+                    if (it.next() == huella) {
+                        it.remove();
+                        break;
+                    }
+                }
+                if (candidatas.isEmpty()) {
+                    indice.remove(clave);
+                }
+            }
+        }
+    }
+
+    // Usuario, número de banda y valor de la banda; las colisiones se descartan al comparar el usuario
+    private static Long clave(Huella huella, int banda) {
+        long valor = (huella.simhash() >>> (banda * BITS_BANDA)) & 0xFFL;
+        return (huella.usuarioId() << 11) ^ ((long) banda << 8) ^ valor;
+    }
+}
@@ -0,0 +1,384 @@
+package com.qualifygym.publicaciones.service;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.qualifygym.publicaciones.dto.EtiquetaConteo;
+import com.qualifygym.publicaciones.model.EtiquetaPublicacion;
+import com.qualifygym.publicaciones.model.Publicacion;
+import com.qualifygym.publicaciones.repository.EtiquetaPublicacionRepository;
+import com.qualifygym.publicaciones.repository.PublicacionRepository;
+
+/**
+ * Hashtags de publicaciones con índice invertido en memoria.
+ *
+ * Los hashtags de la descripción se extraen al crear y editar, se normalizan (minúsculas, sin
+ * tildes) y se guardan en {@code publicaciones_etiquetas}. En memoria, cada etiqueta tiene su
+ * lista de IDs de publicaciones visibles, ordenada en un arreglo de {@code long}: una página por
+ * etiqueta es una búsqueda binaria sobre la lista y el conteo es su tamaño, sin recorrer la tabla
+ * de publicaciones. El índice solo se modifica al confirmar la transacción que origina el cambio.
+ */
+@Service
+public class EtiquetasPublicacionService {
+
+    static final int MAX_LONGITUD_ETIQUETA = 50;
+    static final int MAX_ETIQUETAS_POR_PUBLICACION = 20;
+
+    // '#' al inicio o tras un carácter que no forma palabra (descarta fragmentos de URL como pagina#seccion)
+    private static final Pattern HASHTAG = Pattern.compile("(?<![\\p{L}\\p{N}_/&])#([\\p{L}\\p{M}\\p{N}_]+)");
+
+    // Tamaño de bloque para consultar etiquetas de muchas publicaciones (acota la cláusula IN)
+    private static final int TAMANO_BLOQUE = 1000;
+
+    @Autowired
+    private EtiquetaPublicacionRepository etiquetaRepository;
+
+    @Autowired
+    private PublicacionRepository publicacionRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${etiquetas.publicaciones.tamano-lote-relleno:500}")
+    private int tamanoLoteRelleno = 500;
+
+    private final Map<String, ListaPublicaciones> indice = new ConcurrentHashMap<>();
+
+    // Último ID revisado por el relleno de publicaciones anteriores a las etiquetas
+    private volatile long rellenoHasta = 0L;
+
+    /**
+     * Cargar el índice con las etiquetas de las publicaciones visibles al iniciar la aplicación
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void cargarInicial() {
+        try (Stream<Object[]> filas = etiquetaRepository.streamVisibles()) {
+            filas.forEach(fila -> agregarAlIndice((String) fila[0], (Long) fila[1]));
+        }
+    }
+
+    /**
+     * Extraer las etiquetas de las publicaciones que aún no se procesaron (anteriores a esta función).
+     * Recorre la tabla una vez por arranque, por lotes; las publicaciones nuevas se etiquetan al crearse.
+     * @return Número de publicaciones revisadas
+     */
+    @Scheduled(fixedDelayString = "${etiquetas.publicaciones.relleno-ms:30000}", initialDelayString = "${etiquetas.publicaciones.relleno-ms:30000}")
+    public int rellenarFaltantes() {
+        if (rellenoHasta == Long.MAX_VALUE) {
+            return 0;
+        }
+        List<Object[]> filas = publicacionRepository.findConHashtagDesde(rellenoHasta, PageRequest.of(0, tamanoLoteRelleno));
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            for (Object[] fila : filas) {
+                Long id = (Long) fila[0];
+                sincronizar(id, (String) fila[1], !Boolean.TRUE.equals(fila[2]),
+                        new HashSet<>(etiquetaRepository.findEtiquetasByPublicacionId(id)));
+            }
+        });
+        rellenoHasta = filas.size() < tamanoLoteRelleno ? Long.MAX_VALUE : (Long) filas.get(filas.size() - 1)[0];
+        return filas.size();
+    }
+
+    /**
+     * Registrar las etiquetas de una publicación nueva. Se une a la transacción del llamador.
+     * @param publicacion Publicación recién guardada
+     */
+    public void registrar(Publicacion publicacion) {
+        sincronizar(publicacion.getIdPublicacion(), publicacion.getDescripcion(),
+                !Boolean.TRUE.equals(publicacion.getOculta()), Set.of());
+    }
+
+    /**
+     * Registrar las etiquetas de varias publicaciones nuevas con un solo lote JDBC (para importaciones
+     * masivas). Se une a la transacción del llamador; el índice se actualiza al confirmar.
+     * @param publicaciones Publicaciones recién guardadas
+     */
+    public void registrarLote(List<Publicacion> publicaciones) {
+        List<Object[]> filas = new ArrayList<>();
+        Map<Long, Set<String>> visibles = new HashMap<>();
+        for (Publicacion publicacion : publicaciones) {
+            Set<String> etiquetas = extraerEtiquetas(publicacion.getDescripcion());
+            for (String etiqueta : etiquetas) {
+                filas.add(new Object[] { etiqueta, publicacion.getIdPublicacion() });
+            }
+            if (!etiquetas.isEmpty() && !Boolean.TRUE.equals(publicacion.getOculta())) {
+                visibles.put(publicacion.getIdPublicacion(), etiquetas);
+            }
+        }
+        if (filas.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO publicaciones_etiquetas (etiqueta, publicacion_id) VALUES (?, ?)", filas);
+        if (!visibles.isEmpty()) {
+            TransaccionesUtil.alConfirmar(() -> visibles.forEach(
+                    (publicacionId, etiquetas) -> etiquetas.forEach(etiqueta -> agregarAlIndice(etiqueta, publicacionId))));
+        }
+    }
+
+    /**
+     * Actualizar las etiquetas de una publicación tras editar su descripción (solo se escriben las diferencias)
+     * @param publicacion Publicación actualizada
+     */
+    public void actualizar(Publicacion publicacion) {
+        Long id = publicacion.getIdPublicacion();
+        sincronizar(id, publicacion.getDescripcion(), !Boolean.TRUE.equals(publicacion.getOculta()),
+                new HashSet<>(etiquetaRepository.findEtiquetasByPublicacionId(id)));
+    }
+
+    /**
+     * Sacar del índice (o volver a incluir) publicaciones ocultadas o mostradas. Las etiquetas se conservan en la tabla.
+     * @param publicacionIds IDs de las publicaciones
+     * @param visibles true si pasaron a ser visibles
+     */
+    public void actualizarVisibilidad(Collection<Long> publicacionIds, boolean visibles) {
+        List<EtiquetaPublicacion> etiquetas = buscarPorPublicaciones(publicacionIds);
+        if (etiquetas.isEmpty()) {
+            return;
+        }
+        TransaccionesUtil.alConfirmar(() -> {
+            for (EtiquetaPublicacion etiqueta : etiquetas) {
+                if (visibles) {
+                    agregarAlIndice(etiqueta.getEtiqueta(), etiqueta.getPublicacionId());
+                } else {
+                    quitarDelIndice(etiqueta.getEtiqueta(), etiqueta.getPublicacionId());
+                }
+            }
+        });
+    }
+
+    /**
+     * Eliminar las etiquetas de publicaciones eliminadas o archivadas. Se une a la transacción del llamador.
+     * @param publicacionIds IDs de las publicaciones
+     */
+    public void quitar(Collection<Long> publicacionIds) {
+        List<EtiquetaPublicacion> etiquetas = buscarPorPublicaciones(publicacionIds);
+        if (etiquetas.isEmpty()) {
+            return;
+        }
+        etiquetaRepository.eliminarPorIds(publicacionIds);
+        TransaccionesUtil.alConfirmar(() -> etiquetas.forEach(e -> quitarDelIndice(e.getEtiqueta(), e.getPublicacionId())));
+    }
+
+    /**
+     * Página de publicaciones visibles con una etiqueta (paginación por clave: de más reciente a más antigua)
+     * @param etiqueta Etiqueta, con o sin '#'
+     * @param antesDe Solo IDs menores que este (el último ID de la página anterior), o null para la primera página
+     * @param limite Tamaño de la página
+     * @return IDs de publicaciones en orden descendente
+     */
+    public List<Long> buscarPorEtiqueta(String etiqueta, Long antesDe, int limite) {
+        String normalizada = normalizar(etiqueta);
+        ListaPublicaciones lista = normalizada != null ? indice.get(normalizada) : null;
+        if (lista == null) {
+            return new ArrayList<>();
+        }
+        return lista.pagina(antesDe != null ? antesDe : Long.MAX_VALUE, limite);
+    }
+
+    /**
+     * Número de publicaciones visibles con una etiqueta
+     * @param etiqueta Etiqueta, con o sin '#'
+     * @return Número de publicaciones
+     */
+    public long contar(String etiqueta) {
+        String normalizada = normalizar(etiqueta);
+        ListaPublicaciones lista = normalizada != null ? indice.get(normalizada) : null;
+        return lista != null ? lista.tamano() : 0L;
+    }
+
+    /**
+     * Etiquetas con más publicaciones visibles
+     * @param limite Número máximo de etiquetas
+     * @return Etiquetas con su conteo, de mayor a menor
+     */
+    public List<EtiquetaConteo> obtenerPopulares(int limite) {
+        PriorityQueue<EtiquetaConteo> top = new PriorityQueue<>(Comparator.comparingLong(EtiquetaConteo::getTotal));
+        for (Map.Entry<String, ListaPublicaciones> entrada : indice.entrySet()) {
+            int total = entrada.getValue().tamano();
+            if (top.size() < limite) {
+                top.add(new EtiquetaConteo(entrada.getKey(), total));
+            } else if (total > top.peek().getTotal()) {
+                top.poll();
+                top.add(new EtiquetaConteo(entrada.getKey(), total));
+            }
+        }
+        List<EtiquetaConteo> resultado = new ArrayList<>(top);
+        resultado.sort(Comparator.comparingLong(EtiquetaConteo::getTotal).reversed()
+                .thenComparing(EtiquetaConteo::getEtiqueta));
+        return resultado;
+    }
+
+    /**
+     * Hashtags de un texto, normalizados y sin repetir, en orden de aparición
+     * @param texto Texto de la publicación
+     * @return Etiquetas (como máximo {@value #MAX_ETIQUETAS_POR_PUBLICACION})
+     */
+    public static Set<String> extraerEtiquetas(String texto) {
+        Set<String> etiquetas = new LinkedHashSet<>();
+        if (texto == null) {
+            return etiquetas;
+        }
+        Matcher matcher = HASHTAG.matcher(texto);
+        while (matcher.find() && etiquetas.size() < MAX_ETIQUETAS_POR_PUBLICACION) {
+            String etiqueta = normalizar(matcher.group(1));
+            if (etiqueta != null) {
+                etiquetas.add(etiqueta);
+            }
+        }
+        return etiquetas;
+    }
+
+    /**
+     * Forma normalizada de una etiqueta: sin '#', en minúsculas y sin tildes
+     * @param etiqueta Etiqueta tal como se escribió
+     * @return Etiqueta normalizada, o null si no es válida (sin letras o demasiado larga)
+     */
+    public static String normalizar(String etiqueta) {
+        if (etiqueta == null) {
+            return null;
+        }
+        String texto = etiqueta.startsWith("#") ? etiqueta.substring(1) : etiqueta;
+        String normalizada = Normalizer.normalize(texto.toLowerCase(Locale.ROOT), Normalizer.Form.NFD)
+                .replaceAll("\\p{M}+", "");
+        if (normalizada.isEmpty() || normalizada.length() > MAX_LONGITUD_ETIQUETA
+                || !normalizada.matches("[\\p{L}\\p{N}_]*\\p{L}[\\p{L}\\p{N}_]*")) {
+            return null;
+        }
+        return normalizada;
+    }
+
+    // Escribe solo las diferencias con las etiquetas actuales y actualiza el índice al confirmar
+    private void sincronizar(Long publicacionId, String descripcion, boolean visible, Set<String> actuales) {
+        Set<String> nuevas = extraerEtiquetas(descripcion);
+        Set<String> quitadas = new HashSet<>(actuales);
+        quitadas.removeAll(nuevas);
+        Set<String> agregadas = new LinkedHashSet<>(nuevas);
+        agregadas.removeAll(actuales);
+        if (quitadas.isEmpty() && agregadas.isEmpty()) {
+            return;
+        }
+
+        if (!quitadas.isEmpty()) {
+            etiquetaRepository.eliminarEtiquetas(publicacionId, quitadas);
+        }
+        for (String etiqueta : agregadas) {
+            etiquetaRepository.insertar(etiqueta, publicacionId);
+        }
+        if (visible) {
+            TransaccionesUtil.alConfirmar(() -> {
+                quitadas.forEach(etiqueta -> quitarDelIndice(etiqueta, publicacionId));
+                agregadas.forEach(etiqueta -> agregarAlIndice(etiqueta, publicacionId));
+            });
+        }
+    }
+
+    private List<EtiquetaPublicacion> buscarPorPublicaciones(Collection<Long> publicacionIds) {
+        List<EtiquetaPublicacion> etiquetas = new ArrayList<>();
+        if (publicacionIds == null || publicacionIds.isEmpty()) {
+            return etiquetas;
+        }
+        List<Long> ids = new ArrayList<>(publicacionIds);
+        for (int i = 0; i < ids.size(); i += TAMANO_BLOQUE) {
+            etiquetas.addAll(etiquetaRepository.findByPublicacionIds(ids.subList(i, Math.min(i + TAMANO_BLOQUE, ids.size()))));
+        }
+        return etiquetas;
+    }
+
+    private void agregarAlIndice(String etiqueta, Long publicacionId) {
+        indice.compute(etiqueta, (clave, lista) -> {
+            ListaPublicaciones resultado = lista != null ? lista : new ListaPublicaciones();
+            resultado.agregar(publicacionId);
+            return resultado;
+        });
+    }
+
+    private void quitarDelIndice(String etiqueta, Long publicacionId) {
+        indice.computeIfPresent(etiqueta, (clave, lista) -> {
+            lista.quitar(publicacionId);
+            return lista.tamano() == 0 ? null : lista;
+        });
+    }
+
+    // IDs de publicaciones en orden ascendente sobre un arreglo de long; las nuevas (ID mayor) se agregan al final
+    private static final class ListaPublicaciones {
+
+        private long[] ids = new long[4];
+        private int tamano;
+
+        synchronized void agregar(long id) {
+            if (tamano == ids.length) {
+                ids = Arrays.copyOf(ids, tamano * 2);
+            }
+            if (tamano == 0 || ids[tamano - 1] < id) {
+                ids[tamano++] = id;
+                return;
+            }
+            int pos = Arrays.binarySearch(ids, 0, tamano, id);
+            if (pos >= 0) {
+                return;
+            }
+            pos = -pos - 1;
+            System.arraycopy(ids, pos, ids, pos + 1, tamano - pos);
+            ids[pos] = id;
+            tamano++;
+        }
+
+        synchronized void quitar(long id) {
+            int pos = Arrays.binarySearch(ids, 0, tamano, id);
+            if (pos < 0) {
+                return;
+            }
+            System.arraycopy(ids, pos + 1, ids, pos, tamano - pos - 1);
+            tamano--;
+            if (ids.length > 16 && tamano < ids.length / 4) {
+                ids = Arrays.copyOf(ids, ids.length / 2);
+            }
+        }
+
+        synchronized int tamano() {
+            return tamano;
+        }
+
+        // IDs menores que antesDe, de mayor a menor
+        synchronized List<Long> pagina(long antesDe, int limite) {
+            int pos = Arrays.binarySearch(ids, 0, tamano, antesDe);
+            int fin = pos >= 0 ? pos : -pos - 1;
+            List<Long> pagina = new ArrayList<>(Math.min(limite, fin));
+            for (int i = fin - 1; i >= 0 && pagina.size() < limite; i--) {
+                pagina.add(ids[i]);
+            }
+            return pagina;
+        }
+    }
+}
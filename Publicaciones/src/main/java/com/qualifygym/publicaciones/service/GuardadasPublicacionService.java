@@ -0,0 +1,172 @@
+package com.qualifygym.publicaciones.service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.qualifygym.publicaciones.dto.PublicacionResumen;
+import com.qualifygym.publicaciones.model.ConjuntoModificado;
+import com.qualifygym.publicaciones.repository.ConjuntoModificadoRepository;
+import com.qualifygym.publicaciones.repository.PublicacionGuardadaRepository;
+
+/**
+ * Publicaciones guardadas por cada usuario.
+ *
+ * Las guardadas se persisten en {@code publicaciones_guardadas} y se mantienen en memoria por
+ * usuario con {@link ConjuntosPorUsuario}. Marcar cuáles publicaciones de un feed guardó el usuario
+ * es una consulta en memoria por elemento, sin ir a la base de datos; la versión de las guardadas
+ * forma parte del ETag de los feeds marcados. Cada escritura marca al usuario en
+ * {@code publicaciones_conjuntos_modificados} y {@link #refrescar} recarga periódicamente a los
+ * usuarios marcados, de modo que los cambios hechos en otra instancia llegan a todas.
+ */
+@Service
+public class GuardadasPublicacionService {
+
+    static final int MAX_GUARDADAS_POR_USUARIO = 10_000;
+
+    // Tamaño de bloque para consultar los usuarios de muchas publicaciones (acota la cláusula IN)
+    private static final int TAMANO_BLOQUE = 1000;
+
+    @Autowired
+    private PublicacionGuardadaRepository guardadaRepository;
+
+    @Autowired
+    private ConjuntoModificadoRepository modificadoRepository;
+
+    private final ConjuntosPorUsuario guardadas = new ConjuntosPorUsuario(MAX_GUARDADAS_POR_USUARIO,
+            "Se permiten como máximo " + MAX_GUARDADAS_POR_USUARIO + " publicaciones guardadas por usuario");
+
+    /**
+     * Cargar en memoria las guardadas de todos los usuarios al iniciar la aplicación
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void cargarInicial() {
+        try (Stream<Object[]> filas = guardadaRepository.streamTodas()) {
+            guardadas.cargar(filas);
+        }
+    }
+
+    /**
+     * Recargar las guardadas de los usuarios modificados, incluidas las de otras instancias
+     */
+    @Scheduled(fixedDelayString = "${conjuntos.usuarios.refresco-ms:2000}")
+    @Transactional(readOnly = true)
+    public void refrescar() {
+        guardadas.refrescar(desde -> modificadoRepository.findModificadosDesde(ConjuntoModificado.Tipo.GUARDADAS, desde),
+                guardadaRepository::findByUsuarioIds);
+    }
+
+    /**
+     * Guardar una publicación para un usuario. Se une a la transacción del llamador.
+     * @param usuarioId ID del usuario
+     * @param publicacionId ID de la publicación
+     * @throws RuntimeException si el usuario alcanzó el máximo de guardadas
+     */
+    public void guardar(Long usuarioId, Long publicacionId) {
+        guardadas.agregar(usuarioId, publicacionId, () -> {
+            guardadaRepository.insertar(usuarioId, publicacionId, LocalDateTime.now());
+            marcarModificado(usuarioId);
+        });
+    }
+
+    /**
+     * Quitar una publicación de las guardadas de un usuario. Se une a la transacción del llamador.
+     * @param usuarioId ID del usuario
+     * @param publicacionId ID de la publicación
+     */
+    public void quitar(Long usuarioId, Long publicacionId) {
+        guardadas.quitar(usuarioId, publicacionId, () -> {
+            guardadaRepository.eliminar(usuarioId, publicacionId);
+            marcarModificado(usuarioId);
+        });
+    }
+
+    /**
+     * Quitar publicaciones eliminadas de las guardadas de todos los usuarios
+     * @param publicacionIds IDs de las publicaciones
+     */
+    public void quitarPublicaciones(Collection<Long> publicacionIds) {
+        if (publicacionIds == null || publicacionIds.isEmpty()) {
+            return;
+        }
+        List<Long> ids = new ArrayList<>(publicacionIds);
+        List<Object[]> pares = new ArrayList<>();
+        for (int i = 0; i < ids.size(); i += TAMANO_BLOQUE) {
+            pares.addAll(guardadaRepository.findUsuariosByPublicacionIds(ids.subList(i, Math.min(i + TAMANO_BLOQUE, ids.size()))));
+        }
+        if (pares.isEmpty()) {
+            return;
+        }
+        LocalDateTime ahora = LocalDateTime.now();
+        for (int i = 0; i < ids.size(); i += TAMANO_BLOQUE) {
+            modificadoRepository.marcarGuardadasDePublicaciones(ids.subList(i, Math.min(i + TAMANO_BLOQUE, ids.size())), ahora);
+        }
+        guardadaRepository.eliminarPorPublicacionIds(ids);
+        guardadas.quitarAlConfirmar(pares);
+    }
+
+    /**
+     * Indicar si un usuario guardó una publicación
+     */
+    public boolean estaGuardada(Long usuarioId, Long publicacionId) {
+        return guardadas.contiene(usuarioId, publicacionId);
+    }
+
+    /**
+     * Marcar en cada resumen si el usuario guardó la publicación (sin usuario no se marca nada)
+     * @param resumenes Resúmenes de un feed
+     * @param usuarioId ID del usuario de la petición, o null
+     * @return Los mismos resúmenes
+     */
+    public List<PublicacionResumen> marcar(List<PublicacionResumen> resumenes, Long usuarioId) {
+        if (usuarioId == null) {
+            return resumenes;
+        }
+        ConjuntoIds ids = guardadas.conjunto(usuarioId);
+        for (PublicacionResumen resumen : resumenes) {
+            resumen.setGuardada(ids.contiene(resumen.getIdPublicacion()));
+        }
+        return resumenes;
+    }
+
+    /**
+     * Página de publicaciones guardadas por un usuario (paginación por clave, de ID mayor a menor)
+     * @param usuarioId ID del usuario
+     * @param antesDe Solo IDs menores que este, o null para la primera página
+     * @param limite Tamaño de la página
+     * @return IDs de publicaciones en orden descendente
+     */
+    public List<Long> buscarGuardadas(Long usuarioId, Long antesDe, int limite) {
+        return guardadas.pagina(usuarioId, antesDe, limite);
+    }
+
+    /**
+     * Número de publicaciones guardadas por un usuario
+     */
+    public int contar(Long usuarioId) {
+        return guardadas.contar(usuarioId);
+    }
+
+    /**
+     * Versión de las guardadas de un usuario; huella de su contenido, igual en todas las instancias
+     * @param usuarioId ID del usuario
+     * @return Versión (0 si nunca guardó publicaciones)
+     */
+    public long version(Long usuarioId) {
+        return guardadas.version(usuarioId);
+    }
+
+    private void marcarModificado(Long usuarioId) {
+        modificadoRepository.marcar(ConjuntoModificado.Tipo.GUARDADAS.name(), usuarioId, LocalDateTime.now());
+    }
+}
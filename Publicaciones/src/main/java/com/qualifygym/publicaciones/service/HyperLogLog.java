@@ -0,0 +1,191 @@
+package com.qualifygym.publicaciones.service;
+
+import java.util.Arrays;
+
+/**
+ * Sketch HyperLogLog para estimar cuántos elementos distintos se agregaron.
+ *
+ * Usa 2^{@value #PRECISION} registros, con un error estándar de ~1,6 % (1,04/√4096) y a lo sumo
+ * 4 KB por sketch sin importar cuántos elementos reciba. Mientras pocos registros tienen valor se
+ * guarda disperso (pares índice-valor ordenados, 3 bytes por par al serializar), que es lo habitual
+ * en publicaciones con pocas vistas; al crecer pasa a un arreglo denso de un byte por registro.
+ * Unir dos sketches toma el máximo de cada registro: es idempotente, así que volver a unir lo ya
+ * unido no cuenta dos veces a nadie. No es seguro para hilos: el llamador sincroniza.
+ */
+final class HyperLogLog {
+
+    static final int PRECISION = 12;
+    static final int REGISTROS = 1 << PRECISION;
+
+    // Por encima de esta cantidad de pares el formato denso ocupa menos al serializar
+    private static final int MAX_DISPERSOS = REGISTROS / 3;
+
+    private static final byte FORMATO_DISPERSO = 0;
+    private static final byte FORMATO_DENSO = 1;
+
+    // Pares (índice << 8 | valor) ordenados por índice mientras el sketch es disperso
+    private int[] dispersos = new int[4];
+    private int cantidadDispersos;
+
+    // Un byte por registro; null mientras el sketch es disperso
+    private byte[] densos;
+
+    /**
+     * Reconstruir un sketch serializado con {@link #serializar()}
+     * @param bytes Sketch serializado (null o vacío para un sketch vacío)
+     * @return Sketch
+     */
+    static HyperLogLog desde(byte[] bytes) {
+        HyperLogLog sketch = new HyperLogLog();
+        if (bytes == null || bytes.length == 0) {
+            return sketch;
+        }
+        if (bytes[0] == FORMATO_DENSO) {
+            sketch.densos = Arrays.copyOfRange(bytes, 1, REGISTROS + 1);
+            return sketch;
+        }
+        for (int i = 1; i + 2 < bytes.length; i += 3) {
+            int indice = ((bytes[i] & 0xFF) << 8) | (bytes[i + 1] & 0xFF);
+            sketch.actualizar(indice, bytes[i + 2] & 0xFF);
+        }
+        return sketch;
+    }
+
+    /**
+     * Agregar un elemento por su hash de 64 bits (debe estar bien distribuido)
+     */
+    void agregar(long hash) {
+        int indice = (int) (hash >>> (64 - PRECISION));
+        long resto = hash << PRECISION;
+        // Posición del primer bit en 1 de los bits restantes
+        int valor = resto == 0 ? 64 - PRECISION + 1 : Long.numberOfLeadingZeros(resto) + 1;
+        actualizar(indice, valor);
+    }
+
+    /**
+     * Sumar a este sketch los elementos de otro (máximo registro a registro)
+     */
+    void unir(HyperLogLog otro) {
+        if (otro.densos != null) {
+            for (int i = 0; i < REGISTROS; i++) {
+                if (otro.densos[i] != 0) {
+                    actualizar(i, otro.densos[i]);
+                }
+            }
+        } else {
+            for (int i = 0; i < otro.cantidadDispersos; i++) {
+                actualizar(otro.dispersos[i] >>> 8, otro.dispersos[i] & 0xFF);
+            }
+        }
+    }
+
+    /**
+     * Número estimado de elementos distintos
+     */
+    long estimar() {
+        double suma = 0;
+        int ceros;
+        if (densos != null) {
+            ceros = 0;
+            for (byte valor : densos) {
+                suma += Math.scalb(1.0, -valor);
+                if (valor == 0) {
+                    ceros++;
+                }
+            }
+        } else {
+            ceros = REGISTROS - cantidadDispersos;
+            suma = ceros;
+            for (int i = 0; i < cantidadDispersos; i++) {
+                suma += Math.scalb(1.0, -(dispersos[i] & 0xFF));
+            }
+        }
+        double alfa = 0.7213 / (1 + 1.079 / REGISTROS);
+        double estimacion = alfa * REGISTROS * REGISTROS / suma;
+        // Con pocos elementos el conteo lineal sobre los registros vacíos es más preciso
+        if (estimacion <= 2.5 * REGISTROS && ceros > 0) {
+            estimacion = REGISTROS * Math.log((double) REGISTROS / ceros);
+        }
+        return Math.round(estimacion);
+    }
+
+    boolean vacio() {
+        return densos == null && cantidadDispersos == 0;
+    }
+
+    /**
+     * Serializar el sketch: un byte de formato seguido de los pares dispersos o de los registros
+     */
+    byte[] serializar() {
+        if (densos != null) {
+            byte[] bytes = new byte[REGISTROS + 1];
+            bytes[0] = FORMATO_DENSO;
+            System.arraycopy(densos, 0, bytes, 1, REGISTROS);
+            return bytes;
+        }
+        byte[] bytes = new byte[1 + 3 * cantidadDispersos];
+        bytes[0] = FORMATO_DISPERSO;
+        for (int i = 0; i < cantidadDispersos; i++) {
+            int par = dispersos[i];
+            bytes[1 + 3 * i] = (byte) (par >>> 16);
+            bytes[2 + 3 * i] = (byte) (par >>> 8);
+            bytes[3 + 3 * i] = (byte) par;
+        }
+        return bytes;
+    }
+
+    private void actualizar(int indice, int valor) {
+        if (densos != null) {
+            if (valor > densos[indice]) {
+                densos[indice] = (byte) valor;
+            }
+            return;
+        }
+        int pos = buscar(indice);
+        if (pos >= 0) {
+            if (valor > (dispersos[pos] & 0xFF)) {
+                dispersos[pos] = (indice << 8) | valor;
+            }
+            return;
+        }
+        if (cantidadDispersos >= MAX_DISPERSOS) {
+            aDenso();
+            densos[indice] = (byte) valor;
+            return;
+        }
+        int ins = -pos - 1;
+        if (cantidadDispersos == dispersos.length) {
+            dispersos = Arrays.copyOf(dispersos, dispersos.length * 2);
+        }
+        System.arraycopy(dispersos, ins, dispersos, ins + 1, cantidadDispersos - ins);
+        dispersos[ins] = (indice << 8) | valor;
+        cantidadDispersos++;
+    }
+
+    // Búsqueda binaria por índice entre los pares dispersos
+    private int buscar(int indice) {
+        int bajo = 0;
+        int alto = cantidadDispersos - 1;
+        while (bajo <= alto) {
+            int medio = (bajo + alto) >>> 1;
+            int actual = dispersos[medio] >>> 8;
+            if (actual < indice) {
+                bajo = medio + 1;
+            } else if (actual > indice) {
+                alto = medio - 1;
+            } else {
+                return medio;
+            }
+        }
+        return -(bajo + 1);
+    }
+
+    private void aDenso() {
+        densos = new byte[REGISTROS];
+        for (int i = 0; i < cantidadDispersos; i++) {
+            densos[dispersos[i] >>> 8] = (byte) (dispersos[i] & 0xFF);
+        }
+        dispersos = null;
+        cantidadDispersos = 0;
+    }
+}
@@ -0,0 +1,379 @@
+package com.qualifygym.publicaciones.service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.qualifygym.publicaciones.client.TemaClient;
+import com.qualifygym.publicaciones.client.UsuarioClient;
+import com.qualifygym.publicaciones.dto.ProgresoImportacion;
+import com.qualifygym.publicaciones.model.CambioPublicacion;
+import com.qualifygym.publicaciones.model.Publicacion;
+
+/**
+ * Importación masiva de publicaciones desde una entrada NDJSON o CSV transmitida.
+ *
+ * La entrada se lee registro a registro y se procesa por lotes de {@code importacion.publicaciones.tamano-lote}:
+ * los IDs de usuario y tema del lote que aún no se conocen se verifican una sola vez cada uno (con consultas
+ * simultáneas acotadas) y se recuerdan durante toda la importación; las filas válidas se insertan con un
+ * lote JDBC en su propia transacción, junto con su registro de cambios, sus etiquetas y los resúmenes
+ * diarios por tema. Las firmas de publicaciones relacionadas las completa el relleno en segundo plano.
+ * Cada línea rechazada y el avance tras cada lote se informan al llamador; un lote que falla al
+ * insertarse detiene la importación, y lo confirmado antes se conserva.
+ */
+@Service
+public class ImportacionPublicacionesService {
+
+    public enum Formato {
+        NDJSON, CSV
+    }
+
+    private static final int MAX_TITULO = 200;
+    private static final int MAX_IMAGEN = 500;
+
+    // Formato de fecha de la exportación (JSON de Publicacion), aceptado además de ISO-8601
+    private static final DateTimeFormatter FORMATO_EXPORTACION = DateTimeFormatter.ofPattern("dd-MM-yyyy HH:mm");
+
+    private static final String INSERTAR =
+            "INSERT INTO publicaciones (titulo, fecha, descripcion, oculta, Usuarios_id_usuario, Tema_id_tema, image_url, version) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, 0)";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private UsuarioClient usuarioClient;
+
+    @Autowired
+    private TemaClient temaClient;
+
+    @Autowired
+    private CambiosPublicacionService cambiosPublicacionService;
+
+    @Autowired
+    private EtiquetasPublicacionService etiquetasPublicacionService;
+
+    @Autowired
+    private RankingCalienteService rankingCalienteService;
+
+    @Autowired
+    private ActividadDiariaService actividadDiariaService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${importacion.publicaciones.tamano-lote:1000}")
+    private int tamanoLote = 1000;
+
+    // Solo las publicaciones importadas más recientes que esto entran al ranking caliente (como en su carga inicial)
+    @Value("${ranking.caliente.dias-carga-inicial:7}")
+    private int diasRanking = 7;
+
+    private record Fila(long linea, String titulo, String descripcion, Long usuarioId, Long temaId, String imageUrl,
+                        LocalDateTime fecha, boolean oculta) {
+    }
+
+    // Estado de una importación: contadores y existencia ya verificada de usuarios y temas
+    private final class Importacion {
+        private final Consumer<ProgresoImportacion> informe;
+        private final Map<Long, Boolean> usuarios = new HashMap<>();
+        private final Map<Long, Boolean> temas = new HashMap<>();
+        private long procesadas;
+        private long importadas;
+        private long errores;
+
+        private Importacion(Consumer<ProgresoImportacion> informe) {
+            this.informe = informe;
+        }
+
+        private void rechazar(long linea, String error) {
+            procesadas++;
+            errores++;
+            informe.accept(ProgresoImportacion.error(linea, error));
+        }
+    }
+
+    /**
+     * Importar publicaciones. En NDJSON cada línea es un objeto; en CSV la primera línea es la cabecera.
+     * Campos: titulo, descripcion, usuarioId y temaId (obligatorios); imageUrl, fecha (ISO-8601 o dd-MM-yyyy HH:mm;
+     * por defecto, ahora) y oculta (opcionales).
+     * @param entrada Entrada en UTF-8
+     * @param formato Formato de la entrada
+     * @param informe Recibe cada línea rechazada y el avance tras cada lote
+     * @return Resumen final (finalizada=false y el motivo en error si la importación se detuvo)
+     */
+    public ProgresoImportacion importar(Reader entrada, Formato formato, Consumer<ProgresoImportacion> informe) {
+        Importacion importacion = new Importacion(informe);
+        List<Fila> lote = new ArrayList<>(tamanoLote);
+        try {
+            BufferedReader lector = new BufferedReader(entrada);
+            if (formato == Formato.CSV) {
+                leerCsv(lector, importacion, lote);
+            } else {
+                leerNdjson(lector, importacion, lote);
+            }
+            procesarLote(importacion, lote);
+        } catch (IOException | RuntimeException e) {
+            ProgresoImportacion resumen = ProgresoImportacion.avance(importacion.procesadas, importacion.importadas, importacion.errores);
+            resumen.setError(e.getMessage());
+            resumen.setFinalizada(false);
+            return resumen;
+        }
+        ProgresoImportacion resumen = ProgresoImportacion.avance(importacion.procesadas, importacion.importadas, importacion.errores);
+        resumen.setFinalizada(true);
+        return resumen;
+    }
+
+    private void leerNdjson(BufferedReader lector, Importacion importacion, List<Fila> lote) throws IOException {
+        String texto;
+        long linea = 0;
+        while ((texto = lector.readLine()) != null) {
+            linea++;
+            if (texto.isBlank()) {
+                continue;
+            }
+            try {
+                JsonNode nodo = objectMapper.readTree(texto);
+                if (!nodo.isObject()) {
+                    throw new IllegalArgumentException("La línea no es un objeto JSON");
+                }
+                agregar(importacion, lote, validar(linea, texto(nodo, "titulo"), texto(nodo, "descripcion"),
+                        texto(nodo, "usuarioId"), texto(nodo, "temaId"), texto(nodo, "imageUrl"),
+                        texto(nodo, "fecha"), texto(nodo, "oculta")));
+            } catch (JsonProcessingException e) {
+                importacion.rechazar(linea, "JSON inválido");
+            } catch (IllegalArgumentException e) {
+                importacion.rechazar(linea, e.getMessage());
+            }
+        }
+    }
+
+    private void leerCsv(BufferedReader lector, Importacion importacion, List<Fila> lote) throws IOException {
+        LectorCsv csv = new LectorCsv(lector);
+        List<String> cabecera = csv.leer();
+        if (cabecera == null) {
+            return;
+        }
+        Map<String, Integer> columnas = new HashMap<>();
+        for (int i = 0; i < cabecera.size(); i++) {
+            columnas.put(cabecera.get(i).trim(), i);
+        }
+        for (String requerida : List.of("titulo", "descripcion", "usuarioId", "temaId")) {
+            if (!columnas.containsKey(requerida)) {
+                throw new RuntimeException("Falta la columna " + requerida + " en la cabecera CSV");
+            }
+        }
+        while (true) {
+            List<String> campos;
+            try {
+                campos = csv.leer();
+            } catch (IllegalArgumentException e) {
+                importacion.rechazar(csv.lineaRegistro(), e.getMessage());
+                return;
+            }
+            if (campos == null) {
+                return;
+            }
+            try {
+                agregar(importacion, lote, validar(csv.lineaRegistro(), campo(campos, columnas, "titulo"),
+                        campo(campos, columnas, "descripcion"), campo(campos, columnas, "usuarioId"),
+                        campo(campos, columnas, "temaId"), campo(campos, columnas, "imageUrl"),
+                        campo(campos, columnas, "fecha"), campo(campos, columnas, "oculta")));
+            } catch (IllegalArgumentException e) {
+                importacion.rechazar(csv.lineaRegistro(), e.getMessage());
+            }
+        }
+    }
+
+    private void agregar(Importacion importacion, List<Fila> lote, Fila fila) {
+        lote.add(fila);
+        if (lote.size() >= tamanoLote) {
+            procesarLote(importacion, lote);
+        }
+    }
+
+    // Mismas reglas que al crear una publicación, salvo las verificaciones remotas, que se hacen por lote
+    private Fila validar(long linea, String titulo, String descripcion, String usuarioId, String temaId,
+                         String imageUrl, String fecha, String oculta) {
+        if (titulo == null || titulo.trim().isEmpty()) {
+            throw new IllegalArgumentException("El título no puede estar vacío");
+        }
+        if (titulo.trim().length() > MAX_TITULO) {
+            throw new IllegalArgumentException("El título no puede superar los " + MAX_TITULO + " caracteres");
+        }
+        if (descripcion == null || descripcion.trim().isEmpty()) {
+            throw new IllegalArgumentException("La descripción no puede estar vacía");
+        }
+        Long usuario = leerId(usuarioId, "El ID de usuario es inválido");
+        Long tema = leerId(temaId, "El ID de tema es inválido");
+        String imagen = imageUrl != null && !imageUrl.trim().isEmpty() ? imageUrl.trim() : null;
+        if (imagen != null && imagen.length() > MAX_IMAGEN) {
+            throw new IllegalArgumentException("La URL de la imagen no puede superar los " + MAX_IMAGEN + " caracteres");
+        }
+        return new Fila(linea, titulo.trim(), descripcion.trim(), usuario, tema, imagen, leerFecha(fecha),
+                oculta != null && Boolean.parseBoolean(oculta.trim()));
+    }
+
+    private void procesarLote(Importacion importacion, List<Fila> lote) {
+        if (lote.isEmpty()) {
+            return;
+        }
+        verificar(lote, Fila::usuarioId, importacion.usuarios, usuarioClient::existenUsuarios);
+        verificar(lote, Fila::temaId, importacion.temas, temaClient::existenTemas);
+
+        List<Fila> validas = new ArrayList<>(lote.size());
+        for (Fila fila : lote) {
+            if (!importacion.usuarios.get(fila.usuarioId())) {
+                importacion.rechazar(fila.linea(), "El usuario con ID " + fila.usuarioId() + " no existe");
+            } else if (!importacion.temas.get(fila.temaId())) {
+                importacion.rechazar(fila.linea(), "El tema con ID " + fila.temaId() + " no existe");
+            } else {
+                validas.add(fila);
+            }
+        }
+        lote.clear();
+        if (!validas.isEmpty()) {
+            try {
+                new TransactionTemplate(transactionManager).executeWithoutResult(status -> insertar(validas));
+            } catch (RuntimeException e) {
+                throw new RuntimeException("Error al insertar el lote desde la línea " + validas.get(0).linea() + ": " + e.getMessage());
+            }
+            importacion.procesadas += validas.size();
+            importacion.importadas += validas.size();
+        }
+        importacion.informe.accept(ProgresoImportacion.avance(importacion.procesadas, importacion.importadas, importacion.errores));
+    }
+
+    // Consulta una sola vez cada ID del lote que aún no se conoce
+    private static void verificar(List<Fila> lote, Function<Fila, Long> id, Map<Long, Boolean> conocidos,
+                                  Function<Set<Long>, Map<Long, Boolean>> consulta) {
+        Set<Long> desconocidos = new HashSet<>();
+        for (Fila fila : lote) {
+            if (!conocidos.containsKey(id.apply(fila))) {
+                desconocidos.add(id.apply(fila));
+            }
+        }
+        if (desconocidos.isEmpty()) {
+            return;
+        }
+        Map<Long, Boolean> existentes = consulta.apply(desconocidos);
+        for (Long desconocido : desconocidos) {
+            conocidos.put(desconocido, Boolean.TRUE.equals(existentes.get(desconocido)));
+        }
+    }
+
+    private void insertar(List<Fila> filas) {
+        KeyHolder claves = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(conexion -> conexion.prepareStatement(INSERTAR, Statement.RETURN_GENERATED_KEYS),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        Fila fila = filas.get(i);
+                        ps.setString(1, fila.titulo());
+                        ps.setTimestamp(2, Timestamp.valueOf(fila.fecha()));
+                        ps.setString(3, fila.descripcion());
+                        ps.setBoolean(4, fila.oculta());
+                        ps.setLong(5, fila.usuarioId());
+                        ps.setLong(6, fila.temaId());
+                        ps.setString(7, fila.imageUrl());
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return filas.size();
+                    }
+                }, claves);
+
+        List<Map<String, Object>> generadas = claves.getKeyList();
+        if (generadas.size() != filas.size()) {
+            throw new IllegalStateException("La base de datos no retornó los IDs generados");
+        }
+        LocalDateTime corteRanking = LocalDateTime.now().minusDays(diasRanking);
+        List<Long> ids = new ArrayList<>(filas.size());
+        List<Publicacion> publicaciones = new ArrayList<>(filas.size());
+        for (int i = 0; i < filas.size(); i++) {
+            Fila fila = filas.get(i);
+            Long id = ((Number) generadas.get(i).values().iterator().next()).longValue();
+            ids.add(id);
+            Publicacion publicacion = new Publicacion();
+            publicacion.setIdPublicacion(id);
+            publicacion.setDescripcion(fila.descripcion());
+            publicacion.setOculta(fila.oculta());
+            publicaciones.add(publicacion);
+            actividadDiariaService.registrarCreada(fila.temaId(), fila.fecha(), fila.oculta());
+            if (!fila.oculta() && fila.fecha().isAfter(corteRanking)) {
+                rankingCalienteService.registrarPublicacion(id, fila.temaId(), fila.fecha());
+            }
+        }
+        etiquetasPublicacionService.registrarLote(publicaciones);
+        cambiosPublicacionService.registrarLote(ids, CambioPublicacion.Tipo.CREADA);
+    }
+
+    private static Long leerId(String valor, String error) {
+        try {
+            long id = Long.parseLong(valor == null ? "" : valor.trim());
+            if (id <= 0) {
+                throw new IllegalArgumentException(error);
+            }
+            return id;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(error);
+        }
+    }
+
+    private static LocalDateTime leerFecha(String valor) {
+        if (valor == null || valor.isBlank()) {
+            return LocalDateTime.now();
+        }
+        try {
+            return LocalDateTime.parse(valor.trim());
+        } catch (DateTimeParseException e) {
+            try {
+                return LocalDateTime.parse(valor.trim(), FORMATO_EXPORTACION);
+            } catch (DateTimeParseException e2) {
+                throw new IllegalArgumentException("La fecha es inválida: " + valor);
+            }
+        }
+    }
+
+    private static String texto(JsonNode nodo, String campo) {
+        JsonNode valor = nodo.get(campo);
+        return valor == null || valor.isNull() ? null : valor.asText();
+    }
+
+    private static String campo(List<String> campos, Map<String, Integer> columnas, String nombre) {
+        Integer indice = columnas.get(nombre);
+        return indice != null && indice < campos.size() ? campos.get(indice) : null;
+    }
+}
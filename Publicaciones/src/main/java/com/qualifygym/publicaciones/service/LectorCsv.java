@@ -0,0 +1,114 @@
+package com.qualifygym.publicaciones.service;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Lector de registros CSV (RFC 4180) carácter a carácter, sin cargar la entrada en memoria.
+ *
+ * Los campos entre comillas pueden contener comas, saltos de línea y comillas dobladas ({@code ""}).
+ * Lleva la cuenta de líneas físicas para que los errores indiquen dónde empieza cada registro.
+ * No es seguro para hilos.
+ */
+final class LectorCsv {
+
+    private static final int NINGUNO = -2;
+
+    private final Reader lector;
+    private long linea = 1;
+    private long lineaRegistro;
+    private int devuelto = NINGUNO; // Carácter leído de más al reconocer un fin de línea \r
+
+    LectorCsv(Reader lector) {
+        this.lector = lector;
+    }
+
+    /**
+     * Leer el siguiente registro
+     * @return Campos del registro, o null al final de la entrada
+     * @throws IllegalArgumentException si un campo entre comillas no se cierra
+     */
+    List<String> leer() throws IOException {
+        int c = leerCaracter();
+        // Las líneas en blanco entre registros se ignoran
+        while (c == '\r' || c == '\n') {
+            saltarFinDeLinea(c);
+            c = leerCaracter();
+        }
+        if (c == -1) {
+            return null;
+        }
+        lineaRegistro = linea;
+        List<String> campos = new ArrayList<>();
+        StringBuilder campo = new StringBuilder();
+        boolean entreComillas = false;
+        boolean citado = false;
+        while (true) {
+            if (entreComillas) {
+                if (c == -1) {
+                    throw new IllegalArgumentException("Comillas sin cerrar");
+                }
+                if (c == '"') {
+                    int d = leerCaracter();
+                    if (d == '"') {
+                        campo.append('"');
+                    } else {
+                        entreComillas = false;
+                        c = d;
+                        continue;
+                    }
+                } else {
+                    if (c == '\n') {
+                        linea++;
+                    }
+                    campo.append((char) c);
+                }
+            } else if (c == '"' && campo.length() == 0 && !citado) {
+                entreComillas = true;
+                citado = true;
+            } else if (c == ',') {
+                campos.add(campo.toString());
+                campo.setLength(0);
+                citado = false;
+            } else if (c == '\r' || c == '\n' || c == -1) {
+                campos.add(campo.toString());
+                if (c != -1) {
+                    saltarFinDeLinea(c);
+                }
+                return campos;
+            } else {
+                campo.append((char) c);
+            }
+            c = leerCaracter();
+        }
+    }
+
+    /**
+     * Línea física en la que empieza el último registro leído
+     */
+    long lineaRegistro() {
+        return lineaRegistro;
+    }
+
+    // Completa un fin de línea ya leído: \n, \r o \r\n
+    private void saltarFinDeLinea(int c) throws IOException {
+        linea++;
+        if (c == '\r') {
+            int d = leerCaracter();
+            if (d != '\n') {
+                devuelto = d;
+            }
+        }
+    }
+
+    private int leerCaracter() throws IOException {
+        if (devuelto != NINGUNO) {
+            int c = devuelto;
+            devuelto = NINGUNO;
+            return c;
+        }
+        return lector.read();
+    }
+}
@@ -0,0 +1,277 @@
+package com.qualifygym.publicaciones.service;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.qualifygym.publicaciones.model.Notificacion;
+import com.qualifygym.publicaciones.model.NotificacionOutbox;
+import com.qualifygym.publicaciones.repository.NotificacionOutboxRepository;
+import com.qualifygym.publicaciones.repository.NotificacionRepository;
+
+import jakarta.transaction.Transactional;
+
+/**
+ * Bandeja de salida (outbox) de notificaciones de moderación.
+ *
+ * Las operaciones de moderación solo registran una entrada en {@code notificaciones_outbox}
+ * dentro de su propia transacción; un despachador programado las convierte en
+ * {@link Notificacion} por lotes, con reintentos y backoff exponencial ante fallos.
+ */
+@Service
+public class NotificacionOutboxService {
+
+    @Autowired
+    private NotificacionOutboxRepository outboxRepository;
+
+    @Autowired
+    private NotificacionRepository notificacionRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${notificaciones.outbox.tamano-lote:200}")
+    private int tamanoLote = 200;
+
+    @Value("${notificaciones.outbox.max-intentos:10}")
+    private int maxIntentos = 10;
+
+    @Value("${notificaciones.outbox.backoff-base-ms:1000}")
+    private long backoffBaseMs = 1000;
+
+    @Value("${notificaciones.outbox.backoff-max-ms:600000}")
+    private long backoffMaxMs = 600000;
+
+    /**
+     * Registrar una notificación pendiente de entrega.
+     * Se une a la transacción del llamador, de modo que la entrada solo existe si la
+     * operación de moderación se confirma. Una notificación inválida se omite sin lanzar,
+     * para que un problema del aviso nunca revierta la moderación.
+     * @param usuarioId ID del usuario que recibirá la notificación
+     * @param publicacionId ID de la publicación relacionada
+     * @param mensaje Mensaje del admin/moderador
+     * @return Entrada del outbox creada, o null si la notificación se omitió por inválida
+     */
+    @Transactional
+    public NotificacionOutbox registrar(Long usuarioId, Long publicacionId, String mensaje) {
+        if (!esValida(usuarioId, publicacionId, mensaje)) {
+            return null;
+        }
+
+        NotificacionOutbox entrada = new NotificacionOutbox();
+        entrada.setUsuarioId(usuarioId);
+        entrada.setPublicacionId(publicacionId);
+        entrada.setMensaje(mensaje.trim());
+        entrada.setEstado(NotificacionOutbox.Estado.PENDIENTE);
+        entrada.setIntentos(0);
+        entrada.setFechaCreacion(LocalDateTime.now());
+        entrada.setProximoIntento(entrada.getFechaCreacion());
+
+        return outboxRepository.save(entrada);
+    }
+
+    /**
+     * Registrar en un solo lote JDBC las notificaciones de una moderación masiva.
+     * Igual que {@link #registrar}, se une a la transacción del llamador y omite las entradas inválidas.
+     * @param usuarioPorPublicacion Dueño de cada publicación moderada (publicacionId -> usuarioId)
+     * @param mensaje Mensaje del admin/moderador
+     * @return Número de entradas registradas
+     */
+    @Transactional
+    public int registrarLote(Map<Long, Long> usuarioPorPublicacion, String mensaje) {
+        if (usuarioPorPublicacion == null || usuarioPorPublicacion.isEmpty()) {
+            return 0;
+        }
+
+        Timestamp ahora = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> filas = new ArrayList<>(usuarioPorPublicacion.size());
+        for (Map.Entry<Long, Long> entrada : usuarioPorPublicacion.entrySet()) {
+            if (!esValida(entrada.getValue(), entrada.getKey(), mensaje)) {
+                continue;
+            }
+            filas.add(new Object[] {
+                entrada.getValue(), entrada.getKey(), mensaje.trim(),
+                NotificacionOutbox.Estado.PENDIENTE.name(), 0, ahora, ahora
+            });
+        }
+        if (filas.isEmpty()) {
+            return 0;
+        }
+        jdbcTemplate.batchUpdate(
+                "INSERT INTO notificaciones_outbox (usuario_id, publicacion_id, mensaje, estado, intentos, proximo_intento, fecha_creacion) " +
+                "VALUES (?, ?, ?, ?, ?, ?, ?)",
+                filas);
+        return filas.size();
+    }
+
+    // Ejecución periódica del despachador
+    @Scheduled(fixedDelayString = "${notificaciones.outbox.intervalo-ms:2000}")
+    public void despacharProgramado() {
+        despacharPendientes();
+    }
+
+    /**
+     * Despachar las entradas pendientes cuyo próximo intento ya venció.
+     * Cada lote se entrega en una sola transacción; si el lote falla, se reintenta
+     * entrada por entrada para aislar la que provoca el error.
+     * @return Número de notificaciones entregadas
+     */
+    public int despacharPendientes() {
+        TransactionTemplate transaccion = new TransactionTemplate(transactionManager);
+        int entregadas = 0;
+
+        while (true) {
+            List<NotificacionOutbox> lote = outboxRepository.findPendientesVencidas(
+                    LocalDateTime.now(), PageRequest.of(0, tamanoLote));
+            if (lote.isEmpty()) {
+                break;
+            }
+
+            try {
+                transaccion.executeWithoutResult(status -> entregarLote(lote));
+                entregadas += lote.size();
+            } catch (RuntimeException e) {
+                for (NotificacionOutbox entrada : lote) {
+                    if (entregarIndividual(transaccion, entrada.getIdOutbox())) {
+                        entregadas++;
+                    }
+                }
+                // Las entradas fallidas quedan con backoff; se retoman en la siguiente ejecución
+                break;
+            }
+
+            if (lote.size() < tamanoLote) {
+                break;
+            }
+        }
+        return entregadas;
+    }
+
+    /**
+     * Volver a encolar las entradas que agotaron sus reintentos
+     * @return Número de entradas reencoladas
+     */
+    @Transactional
+    public int reencolarFallidas() {
+        return outboxRepository.reencolarFallidas(LocalDateTime.now());
+    }
+
+    /**
+     * Contar entradas del outbox en un estado
+     * @param estado Estado a contar
+     * @return Número de entradas en ese estado
+     */
+    public long contarPorEstado(NotificacionOutbox.Estado estado) {
+        return outboxRepository.countByEstado(estado);
+    }
+
+    // Inserta las notificaciones del lote (omitiendo las ya entregadas) y marca las entradas como entregadas
+    private void entregarLote(List<NotificacionOutbox> lote) {
+        List<Long> ids = new ArrayList<>(lote.size());
+        for (NotificacionOutbox entrada : lote) {
+            ids.add(entrada.getIdOutbox());
+        }
+        Set<Long> yaEntregadas = new HashSet<>(notificacionRepository.findOutboxIdsEntregados(ids));
+
+        List<Notificacion> nuevas = new ArrayList<>(lote.size());
+        for (NotificacionOutbox entrada : lote) {
+            if (!yaEntregadas.contains(entrada.getIdOutbox())) {
+                nuevas.add(aNotificacion(entrada));
+            }
+        }
+
+        notificacionRepository.saveAll(nuevas);
+        notificacionRepository.flush();
+        outboxRepository.marcarEntregadas(ids, LocalDateTime.now());
+    }
+
+    // Entrega una sola entrada en su propia transacción; si falla, registra el intento con backoff
+    private boolean entregarIndividual(TransactionTemplate transaccion, Long idOutbox) {
+        try {
+            transaccion.executeWithoutResult(status -> outboxRepository.findById(idOutbox)
+                    .filter(e -> e.getEstado() == NotificacionOutbox.Estado.PENDIENTE)
+                    .ifPresent(e -> entregarLote(List.of(e))));
+            return true;
+        } catch (RuntimeException e) {
+            try {
+                transaccion.executeWithoutResult(status -> registrarFallo(idOutbox, e));
+            } catch (RuntimeException ignorada) {
+                // Si ni siquiera se puede registrar el fallo, la entrada sigue pendiente y se reintenta
+            }
+            return false;
+        }
+    }
+
+    private void registrarFallo(Long idOutbox, RuntimeException error) {
+        outboxRepository.findById(idOutbox).ifPresent(entrada -> {
+            int intentos = entrada.getIntentos() == null ? 1 : entrada.getIntentos() + 1;
+            entrada.setIntentos(intentos);
+            entrada.setUltimoError(truncar(error.getMessage(), 500));
+            if (intentos >= maxIntentos) {
+                entrada.setEstado(NotificacionOutbox.Estado.FALLIDA);
+            } else {
+                entrada.setProximoIntento(LocalDateTime.now().plusNanos(calcularBackoffMs(intentos) * 1_000_000L));
+            }
+            outboxRepository.save(entrada);
+        });
+    }
+
+    // Una notificación inválida no debe hacer fallar la moderación que la origina: se registra el motivo y se omite
+    private boolean esValida(Long usuarioId, Long publicacionId, String mensaje) {
+        String error = null;
+        if (usuarioId == null || usuarioId <= 0) {
+            error = "El ID de usuario es inválido";
+        } else if (publicacionId == null || publicacionId <= 0) {
+            error = "El ID de publicación es inválido";
+        } else if (mensaje == null || mensaje.trim().isEmpty()) {
+            error = "El mensaje no puede estar vacío";
+        }
+        if (error != null) {
+            // Solo se registra el error (en producción se podría usar un logger)
+            System.err.println("Notificación omitida para la publicación " + publicacionId + ": " + error);
+            return false;
+        }
+        return true;
+    }
+
+    // Backoff exponencial: base * 2^(intentos - 1), acotado por el máximo configurado
+    long calcularBackoffMs(int intentos) {
+        int exponente = Math.min(Math.max(intentos - 1, 0), 30);
+        long espera = backoffBaseMs << exponente;
+        return espera <= 0 ? backoffMaxMs : Math.min(espera, backoffMaxMs);
+    }
+
+    private Notificacion aNotificacion(NotificacionOutbox entrada) {
+        Notificacion notificacion = new Notificacion();
+        notificacion.setUsuarioId(entrada.getUsuarioId());
+        notificacion.setPublicacionId(entrada.getPublicacionId());
+        notificacion.setMensaje(entrada.getMensaje());
+        notificacion.setFechaCreacion(entrada.getFechaCreacion());
+        notificacion.setLeida(false);
+        notificacion.setOutboxId(entrada.getIdOutbox());
+        return notificacion;
+    }
+
+    private static String truncar(String texto, int max) {
+        if (texto == null) {
+            return null;
+        }
+        return texto.length() <= max ? texto : texto.substring(0, max);
+    }
+}
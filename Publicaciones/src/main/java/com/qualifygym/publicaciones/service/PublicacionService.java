@@ -1,27 +1,93 @@
 package com.qualifygym.publicaciones.service;
 
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.qualifygym.publicaciones.client.TemaClient;
 import com.qualifygym.publicaciones.client.UsuarioClient;
+import com.qualifygym.publicaciones.dto.CambiosPublicaciones;
+import com.qualifygym.publicaciones.dto.EtiquetaConteo;
+import com.qualifygym.publicaciones.dto.PaginaPublicaciones;
+import com.qualifygym.publicaciones.dto.PublicacionReferencia;
+import com.qualifygym.publicaciones.dto.PublicacionResumen;
+import com.qualifygym.publicaciones.model.ActividadDiaria;
+import com.qualifygym.publicaciones.model.BorradorPublicacion;
+import com.qualifygym.publicaciones.model.CambioPublicacion;
 import com.qualifygym.publicaciones.model.Publicacion;
+import com.qualifygym.publicaciones.model.PublicacionArchivada;
+import com.qualifygym.publicaciones.repository.PublicacionArchivadaRepository;
 import com.qualifygym.publicaciones.repository.PublicacionRepository;
-import com.qualifygym.publicaciones.service.NotificacionService;
 
-import jakarta.transaction.Transactional;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
 
 @Service
 @Transactional
 public class PublicacionService {
 
+    // Límite de IDs por solicitud de moderación masiva y tamaño de cada bloque UPDATE ... IN
+    static final int MAX_IDS_MODERACION_LOTE = 10000;
+    private static final int TAMANO_BLOQUE_MODERACION = 1000;
+
+    // Límite de IDs por consulta de existencia/referencias en lote
+    static final int MAX_IDS_CONSULTA_LOTE = 500;
+
+    // Máximo de publicaciones por página del ranking caliente
+    private static final int MAX_LIMITE_CALIENTES = 100;
+
+    // Máximo de publicaciones relacionadas por consulta
+    private static final int MAX_LIMITE_RELACIONADAS = 50;
+
+    // Máximo de publicaciones por página de guardadas
+    private static final int MAX_LIMITE_GUARDADAS = 100;
+
+    // Máximo de publicaciones por página de una etiqueta y de etiquetas populares por consulta
+    private static final int MAX_LIMITE_ETIQUETAS = 100;
+
+    // Máximo de publicaciones por página de los feeds paginados y de autores por página de silenciados
+    private static final int MAX_LIMITE_FEED = 100;
+    private static final int MAX_LIMITE_SILENCIADOS = 100;
+
+    // Filas leídas como máximo por publicación pedida cuando el usuario silenció autores
+    private static final int MAX_FACTOR_LECTURA_SILENCIADOS = 4;
+
+    // Cursor de la primera página de los feeds paginados: posterior a cualquier fecha de publicación
+    // (LocalDateTime.MAX no cabe en una columna DATETIME)
+    private static final LocalDateTime FECHA_PRIMERA_PAGINA = LocalDateTime.of(9999, 12, 31, 23, 59, 59);
+
+    // Límites del contenido de un borrador (los de las columnas), validados al autoguardar para que un volcado no falle.
+    // TEXT admite 65535 bytes: 16000 caracteres caben aun con 4 bytes por carácter
+    private static final int MAX_TITULO_BORRADOR = 200;
+    private static final int MAX_DESCRIPCION_BORRADOR = 16000;
+    private static final int MAX_IMAGEN_BORRADOR = 500;
+
     @Autowired
     private PublicacionRepository publicacionRepository;
 
+    @Autowired
+    private PublicacionArchivadaRepository publicacionArchivadaRepository;
+
     @Autowired
     private UsuarioClient usuarioClient;
 
@@ -29,44 +95,473 @@ public class PublicacionService {
     private TemaClient temaClient;
 
     @Autowired
-    private NotificacionService notificacionService;
+    private NotificacionOutboxService notificacionOutboxService;
+
+    @Autowired
+    private RankingCalienteService rankingCalienteService;
+
+    @Autowired
+    private CambiosPublicacionService cambiosPublicacionService;
+
+    @Autowired
+    private DuplicadosPublicacionService duplicadosPublicacionService;
+
+    @Autowired
+    private RelacionadasPublicacionService relacionadasPublicacionService;
+
+    @Autowired
+    private EtiquetasPublicacionService etiquetasPublicacionService;
+
+    @Autowired
+    private GuardadasPublicacionService guardadasPublicacionService;
+
+    @Autowired
+    private ReaccionesPublicacionService reaccionesPublicacionService;
+
+    @Autowired
+    private VistasUnicasService vistasUnicasService;
+
+    @Autowired
+    private SilenciadosService silenciadosService;
+
+    @Autowired
+    private BorradoresPublicacionService borradoresPublicacionService;
+
+    @Autowired
+    private ActividadDiariaService actividadDiariaService;
+
+    @PersistenceContext
+    private EntityManager entityManager;
 
     // Obtener todas las publicaciones
+    @Transactional(readOnly = true)
     public List<Publicacion> obtenerTodasPublicaciones() {
         return publicacionRepository.findAll();
     }
 
     // Obtener todas las publicaciones visibles (no ocultas)
+    @Transactional(readOnly = true)
     public List<Publicacion> obtenerPublicacionesVisibles() {
         return publicacionRepository.findAllNotOculta();
     }
 
-    // Obtener publicación por ID
+    // Obtener resúmenes de las publicaciones visibles (feed)
+    @Transactional(readOnly = true)
+    public List<PublicacionResumen> obtenerResumenesVisibles() {
+        return publicacionRepository.findResumenesNotOculta();
+    }
+
+    // Obtener publicación por ID (si ya no está en la tabla caliente, se busca en el archivo)
+    @Transactional(readOnly = true)
     public Optional<Publicacion> obtenerPublicacionPorId(Long id) {
-        return publicacionRepository.findById(id);
+        Optional<Publicacion> publicacion = publicacionRepository.findById(id);
+        if (publicacion.isPresent()) {
+            return publicacion;
+        }
+        return publicacionArchivadaRepository.findById(id).map(PublicacionArchivada::aPublicacion);
+    }
+
+    // Verificar si una publicación existe sin cargar la fila completa.
+    // Va a la primaria: otros microservicios la usan para validar antes de escribir y no deben ver el retraso de las réplicas
+    public boolean existePublicacion(Long id) {
+        return id != null && (publicacionRepository.existsById(id) || publicacionArchivadaRepository.existsById(id));
+    }
+
+    // Verificar la existencia de varias publicaciones en una sola consulta (id -> existe)
+    @Transactional(readOnly = true)
+    public Map<Long, Boolean> existenPublicaciones(List<Long> ids) {
+        List<Long> unicos = validarIdsConsulta(ids);
+        Set<Long> existentes = new HashSet<>(publicacionRepository.findIdsExistentes(unicos));
+        List<Long> faltantes = faltantes(unicos, existentes);
+        if (!faltantes.isEmpty()) {
+            existentes.addAll(publicacionArchivadaRepository.findIdsExistentes(faltantes));
+        }
+        Map<Long, Boolean> resultado = new LinkedHashMap<>();
+        for (Long id : unicos) {
+            resultado.put(id, existentes.contains(id));
+        }
+        return resultado;
+    }
+
+    // Obtener referencias mínimas de varias publicaciones en una sola consulta
+    @Transactional(readOnly = true)
+    public List<PublicacionReferencia> obtenerReferenciasPublicaciones(List<Long> ids) {
+        List<Long> unicos = validarIdsConsulta(ids);
+        List<PublicacionReferencia> referencias = new ArrayList<>(publicacionRepository.findReferenciasByIds(unicos));
+        Set<Long> encontradas = new HashSet<>();
+        for (PublicacionReferencia referencia : referencias) {
+            encontradas.add(referencia.getIdPublicacion());
+        }
+        List<Long> faltantes = faltantes(unicos, encontradas);
+        if (!faltantes.isEmpty()) {
+            referencias.addAll(publicacionArchivadaRepository.findReferenciasByIds(faltantes));
+        }
+        return referencias;
+    }
+
+    // Obtener los resúmenes de las publicaciones más calientes (global si temaId es null), según el ranking en memoria
+    @Transactional(readOnly = true)
+    public List<PublicacionResumen> obtenerPublicacionesCalientes(Long temaId, int limite) {
+        List<Long> ids = rankingCalienteService.obtenerTop(temaId, Math.min(Math.max(limite, 1), MAX_LIMITE_CALIENTES));
+        return resumenesVisiblesEnOrden(ids, ids.size());
+    }
+
+    // Obtener las publicaciones visibles más similares a una publicación (índice MinHash en memoria)
+    @Transactional(readOnly = true)
+    public List<PublicacionResumen> obtenerPublicacionesRelacionadas(Long id, int limite) {
+        int tamano = Math.min(Math.max(limite, 1), MAX_LIMITE_RELACIONADAS);
+        // Se piden candidatas de más porque las ocultas se descartan al cargar los resúmenes
+        List<Long> ids = relacionadasPublicacionService.buscarRelacionadas(id, tamano * 2);
+        return resumenesVisiblesEnOrden(ids, tamano);
+    }
+
+    // Obtener una página de publicaciones visibles con un hashtag, de más reciente a más antigua (índice en memoria).
+    // antesDe es el ID de la última publicación de la página anterior (null para la primera)
+    @Transactional(readOnly = true)
+    public List<PublicacionResumen> obtenerPublicacionesPorEtiqueta(String etiqueta, Long antesDe, int limite) {
+        validarEtiqueta(etiqueta);
+        int tamano = Math.min(Math.max(limite, 1), MAX_LIMITE_ETIQUETAS);
+        List<Long> ids = etiquetasPublicacionService.buscarPorEtiqueta(etiqueta, antesDe, tamano);
+        return resumenesVisiblesEnOrden(ids, tamano);
+    }
+
+    // Contar las publicaciones visibles con un hashtag
+    @Transactional(readOnly = true)
+    public long contarPublicacionesPorEtiqueta(String etiqueta) {
+        validarEtiqueta(etiqueta);
+        return etiquetasPublicacionService.contar(etiqueta);
+    }
+
+    // Obtener los hashtags con más publicaciones visibles
+    @Transactional(readOnly = true)
+    public List<EtiquetaConteo> obtenerEtiquetasPopulares(int limite) {
+        return etiquetasPublicacionService.obtenerPopulares(Math.min(Math.max(limite, 1), MAX_LIMITE_ETIQUETAS));
+    }
+
+    // Guardar una publicación en la lista de un usuario
+    public void guardarPublicacion(Long id, Long usuarioId) {
+        if (usuarioId == null || usuarioId <= 0) {
+            throw new RuntimeException("El ID de usuario es inválido");
+        }
+        if (!publicacionRepository.existsById(id)) {
+            throw new RuntimeException("Publicación no encontrada ID: " + id);
+        }
+        guardadasPublicacionService.guardar(usuarioId, id);
+    }
+
+    // Quitar una publicación de la lista de guardadas de un usuario
+    public void quitarPublicacionGuardada(Long id, Long usuarioId) {
+        if (usuarioId == null || usuarioId <= 0) {
+            throw new RuntimeException("El ID de usuario es inválido");
+        }
+        guardadasPublicacionService.quitar(usuarioId, id);
+    }
+
+    // Obtener una página de publicaciones visibles guardadas por un usuario, de ID mayor a menor.
+    // Las guardadas que hoy están ocultas o archivadas se saltan y se sigue leyendo hasta llenar la página
+    @Transactional(readOnly = true)
+    public List<PublicacionResumen> obtenerPublicacionesGuardadas(Long usuarioId, Long antesDe, int limite) {
+        int tamano = Math.min(Math.max(limite, 1), MAX_LIMITE_GUARDADAS);
+        List<PublicacionResumen> resultado = new ArrayList<>();
+        Long cursor = antesDe;
+        for (int intento = 0; intento < 4 && resultado.size() < tamano; intento++) {
+            List<Long> ids = guardadasPublicacionService.buscarGuardadas(usuarioId, cursor, tamano);
+            resultado.addAll(resumenesVisiblesEnOrden(ids, tamano - resultado.size()));
+            if (ids.size() < tamano) {
+                break;
+            }
+            cursor = ids.get(ids.size() - 1);
+        }
+        for (PublicacionResumen resumen : resultado) {
+            resumen.setGuardada(true);
+        }
+        return resultado;
+    }
+
+    // Reaccionar a una publicación visible; una reacción nueva suma actividad al ranking caliente.
+    // Devuelve false si el usuario ya había reaccionado
+    public boolean reaccionarPublicacion(Long id, Long usuarioId) {
+        validarIdUsuario(usuarioId);
+        List<Object[]> filas = publicacionRepository.findVisiblesIdTemaFechaByIds(List.of(id));
+        if (filas.isEmpty()) {
+            throw new RuntimeException("Publicación no encontrada ID: " + id);
+        }
+        boolean nueva = reaccionesPublicacionService.reaccionar(id, usuarioId);
+        if (nueva) {
+            rankingCalienteService.registrarReaccion(id, (Long) filas.get(0)[1]);
+        }
+        return nueva;
+    }
+
+    // Quitar la reacción de un usuario a una publicación. Devuelve false si no había reaccionado
+    public boolean quitarReaccionPublicacion(Long id, Long usuarioId) {
+        validarIdUsuario(usuarioId);
+        return reaccionesPublicacionService.quitar(id, usuarioId);
+    }
+
+    // Indicar si un usuario reaccionó a una publicación
+    public boolean haReaccionado(Long id, Long usuarioId) {
+        return usuarioId != null && reaccionesPublicacionService.haReaccionado(id, usuarioId);
+    }
+
+    // Total de reacciones de una publicación (persistido más lo pendiente de volcar)
+    @Transactional(readOnly = true)
+    public long contarReacciones(Long id) {
+        return reaccionesPublicacionService.contar(List.of(id)).get(id);
+    }
+
+    // Total de reacciones de varias publicaciones en una sola consulta (id -> total)
+    @Transactional(readOnly = true)
+    public Map<Long, Long> contarReacciones(List<Long> ids) {
+        return reaccionesPublicacionService.contar(validarIdsConsulta(ids));
+    }
+
+    // Silenciar a un autor: sus publicaciones dejan de aparecer en los feeds del usuario
+    public void silenciarAutor(Long usuarioId, Long autorId) {
+        validarIdUsuario(usuarioId);
+        if (autorId == null || autorId <= 0) {
+            throw new RuntimeException("El ID del autor es inválido");
+        }
+        if (usuarioId.equals(autorId)) {
+            throw new RuntimeException("Un usuario no puede silenciarse a sí mismo");
+        }
+        if (!usuarioClient.existeUsuario(autorId)) {
+            throw new RuntimeException("El usuario con ID " + autorId + " no existe");
+        }
+        silenciadosService.silenciar(usuarioId, autorId);
+    }
+
+    // Dejar de silenciar a un autor
+    public void quitarSilenciado(Long usuarioId, Long autorId) {
+        validarIdUsuario(usuarioId);
+        silenciadosService.quitar(usuarioId, autorId);
+    }
+
+    // Obtener una página de autores silenciados por un usuario, de ID mayor a menor
+    public List<Long> obtenerSilenciados(Long usuarioId, Long antesDe, int limite) {
+        return silenciadosService.buscarSilenciados(usuarioId, antesDe, Math.min(Math.max(limite, 1), MAX_LIMITE_SILENCIADOS));
+    }
+
+    // Crear un borrador de publicación (el contenido puede estar incompleto hasta publicarlo)
+    public BorradorPublicacion crearBorrador(Long usuarioId, String titulo, String descripcion, Long temaId, String imageUrl) {
+        validarIdUsuario(usuarioId);
+        validarContenidoBorrador(titulo, descripcion, imageUrl);
+        return borradoresPublicacionService.crear(usuarioId, titulo, descripcion, temaId, imageUrl);
+    }
+
+    // Autoguardar un borrador: el contenido se agrupa en memoria y se persiste en el siguiente volcado
+    public BorradorPublicacion autoguardarBorrador(Long borradorId, Long usuarioId, String titulo, String descripcion,
+                                                   Long temaId, String imageUrl) {
+        validarIdUsuario(usuarioId);
+        validarContenidoBorrador(titulo, descripcion, imageUrl);
+        return borradoresPublicacionService.autoguardar(usuarioId, borradorId, titulo, descripcion, temaId, imageUrl);
+    }
+
+    // Obtener un borrador del usuario con su último contenido autoguardado
+    @Transactional(readOnly = true)
+    public Optional<BorradorPublicacion> obtenerBorrador(Long borradorId, Long usuarioId) {
+        return borradoresPublicacionService.obtener(usuarioId, borradorId);
+    }
+
+    // Obtener los borradores de un usuario, del último modificado al primero
+    @Transactional(readOnly = true)
+    public List<BorradorPublicacion> obtenerBorradores(Long usuarioId) {
+        return borradoresPublicacionService.listar(usuarioId);
+    }
+
+    // Descartar un borrador
+    public void eliminarBorrador(Long borradorId, Long usuarioId) {
+        if (!borradoresPublicacionService.eliminar(usuarioId, borradorId)) {
+            throw new RuntimeException("Borrador no encontrado ID: " + borradorId);
+        }
+    }
+
+    // Publicar un borrador con su último contenido (lo pendiente en esta instancia se vuelca antes) y eliminarlo
+    // en la misma transacción
+    public Publicacion publicarBorrador(Long borradorId, Long usuarioId) {
+        BorradorPublicacion borrador = borradoresPublicacionService.obtenerParaPublicar(usuarioId, borradorId)
+                .orElseThrow(() -> new RuntimeException("Borrador no encontrado ID: " + borradorId));
+        Publicacion publicada = crearPublicacion(borrador.getTitulo(), borrador.getDescripcion(), usuarioId,
+                borrador.getTemaId(), borrador.getImageUrl());
+        borradoresPublicacionService.eliminar(usuarioId, borradorId);
+        return publicada;
+    }
+
+    // Página del feed de resúmenes visibles (de la más reciente a la más antigua, por fecha e ID), sin los autores
+    // que silenció el usuario. antesDe es el cursor devuelto por la página anterior (null para la primera)
+    @Transactional(readOnly = true)
+    public PaginaPublicaciones obtenerPaginaResumenesVisibles(String antesDe, int limite, Long usuarioId) {
+        return paginaSinSilenciados(antesDe, limite, usuarioId, publicacionRepository::findPaginaResumenesNotOculta);
+    }
+
+    // Página del feed de un tema, sin los autores que silenció el usuario
+    @Transactional(readOnly = true)
+    public PaginaPublicaciones obtenerPaginaResumenesVisiblesPorTema(Long temaId, String antesDe, int limite, Long usuarioId) {
+        return paginaSinSilenciados(antesDe, limite, usuarioId,
+                (fecha, id, pagina) -> publicacionRepository.findPaginaResumenesByTemaIdAndNotOculta(temaId, fecha, id, pagina));
+    }
+
+    // Página de la búsqueda por título o descripción, sin los autores que silenció el usuario
+    @Transactional(readOnly = true)
+    public PaginaPublicaciones buscarPaginaResumenes(String query, String antesDe, int limite, Long usuarioId) {
+        if (query == null || query.trim().isEmpty()) {
+            return obtenerPaginaResumenesVisibles(antesDe, limite, usuarioId);
+        }
+        String texto = query.trim();
+        return paginaSinSilenciados(antesDe, limite, usuarioId,
+                (fecha, id, pagina) -> publicacionRepository.searchPaginaResumenes(texto, fecha, id, pagina));
+    }
+
+    // Lee la página por clave con una sola consulta: si el usuario silenció autores se leen más filas de las pedidas,
+    // según la fracción estimada de silenciados (hasta MAX_FACTOR_LECTURA_SILENCIADOS), y se filtran en memoria.
+    // Si la estimación se queda corta la página viene incompleta (o vacía) con cursor, en lugar de volver a consultar.
+    // El cursor siguiente es la última fila recorrida, no la última devuelta, para que la próxima página no vuelva
+    // a leer las filas descartadas
+    private PaginaPublicaciones paginaSinSilenciados(String antesDe, int limite, Long usuarioId, ConsultaPagina consulta) {
+        Cursor cursor = antesDe != null ? decodificarCursor(antesDe) : new Cursor(FECHA_PRIMERA_PAGINA, Long.MAX_VALUE);
+        int tamano = Math.min(Math.max(limite, 1), MAX_LIMITE_FEED);
+        boolean filtrar = silenciadosService.contar(usuarioId) > 0;
+        int lectura = filtrar ? filasPorLeer(tamano, silenciadosService.fraccionSilenciada(usuarioId)) : tamano;
+
+        List<PublicacionResumen> filas = consulta.leer(cursor.fecha(), cursor.id(), PageRequest.of(0, lectura));
+        List<PublicacionResumen> pagina = new ArrayList<>(tamano);
+        int recorridas = 0;
+        for (PublicacionResumen fila : filas) {
+            if (pagina.size() == tamano) {
+                break;
+            }
+            recorridas++;
+            if (!filtrar || !silenciadosService.estaSilenciado(usuarioId, fila.getUsuarioId())) {
+                pagina.add(fila);
+            }
+        }
+        boolean hayMas = recorridas < filas.size() || filas.size() == lectura;
+        return new PaginaPublicaciones(pagina, hayMas ? codificarCursor(filas.get(recorridas - 1)) : null);
+    }
+
+    // Filas a leer para llenar una página cuando la fracción indicada de lo leído es de silenciados
+    private static int filasPorLeer(int tamano, double fraccionSilenciada) {
+        int maximo = tamano * MAX_FACTOR_LECTURA_SILENCIADOS;
+        if (fraccionSilenciada >= 1) {
+            return maximo;
+        }
+        return (int) Math.min(maximo, Math.ceil(tamano / (1 - fraccionSilenciada)));
+    }
+
+    private void validarIdUsuario(Long usuarioId) {
+        if (usuarioId == null || usuarioId <= 0) {
+            throw new RuntimeException("El ID de usuario es inválido");
+        }
+    }
+
+    private void validarContenidoBorrador(String titulo, String descripcion, String imageUrl) {
+        if (titulo != null && titulo.length() > MAX_TITULO_BORRADOR) {
+            throw new RuntimeException("El título no puede superar los " + MAX_TITULO_BORRADOR + " caracteres");
+        }
+        if (descripcion != null && descripcion.length() > MAX_DESCRIPCION_BORRADOR) {
+            throw new RuntimeException("La descripción no puede superar los " + MAX_DESCRIPCION_BORRADOR + " caracteres");
+        }
+        if (imageUrl != null && imageUrl.length() > MAX_IMAGEN_BORRADOR) {
+            throw new RuntimeException("La URL de la imagen no puede superar los " + MAX_IMAGEN_BORRADOR + " caracteres");
+        }
+    }
+
+    private void validarEtiqueta(String etiqueta) {
+        if (EtiquetasPublicacionService.normalizar(etiqueta) == null) {
+            throw new RuntimeException("La etiqueta es inválida");
+        }
+    }
+
+    // Resúmenes de las publicaciones visibles de una lista de IDs, en el orden de la lista
+    private List<PublicacionResumen> resumenesVisiblesEnOrden(List<Long> ids, int limite) {
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Map<Long, PublicacionResumen> porId = new HashMap<>();
+        for (PublicacionResumen resumen : publicacionRepository.findResumenesVisiblesByIds(ids)) {
+            porId.put(resumen.getIdPublicacion(), resumen);
+        }
+        List<PublicacionResumen> resultado = new ArrayList<>(Math.min(ids.size(), limite));
+        for (Long id : ids) {
+            PublicacionResumen resumen = porId.get(id);
+            if (resumen != null && resultado.size() < limite) {
+                resultado.add(resumen);
+            }
+        }
+        return resultado;
+    }
+
+    // Registrar la vista de una publicación visible como actividad del ranking caliente y en sus vistas únicas
+    public void registrarVista(Publicacion publicacion, String visitante) {
+        if (publicacion != null && !Boolean.TRUE.equals(publicacion.getOculta())) {
+            rankingCalienteService.registrarVista(publicacion.getIdPublicacion(), publicacion.getTemaId());
+            vistasUnicasService.registrar(publicacion.getIdPublicacion(), publicacion.getTemaId(), visitante);
+        }
+    }
+
+    // Visitantes distintos (aproximados) de una publicación desde siempre
+    public long contarVistasUnicas(Long id) {
+        return vistasUnicasService.contarPublicacion(id);
+    }
+
+    // Visitantes distintos (aproximados) de una publicación entre dos días, inclusive
+    public long contarVistasUnicas(Long id, LocalDate desde, LocalDate hasta) {
+        return vistasUnicasService.contarPublicacion(id, desde, hasta);
+    }
+
+    // Visitantes distintos (aproximados) de las publicaciones de un tema entre dos días, inclusive
+    public long contarVistasUnicasPorTema(Long temaId, LocalDate desde, LocalDate hasta) {
+        return vistasUnicasService.contarTema(temaId, desde, hasta);
+    }
+
+    // Publicaciones por día y tema entre dos días (inclusive), de los resúmenes diarios; temaId null para todos
+    @Transactional(readOnly = true)
+    public List<ActividadDiaria> obtenerEstadisticas(LocalDate desde, LocalDate hasta, Long temaId) {
+        return actividadDiariaService.obtener(desde, hasta, temaId);
     }
 
     // Obtener publicaciones por tema
+    @Transactional(readOnly = true)
     public List<Publicacion> obtenerPublicacionesPorTema(Long temaId) {
         return publicacionRepository.findByTemaIdOrderByFechaDesc(temaId);
     }
 
     // Obtener publicaciones visibles por tema
+    @Transactional(readOnly = true)
     public List<Publicacion> obtenerPublicacionesVisiblesPorTema(Long temaId) {
         return publicacionRepository.findByTemaIdAndNotOculta(temaId);
     }
 
-    // Obtener publicaciones por usuario
+    // Obtener resúmenes de las publicaciones visibles por tema (feed)
+    @Transactional(readOnly = true)
+    public List<PublicacionResumen> obtenerResumenesVisiblesPorTema(Long temaId) {
+        return publicacionRepository.findResumenesByTemaIdAndNotOculta(temaId);
+    }
+
+    // Obtener publicaciones por usuario (historial completo: recientes y luego archivadas)
+    @Transactional(readOnly = true)
     public List<Publicacion> obtenerPublicacionesPorUsuario(Long usuarioId) {
-        return publicacionRepository.findByUsuarioIdOrderByFechaDesc(usuarioId);
+        return conArchivadas(publicacionRepository.findByUsuarioIdOrderByFechaDesc(usuarioId),
+                publicacionArchivadaRepository.findByUsuarioIdOrderByFechaDesc(usuarioId));
     }
 
-    // Obtener publicaciones visibles por usuario
+    // Obtener publicaciones visibles por usuario (recientes y luego archivadas)
+    @Transactional(readOnly = true)
     public List<Publicacion> obtenerPublicacionesVisiblesPorUsuario(Long usuarioId) {
-        return publicacionRepository.findByUsuarioIdAndNotOculta(usuarioId);
+        return conArchivadas(publicacionRepository.findByUsuarioIdAndNotOculta(usuarioId),
+                publicacionArchivadaRepository.findByUsuarioIdAndNotOculta(usuarioId));
+    }
+
+    // Obtener resúmenes de las publicaciones visibles por usuario (recientes y luego archivadas)
+    @Transactional(readOnly = true)
+    public List<PublicacionResumen> obtenerResumenesVisiblesPorUsuario(Long usuarioId) {
+        List<PublicacionResumen> resumenes = new ArrayList<>(publicacionRepository.findResumenesByUsuarioIdAndNotOculta(usuarioId));
+        resumenes.addAll(publicacionArchivadaRepository.findResumenesByUsuarioIdAndNotOculta(usuarioId));
+        return resumenes;
     }
 
     // Buscar publicaciones por título o descripción
+    @Transactional(readOnly = true)
     public List<Publicacion> buscarPublicaciones(String query) {
         if (query == null || query.trim().isEmpty()) {
             return publicacionRepository.findAllNotOculta();
@@ -74,6 +569,48 @@ public class PublicacionService {
         return publicacionRepository.searchPublicaciones(query.trim());
     }
 
+    // Buscar resúmenes de publicaciones por título o descripción
+    @Transactional(readOnly = true)
+    public List<PublicacionResumen> buscarResumenes(String query) {
+        if (query == null || query.trim().isEmpty()) {
+            return publicacionRepository.findResumenesNotOculta();
+        }
+        return publicacionRepository.searchResumenes(query.trim());
+    }
+
+    // Exportar publicaciones (incluidas las ocultas) una a una, opcionalmente solo las creadas desde una fecha.
+    // Las filas se leen con un stream de solo lectura y se desacoplan del contexto de persistencia tras
+    // entregarlas, de modo que la memoria no crece con el tamaño de la tabla
+    @Transactional(readOnly = true)
+    public long exportarPublicaciones(LocalDateTime desde, Consumer<Publicacion> consumidor) {
+        long exportadas = 0;
+        try (Stream<Publicacion> publicaciones = desde == null
+                ? publicacionRepository.streamTodas()
+                : publicacionRepository.streamDesde(desde)) {
+            for (Publicacion publicacion : (Iterable<Publicacion>) publicaciones::iterator) {
+                consumidor.accept(publicacion);
+                entityManager.detach(publicacion);
+                exportadas++;
+            }
+        }
+        try (Stream<PublicacionArchivada> archivadas = desde == null
+                ? publicacionArchivadaRepository.streamTodas()
+                : publicacionArchivadaRepository.streamDesde(desde)) {
+            for (PublicacionArchivada archivada : (Iterable<PublicacionArchivada>) archivadas::iterator) {
+                consumidor.accept(archivada.aPublicacion());
+                entityManager.detach(archivada);
+                exportadas++;
+            }
+        }
+        return exportadas;
+    }
+
+    // Obtener los cambios posteriores a la marca de un cliente (sincronización incremental)
+    @Transactional(readOnly = true)
+    public CambiosPublicaciones obtenerCambios(Long desde, int limite) {
+        return cambiosPublicacionService.obtenerCambios(desde, limite);
+    }
+
     // Crear nueva publicación
     public Publicacion crearPublicacion(String titulo, String descripcion, Long usuarioId, Long temaId, String imageUrl) {
         if (titulo == null || titulo.trim().isEmpty()) {
@@ -89,6 +626,9 @@ public class PublicacionService {
             throw new RuntimeException("El ID de tema es inválido");
         }
 
+        // Rechazar casi duplicados del mismo usuario antes de las validaciones remotas (spam entre temas)
+        duplicadosPublicacionService.verificarYReservar(usuarioId, titulo.trim(), descripcion.trim());
+
         // Validar que el usuario existe
         if (!usuarioClient.existeUsuario(usuarioId)) {
             throw new RuntimeException("El usuario con ID " + usuarioId + " no existe");
@@ -110,94 +650,361 @@ public class PublicacionService {
             nueva.setImageUrl(imageUrl.trim());
         }
 
-        return publicacionRepository.save(nueva);
+        Publicacion guardada = publicacionRepository.save(nueva);
+        rankingCalienteService.registrarPublicacion(guardada.getIdPublicacion(), guardada.getTemaId(), guardada.getFecha());
+        cambiosPublicacionService.registrar(guardada, CambioPublicacion.Tipo.CREADA);
+        relacionadasPublicacionService.registrar(guardada.getIdPublicacion(), guardada.getDescripcion());
+        etiquetasPublicacionService.registrar(guardada);
+        actividadDiariaService.registrarCreada(guardada.getTemaId(), guardada.getFecha(), false);
+        return guardada;
+    }
+
+    // Actualizar publicación con una sola sentencia UPDATE, condicionada a la versión leída por el cliente.
+    // La respuesta lleva el estado de la publicación y los campos modificados
+    public Publicacion actualizarPublicacion(Long id, String titulo, String descripcion, Long versionEsperada) {
+        String nuevoTitulo = titulo != null && !titulo.trim().isEmpty() ? titulo.trim() : null;
+        String nuevaDescripcion = descripcion != null && !descripcion.trim().isEmpty() ? descripcion.trim() : null;
+
+        exigirVersion(id, versionEsperada);
+        comprobarActualizada(id, publicacionRepository.actualizarContenido(id, nuevoTitulo, nuevaDescripcion, versionEsperada));
+        Publicacion guardada = leerEstado(id);
+        if (nuevoTitulo != null) {
+            guardada.setTitulo(nuevoTitulo);
+        }
+        if (nuevaDescripcion != null) {
+            guardada.setDescripcion(nuevaDescripcion);
+        }
+        cambiosPublicacionService.registrar(guardada, CambioPublicacion.Tipo.ACTUALIZADA);
+        if (nuevaDescripcion != null) {
+            relacionadasPublicacionService.registrar(id, guardada.getDescripcion());
+            etiquetasPublicacionService.actualizar(guardada);
+        }
+        return guardada;
+    }
+
+    // Actualizar imagen de publicación condicionada a la versión leída por el cliente
+    public Publicacion actualizarImagenPublicacion(Long id, String imageUrl, Long versionEsperada) {
+        String nuevaImagen = imageUrl != null ? imageUrl.trim() : null;
+        exigirVersion(id, versionEsperada);
+        comprobarActualizada(id, publicacionRepository.actualizarImagen(id, nuevaImagen, versionEsperada));
+        Publicacion guardada = leerEstado(id);
+        guardada.setImageUrl(nuevaImagen);
+        cambiosPublicacionService.registrar(guardada, CambioPublicacion.Tipo.ACTUALIZADA);
+        return guardada;
+    }
+
+    // Ocultar publicación condicionada a la versión leída por el moderador
+    public Publicacion ocultarPublicacion(Long id, String motivoBaneo, Long versionEsperada) {
+        String motivo = motivoBaneo != null && !motivoBaneo.trim().isEmpty() ? motivoBaneo.trim() : null;
+
+        exigirVersion(id, versionEsperada);
+        LocalDateTime ahora = LocalDateTime.now();
+        // El caso habitual (estaba visible) es un solo UPDATE; si no afecta filas, la publicación ya estaba
+        // oculta (se renueva el baneo, sin delta de visibilidad) o cambió su versión
+        boolean estabaOculta = false;
+        int filas = publicacionRepository.ocultarSiVisible(id, ahora, motivo, versionEsperada);
+        if (filas == 0) {
+            estabaOculta = true;
+            filas = publicacionRepository.ocultar(id, ahora, motivo, versionEsperada);
+        }
+        comprobarActualizada(id, filas);
+        Publicacion publicacionGuardada = leerEstado(id);
+        publicacionGuardada.setFechaBaneo(ahora);
+        publicacionGuardada.setMotivoBaneo(motivo);
+        if (!estabaOculta) {
+            actividadDiariaService.registrarVisibilidad(publicacionGuardada.getTemaId(), publicacionGuardada.getFecha(), true);
+        }
+        rankingCalienteService.excluir(publicacionGuardada.getIdPublicacion());
+        etiquetasPublicacionService.actualizarVisibilidad(List.of(id), false);
+        cambiosPublicacionService.registrar(publicacionGuardada, CambioPublicacion.Tipo.OCULTADA);
+
+        // Registrar la notificación en el outbox dentro de la misma transacción;
+        // el despachador en segundo plano la entrega, por lo que ocultar no espera ni pierde avisos
+        if (motivo != null) {
+            notificacionOutboxService.registrar(
+                publicacionGuardada.getUsuarioId(),
+                publicacionGuardada.getIdPublicacion(),
+                motivo
+            );
+        }
+
+        return publicacionGuardada;
     }
 
-    // Actualizar publicación
-    public Publicacion actualizarPublicacion(Long id, String titulo, String descripcion) {
-        Publicacion existente = publicacionRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("Publicación no encontrada ID: " + id));
+    // Mostrar publicación (desocultar) condicionada a la versión leída por el moderador
+    public Publicacion mostrarPublicacion(Long id, Long versionEsperada) {
+        exigirVersion(id, versionEsperada);
+        boolean estabaOculta = true;
+        int filas = publicacionRepository.mostrarSiOculta(id, versionEsperada);
+        if (filas == 0) {
+            estabaOculta = false;
+            filas = publicacionRepository.mostrar(id, versionEsperada);
+        }
+        comprobarActualizada(id, filas);
+        Publicacion publicacionGuardada = leerEstado(id);
+        if (estabaOculta) {
+            actividadDiariaService.registrarVisibilidad(publicacionGuardada.getTemaId(), publicacionGuardada.getFecha(), false);
+        }
+        rankingCalienteService.restaurar(
+                publicacionGuardada.getIdPublicacion(), publicacionGuardada.getTemaId(), publicacionGuardada.getFecha());
+        etiquetasPublicacionService.actualizarVisibilidad(List.of(id), true);
+        cambiosPublicacionService.registrar(publicacionGuardada, CambioPublicacion.Tipo.MOSTRADA);
+        return publicacionGuardada;
+    }
 
-        if (titulo != null && !titulo.trim().isEmpty()) {
-            existente.setTitulo(titulo.trim());
+    // Ocultar varias publicaciones por ID (moderación masiva)
+    public int ocultarPublicaciones(List<Long> ids, String motivoBaneo) {
+        List<Object[]> visibles = new ArrayList<>();
+        for (List<Long> bloque : particionar(validarIdsLote(ids))) {
+            visibles.addAll(publicacionRepository.findVisiblesParaOcultarByIds(bloque));
         }
-        if (descripcion != null && !descripcion.trim().isEmpty()) {
-            existente.setDescripcion(descripcion.trim());
+        return ocultarYNotificar(visibles, motivoBaneo);
+    }
+
+    // Ocultar todas las publicaciones visibles de un usuario desde una fecha (p. ej. oleada de spam)
+    public int ocultarPublicacionesDeUsuarioDesde(Long usuarioId, LocalDateTime desde, String motivoBaneo) {
+        validarFiltroLote(usuarioId, desde);
+        return ocultarYNotificar(publicacionRepository.findVisiblesParaOcultarByUsuarioDesde(usuarioId, desde), motivoBaneo);
+    }
+
+    // Mostrar varias publicaciones por ID (moderación masiva)
+    public int mostrarPublicaciones(List<Long> ids) {
+        List<Object[]> ocultas = new ArrayList<>();
+        for (List<Long> bloque : particionar(validarIdsLote(ids))) {
+            ocultas.addAll(publicacionRepository.findOcultasParaMostrarByIds(bloque));
         }
+        return mostrarLote(ocultas);
+    }
 
-        return publicacionRepository.save(existente);
+    // Mostrar todas las publicaciones ocultas de un usuario desde una fecha
+    public int mostrarPublicacionesDeUsuarioDesde(Long usuarioId, LocalDateTime desde) {
+        validarFiltroLote(usuarioId, desde);
+        return mostrarLote(publicacionRepository.findOcultasParaMostrarByUsuarioDesde(usuarioId, desde));
     }
 
-    // Actualizar imagen de publicación
-    public Publicacion actualizarImagenPublicacion(Long id, String imageUrl) {
-        Publicacion existente = publicacionRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("Publicación no encontrada ID: " + id));
+    // Muestra con UPDATE por bloques las publicaciones (id, tema, fecha) leídas y bloqueadas como ocultas:
+    // resúmenes, ranking, etiquetas y cambios se derivan de esas mismas filas, sin volver a leerlas
+    private int mostrarLote(List<Object[]> ocultas) {
+        List<Long> ids = new ArrayList<>(ocultas.size());
+        for (Object[] fila : ocultas) {
+            ids.add((Long) fila[0]);
+            actividadDiariaService.registrarVisibilidad((Long) fila[1], (LocalDateTime) fila[2], false);
+            rankingCalienteService.restaurar((Long) fila[0], (Long) fila[1], (LocalDateTime) fila[2]);
+        }
+        int mostradas = 0;
+        for (List<Long> bloque : particionar(ids)) {
+            mostradas += publicacionRepository.mostrarPorIds(bloque);
+            etiquetasPublicacionService.actualizarVisibilidad(bloque, true);
+            cambiosPublicacionService.registrarLote(bloque, CambioPublicacion.Tipo.MOSTRADA);
+        }
+        return mostradas;
+    }
 
-        existente.setImageUrl(imageUrl != null ? imageUrl.trim() : null);
+    // Oculta con UPDATE por bloques las publicaciones (id, usuario, tema, fecha) leídas y bloqueadas como visibles,
+    // y registra todas las notificaciones en un solo lote del outbox. Como las filas siguen bloqueadas hasta el
+    // UPDATE, se notifica exactamente a las que se ocultan aunque otra operación concurrente las modere
+    private int ocultarYNotificar(List<Object[]> visibles, String motivoBaneo) {
+        if (visibles.isEmpty()) {
+            return 0;
+        }
+        String motivo = motivoBaneo != null && !motivoBaneo.trim().isEmpty() ? motivoBaneo.trim() : null;
+        LocalDateTime ahora = LocalDateTime.now();
+
+        Map<Long, Long> usuarioPorPublicacion = new LinkedHashMap<>();
+        for (Object[] fila : visibles) {
+            usuarioPorPublicacion.put((Long) fila[0], (Long) fila[1]);
+            actividadDiariaService.registrarVisibilidad((Long) fila[2], (LocalDateTime) fila[3], true);
+            rankingCalienteService.excluir((Long) fila[0]);
+        }
+        int ocultadas = 0;
+        for (List<Long> bloque : particionar(new ArrayList<>(usuarioPorPublicacion.keySet()))) {
+            ocultadas += publicacionRepository.ocultarPorIds(bloque, ahora, motivo);
+        }
+        etiquetasPublicacionService.actualizarVisibilidad(usuarioPorPublicacion.keySet(), false);
+        cambiosPublicacionService.registrarLote(usuarioPorPublicacion.keySet(), CambioPublicacion.Tipo.OCULTADA);
 
-        return publicacionRepository.save(existente);
+        if (motivo != null) {
+            notificacionOutboxService.registrarLote(usuarioPorPublicacion, motivo);
+        }
+        return ocultadas;
     }
 
-    // Ocultar publicación
-    public Publicacion ocultarPublicacion(Long id, String motivoBaneo) {
-        Publicacion existente = publicacionRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("Publicación no encontrada ID: " + id));
+    // Registra en los resúmenes diarios las publicaciones (id, tema, fecha, oculta) eliminadas
+    private void registrarEliminadasEnActividad(List<Object[]> eliminadas) {
+        for (Object[] fila : eliminadas) {
+            actividadDiariaService.registrarEliminada((Long) fila[1], (LocalDateTime) fila[2], Boolean.TRUE.equals(fila[3]));
+        }
+    }
 
-        existente.setOculta(true);
-        existente.setFechaBaneo(LocalDateTime.now());
-        if (motivoBaneo != null && !motivoBaneo.trim().isEmpty()) {
-            existente.setMotivoBaneo(motivoBaneo.trim());
+    private List<Long> validarIdsLote(List<Long> ids) {
+        if (ids == null || ids.isEmpty()) {
+            throw new RuntimeException("Debe indicar al menos un ID de publicación");
         }
+        List<Long> unicos = new ArrayList<>(new LinkedHashSet<>(ids));
+        if (unicos.size() > MAX_IDS_MODERACION_LOTE) {
+            throw new RuntimeException("Se permiten como máximo " + MAX_IDS_MODERACION_LOTE + " publicaciones por lote");
+        }
+        for (Long id : unicos) {
+            if (id == null || id <= 0) {
+                throw new RuntimeException("El ID de publicación es inválido");
+            }
+        }
+        return unicos;
+    }
 
-        Publicacion publicacionGuardada = publicacionRepository.save(existente);
+    private List<Long> validarIdsConsulta(List<Long> ids) {
+        if (ids == null || ids.isEmpty()) {
+            throw new RuntimeException("Debe indicar al menos un ID de publicación");
+        }
+        List<Long> unicos = new ArrayList<>(new LinkedHashSet<>(ids));
+        if (unicos.size() > MAX_IDS_CONSULTA_LOTE) {
+            throw new RuntimeException("Se permiten como máximo " + MAX_IDS_CONSULTA_LOTE + " IDs por consulta");
+        }
+        return unicos;
+    }
 
-        // Crear notificación para el usuario dueño de la publicación
-        // El mensaje debe ser proporcionado por el admin/moderador
-        if (motivoBaneo != null && !motivoBaneo.trim().isEmpty()) {
-            try {
-                notificacionService.crearNotificacion(
-                    existente.getUsuarioId(),
-                    existente.getIdPublicacion(),
-                    motivoBaneo.trim()
-                );
-            } catch (Exception e) {
-                // Si falla la creación de la notificación, no falla el ocultamiento de la publicación
-                // Solo se registra el error (en producción se podría usar un logger)
-                System.err.println("Error al crear notificación: " + e.getMessage());
+    // IDs de la lista que no están entre los encontrados (candidatos a buscar en el archivo)
+    private List<Long> faltantes(List<Long> ids, Set<Long> encontrados) {
+        List<Long> faltantes = new ArrayList<>();
+        for (Long id : ids) {
+            if (!encontrados.contains(id)) {
+                faltantes.add(id);
             }
         }
+        return faltantes;
+    }
 
-        return publicacionGuardada;
+    private List<Publicacion> conArchivadas(List<Publicacion> recientes, List<PublicacionArchivada> archivadas) {
+        if (archivadas.isEmpty()) {
+            return recientes;
+        }
+        List<Publicacion> todas = new ArrayList<>(recientes.size() + archivadas.size());
+        todas.addAll(recientes);
+        for (PublicacionArchivada archivada : archivadas) {
+            todas.add(archivada.aPublicacion());
+        }
+        return todas;
+    }
+
+    private void validarFiltroLote(Long usuarioId, LocalDateTime desde) {
+        if (usuarioId == null || usuarioId <= 0) {
+            throw new RuntimeException("El ID de usuario es inválido");
+        }
+        if (desde == null) {
+            throw new RuntimeException("Debe indicar desde qué fecha moderar");
+        }
+    }
+
+    private static void exigirVersion(Long id, Long versionEsperada) {
+        if (versionEsperada == null) {
+            throw new RuntimeException("Debe indicar la versión de la publicación ID: " + id);
+        }
+    }
+
+    // Sin filas afectadas, la publicación no existe o su versión ya no es la leída por el cliente
+    // (solo en ese caso se consulta cuál de las dos)
+    private void comprobarActualizada(Long id, int filas) {
+        if (filas == 0) {
+            if (publicacionRepository.findEstadoById(id).isEmpty()) {
+                throw new RuntimeException("Publicación no encontrada ID: " + id);
+            }
+            throw conflicto(id);
+        }
     }
 
-    // Mostrar publicación (desocultar)
-    public Publicacion mostrarPublicacion(Long id) {
-        Publicacion existente = publicacionRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("Publicación no encontrada ID: " + id));
+    // Estado de la publicación tras un UPDATE condicionado, sin leer su texto: la fila sigue bloqueada por
+    // el UPDATE hasta confirmar, así que es exactamente la versión escrita. Respuesta y deltas (tema, usuario,
+    // fecha, visibilidad) salen de esta lectura
+    private Publicacion leerEstado(Long id) {
+        List<Object[]> filas = publicacionRepository.findEstadoById(id);
+        if (filas.isEmpty()) {
+            throw new RuntimeException("Publicación no encontrada ID: " + id);
+        }
+        Object[] fila = filas.get(0);
+        Publicacion estado = new Publicacion();
+        estado.setIdPublicacion((Long) fila[0]);
+        estado.setVersion((Long) fila[1]);
+        estado.setOculta((Boolean) fila[2]);
+        estado.setTemaId((Long) fila[3]);
+        estado.setUsuarioId((Long) fila[4]);
+        estado.setFecha((LocalDateTime) fila[5]);
+        return estado;
+    }
 
-        existente.setOculta(false);
-        existente.setFechaBaneo(null);
-        existente.setMotivoBaneo(null);
+    private static OptimisticLockingFailureException conflicto(Long id) {
+        return new OptimisticLockingFailureException(
+                "La publicación ID: " + id + " fue modificada por otra operación; recárguela e intente de nuevo");
+    }
 
-        return publicacionRepository.save(existente);
+    // Divide la lista en bloques para mantener acotado el tamaño de las cláusulas IN
+    private static List<List<Long>> particionar(List<Long> ids) {
+        List<List<Long>> bloques = new ArrayList<>();
+        for (int i = 0; i < ids.size(); i += TAMANO_BLOQUE_MODERACION) {
+            bloques.add(ids.subList(i, Math.min(i + TAMANO_BLOQUE_MODERACION, ids.size())));
+        }
+        return bloques;
     }
 
-    // Eliminar publicación
+    // Eliminar publicación (también si ya fue movida al archivo)
     public void eliminarPublicacion(Long id) {
-        if (!publicacionRepository.existsById(id)) {
+        if (publicacionRepository.existsById(id)) {
+            // Se registra antes de borrar: el registro toma tema y usuario de la fila
+            cambiosPublicacionService.registrarLote(List.of(id), CambioPublicacion.Tipo.ELIMINADA);
+            registrarEliminadasEnActividad(publicacionRepository.findIdTemaFechaOcultaByIds(List.of(id)));
+            publicacionRepository.deleteById(id);
+            rankingCalienteService.quitar(id);
+            relacionadasPublicacionService.quitar(List.of(id));
+            etiquetasPublicacionService.quitar(List.of(id));
+            guardadasPublicacionService.quitarPublicaciones(List.of(id));
+            reaccionesPublicacionService.quitarPublicaciones(List.of(id));
+            vistasUnicasService.quitarPublicaciones(List.of(id));
+        } else if (publicacionArchivadaRepository.existsById(id)) {
+            registrarEliminadasEnActividad(publicacionArchivadaRepository.findIdTemaFechaOcultaByIds(List.of(id)));
+            publicacionArchivadaRepository.deleteById(id);
+            guardadasPublicacionService.quitarPublicaciones(List.of(id));
+            reaccionesPublicacionService.quitarPublicaciones(List.of(id));
+            vistasUnicasService.quitarPublicaciones(List.of(id));
+            cambiosPublicacionService.registrar(id, null, null, CambioPublicacion.Tipo.ELIMINADA);
+        } else {
             throw new RuntimeException("Publicación no encontrada ID: " + id);
         }
-        publicacionRepository.deleteById(id);
     }
 
     // Contar publicaciones por tema
+    @Transactional(readOnly = true)
     public long contarPublicacionesPorTema(Long temaId) {
-        return publicacionRepository.countByTemaId(temaId);
+        return publicacionRepository.countByTemaId(temaId) + publicacionArchivadaRepository.countByTemaId(temaId);
     }
 
     // Contar publicaciones por usuario
+    @Transactional(readOnly = true)
     public long contarPublicacionesPorUsuario(Long usuarioId) {
-        return publicacionRepository.countByUsuarioId(usuarioId);
+        return publicacionRepository.countByUsuarioId(usuarioId) + publicacionArchivadaRepository.countByUsuarioId(usuarioId);
+    }
+
+    // Consulta de una página de resúmenes anteriores a la posición (fecha, ID) indicada
+    @FunctionalInterface
+    private interface ConsultaPagina {
+        List<PublicacionResumen> leer(LocalDateTime fecha, Long id, Pageable pagina);
+    }
+
+    private record Cursor(LocalDateTime fecha, Long id) {
+    }
+
+    // Cursor opaco de una publicación del feed: su fecha y su ID, en Base64 apto para URL
+    static String codificarCursor(PublicacionResumen resumen) {
+        String valor = resumen.getFecha() + "_" + resumen.getIdPublicacion();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(valor.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static Cursor decodificarCursor(String cursor) {
+        try {
+            String valor = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separador = valor.lastIndexOf('_');
+            return new Cursor(LocalDateTime.parse(valor.substring(0, separador)), Long.valueOf(valor.substring(separador + 1)));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException | DateTimeParseException e) {
+            throw new RuntimeException("El cursor de la página es inválido");
+        }
     }
 }
 
@@ -0,0 +1,332 @@
+package com.qualifygym.publicaciones.service;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.qualifygym.publicaciones.repository.PublicacionRepository;
+
+/**
+ * Ranking "caliente" de publicaciones basado en actividad con decaimiento temporal.
+ *
+ * Cada publicación acumula {@code peso * e^(λ·(t - origen))} por cada actividad, lo que equivale
+ * a un puntaje que decae con vida media configurable pero sin tener que recalcular a nadie:
+ * como todas las publicaciones decaen con el mismo factor, el orden relativo no cambia.
+ * Los puntajes viven en skip lists concurrentes (global y por tema) para lecturas top-K y
+ * actualizaciones en O(log n). Periódicamente se "rebasa" el origen para mantener acotados los
+ * valores y descartar publicaciones cuyo puntaje ya es despreciable.
+ *
+ * Una publicación ocultada queda excluida de las skip lists pero conserva su puntaje (que sigue
+ * decayendo), de modo que al volver a mostrarla recupera la actividad acumulada. Si al mostrarla
+ * ya no está en memoria (reinicio o puntaje despreciable) vuelve con el puntaje de su creación.
+ */
+@Service
+public class RankingCalienteService {
+
+    // Puntaje decaído bajo el cual una publicación sale del ranking al rebasar
+    private static final double PUNTAJE_MINIMO = 0.01;
+
+    @Autowired
+    private PublicacionRepository publicacionRepository;
+
+    @Value("${ranking.caliente.vida-media-horas:12}")
+    private double vidaMediaHoras = 12;
+
+    @Value("${ranking.caliente.dias-carga-inicial:7}")
+    private int diasCargaInicial = 7;
+
+    @Value("${ranking.caliente.peso-creacion:3}")
+    private double pesoCreacion = 3;
+
+    @Value("${ranking.caliente.peso-vista:1}")
+    private double pesoVista = 1;
+
+    @Value("${ranking.caliente.peso-reaccion:2}")
+    private double pesoReaccion = 2;
+
+    private final Map<Long, Entrada> entradas = new ConcurrentHashMap<>();
+
+    // Se reemplazan completos al rebasar, por eso son volatile: los lectores nunca se bloquean
+    private volatile ConcurrentSkipListSet<Clave> global = new ConcurrentSkipListSet<>();
+    private volatile Map<Long, ConcurrentSkipListSet<Clave>> porTema = new ConcurrentHashMap<>();
+
+    // Las actualizaciones comparten el lock de lectura; el rebase toma el de escritura
+    private final ReentrantReadWriteLock rebaseLock = new ReentrantReadWriteLock();
+
+    private volatile long origenMs = System.currentTimeMillis();
+
+    /**
+     * Cargar en el ranking las publicaciones visibles recientes al iniciar la aplicación
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void cargarInicial() {
+        LocalDateTime desde = LocalDateTime.now().minusDays(diasCargaInicial);
+        for (Object[] fila : publicacionRepository.findVisiblesIdTemaFechaDesde(desde)) {
+            aplicar((Long) fila[0], (Long) fila[1], pesoCreacion, aMillis((LocalDateTime) fila[2]));
+        }
+    }
+
+    /**
+     * Registrar una publicación nueva, con el puntaje base de su fecha de creación
+     * @param id ID de la publicación
+     * @param temaId Tema de la publicación
+     * @param fecha Fecha de la publicación
+     */
+    public void registrarPublicacion(Long id, Long temaId, LocalDateTime fecha) {
+        long instante = fecha != null ? aMillis(fecha) : System.currentTimeMillis();
+        TransaccionesUtil.alConfirmar(() -> aplicar(id, temaId, pesoCreacion, instante));
+    }
+
+    /**
+     * Registrar una vista de la publicación
+     * @param id ID de la publicación
+     * @param temaId Tema de la publicación
+     */
+    public void registrarVista(Long id, Long temaId) {
+        registrarActividad(id, temaId, pesoVista);
+    }
+
+    /**
+     * Registrar una reacción nueva a la publicación
+     * @param id ID de la publicación
+     * @param temaId Tema de la publicación
+     */
+    public void registrarReaccion(Long id, Long temaId) {
+        registrarActividad(id, temaId, pesoReaccion);
+    }
+
+    /**
+     * Registrar actividad arbitraria sobre una publicación (p. ej. comentarios o reacciones)
+     * @param id ID de la publicación
+     * @param temaId Tema de la publicación
+     * @param peso Peso de la actividad
+     */
+    public void registrarActividad(Long id, Long temaId, double peso) {
+        if (id == null || temaId == null || peso <= 0) {
+            return;
+        }
+        long instante = System.currentTimeMillis();
+        TransaccionesUtil.alConfirmar(() -> aplicar(id, temaId, peso, instante));
+    }
+
+    /**
+     * Excluir del ranking una publicación ocultada, conservando su puntaje para cuando se vuelva a mostrar
+     * @param id ID de la publicación
+     */
+    public void excluir(Long id) {
+        if (id == null) {
+            return;
+        }
+        TransaccionesUtil.alConfirmar(() -> {
+            rebaseLock.readLock().lock();
+            try {
+                Entrada entrada = entradas.get(id);
+                if (entrada != null) {
+                    synchronized (entrada) {
+                        entrada.excluida = true;
+                        quitarClave(entrada);
+                    }
+                }
+            } finally {
+                rebaseLock.readLock().unlock();
+            }
+        });
+    }
+
+    /**
+     * Reincorporar al ranking una publicación vuelta a mostrar con el puntaje que conservaba al ocultarla,
+     * o con el puntaje base de su fecha de creación si ya no estaba en memoria
+     * @param id ID de la publicación
+     * @param temaId Tema de la publicación
+     * @param fecha Fecha de la publicación
+     */
+    public void restaurar(Long id, Long temaId, LocalDateTime fecha) {
+        if (id == null) {
+            return;
+        }
+        long instante = fecha != null ? aMillis(fecha) : System.currentTimeMillis();
+        TransaccionesUtil.alConfirmar(() -> {
+            rebaseLock.readLock().lock();
+            try {
+                Entrada entrada = entradas.get(id);
+                if (entrada != null) {
+                    synchronized (entrada) {
+                        // Si ya estaba en el ranking (mostrada de nuevo sin haberse ocultado) no suma otra vez
+                        if (!entrada.eliminada) {
+                            if (entrada.excluida) {
+                                entrada.excluida = false;
+                                indexar(entrada);
+                            }
+                            return;
+                        }
+                    }
+                }
+            } finally {
+                rebaseLock.readLock().unlock();
+            }
+            aplicar(id, temaId, pesoCreacion, instante);
+        });
+    }
+
+    /**
+     * Quitar una publicación del ranking (eliminada)
+     * @param id ID de la publicación
+     */
+    public void quitar(Long id) {
+        if (id == null) {
+            return;
+        }
+        TransaccionesUtil.alConfirmar(() -> {
+            rebaseLock.readLock().lock();
+            try {
+                Entrada entrada = entradas.remove(id);
+                if (entrada != null) {
+                    synchronized (entrada) {
+                        entrada.eliminada = true;
+                        quitarClave(entrada);
+                    }
+                }
+            } finally {
+                rebaseLock.readLock().unlock();
+            }
+        });
+    }
+
+    /**
+     * Obtener los IDs de las publicaciones más calientes
+     * @param temaId Tema a consultar, o null para el ranking global
+     * @param limite Número máximo de IDs
+     * @return IDs ordenados de mayor a menor puntaje
+     */
+    public List<Long> obtenerTop(Long temaId, int limite) {
+        ConcurrentSkipListSet<Clave> conjunto = temaId == null ? global : porTema.get(temaId);
+        if (conjunto == null || limite <= 0) {
+            return Collections.emptyList();
+        }
+        List<Long> ids = new ArrayList<>(Math.min(limite, 64));
+        for (Clave clave : conjunto) {
+            ids.add(clave.id());
+            if (ids.size() >= limite) {
+                break;
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * Rebasar el origen del decaimiento: reescala todos los puntajes al instante actual,
+     * descarta los despreciables y reconstruye las skip lists sin recalcular desde la base de datos
+     */
+    @Scheduled(fixedDelayString = "${ranking.caliente.rebase-ms:3600000}")
+    public void rebasar() {
+        rebaseLock.writeLock().lock();
+        try {
+            long ahora = System.currentTimeMillis();
+            double factor = Math.exp(-lambda() * (ahora - origenMs));
+
+            ConcurrentSkipListSet<Clave> nuevoGlobal = new ConcurrentSkipListSet<>();
+            Map<Long, ConcurrentSkipListSet<Clave>> nuevoPorTema = new ConcurrentHashMap<>();
+            entradas.values().removeIf(entrada -> {
+                entrada.puntaje *= factor;
+                if (entrada.puntaje < PUNTAJE_MINIMO) {
+                    entrada.eliminada = true;
+                    return true;
+                }
+                if (!entrada.excluida) {
+                    entrada.clave = new Clave(entrada.puntaje, entrada.id);
+                    nuevoGlobal.add(entrada.clave);
+                    nuevoPorTema.computeIfAbsent(entrada.temaId, t -> new ConcurrentSkipListSet<>()).add(entrada.clave);
+                }
+                return false;
+            });
+
+            origenMs = ahora;
+            global = nuevoGlobal;
+            porTema = nuevoPorTema;
+        } finally {
+            rebaseLock.writeLock().unlock();
+        }
+    }
+
+    // Suma la actividad al puntaje y reubica la clave en las skip lists
+    private void aplicar(Long id, Long temaId, double peso, long instanteMs) {
+        rebaseLock.readLock().lock();
+        try {
+            double incremento = peso * Math.exp(lambda() * (instanteMs - origenMs));
+            Entrada entrada = entradas.computeIfAbsent(id, k -> new Entrada(id, temaId));
+            synchronized (entrada) {
+                if (entrada.eliminada) {
+                    return;
+                }
+                quitarClave(entrada);
+                entrada.puntaje += incremento;
+                if (!entrada.excluida) {
+                    indexar(entrada);
+                }
+            }
+        } finally {
+            rebaseLock.readLock().unlock();
+        }
+    }
+
+    private void indexar(Entrada entrada) {
+        entrada.clave = new Clave(entrada.puntaje, entrada.id);
+        global.add(entrada.clave);
+        porTema.computeIfAbsent(entrada.temaId, t -> new ConcurrentSkipListSet<>()).add(entrada.clave);
+    }
+
+    private void quitarClave(Entrada entrada) {
+        if (entrada.clave != null) {
+            global.remove(entrada.clave);
+            ConcurrentSkipListSet<Clave> tema = porTema.get(entrada.temaId);
+            if (tema != null) {
+                tema.remove(entrada.clave);
+            }
+            entrada.clave = null;
+        }
+    }
+
+    private double lambda() {
+        return Math.log(2) / (vidaMediaHoras * 3_600_000d);
+    }
+
+    private static long aMillis(LocalDateTime fecha) {
+        return fecha.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private static final class Entrada {
+        private final long id;
+        private final Long temaId;
+        private double puntaje;
+        private Clave clave;
+        private boolean eliminada;
+        private boolean excluida;
+
+        private Entrada(long id, Long temaId) {
+            this.id = id;
+            this.temaId = temaId;
+        }
+    }
+
+    // Orden descendente por puntaje; a igual puntaje, la publicación más nueva primero
+    private record Clave(double puntaje, long id) implements Comparable<Clave> {
+        @Override
+        public int compareTo(Clave otra) {
+            int porPuntaje = Double.compare(otra.puntaje, puntaje);
+            return porPuntaje != 0 ? porPuntaje : Long.compare(otra.id, id);
+        }
+    }
+}
@@ -0,0 +1,366 @@
+package com.qualifygym.publicaciones.service;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.qualifygym.publicaciones.model.ReaccionPublicacion;
+import com.qualifygym.publicaciones.repository.ConteoReaccionesRepository;
+import com.qualifygym.publicaciones.repository.ReaccionPublicacionRepository;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Reacciones ("me gusta") a publicaciones con contadores en memoria y volcado por lotes.
+ *
+ * Reaccionar no escribe en la base de datos: la operación queda pendiente en memoria (una por
+ * usuario y publicación, lo que impide reaccionar dos veces) y suma al delta de la publicación con
+ * un {@code merge} atómico por clave, sin candados globales; un delta que vuelve a cero desaparece
+ * del mapa en la misma operación. Un volcado periódico
+ * inserta y borra las reacciones con lotes JDBC y suma los deltas agregados a
+ * {@code publicaciones_reacciones_conteo} con un upsert por publicación, de modo que una
+ * publicación popular recibe una escritura por volcado y no una por reacción. Las lecturas suman
+ * el total persistido y el delta pendiente. La consulta de si el par ya está persistido se hace
+ * fuera del candado del par, para que una publicación popular no limite las reacciones a tantas
+ * lecturas simultáneas como candados haya.
+ */
+@Service
+public class ReaccionesPublicacionService {
+
+    private static final int CANDADOS = 64;
+
+    @Autowired
+    private ReaccionPublicacionRepository reaccionRepository;
+
+    @Autowired
+    private ConteoReaccionesRepository conteoRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${reacciones.publicaciones.tamano-lote:1000}")
+    private int tamanoLote = 1000;
+
+    @Value("${reacciones.publicaciones.max-lotes-volcado:50}")
+    private int maxLotesVolcado = 50;
+
+    private record Clave(long publicacionId, long usuarioId) {
+    }
+
+    // Operaciones aún no persistidas (true = reaccionar, false = quitar) y las tomadas por el volcado en curso
+    private final Map<Clave, Boolean> pendientes = new ConcurrentHashMap<>();
+    private final Map<Clave, Boolean> enVuelo = new ConcurrentHashMap<>();
+
+    // Delta de reacciones aún no persistido por publicación (sin entradas en cero)
+    private final Map<Long, Long> deltas = new ConcurrentHashMap<>();
+
+    // Serializa los cambios de un mismo usuario sobre una misma publicación (repartidos en candados)
+    private final Object[] candados = new Object[CANDADOS];
+
+    // Operaciones volcadas confirmadas: si cambia entre una lectura de lo persistido y el candado, la lectura
+    // pudo ser anterior a un volcado del mismo par y se repite
+    private final AtomicLong confirmaciones = new AtomicLong();
+
+    private final ReentrantLock volcando = new ReentrantLock();
+
+    public ReaccionesPublicacionService() {
+        for (int i = 0; i < CANDADOS; i++) {
+            candados[i] = new Object();
+        }
+    }
+
+    /**
+     * Registrar la reacción de un usuario a una publicación. Se persiste en el siguiente volcado.
+     * @param publicacionId ID de la publicación
+     * @param usuarioId ID del usuario
+     * @return true si es una reacción nueva, false si el usuario ya había reaccionado
+     */
+    public boolean reaccionar(Long publicacionId, Long usuarioId) {
+        return cambiar(new Clave(publicacionId, usuarioId), true);
+    }
+
+    /**
+     * Quitar la reacción de un usuario a una publicación. Se persiste en el siguiente volcado.
+     * @param publicacionId ID de la publicación
+     * @param usuarioId ID del usuario
+     * @return true si el usuario había reaccionado
+     */
+    public boolean quitar(Long publicacionId, Long usuarioId) {
+        return cambiar(new Clave(publicacionId, usuarioId), false);
+    }
+
+    /**
+     * Indicar si un usuario reaccionó a una publicación (incluye las reacciones aún no persistidas)
+     */
+    public boolean haReaccionado(Long publicacionId, Long usuarioId) {
+        return estado(new Clave(publicacionId, usuarioId));
+    }
+
+    /**
+     * Total de reacciones de varias publicaciones: persistido más pendiente
+     * @param publicacionIds IDs de las publicaciones
+     * @return Total por ID, en el orden recibido (0 para las que no tienen reacciones)
+     */
+    public Map<Long, Long> contar(Collection<Long> publicacionIds) {
+        Map<Long, Long> totales = new LinkedHashMap<>();
+        for (Long id : publicacionIds) {
+            totales.put(id, 0L);
+        }
+        if (totales.isEmpty()) {
+            return totales;
+        }
+        for (Object[] fila : conteoRepository.findTotales(totales.keySet())) {
+            totales.put((Long) fila[0], ((Number) fila[1]).longValue());
+        }
+        for (Map.Entry<Long, Long> total : totales.entrySet()) {
+            Long delta = deltas.get(total.getKey());
+            if (delta != null) {
+                total.setValue(Math.max(0L, total.getValue() + delta));
+            }
+        }
+        return totales;
+    }
+
+    /**
+     * Descartar las reacciones de publicaciones eliminadas. Se une a la transacción del llamador:
+     * las filas se borran en ella y lo pendiente en memoria solo se descarta si se confirma. Espera
+     * al volcado en curso y no deja empezar otro hasta que la transacción concluye, para que ningún
+     * lote tomado antes del borrado vuelva a insertar reacciones de estas publicaciones.
+     * @param publicacionIds IDs de las publicaciones
+     */
+    public void quitarPublicaciones(Collection<Long> publicacionIds) {
+        if (publicacionIds == null || publicacionIds.isEmpty()) {
+            return;
+        }
+        Set<Long> ids = new HashSet<>(publicacionIds);
+        volcando.lock();
+        boolean liberarAlConcluir = false;
+        try {
+            reaccionRepository.eliminarPorPublicacionIds(ids);
+            conteoRepository.eliminarPorPublicacionIds(ids);
+            TransaccionesUtil.alConfirmarYConcluir(() -> descartarPendientes(ids), volcando::unlock);
+            liberarAlConcluir = true;
+        } finally {
+            if (!liberarAlConcluir) {
+                volcando.unlock();
+            }
+        }
+    }
+
+    // Ejecución periódica del volcado
+    @Scheduled(fixedDelayString = "${reacciones.publicaciones.volcado-ms:2000}")
+    public void volcarProgramado() {
+        volcar();
+    }
+
+    // Persistir lo pendiente al detener la aplicación
+    @PreDestroy
+    public void alCerrar() {
+        volcar();
+    }
+
+    /**
+     * Persistir las reacciones pendientes por lotes, cada uno en su propia transacción.
+     * Si un lote falla, sus operaciones vuelven a quedar pendientes para el siguiente volcado.
+     * @return Número de operaciones persistidas
+     */
+    public int volcar() {
+        if (!volcando.tryLock()) {
+            return 0;
+        }
+        try {
+            TransactionTemplate transaccion = new TransactionTemplate(transactionManager);
+            int volcadas = 0;
+            for (int lote = 0; lote < maxLotesVolcado && !pendientes.isEmpty(); lote++) {
+                Map<Clave, Boolean> operaciones = tomarLote();
+                if (operaciones.isEmpty()) {
+                    break;
+                }
+                try {
+                    transaccion.executeWithoutResult(status -> persistir(operaciones));
+                } catch (RuntimeException e) {
+                    devolver(operaciones);
+                    throw e;
+                }
+                confirmar(operaciones);
+                volcadas += operaciones.size();
+            }
+            return volcadas;
+        } finally {
+            volcando.unlock();
+        }
+    }
+
+    // Lo persistido se lee sin el candado; dentro, lo pendiente o en vuelo manda y, si no hay nada en memoria,
+    // la lectura vale mientras ningún volcado se haya confirmado desde antes de hacerla
+    private boolean cambiar(Clave clave, boolean reaccionar) {
+        long confirmadasAntes = confirmaciones.get();
+        boolean persistida = enMemoria(clave) == null && persistida(clave);
+        synchronized (candado(clave)) {
+            Boolean actual = enMemoria(clave);
+            if (actual == null) {
+                actual = confirmaciones.get() == confirmadasAntes ? persistida : persistida(clave);
+            }
+            if (actual == reaccionar) {
+                return false;
+            }
+            // Una operación pendiente opuesta aún no llegó a la base de datos: ambas se anulan
+            if (pendientes.remove(clave) == null) {
+                pendientes.put(clave, reaccionar);
+            }
+            sumarDelta(clave.publicacionId(), reaccionar ? 1 : -1);
+            return true;
+        }
+    }
+
+    // Lo pendiente manda sobre lo que está volcándose, y esto sobre lo persistido
+    private boolean estado(Clave clave) {
+        Boolean estado = enMemoria(clave);
+        return estado != null ? estado : persistida(clave);
+    }
+
+    // Operación pendiente o en vuelo del par, o null si no hay ninguna
+    private Boolean enMemoria(Clave clave) {
+        Boolean estado = pendientes.get(clave);
+        return estado != null ? estado : enVuelo.get(clave);
+    }
+
+    private boolean persistida(Clave clave) {
+        return reaccionRepository.existsById(new ReaccionPublicacion.Clave(clave.publicacionId(), clave.usuarioId()));
+    }
+
+    private Map<Clave, Boolean> tomarLote() {
+        Map<Clave, Boolean> lote = new HashMap<>();
+        for (Clave clave : pendientes.keySet()) {
+            if (lote.size() >= tamanoLote) {
+                break;
+            }
+            synchronized (candado(clave)) {
+                Boolean operacion = pendientes.remove(clave);
+                if (operacion != null) {
+                    enVuelo.put(clave, operacion);
+                    lote.put(clave, operacion);
+                }
+            }
+        }
+        return lote;
+    }
+
+    // Inserta y borra solo lo que hace falta según lo ya persistido (otra instancia pudo volcar el mismo par)
+    // y suma a cada total el cambio real
+    private void persistir(Map<Clave, Boolean> operaciones) {
+        Set<Long> publicacionIds = new HashSet<>();
+        Set<Long> usuarioIds = new HashSet<>();
+        for (Clave clave : operaciones.keySet()) {
+            publicacionIds.add(clave.publicacionId());
+            usuarioIds.add(clave.usuarioId());
+        }
+        Set<Clave> existentes = new HashSet<>();
+        for (Object[] fila : reaccionRepository.findPares(publicacionIds, usuarioIds)) {
+            existentes.add(new Clave((Long) fila[0], (Long) fila[1]));
+        }
+
+        Timestamp ahora = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> altas = new ArrayList<>();
+        List<Object[]> bajas = new ArrayList<>();
+        Map<Long, Long> cambioPorPublicacion = new HashMap<>();
+        for (Map.Entry<Clave, Boolean> operacion : operaciones.entrySet()) {
+            Clave clave = operacion.getKey();
+            boolean existe = existentes.contains(clave);
+            if (operacion.getValue() && !existe) {
+                altas.add(new Object[] { clave.publicacionId(), clave.usuarioId(), ahora });
+                cambioPorPublicacion.merge(clave.publicacionId(), 1L, Long::sum);
+            } else if (!operacion.getValue() && existe) {
+                bajas.add(new Object[] { clave.publicacionId(), clave.usuarioId() });
+                cambioPorPublicacion.merge(clave.publicacionId(), -1L, Long::sum);
+            }
+        }
+
+        List<Object[]> conteos = new ArrayList<>();
+        for (Map.Entry<Long, Long> cambio : cambioPorPublicacion.entrySet()) {
+            if (cambio.getValue() != 0) {
+                conteos.add(new Object[] { cambio.getKey(), cambio.getValue() });
+            }
+        }
+        if (!altas.isEmpty()) {
+            jdbcTemplate.batchUpdate(
+                    "INSERT INTO publicaciones_reacciones (publicacion_id, usuario_id, fecha) VALUES (?, ?, ?)", altas);
+        }
+        if (!bajas.isEmpty()) {
+            jdbcTemplate.batchUpdate(
+                    "DELETE FROM publicaciones_reacciones WHERE publicacion_id = ? AND usuario_id = ?", bajas);
+        }
+        if (!conteos.isEmpty()) {
+            jdbcTemplate.batchUpdate(
+                    "INSERT INTO publicaciones_reacciones_conteo (publicacion_id, total) VALUES (?, ?) " +
+                    "ON DUPLICATE KEY UPDATE total = total + VALUES(total)", conteos);
+        }
+    }
+
+    // Lo volcado ya está en el total persistido: se descuenta del delta en memoria
+    private void confirmar(Map<Clave, Boolean> operaciones) {
+        for (Map.Entry<Clave, Boolean> operacion : operaciones.entrySet()) {
+            Clave clave = operacion.getKey();
+            synchronized (candado(clave)) {
+                confirmaciones.incrementAndGet();
+                enVuelo.remove(clave);
+                sumarDelta(clave.publicacionId(), operacion.getValue() ? -1 : 1);
+            }
+        }
+    }
+
+    private void devolver(Map<Clave, Boolean> operaciones) {
+        for (Map.Entry<Clave, Boolean> operacion : operaciones.entrySet()) {
+            Clave clave = operacion.getKey();
+            synchronized (candado(clave)) {
+                enVuelo.remove(clave);
+                // Si entretanto llegó la operación opuesta, ambas se anulan
+                if (pendientes.remove(clave) == null) {
+                    pendientes.put(clave, operacion.getValue());
+                }
+            }
+        }
+    }
+
+    // Atómico por publicación: el delta que vuelve a cero se elimina en la misma operación
+    private void sumarDelta(long publicacionId, long cambio) {
+        deltas.merge(publicacionId, cambio, (actual, suma) -> actual + suma != 0 ? actual + suma : null);
+    }
+
+    // Quita de memoria lo pendiente de publicaciones ya borradas
+    private void descartarPendientes(Set<Long> ids) {
+        for (Clave clave : new ArrayList<>(pendientes.keySet())) {
+            if (ids.contains(clave.publicacionId())) {
+                synchronized (candado(clave)) {
+                    pendientes.remove(clave);
+                }
+            }
+        }
+        deltas.keySet().removeAll(ids);
+    }
+
+    private Object candado(Clave clave) {
+        return candados[Math.floorMod(clave.hashCode(), CANDADOS)];
+    }
+}
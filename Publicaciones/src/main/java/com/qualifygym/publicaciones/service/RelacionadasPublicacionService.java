@@ -0,0 +1,291 @@
+package com.qualifygym.publicaciones.service;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.qualifygym.publicaciones.model.FirmaPublicacion;
+import com.qualifygym.publicaciones.repository.FirmaPublicacionRepository;
+import com.qualifygym.publicaciones.repository.PublicacionRepository;
+
+/**
+ * Índice de publicaciones relacionadas por similitud de la descripción (MinHash + LSH).
+ *
+ * Cada descripción se divide en shingles de 3 palabras y se resume en una firma MinHash de
+ * {@value #NUM_HASHES} valores: la fracción de posiciones iguales entre dos firmas estima la
+ * similitud de Jaccard de sus textos. Las firmas se agrupan en {@value #BANDAS} bandas de
+ * {@value #FILAS_BANDA} valores; publicaciones con alguna banda idéntica caen en la misma cubeta
+ * y son candidatas, de modo que una consulta solo compara unas pocas firmas en lugar de recorrer
+ * la tabla. Las firmas se persisten para reconstruir el índice al iniciar; las publicaciones
+ * sin firma (anteriores al índice) se completan en segundo plano.
+ */
+@Service
+public class RelacionadasPublicacionService {
+
+    static final int NUM_HASHES = 64;
+    private static final int BANDAS = 16;
+    private static final int FILAS_BANDA = NUM_HASHES / BANDAS;
+    private static final int TAMANO_SHINGLE = 3;
+    private static final int TAMANO_PAGINA = 1000;
+
+    // Cota de candidatas evaluadas por consulta (textos muy repetidos comparten cubetas enormes)
+    private static final int MAX_CANDIDATAS = 2000;
+
+    private static final long[] SEMILLAS = new long[NUM_HASHES];
+
+    static {
+        for (int i = 0; i < NUM_HASHES; i++) {
+            SEMILLAS[i] = TextoPublicacion.mezclar(0x9E3779B97F4A7C15L * (i + 1));
+        }
+    }
+
+    @Autowired
+    private FirmaPublicacionRepository firmaRepository;
+
+    @Autowired
+    private PublicacionRepository publicacionRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    // Similitud de Jaccard estimada mínima para sugerir una publicación
+    @Value("${relacionadas.publicaciones.similitud-minima:0.2}")
+    private double similitudMinima = 0.2;
+
+    @Value("${relacionadas.publicaciones.tamano-lote-relleno:500}")
+    private int tamanoLoteRelleno = 500;
+
+    @Value("${relacionadas.publicaciones.max-lotes-relleno:20}")
+    private int maxLotesRelleno = 20;
+
+    private final Map<Long, int[]> firmas = new ConcurrentHashMap<>();
+    private final Map<Long, Set<Long>> cubetas = new ConcurrentHashMap<>();
+
+    /**
+     * Cargar en memoria las firmas persistidas al iniciar la aplicación
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void cargarInicial() {
+        long despuesDe = 0L;
+        List<FirmaPublicacion> pagina;
+        do {
+            pagina = firmaRepository.findPosteriores(despuesDe, PageRequest.of(0, TAMANO_PAGINA));
+            for (FirmaPublicacion firma : pagina) {
+                int[] valores = desdeBytes(firma.getFirma());
+                if (valores != null) {
+                    indexar(firma.getPublicacionId(), valores);
+                }
+                despuesDe = firma.getPublicacionId();
+            }
+        } while (pagina.size() == TAMANO_PAGINA);
+    }
+
+    /**
+     * Calcular y guardar la firma de las publicaciones que aún no la tienen, por lotes
+     * @return Número de firmas calculadas
+     */
+    @Scheduled(fixedDelayString = "${relacionadas.publicaciones.relleno-ms:60000}", initialDelayString = "${relacionadas.publicaciones.relleno-ms:60000}")
+    public int rellenarFaltantes() {
+        TransactionTemplate transaccion = new TransactionTemplate(transactionManager);
+        long despuesDe = 0L;
+        int calculadas = 0;
+        for (int lote = 0; lote < maxLotesRelleno; lote++) {
+            List<Object[]> filas = publicacionRepository.findSinFirma(despuesDe, PageRequest.of(0, tamanoLoteRelleno));
+            if (filas.isEmpty()) {
+                break;
+            }
+            transaccion.executeWithoutResult(status -> {
+                for (Object[] fila : filas) {
+                    registrar((Long) fila[0], (String) fila[1]);
+                }
+            });
+            calculadas += filas.size();
+            despuesDe = (Long) filas.get(filas.size() - 1)[0];
+            if (filas.size() < tamanoLoteRelleno) {
+                break;
+            }
+        }
+        return calculadas;
+    }
+
+    /**
+     * Calcular y guardar la firma de una publicación nueva o con la descripción modificada.
+     * Se une a la transacción del llamador; el índice en memoria se actualiza al confirmar.
+     * @param publicacionId ID de la publicación
+     * @param descripcion Descripción actual
+     */
+    public void registrar(Long publicacionId, String descripcion) {
+        int[] firma = calcularFirma(descripcion);
+        if (firma == null) {
+            return;
+        }
+        firmaRepository.guardar(publicacionId, aBytes(firma));
+        TransaccionesUtil.alConfirmar(() -> indexar(publicacionId, firma));
+    }
+
+    /**
+     * Quitar publicaciones del índice (eliminadas o archivadas). Se une a la transacción del llamador.
+     * @param publicacionIds IDs de las publicaciones
+     */
+    public void quitar(Collection<Long> publicacionIds) {
+        if (publicacionIds == null || publicacionIds.isEmpty()) {
+            return;
+        }
+        List<Long> ids = new ArrayList<>(publicacionIds);
+        firmaRepository.eliminarPorIds(ids);
+        TransaccionesUtil.alConfirmar(() -> ids.forEach(this::desindexar));
+    }
+
+    /**
+     * Buscar las publicaciones más similares a una dada
+     * @param publicacionId ID de la publicación de referencia
+     * @param limite Número máximo de resultados
+     * @return IDs de las publicaciones relacionadas, de más a menos similar (vacía si no tiene firma)
+     */
+    public List<Long> buscarRelacionadas(Long publicacionId, int limite) {
+        int[] firma = firmas.get(publicacionId);
+        if (firma == null) {
+            return new ArrayList<>();
+        }
+
+        Map<Long, Double> similitudes = new HashMap<>();
+        bandas:
+        for (int banda = 0; banda < BANDAS; banda++) {
+            Set<Long> cubeta = cubetas.get(claveBanda(firma, banda));
+            if (cubeta == null) {
+                continue;
+            }
+            for (Long candidata : cubeta) {
+                if (similitudes.size() >= MAX_CANDIDATAS) {
+                    break bandas;
+                }
+                if (!candidata.equals(publicacionId) && !similitudes.containsKey(candidata)) {
+                    int[] otra = firmas.get(candidata);
+                    if (otra != null) {
+                        similitudes.put(candidata, similitud(firma, otra));
+                    }
+                }
+            }
+        }
+
+        // Más similares primero; a igual similitud, las más recientes (ID mayor)
+        List<Long> resultado = new ArrayList<>();
+        similitudes.entrySet().stream()
+                .filter(e -> e.getValue() >= similitudMinima)
+                .sorted(Map.Entry.<Long, Double>comparingByValue().reversed()
+                        .thenComparing(Map.Entry.comparingByKey(Comparator.reverseOrder())))
+                .limit(limite)
+                .forEach(e -> resultado.add(e.getKey()));
+        return resultado;
+    }
+
+    /**
+     * Firma MinHash de un texto sobre shingles de {@value #TAMANO_SHINGLE} palabras
+     * @param texto Texto a resumir
+     * @return Firma de {@value #NUM_HASHES} valores, o null si el texto no tiene palabras
+     */
+    static int[] calcularFirma(String texto) {
+        List<String> palabras = texto != null ? TextoPublicacion.palabras(texto) : List.of();
+        if (palabras.isEmpty()) {
+            return null;
+        }
+        int tamano = Math.min(TAMANO_SHINGLE, palabras.size());
+        int[] firma = new int[NUM_HASHES];
+        Arrays.fill(firma, Integer.MAX_VALUE);
+        for (int i = 0; i + tamano <= palabras.size(); i++) {
+            long shingle = TextoPublicacion.hash64(String.join(" ", palabras.subList(i, i + tamano)));
+            for (int j = 0; j < NUM_HASHES; j++) {
+                int valor = (int) (TextoPublicacion.mezclar(shingle ^ SEMILLAS[j]) >>> 32);
+                if (valor < firma[j]) {
+                    firma[j] = valor;
+                }
+            }
+        }
+        return firma;
+    }
+
+    // Fracción de posiciones iguales: estimación de la similitud de Jaccard
+    static double similitud(int[] a, int[] b) {
+        int iguales = 0;
+        for (int i = 0; i < NUM_HASHES; i++) {
+            if (a[i] == b[i]) {
+                iguales++;
+            }
+        }
+        return (double) iguales / NUM_HASHES;
+    }
+
+    private void indexar(Long publicacionId, int[] firma) {
+        int[] anterior = firmas.put(publicacionId, firma);
+        if (anterior != null) {
+            quitarDeCubetas(publicacionId, anterior);
+        }
+        // El alta va dentro de la sección atómica de la clave: fuera de ella podría caer en una cubeta que
+        // quitarDeCubetas acaba de retirar del mapa por quedar vacía, y la publicación se perdería de esa banda
+        for (int banda = 0; banda < BANDAS; banda++) {
+            cubetas.compute(claveBanda(firma, banda), (k, cubeta) -> {
+                Set<Long> destino = cubeta != null ? cubeta : ConcurrentHashMap.newKeySet();
+                destino.add(publicacionId);
+                return destino;
+            });
+        }
+    }
+
+    private void desindexar(Long publicacionId) {
+        int[] firma = firmas.remove(publicacionId);
+        if (firma != null) {
+            quitarDeCubetas(publicacionId, firma);
+        }
+    }
+
+    private void quitarDeCubetas(Long publicacionId, int[] firma) {
+        for (int banda = 0; banda < BANDAS; banda++) {
+            cubetas.computeIfPresent(claveBanda(firma, banda), (k, cubeta) -> {
+                cubeta.remove(publicacionId);
+                return cubeta.isEmpty() ? null : cubeta;
+            });
+        }
+    }
+
+    // Hash de los valores de una banda junto con su número
+    private static long claveBanda(int[] firma, int banda) {
+        long h = banda;
+        for (int i = banda * FILAS_BANDA; i < (banda + 1) * FILAS_BANDA; i++) {
+            h = TextoPublicacion.mezclar(h * 31 + firma[i]);
+        }
+        return h;
+    }
+
+    private static byte[] aBytes(int[] firma) {
+        ByteBuffer buffer = ByteBuffer.allocate(NUM_HASHES * Integer.BYTES);
+        buffer.asIntBuffer().put(firma);
+        return buffer.array();
+    }
+
+    // Las firmas con otro número de valores (configuración anterior) se ignoran
+    private static int[] desdeBytes(byte[] bytes) {
+        if (bytes == null || bytes.length != NUM_HASHES * Integer.BYTES) {
+            return null;
+        }
+        int[] firma = new int[NUM_HASHES];
+        ByteBuffer.wrap(bytes).asIntBuffer().get(firma);
+        return firma;
+    }
+}
@@ -0,0 +1,180 @@
+package com.qualifygym.publicaciones.service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.qualifygym.publicaciones.dto.PublicacionResumen;
+import com.qualifygym.publicaciones.model.ConjuntoModificado;
+import com.qualifygym.publicaciones.repository.ConjuntoModificadoRepository;
+import com.qualifygym.publicaciones.repository.PublicacionRepository;
+import com.qualifygym.publicaciones.repository.UsuarioSilenciadoRepository;
+
+/**
+ * Autores silenciados por cada usuario.
+ *
+ * Se persisten en {@code publicaciones_silenciados} y se mantienen en memoria por usuario con
+ * {@link ConjuntosPorUsuario}. Filtrar un feed es una consulta en memoria por publicación en lugar
+ * de un {@code NOT IN} con la lista de silenciados en cada consulta; la versión de los silenciados
+ * forma parte del ETag de los feeds filtrados. Cada escritura marca al usuario en
+ * {@code publicaciones_conjuntos_modificados} y {@link #refrescar} recarga periódicamente a los
+ * usuarios marcados, de modo que los cambios hechos en otra instancia llegan a todas. El número de
+ * autores con publicaciones visibles se recuenta periódicamente para estimar qué parte de un feed
+ * es de silenciados.
+ */
+@Service
+public class SilenciadosService {
+
+    static final int MAX_SILENCIADOS_POR_USUARIO = 10_000;
+
+    @Autowired
+    private UsuarioSilenciadoRepository silenciadoRepository;
+
+    @Autowired
+    private ConjuntoModificadoRepository modificadoRepository;
+
+    @Autowired
+    private PublicacionRepository publicacionRepository;
+
+    private final ConjuntosPorUsuario silenciados = new ConjuntosPorUsuario(MAX_SILENCIADOS_POR_USUARIO,
+            "Se permiten como máximo " + MAX_SILENCIADOS_POR_USUARIO + " usuarios silenciados");
+
+    // Autores con publicaciones visibles en el último recuento (0 hasta el primero)
+    private volatile long autoresVisibles;
+
+    /**
+     * Cargar en memoria los silenciados de todos los usuarios al iniciar la aplicación
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void cargarInicial() {
+        try (Stream<Object[]> filas = silenciadoRepository.streamTodos()) {
+            silenciados.cargar(filas);
+        }
+    }
+
+    /**
+     * Recargar los silenciados de los usuarios modificados, incluidos los de otras instancias
+     */
+    @Scheduled(fixedDelayString = "${conjuntos.usuarios.refresco-ms:2000}")
+    @Transactional(readOnly = true)
+    public void refrescar() {
+        silenciados.refrescar(desde -> modificadoRepository.findModificadosDesde(ConjuntoModificado.Tipo.SILENCIADOS, desde),
+                silenciadoRepository::findByUsuarioIds);
+    }
+
+    /**
+     * Recontar los autores con publicaciones visibles; la estimación admite un recuento de minutos atrás
+     */
+    @Scheduled(fixedDelayString = "${silenciados.autores.refresco-ms:300000}")
+    @Transactional(readOnly = true)
+    public void recontarAutores() {
+        autoresVisibles = publicacionRepository.countAutoresVisibles();
+    }
+
+    /**
+     * Silenciar un autor para un usuario. Se une a la transacción del llamador.
+     * @param usuarioId ID del usuario
+     * @param autorId ID del autor a silenciar
+     * @throws RuntimeException si el usuario alcanzó el máximo de silenciados
+     */
+    public void silenciar(Long usuarioId, Long autorId) {
+        silenciados.agregar(usuarioId, autorId, () -> {
+            silenciadoRepository.insertar(usuarioId, autorId, LocalDateTime.now());
+            marcarModificado(usuarioId);
+        });
+    }
+
+    /**
+     * Dejar de silenciar un autor. Se une a la transacción del llamador.
+     * @param usuarioId ID del usuario
+     * @param autorId ID del autor
+     */
+    public void quitar(Long usuarioId, Long autorId) {
+        silenciados.quitar(usuarioId, autorId, () -> {
+            silenciadoRepository.eliminar(usuarioId, autorId);
+            marcarModificado(usuarioId);
+        });
+    }
+
+    /**
+     * Indicar si un usuario silenció a un autor
+     */
+    public boolean estaSilenciado(Long usuarioId, Long autorId) {
+        return silenciados.contiene(usuarioId, autorId);
+    }
+
+    /**
+     * Quitar de un feed las publicaciones de autores silenciados por el usuario (sin usuario no se quita nada)
+     * @param resumenes Resúmenes de un feed
+     * @param usuarioId ID del usuario de la petición, o null
+     * @return Los resúmenes que el usuario puede ver, en el mismo orden
+     */
+    public List<PublicacionResumen> filtrar(List<PublicacionResumen> resumenes, Long usuarioId) {
+        ConjuntoIds autores = silenciados.conjunto(usuarioId);
+        if (autores.tamano() == 0) {
+            return resumenes;
+        }
+        List<PublicacionResumen> visibles = new ArrayList<>(resumenes.size());
+        for (PublicacionResumen resumen : resumenes) {
+            if (!autores.contiene(resumen.getUsuarioId())) {
+                visibles.add(resumen);
+            }
+        }
+        return visibles;
+    }
+
+    /**
+     * Página de autores silenciados por un usuario (paginación por clave, de ID mayor a menor)
+     * @param usuarioId ID del usuario
+     * @param antesDe Solo IDs menores que este, o null para la primera página
+     * @param limite Tamaño de la página
+     * @return IDs de autores en orden descendente
+     */
+    public List<Long> buscarSilenciados(Long usuarioId, Long antesDe, int limite) {
+        return silenciados.pagina(usuarioId, antesDe, limite);
+    }
+
+    /**
+     * Número de autores silenciados por un usuario
+     */
+    public int contar(Long usuarioId) {
+        return silenciados.contar(usuarioId);
+    }
+
+    /**
+     * Fracción estimada de un feed que es de autores silenciados por el usuario, suponiendo que
+     * todos los autores publican por igual
+     * @param usuarioId ID del usuario
+     * @return Entre 0 y 1: 0 si no silenció a nadie, 1 si aún no se contaron los autores
+     */
+    public double fraccionSilenciada(Long usuarioId) {
+        int cantidad = contar(usuarioId);
+        if (cantidad == 0) {
+            return 0;
+        }
+        long autores = autoresVisibles;
+        return autores > cantidad ? (double) cantidad / autores : 1;
+    }
+
+    /**
+     * Versión de los silenciados de un usuario; huella de su contenido, igual en todas las instancias
+     * @param usuarioId ID del usuario
+     * @return Versión (0 si nunca silenció a nadie)
+     */
+    public long version(Long usuarioId) {
+        return silenciados.version(usuarioId);
+    }
+
+    private void marcarModificado(Long usuarioId) {
+        modificadoRepository.marcar(ConjuntoModificado.Tipo.SILENCIADOS.name(), usuarioId, LocalDateTime.now());
+    }
+}
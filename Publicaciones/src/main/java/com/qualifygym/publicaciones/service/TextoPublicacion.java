@@ -0,0 +1,48 @@
+package com.qualifygym.publicaciones.service;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Utilidades de texto compartidas por las huellas de publicaciones (duplicados y relacionadas).
+ */
+final class TextoPublicacion {
+
+    private TextoPublicacion() {
+    }
+
+    // Minúsculas, sin tildes y separadas por cualquier carácter que no sea letra o dígito
+    static List<String> palabras(String texto) {
+        String normalizado = Normalizer.normalize(texto.toLowerCase(Locale.ROOT), Normalizer.Form.NFD)
+                .replaceAll("\\p{M}+", "");
+        List<String> palabras = new ArrayList<>();
+        for (String palabra : normalizado.split("[^\\p{L}\\p{N}]+")) {
+            if (!palabra.isEmpty()) {
+                palabras.add(palabra);
+            }
+        }
+        return palabras;
+    }
+
+    // FNV-1a seguido de la mezcla final de MurmurHash3 para repartir bien los bits
+    static long hash64(String texto) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < texto.length(); i++) {
+            h ^= texto.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        return mezclar(h);
+    }
+
+    // Mezcla final de MurmurHash3 (fmix64)
+    static long mezclar(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,61 @@
+package com.qualifygym.publicaciones.service;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Utilidades de transacción compartidas por los servicios que mantienen estado en memoria.
+ */
+final class TransaccionesUtil {
+
+    private TransaccionesUtil() {
+    }
+
+    /**
+     * Ejecutar una acción solo si la transacción en curso se confirma, para que la memoria
+     * refleje únicamente cambios confirmados. Sin transacción activa se ejecuta de inmediato.
+     * @param accion Acción a ejecutar tras el commit
+     */
+    static void alConfirmar(Runnable accion) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    accion.run();
+                }
+            });
+        } else {
+            accion.run();
+        }
+    }
+
+    /**
+     * Ejecutar una acción si la transacción en curso se confirma y otra al concluir, se confirme
+     * o se revierta (por ejemplo, liberar un candado tomado antes de escribir). Sin transacción
+     * activa se ejecutan ambas de inmediato.
+     * @param accion Acción a ejecutar tras el commit
+     * @param alFinal Acción a ejecutar siempre, después de la anterior
+     */
+    static void alConfirmarYConcluir(Runnable accion, Runnable alFinal) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    try {
+                        if (status == STATUS_COMMITTED) {
+                            accion.run();
+                        }
+                    } finally {
+                        alFinal.run();
+                    }
+                }
+            });
+        } else {
+            try {
+                accion.run();
+            } finally {
+                alFinal.run();
+            }
+        }
+    }
+}
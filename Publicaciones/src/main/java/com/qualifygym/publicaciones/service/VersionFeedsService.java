@@ -0,0 +1,154 @@
+package com.qualifygym.publicaciones.service;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.qualifygym.publicaciones.model.CambioPublicacion;
+
+/**
+ * Versiones de los feeds de publicaciones (global, por tema y por usuario) para ETags débiles.
+ *
+ * La versión de un feed es la secuencia del último cambio que lo afecta en el registro de
+ * cambios. Se mantiene en memoria: los cambios propios se aplican al confirmar y los de otras
+ * instancias se leen del registro periódicamente, de modo que un If-None-Match se responde
+ * sin consultar la base de datos. Para no fijar con un ETag un cuerpo leído de una réplica
+ * atrasada, no se emite ETag para un feed que cambió hace menos de {@code estabilidad-ms}.
+ */
+@Service
+public class VersionFeedsService {
+
+    // Por encima de este número de usuarios con versión propia, se compactan todos en la versión base
+    private static final int MAX_VERSIONES_USUARIO = 50_000;
+
+    private static final int TAMANO_LECTURA = 1000;
+
+    @Autowired
+    private CambiosPublicacionService cambiosPublicacionService;
+
+    @Value("${feeds.etag.estabilidad-ms:2000}")
+    private long estabilidadMs = 2000;
+
+    private record Version(long seq, long instanteMs) {
+    }
+
+    // Versión mínima de cualquier feed; null hasta inicializar (sin ETags)
+    private final AtomicReference<Version> base = new AtomicReference<>();
+    private final AtomicReference<Version> global = new AtomicReference<>();
+    private final Map<Long, Version> porTema = new ConcurrentHashMap<>();
+    private final Map<Long, Version> porUsuario = new ConcurrentHashMap<>();
+
+    private volatile long leidoHasta;
+
+    /**
+     * Tomar como base la última secuencia del registro al iniciar la aplicación
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void inicializar() {
+        long ultima = cambiosPublicacionService.obtenerUltimaSeq();
+        Version inicial = new Version(ultima, System.currentTimeMillis());
+        leidoHasta = ultima;
+        global.set(inicial);
+        base.set(inicial);
+    }
+
+    /**
+     * Incorporar los cambios del registro posteriores a lo ya leído (incluye los de otras instancias)
+     */
+    @Scheduled(fixedDelayString = "${feeds.etag.refresco-ms:1000}")
+    public synchronized void refrescar() {
+        if (base.get() == null) {
+            return;
+        }
+        CambiosPublicacionService.Lote lote;
+        do {
+            lote = cambiosPublicacionService.leerConfirmados(leidoHasta, TAMANO_LECTURA);
+            for (CambioPublicacion cambio : lote.cambios()) {
+                avanzar(cambio.getTemaId(), cambio.getUsuarioId(), cambio.getSeq());
+            }
+            leidoHasta = lote.marca();
+        } while (lote.hayMas() && !lote.cambios().isEmpty());
+
+        if (porUsuario.size() > MAX_VERSIONES_USUARIO) {
+            avanzar(null, null, global.get().seq());
+            porUsuario.clear();
+        }
+    }
+
+    // Aplica de inmediato los cambios confirmados en esta instancia
+    @TransactionalEventListener
+    public void alConfirmarCambio(CambiosPublicacionService.CambioRegistrado cambio) {
+        if (base.get() != null) {
+            avanzar(cambio.temaId(), cambio.usuarioId(), cambio.seq());
+        }
+    }
+
+    /**
+     * ETag del feed global (todas las publicaciones, búsquedas)
+     * @param variante Variante de la representación (p. ej. resumen o completa)
+     * @return ETag débil, o null si el feed cambió hace muy poco
+     */
+    public String etagGlobal(String variante) {
+        return etag(global.get(), variante);
+    }
+
+    /**
+     * ETag del feed de un tema
+     * @param temaId ID del tema
+     * @param variante Variante de la representación
+     * @return ETag débil, o null si el feed cambió hace muy poco
+     */
+    public String etagTema(Long temaId, String variante) {
+        return etag(temaId != null ? porTema.get(temaId) : null, variante);
+    }
+
+    /**
+     * ETag del feed de un usuario
+     * @param usuarioId ID del usuario
+     * @param variante Variante de la representación
+     * @return ETag débil, o null si el feed cambió hace muy poco
+     */
+    public String etagUsuario(Long usuarioId, String variante) {
+        return etag(usuarioId != null ? porUsuario.get(usuarioId) : null, variante);
+    }
+
+    // Sin tema ni usuario el cambio puede afectar a cualquier feed: se avanza la base
+    private void avanzar(Long temaId, Long usuarioId, long seq) {
+        Version nueva = new Version(seq, System.currentTimeMillis());
+        global.accumulateAndGet(nueva, VersionFeedsService::mayor);
+        if (temaId == null && usuarioId == null) {
+            base.accumulateAndGet(nueva, VersionFeedsService::mayor);
+            return;
+        }
+        if (temaId != null) {
+            porTema.merge(temaId, nueva, VersionFeedsService::mayor);
+        }
+        if (usuarioId != null) {
+            porUsuario.merge(usuarioId, nueva, VersionFeedsService::mayor);
+        }
+    }
+
+    private String etag(Version especifica, String variante) {
+        Version minima = base.get();
+        if (minima == null) {
+            return null;
+        }
+        Version version = especifica != null && especifica.seq() > minima.seq() ? especifica : minima;
+        if (System.currentTimeMillis() - version.instanteMs() < estabilidadMs) {
+            return null;
+        }
+        return "W/\"" + version.seq() + "-" + variante + "\"";
+    }
+
+    private static Version mayor(Version actual, Version nueva) {
+        return actual == null || nueva.seq() > actual.seq() ? nueva : actual;
+    }
+}
@@ -0,0 +1,325 @@
+package com.qualifygym.publicaciones.service;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.qualifygym.publicaciones.model.VistasUnicas;
+import com.qualifygym.publicaciones.model.VistasUnicas.Ambito;
+import com.qualifygym.publicaciones.repository.VistasUnicasRepository;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Vistas únicas aproximadas de publicaciones con sketches {@link HyperLogLog}.
+ *
+ * Cada vista agrega el hash del visitante al sketch histórico de la publicación, al del día y al
+ * del tema en el día, acumulados en memoria. Un volcado periódico une lo acumulado con lo
+ * persistido en {@code publicaciones_vistas_unicas} (bloqueando las filas para que dos instancias
+ * no se pisen) y las lecturas unen lo persistido con lo que aún no se volcó. Como unir sketches es
+ * idempotente, si un volcado falla basta con devolver lo tomado a memoria.
+ */
+@Service
+public class VistasUnicasService {
+
+    // Tamaño de bloque de las claves consultadas por volcado (acota la cláusula IN)
+    private static final int TAMANO_BLOQUE = 1000;
+
+    private static final List<Ambito> AMBITOS_PUBLICACION = List.of(Ambito.PUBLICACION, Ambito.PUBLICACION_DIA);
+
+    @Autowired
+    private VistasUnicasRepository vistasRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${vistas.publicaciones.dias-retencion:90}")
+    private int diasRetencion = 90;
+
+    private record Clave(Ambito ambito, long clave, LocalDate dia) {
+    }
+
+    // Lo acumulado desde el último volcado y lo que el volcado en curso está persistiendo
+    private volatile Map<Clave, HyperLogLog> pendientes = new ConcurrentHashMap<>();
+    private volatile Map<Clave, HyperLogLog> enVuelo = new ConcurrentHashMap<>();
+
+    // Las vistas comparten el lock de lectura; tomar lo pendiente para volcarlo toma el de escritura
+    private final ReentrantReadWriteLock pendientesLock = new ReentrantReadWriteLock();
+
+    private final ReentrantLock volcando = new ReentrantLock();
+
+    /**
+     * Registrar la vista de una publicación por un visitante
+     * @param publicacionId ID de la publicación
+     * @param temaId Tema de la publicación (null para no contarla en el tema)
+     * @param visitante Identificador estable del visitante (usuario o dirección); sin él no se cuenta
+     */
+    public void registrar(Long publicacionId, Long temaId, String visitante) {
+        if (publicacionId == null || visitante == null || visitante.isBlank()) {
+            return;
+        }
+        long hash = TextoPublicacion.hash64(visitante);
+        LocalDate hoy = LocalDate.now();
+        pendientesLock.readLock().lock();
+        try {
+            agregar(new Clave(Ambito.PUBLICACION, publicacionId, VistasUnicas.DIA_HISTORICO), hash);
+            agregar(new Clave(Ambito.PUBLICACION_DIA, publicacionId, hoy), hash);
+            if (temaId != null) {
+                agregar(new Clave(Ambito.TEMA_DIA, temaId, hoy), hash);
+            }
+        } finally {
+            pendientesLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Visitantes distintos estimados de una publicación desde siempre
+     */
+    @Transactional(readOnly = true)
+    public long contarPublicacion(Long publicacionId) {
+        return contar(Ambito.PUBLICACION, publicacionId, VistasUnicas.DIA_HISTORICO, VistasUnicas.DIA_HISTORICO);
+    }
+
+    /**
+     * Visitantes distintos estimados de una publicación entre dos días (inclusive); quien la vio
+     * varios días cuenta una sola vez
+     */
+    @Transactional(readOnly = true)
+    public long contarPublicacion(Long publicacionId, LocalDate desde, LocalDate hasta) {
+        validarRango(desde, hasta);
+        return contar(Ambito.PUBLICACION_DIA, publicacionId, desde, hasta);
+    }
+
+    /**
+     * Visitantes distintos estimados de las publicaciones de un tema entre dos días (inclusive)
+     */
+    @Transactional(readOnly = true)
+    public long contarTema(Long temaId, LocalDate desde, LocalDate hasta) {
+        validarRango(desde, hasta);
+        return contar(Ambito.TEMA_DIA, temaId, desde, hasta);
+    }
+
+    /**
+     * Descartar las vistas de publicaciones eliminadas (las del tema se conservan).
+     * Se une a la transacción del llamador: lo pendiente en memoria se descarta solo si se
+     * confirma, y se espera a un volcado en curso y se impide otro hasta que concluya, para que
+     * un lote tomado antes del borrado no vuelva a insertar sketches de estas publicaciones.
+     * @param publicacionIds IDs de las publicaciones
+     */
+    public void quitarPublicaciones(Collection<Long> publicacionIds) {
+        if (publicacionIds == null || publicacionIds.isEmpty()) {
+            return;
+        }
+        Set<Long> ids = new HashSet<>(publicacionIds);
+        volcando.lock();
+        boolean liberarAlConcluir = false;
+        try {
+            vistasRepository.eliminarPorClaves(AMBITOS_PUBLICACION, ids);
+            TransaccionesUtil.alConfirmarYConcluir(() -> descartarPendientes(ids), volcando::unlock);
+            liberarAlConcluir = true;
+        } finally {
+            if (!liberarAlConcluir) {
+                volcando.unlock();
+            }
+        }
+    }
+
+    /**
+     * Eliminar los sketches diarios más antiguos que la retención configurada
+     * @return Número de sketches eliminados
+     */
+    @Scheduled(fixedDelayString = "${vistas.publicaciones.purga-ms:3600000}")
+    @Transactional
+    public int purgar() {
+        return vistasRepository.eliminarAnteriores(List.of(Ambito.PUBLICACION_DIA, Ambito.TEMA_DIA),
+                LocalDate.now().minusDays(diasRetencion));
+    }
+
+    // Ejecución periódica del volcado
+    @Scheduled(fixedDelayString = "${vistas.publicaciones.volcado-ms:60000}")
+    public void volcarProgramado() {
+        volcar();
+    }
+
+    // Persistir lo acumulado al detener la aplicación
+    @PreDestroy
+    public void alCerrar() {
+        volcar();
+    }
+
+    /**
+     * Unir los sketches acumulados en memoria con los persistidos, por ámbito y día en bloques,
+     * cada bloque en su propia transacción
+     * @return Número de sketches volcados
+     */
+    public int volcar() {
+        if (!volcando.tryLock()) {
+            return 0;
+        }
+        try {
+            pendientesLock.writeLock().lock();
+            try {
+                enVuelo = pendientes;
+                pendientes = new ConcurrentHashMap<>();
+            } finally {
+                pendientesLock.writeLock().unlock();
+            }
+            Map<Clave, HyperLogLog> lote = enVuelo;
+            if (lote.isEmpty()) {
+                return 0;
+            }
+            try {
+                TransactionTemplate transaccion = new TransactionTemplate(transactionManager);
+                for (Map.Entry<Clave, Map<Long, HyperLogLog>> grupo : agrupar(lote).entrySet()) {
+                    Ambito ambito = grupo.getKey().ambito();
+                    LocalDate dia = grupo.getKey().dia();
+                    for (Map<Long, HyperLogLog> bloque : particionar(grupo.getValue())) {
+                        transaccion.executeWithoutResult(status -> persistir(ambito, dia, bloque));
+                    }
+                }
+            } catch (RuntimeException e) {
+                devolver(lote);
+                throw e;
+            } finally {
+                enVuelo = new ConcurrentHashMap<>();
+            }
+            return lote.size();
+        } finally {
+            volcando.unlock();
+        }
+    }
+
+    private void descartarPendientes(Set<Long> ids) {
+        pendientesLock.readLock().lock();
+        try {
+            pendientes.keySet().removeIf(clave -> clave.ambito() != Ambito.TEMA_DIA && ids.contains(clave.clave()));
+        } finally {
+            pendientesLock.readLock().unlock();
+        }
+    }
+
+    private void agregar(Clave clave, long hash) {
+        pendientes.compute(clave, (c, sketch) -> {
+            HyperLogLog actual = sketch != null ? sketch : new HyperLogLog();
+            actual.agregar(hash);
+            return actual;
+        });
+    }
+
+    private long contar(Ambito ambito, Long clave, LocalDate desde, LocalDate hasta) {
+        if (clave == null) {
+            return 0L;
+        }
+        // Memoria antes que base de datos: si entretanto termina un volcado, lo volcado ya se lee persistido
+        HyperLogLog union = new HyperLogLog();
+        Map<Clave, HyperLogLog> acumulados = pendientes;
+        Map<Clave, HyperLogLog> volcandose = enVuelo;
+        for (LocalDate dia = desde; !dia.isAfter(hasta); dia = dia.plusDays(1)) {
+            Clave pendiente = new Clave(ambito, clave, dia);
+            acumulados.computeIfPresent(pendiente, (c, sketch) -> {
+                union.unir(sketch);
+                return sketch;
+            });
+            HyperLogLog tomado = volcandose.get(pendiente);
+            if (tomado != null) {
+                union.unir(tomado);
+            }
+        }
+        for (VistasUnicas persistido : vistasRepository.findEntreDias(ambito, clave, desde, hasta)) {
+            union.unir(HyperLogLog.desde(persistido.getSketch()));
+        }
+        return union.estimar();
+    }
+
+    private void validarRango(LocalDate desde, LocalDate hasta) {
+        if (desde == null || hasta == null || desde.isAfter(hasta) || ChronoUnit.DAYS.between(desde, hasta) >= diasRetencion) {
+            throw new RuntimeException("El rango de días es inválido (máximo " + diasRetencion + " días)");
+        }
+    }
+
+    // Une cada sketch pendiente con el persistido (si existe) y escribe el resultado con lotes JDBC
+    private void persistir(Ambito ambito, LocalDate dia, Map<Long, HyperLogLog> sketches) {
+        Map<Long, HyperLogLog> porClave = new HashMap<>(sketches);
+        List<Object[]> actualizaciones = new ArrayList<>();
+        for (VistasUnicas persistido : vistasRepository.findParaActualizar(ambito, porClave.keySet(), dia)) {
+            HyperLogLog union = HyperLogLog.desde(persistido.getSketch());
+            union.unir(porClave.remove(persistido.getClave()));
+            actualizaciones.add(new Object[] { union.serializar(), ambito.name(), persistido.getClave(), Date.valueOf(dia) });
+        }
+        List<Object[]> altas = new ArrayList<>();
+        for (Map.Entry<Long, HyperLogLog> nuevo : porClave.entrySet()) {
+            altas.add(new Object[] { ambito.name(), nuevo.getKey(), Date.valueOf(dia), nuevo.getValue().serializar() });
+        }
+        if (!actualizaciones.isEmpty()) {
+            jdbcTemplate.batchUpdate(
+                    "UPDATE publicaciones_vistas_unicas SET sketch = ? WHERE ambito = ? AND clave = ? AND dia = ?", actualizaciones);
+        }
+        if (!altas.isEmpty()) {
+            jdbcTemplate.batchUpdate(
+                    "INSERT INTO publicaciones_vistas_unicas (ambito, clave, dia, sketch) VALUES (?, ?, ?, ?)", altas);
+        }
+    }
+
+    // Lo tomado vuelve a memoria; unir es idempotente, así que lo que sí llegó a persistirse no se duplica
+    private void devolver(Map<Clave, HyperLogLog> lote) {
+        pendientesLock.readLock().lock();
+        try {
+            for (Map.Entry<Clave, HyperLogLog> sketch : lote.entrySet()) {
+                pendientes.merge(sketch.getKey(), sketch.getValue(), (actual, devuelto) -> {
+                    actual.unir(devuelto);
+                    return actual;
+                });
+            }
+        } finally {
+            pendientesLock.readLock().unlock();
+        }
+    }
+
+    private static Map<Clave, Map<Long, HyperLogLog>> agrupar(Map<Clave, HyperLogLog> lote) {
+        Map<Clave, Map<Long, HyperLogLog>> grupos = new HashMap<>();
+        for (Map.Entry<Clave, HyperLogLog> sketch : lote.entrySet()) {
+            Clave clave = sketch.getKey();
+            grupos.computeIfAbsent(new Clave(clave.ambito(), 0L, clave.dia()), g -> new HashMap<>())
+                    .put(clave.clave(), sketch.getValue());
+        }
+        return grupos;
+    }
+
+    private static List<Map<Long, HyperLogLog>> particionar(Map<Long, HyperLogLog> sketches) {
+        List<Map<Long, HyperLogLog>> bloques = new ArrayList<>();
+        Map<Long, HyperLogLog> bloque = new HashMap<>();
+        for (Map.Entry<Long, HyperLogLog> sketch : sketches.entrySet()) {
+            bloque.put(sketch.getKey(), sketch.getValue());
+            if (bloque.size() == TAMANO_BLOQUE) {
+                bloques.add(bloque);
+                bloque = new HashMap<>();
+            }
+        }
+        if (!bloque.isEmpty()) {
+            bloques.add(bloque);
+        }
+        return bloques;
+    }
+}
@@ -0,0 +1,207 @@
+package com.qualifygym.publicaciones.config;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicReference;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.support.PropertiesLoaderUtils;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.servlet.http.Cookie;
+
+/**
+ * Tests del enrutamiento primaria/réplica con dos bases H2 embebidas
+ *
+ * Cada base tiene una tabla {@code origen} con su propio nombre, de modo que la consulta
+ * revela a qué base fue realmente la conexión.
+ */
+class EnrutadorDataSourceTest {
+
+    private EmbeddedDatabase primaria;
+    private EmbeddedDatabase replica;
+    private JdbcTemplate jdbc;
+    private TransactionTemplate escritura;
+    private TransactionTemplate lectura;
+
+    @BeforeEach
+    void setUp() {
+        primaria = crearBase("primaria");
+        replica = crearBase("replica");
+
+        DataSource dataSource = crearEnrutador();
+        jdbc = new JdbcTemplate(dataSource);
+        PlatformTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+        escritura = new TransactionTemplate(transactionManager);
+        lectura = new TransactionTemplate(transactionManager);
+        lectura.setReadOnly(true);
+    }
+
+    // Enrutador sobre las mismas bases, como el de otra instancia del servicio
+    private DataSource crearEnrutador() {
+        EnrutadorDataSource enrutador = new EnrutadorDataSource(primaria, List.of(replica), 60_000);
+        enrutador.afterPropertiesSet();
+        return new LazyConnectionDataSourceProxy(enrutador);
+    }
+
+    @AfterEach
+    void tearDown() {
+        primaria.shutdown();
+        replica.shutdown();
+    }
+
+    private EmbeddedDatabase crearBase(String nombre) {
+        EmbeddedDatabase base = new EmbeddedDatabaseBuilder()
+                .setType(EmbeddedDatabaseType.H2)
+                .setName(nombre + System.nanoTime())
+                .build();
+        JdbcTemplate plantilla = new JdbcTemplate(base);
+        plantilla.execute("CREATE TABLE origen (nombre VARCHAR(20))");
+        plantilla.update("INSERT INTO origen VALUES (?)", nombre);
+        return base;
+    }
+
+    private String origen(TransactionTemplate transaccion) {
+        return transaccion.execute(status -> jdbc.queryForObject("SELECT nombre FROM origen", String.class));
+    }
+
+    // Ejecuta la acción como parte de una petición HTTP que reenvía las cookies indicadas; retorna la respuesta
+    private MockHttpServletResponse peticion(Cookie[] cookies, Runnable accion) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        if (cookies != null && cookies.length > 0) {
+            request.setCookies(cookies);
+        }
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        new ClienteLecturaFilter().doFilter(request, response, (req, res) -> accion.run());
+        return response;
+    }
+
+    /**
+     * Test: Enrutamiento básico
+     * Verifica que las transacciones de solo lectura van a la réplica y las de escritura a la primaria
+     */
+    @Test
+    void transaccionSoloLectura_debeIrALaReplica() {
+        assertEquals("replica", origen(lectura));
+        assertEquals("primaria", origen(escritura));
+    }
+
+    /**
+     * Test: Lectura de las propias escrituras
+     * Verifica que tras confirmar una escritura la respuesta lleva la marca de lectura propia, que las
+     * lecturas que la reenvían van a la primaria y que las de otros clientes siguen yendo a la réplica
+     */
+    @Test
+    void lecturaTrasEscrituraPropia_debeIrALaPrimaria() throws Exception {
+        AtomicReference<String> lecturaAutor = new AtomicReference<>();
+        AtomicReference<String> lecturaMismaPeticion = new AtomicReference<>();
+        AtomicReference<String> lecturaOtro = new AtomicReference<>();
+
+        MockHttpServletResponse respuesta = peticion(null, () -> {
+            escritura.executeWithoutResult(status -> jdbc.update("INSERT INTO origen VALUES ('nueva')"));
+            lecturaMismaPeticion.set(lectura.execute(status ->
+                    jdbc.queryForObject("SELECT COUNT(*) FROM origen", Integer.class).toString()));
+        });
+        peticion(respuesta.getCookies(), () -> lecturaAutor.set(lectura.execute(status ->
+                jdbc.queryForObject("SELECT COUNT(*) FROM origen", Integer.class).toString())));
+        peticion(null, () -> lecturaOtro.set(origen(lectura)));
+
+        assertNotNull(respuesta.getCookie(ClienteLecturaFilter.COOKIE_LECTURA_PRIMARIA));
+        assertNotNull(respuesta.getHeader(ClienteLecturaFilter.CABECERA_LECTURA_PRIMARIA));
+        assertEquals("2", lecturaMismaPeticion.get());
+        assertEquals("2", lecturaAutor.get());
+        assertEquals("replica", lecturaOtro.get());
+    }
+
+    /**
+     * Test: Lectura propia en otra instancia
+     * Verifica que la marca devuelta por una instancia la respeta otra, que no vio la escritura,
+     * tanto como cookie como en la cabecera
+     */
+    @Test
+    void lecturaTrasEscrituraPropia_enOtraInstancia_debeIrALaPrimaria() throws Exception {
+        AtomicReference<String> conCookie = new AtomicReference<>();
+        AtomicReference<String> conCabecera = new AtomicReference<>();
+
+        MockHttpServletResponse respuesta = peticion(null, () -> escritura.executeWithoutResult(status ->
+                jdbc.update("INSERT INTO origen VALUES ('nueva')")));
+
+        DataSource otraInstancia = crearEnrutador();
+        JdbcTemplate otraJdbc = new JdbcTemplate(otraInstancia);
+        TransactionTemplate otraLectura = new TransactionTemplate(new DataSourceTransactionManager(otraInstancia));
+        otraLectura.setReadOnly(true);
+        peticion(respuesta.getCookies(), () -> conCookie.set(otraLectura.execute(status ->
+                otraJdbc.queryForObject("SELECT COUNT(*) FROM origen", Integer.class).toString())));
+
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader(ClienteLecturaFilter.CABECERA_LECTURA_PRIMARIA,
+                respuesta.getHeader(ClienteLecturaFilter.CABECERA_LECTURA_PRIMARIA));
+        new ClienteLecturaFilter().doFilter(request, new MockHttpServletResponse(), (req, res) ->
+                conCabecera.set(otraLectura.execute(status ->
+                        otraJdbc.queryForObject("SELECT COUNT(*) FROM origen", Integer.class).toString())));
+
+        assertEquals("2", conCookie.get());
+        assertEquals("2", conCabecera.get());
+    }
+
+    /**
+     * Test: Marca fuera de la ventana
+     * Verifica que una marca más lejana que la ventana configurada se ignora
+     */
+    @Test
+    void marcaMasLejanaQueLaVentana_debeIgnorarse() throws Exception {
+        AtomicReference<String> resultado = new AtomicReference<>();
+        Cookie falsa = new Cookie(ClienteLecturaFilter.COOKIE_LECTURA_PRIMARIA,
+                Long.toString(System.currentTimeMillis() + 3_600_000));
+
+        peticion(new Cookie[] {falsa}, () -> resultado.set(origen(lectura)));
+
+        assertEquals("replica", resultado.get());
+    }
+
+    /**
+     * Test: Escritura revertida
+     * Verifica que una transacción que no se confirma no devuelve marca ni fija las lecturas en la primaria
+     */
+    @Test
+    void escrituraRevertida_noDebeFijarLaPrimaria() throws Exception {
+        AtomicReference<String> resultado = new AtomicReference<>();
+
+        MockHttpServletResponse respuesta = peticion(null, () -> escritura.executeWithoutResult(status -> {
+            jdbc.update("INSERT INTO origen VALUES ('nueva')");
+            status.setRollbackOnly();
+        }));
+        peticion(respuesta.getCookies(), () -> resultado.set(origen(lectura)));
+
+        assertNull(respuesta.getCookie(ClienteLecturaFilter.COOKIE_LECTURA_PRIMARIA));
+        assertEquals("replica", resultado.get());
+    }
+
+    /**
+     * Test: Open Session in View desactivado
+     * Verifica que la configuración no retiene la conexión de la primera transacción durante toda la petición
+     * (con open-in-view, una lectura tras una escritura reutilizaría la conexión a la primaria y viceversa)
+     */
+    @Test
+    void configuracion_debeDesactivarOpenInView() throws Exception {
+        Properties propiedades = PropertiesLoaderUtils.loadProperties(new ClassPathResource("application.properties"));
+
+        assertEquals("false", propiedades.getProperty("spring.jpa.open-in-view"));
+    }
+}
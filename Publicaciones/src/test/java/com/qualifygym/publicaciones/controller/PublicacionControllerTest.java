@@ -3,21 +3,40 @@ package com.qualifygym.publicaciones.controller;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 import static org.mockito.Mockito.*;
-
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.qualifygym.publicaciones.dto.CambiosPublicaciones;
+import com.qualifygym.publicaciones.dto.EtiquetaConteo;
+import com.qualifygym.publicaciones.dto.PaginaPublicaciones;
+import com.qualifygym.publicaciones.dto.ProgresoImportacion;
+import com.qualifygym.publicaciones.dto.PublicacionResumen;
+import com.qualifygym.publicaciones.model.BorradorPublicacion;
+import com.qualifygym.publicaciones.model.CambioPublicacion;
 import com.qualifygym.publicaciones.model.Publicacion;
+import com.qualifygym.publicaciones.service.GuardadasPublicacionService;
+import com.qualifygym.publicaciones.service.ImportacionPublicacionesService;
 import com.qualifygym.publicaciones.service.PublicacionService;
+import com.qualifygym.publicaciones.service.SilenciadosService;
+import com.qualifygym.publicaciones.service.VersionFeedsService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 /**
  * Tests de integración para PublicacionController
@@ -36,8 +55,22 @@ class PublicacionControllerTest {
     @MockBean
     private PublicacionService publicacionService;
 
+    @MockBean
+    private VersionFeedsService versionFeedsService;
+
+    @MockBean
+    private GuardadasPublicacionService guardadasPublicacionService;
+
+    @MockBean
+    private SilenciadosService silenciadosService;
+
+    @MockBean
+    private ImportacionPublicacionesService importacionPublicacionesService;
+
     private Publicacion publicacionTest;
 
+    private PublicacionResumen resumenTest;
+
     /**
      * Configuración inicial antes de cada test
      * Crea objetos de prueba para publicaciones
@@ -52,6 +85,12 @@ class PublicacionControllerTest {
         publicacionTest.setOculta(false);
         publicacionTest.setUsuarioId(1L);
         publicacionTest.setTemaId(1L);
+
+        resumenTest = new PublicacionResumen(1L, "Título de prueba", "Descripción de prueba",
+                publicacionTest.getFecha(), 1L, 1L, null);
+
+        when(guardadasPublicacionService.marcar(any(), any())).thenAnswer(invocacion -> invocacion.getArgument(0));
+        when(silenciadosService.filtrar(any(), any())).thenAnswer(invocacion -> invocacion.getArgument(0));
     }
 
     /**
@@ -62,9 +101,10 @@ class PublicacionControllerTest {
     void obtenerPublicacionesPorTema_deberiaRetornarListaYStatus200() throws Exception {
         // Arrange
         Long temaId = 1L;
-        List<Publicacion> publicaciones = List.of(publicacionTest);
+        List<PublicacionResumen> publicaciones = List.of(resumenTest);
 
-        when(publicacionService.obtenerPublicacionesVisiblesPorTema(temaId))
+        // Por defecto el feed retorna resúmenes
+        when(publicacionService.obtenerResumenesVisiblesPorTema(temaId))
                 .thenReturn(publicaciones);
 
         // Act & Assert
@@ -74,7 +114,8 @@ class PublicacionControllerTest {
                .andExpect(jsonPath("$[0].titulo").value("Título de prueba"))
                .andExpect(jsonPath("$[0].temaId").value(temaId));
 
-        verify(publicacionService, times(1)).obtenerPublicacionesVisiblesPorTema(temaId);
+        verify(publicacionService, times(1)).obtenerResumenesVisiblesPorTema(temaId);
+        verify(publicacionService, never()).obtenerPublicacionesVisiblesPorTema(anyLong());
     }
 
     /**
@@ -129,14 +170,15 @@ class PublicacionControllerTest {
         String requestBody = """
             {
                 "titulo": "Título actualizado",
-                "descripcion": "Descripción actualizada"
+                "descripcion": "Descripción actualizada",
+                "version": 0
             }
             """;
 
         publicacionTest.setTitulo("Título actualizado");
         publicacionTest.setDescripcion("Descripción actualizada");
 
-        when(publicacionService.actualizarPublicacion(id, "Título actualizado", "Descripción actualizada"))
+        when(publicacionService.actualizarPublicacion(id, "Título actualizado", "Descripción actualizada", 0L))
                 .thenReturn(publicacionTest);
 
         // Act & Assert
@@ -148,7 +190,7 @@ class PublicacionControllerTest {
                .andExpect(jsonPath("$.descripcion").value("Descripción actualizada"));
 
         verify(publicacionService, times(1))
-                .actualizarPublicacion(id, "Título actualizado", "Descripción actualizada");
+                .actualizarPublicacion(id, "Título actualizado", "Descripción actualizada", 0L);
     }
 
     /**
@@ -161,7 +203,8 @@ class PublicacionControllerTest {
         Long id = 1L;
         String requestBody = """
             {
-                "motivoBaneo": "Contenido inapropiado"
+                "motivoBaneo": "Contenido inapropiado",
+                "version": 0
             }
             """;
 
@@ -169,7 +212,7 @@ class PublicacionControllerTest {
         publicacionTest.setMotivoBaneo("Contenido inapropiado");
         publicacionTest.setFechaBaneo(LocalDateTime.now());
 
-        when(publicacionService.ocultarPublicacion(id, "Contenido inapropiado"))
+        when(publicacionService.ocultarPublicacion(id, "Contenido inapropiado", 0L))
                 .thenReturn(publicacionTest);
 
         // Act & Assert
@@ -180,7 +223,7 @@ class PublicacionControllerTest {
                .andExpect(jsonPath("$.oculta").value(true))
                .andExpect(jsonPath("$.motivoBaneo").value("Contenido inapropiado"));
 
-        verify(publicacionService, times(1)).ocultarPublicacion(id, "Contenido inapropiado");
+        verify(publicacionService, times(1)).ocultarPublicacion(id, "Contenido inapropiado", 0L);
     }
 
     /**
@@ -208,17 +251,227 @@ class PublicacionControllerTest {
     @Test
     void obtenerTodasPublicaciones_deberiaRetornarListaYStatus200() throws Exception {
         // Arrange
-        List<Publicacion> publicaciones = List.of(publicacionTest);
-        // El controller usa obtenerPublicacionesVisibles() por defecto (incluirOcultas=false)
-        when(publicacionService.obtenerPublicacionesVisibles()).thenReturn(publicaciones);
+        List<PublicacionResumen> publicaciones = List.of(resumenTest);
+        // El controller usa obtenerResumenesVisibles() por defecto (incluirOcultas=false, completo=false)
+        when(publicacionService.obtenerResumenesVisibles()).thenReturn(publicaciones);
 
         // Act & Assert
         mockMvc.perform(get("/api/v1/publicacion/publicaciones")
                .contentType(MediaType.APPLICATION_JSON))
                .andExpect(status().isOk())
+               .andExpect(jsonPath("$[0].titulo").value("Título de prueba"))
+               .andExpect(jsonPath("$[0].vistaPrevia").value("Descripción de prueba"))
+               .andExpect(jsonPath("$[0].motivoBaneo").doesNotExist());
+
+        verify(publicacionService, times(1)).obtenerResumenesVisibles();
+    }
+
+    @Test
+    void obtenerPublicacionesRelacionadas_deberiaRetornarResumenes() throws Exception {
+        // Arrange
+        when(publicacionService.obtenerPublicacionesRelacionadas(1L, 5)).thenReturn(List.of(resumenTest));
+
+        // Act & Assert
+        mockMvc.perform(get("/api/v1/publicacion/publicaciones/{id}/relacionadas", 1L)
+               .param("limite", "5"))
+               .andExpect(status().isOk())
                .andExpect(jsonPath("$[0].titulo").value("Título de prueba"));
+    }
+
+    @Test
+    void obtenerPublicacionesPorEtiqueta_deberiaPaginarYRechazarEtiquetaInvalida() throws Exception {
+        // Arrange
+        when(publicacionService.obtenerPublicacionesPorEtiqueta("piernas", 50L, 20)).thenReturn(List.of(resumenTest));
+        when(publicacionService.obtenerPublicacionesPorEtiqueta("123", null, 20))
+                .thenThrow(new RuntimeException("La etiqueta es inválida"));
+
+        // Act & Assert
+        mockMvc.perform(get("/api/v1/publicacion/publicaciones/tag/{tag}", "piernas")
+               .param("antesDe", "50"))
+               .andExpect(status().isOk())
+               .andExpect(jsonPath("$[0].titulo").value("Título de prueba"));
+        mockMvc.perform(get("/api/v1/publicacion/publicaciones/tag/{tag}", "123"))
+               .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void obtenerEtiquetasPopulares_deberiaRetornarConteos() throws Exception {
+        // Arrange
+        when(publicacionService.obtenerEtiquetasPopulares(5)).thenReturn(List.of(new EtiquetaConteo("piernas", 3L)));
+        when(publicacionService.contarPublicacionesPorEtiqueta("piernas")).thenReturn(3L);
+
+        // Act & Assert
+        mockMvc.perform(get("/api/v1/publicacion/publicaciones/tags/populares").param("limite", "5"))
+               .andExpect(status().isOk())
+               .andExpect(jsonPath("$[0].etiqueta").value("piernas"))
+               .andExpect(jsonPath("$[0].total").value(3));
+        mockMvc.perform(get("/api/v1/publicacion/publicaciones/tag/{tag}/count", "piernas"))
+               .andExpect(status().isOk())
+               .andExpect(content().string("3"));
+    }
+
+    @Test
+    void obtenerTodasPublicaciones_conUsuario_deberiaMarcarGuardadasYVariarElEtag() throws Exception {
+        // Arrange
+        when(guardadasPublicacionService.version(5L)).thenReturn(3L);
+        when(versionFeedsService.etagGlobal("r5.3")).thenReturn("W/\"42-r5.3\"");
+        when(publicacionService.obtenerResumenesVisibles()).thenReturn(List.of(resumenTest));
+        when(guardadasPublicacionService.marcar(List.of(resumenTest), 5L)).thenAnswer(invocacion -> {
+            resumenTest.setGuardada(true);
+            return List.of(resumenTest);
+        });
+
+        // Act & Assert
+        mockMvc.perform(get("/api/v1/publicacion/publicaciones").header("X-Usuario-Id", "5"))
+               .andExpect(status().isOk())
+               .andExpect(header().string("ETag", "W/\"42-r5.3\""))
+               .andExpect(header().string("Vary", org.hamcrest.Matchers.containsString("X-Usuario-Id")))
+               .andExpect(jsonPath("$[0].guardada").value(true));
+    }
+
+    @Test
+    void guardarPublicacion_deberiaGuardarYQuitar() throws Exception {
+        // Arrange
+        doThrow(new RuntimeException("Publicación no encontrada ID: 99"))
+                .when(publicacionService).guardarPublicacion(99L, 5L);
+
+        // Act & Assert
+        mockMvc.perform(put("/api/v1/publicacion/publicaciones/{id}/guardar", 1L)
+               .contentType(MediaType.APPLICATION_JSON)
+               .content("{\"usuarioId\": 5}"))
+               .andExpect(status().isOk())
+               .andExpect(jsonPath("$.guardada").value(true));
+        mockMvc.perform(put("/api/v1/publicacion/publicaciones/{id}/guardar", 99L)
+               .contentType(MediaType.APPLICATION_JSON)
+               .content("{\"usuarioId\": 5}"))
+               .andExpect(status().isBadRequest());
+        mockMvc.perform(delete("/api/v1/publicacion/publicaciones/{id}/guardar", 1L).param("usuarioId", "5"))
+               .andExpect(status().isOk())
+               .andExpect(jsonPath("$.guardada").value(false));
+
+        verify(publicacionService).guardarPublicacion(1L, 5L);
+        verify(publicacionService).quitarPublicacionGuardada(1L, 5L);
+    }
+
+    @Test
+    void obtenerTodasPublicaciones_paginado_deberiaRetornarCursorEnCabecera() throws Exception {
+        // Arrange
+        when(publicacionService.obtenerPaginaResumenesVisibles("c50", 1, 5L))
+                .thenReturn(new PaginaPublicaciones(List.of(resumenTest), "c1"));
+        when(publicacionService.obtenerPaginaResumenesVisibles("c1", 1, 5L))
+                .thenReturn(new PaginaPublicaciones(List.of(), null));
+        when(publicacionService.obtenerPaginaResumenesVisibles("50", 1, 5L))
+                .thenThrow(new RuntimeException("El cursor de la página es inválido"));
+
+        // Act & Assert
+        mockMvc.perform(get("/api/v1/publicacion/publicaciones").header("X-Usuario-Id", "5")
+               .param("antesDe", "c50").param("limite", "1"))
+               .andExpect(status().isOk())
+               .andExpect(header().string("X-Siguiente-Antes-De", "c1"))
+               .andExpect(jsonPath("$[0].idPublicacion").value(1));
+        mockMvc.perform(get("/api/v1/publicacion/publicaciones").header("X-Usuario-Id", "5")
+               .param("antesDe", "c1").param("limite", "1"))
+               .andExpect(status().isNoContent());
+        mockMvc.perform(get("/api/v1/publicacion/publicaciones").header("X-Usuario-Id", "5")
+               .param("antesDe", "50").param("limite", "1"))
+               .andExpect(status().isBadRequest());
+
+        verify(publicacionService, never()).obtenerResumenesVisibles();
+    }
+
+    @Test
+    void obtenerTodasPublicaciones_conSilenciados_deberiaFiltrarYVariarElEtag() throws Exception {
+        // Arrange
+        when(guardadasPublicacionService.version(5L)).thenReturn(3L);
+        when(silenciadosService.version(5L)).thenReturn(7L);
+        when(versionFeedsService.etagGlobal("r5.3.7")).thenReturn("W/\"42-r5.3.7\"");
+        when(publicacionService.obtenerResumenesVisibles()).thenReturn(List.of(resumenTest));
+        when(silenciadosService.filtrar(List.of(resumenTest), 5L)).thenReturn(List.of());
+
+        // Act & Assert
+        mockMvc.perform(get("/api/v1/publicacion/publicaciones").header("X-Usuario-Id", "5"))
+               .andExpect(status().isNoContent())
+               .andExpect(header().string("ETag", "W/\"42-r5.3.7\""));
+    }
+
+    @Test
+    void silenciarAutor_deberiaSilenciarYQuitar() throws Exception {
+        // Arrange
+        doThrow(new RuntimeException("Un usuario no puede silenciarse a sí mismo"))
+                .when(publicacionService).silenciarAutor(5L, 5L);
+        when(publicacionService.obtenerSilenciados(5L, null, 50)).thenReturn(List.of(9L));
+
+        // Act & Assert
+        mockMvc.perform(put("/api/v1/publicacion/publicaciones/usuario/{autorId}/silenciar", 9L)
+               .contentType(MediaType.APPLICATION_JSON)
+               .content("{\"usuarioId\": 5}"))
+               .andExpect(status().isOk())
+               .andExpect(jsonPath("$.silenciado").value(true));
+        mockMvc.perform(put("/api/v1/publicacion/publicaciones/usuario/{autorId}/silenciar", 5L)
+               .contentType(MediaType.APPLICATION_JSON)
+               .content("{\"usuarioId\": 5}"))
+               .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/v1/publicacion/publicaciones/silenciados/usuario/{usuarioId}", 5L))
+               .andExpect(status().isOk())
+               .andExpect(jsonPath("$[0]").value(9));
+        mockMvc.perform(delete("/api/v1/publicacion/publicaciones/usuario/{autorId}/silenciar", 9L).param("usuarioId", "5"))
+               .andExpect(status().isOk())
+               .andExpect(jsonPath("$.silenciado").value(false));
 
-        verify(publicacionService, times(1)).obtenerPublicacionesVisibles();
+        verify(publicacionService).silenciarAutor(5L, 9L);
+        verify(publicacionService).quitarSilenciado(5L, 9L);
+    }
+
+    @Test
+    void borradores_deberiaAutoguardarYPublicar() throws Exception {
+        // Arrange
+        when(publicacionService.autoguardarBorrador(7L, 5L, "Rutina", "Borrador", 1L, null))
+                .thenReturn(new BorradorPublicacion(7L, 5L, "Rutina", "Borrador", 1L, null, LocalDateTime.now()));
+        when(publicacionService.publicarBorrador(7L, 5L)).thenReturn(publicacionTest);
+        when(publicacionService.obtenerBorrador(8L, 5L)).thenReturn(Optional.empty());
+
+        // Act & Assert
+        mockMvc.perform(put("/api/v1/publicacion/publicaciones/borradores/{id}", 7L)
+               .contentType(MediaType.APPLICATION_JSON)
+               .content("{\"usuarioId\": 5, \"titulo\": \"Rutina\", \"descripcion\": \"Borrador\", \"temaId\": 1}"))
+               .andExpect(status().isOk())
+               .andExpect(jsonPath("$.idBorrador").value(7))
+               .andExpect(jsonPath("$.descripcion").value("Borrador"));
+        mockMvc.perform(post("/api/v1/publicacion/publicaciones/borradores/{id}/publicar", 7L)
+               .contentType(MediaType.APPLICATION_JSON)
+               .content("{\"usuarioId\": 5}"))
+               .andExpect(status().isCreated())
+               .andExpect(jsonPath("$.titulo").value("Título de prueba"));
+        mockMvc.perform(get("/api/v1/publicacion/publicaciones/borradores/{id}", 8L).param("usuarioId", "5"))
+               .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void obtenerTodasPublicaciones_conEtagVigente_deberiaRetornar304SinConsultar() throws Exception {
+        // Arrange
+        when(versionFeedsService.etagGlobal("r")).thenReturn("W/\"42-r\"");
+
+        // Act & Assert
+        mockMvc.perform(get("/api/v1/publicacion/publicaciones")
+               .header("If-None-Match", "W/\"42-r\""))
+               .andExpect(status().isNotModified())
+               .andExpect(header().string("ETag", "W/\"42-r\""));
+
+        verify(publicacionService, never()).obtenerResumenesVisibles();
+    }
+
+    @Test
+    void obtenerPublicacionesPorTema_conEtagAntiguo_deberiaRetornarListaConEtagNuevo() throws Exception {
+        // Arrange
+        when(versionFeedsService.etagTema(1L, "r")).thenReturn("W/\"43-r\"");
+        when(publicacionService.obtenerResumenesVisiblesPorTema(1L)).thenReturn(List.of(resumenTest));
+
+        // Act & Assert
+        mockMvc.perform(get("/api/v1/publicacion/publicaciones/tema/1")
+               .header("If-None-Match", "W/\"42-r\""))
+               .andExpect(status().isOk())
+               .andExpect(header().string("ETag", "W/\"43-r\""))
+               .andExpect(jsonPath("$[0].titulo").value("Título de prueba"));
     }
 
     /**
@@ -249,8 +502,8 @@ class PublicacionControllerTest {
     void obtenerPublicacionesPorUsuario_deberiaRetornarListaYStatus200() throws Exception {
         // Arrange
         Long usuarioId = 1L;
-        List<Publicacion> publicaciones = List.of(publicacionTest);
-        when(publicacionService.obtenerPublicacionesVisiblesPorUsuario(usuarioId)).thenReturn(publicaciones);
+        List<PublicacionResumen> publicaciones = List.of(resumenTest);
+        when(publicacionService.obtenerResumenesVisiblesPorUsuario(usuarioId)).thenReturn(publicaciones);
 
         // Act & Assert
         mockMvc.perform(get("/api/v1/publicacion/publicaciones/usuario/{usuarioId}", usuarioId)
@@ -258,7 +511,7 @@ class PublicacionControllerTest {
                .andExpect(status().isOk())
                .andExpect(jsonPath("$[0].usuarioId").value(usuarioId));
 
-        verify(publicacionService, times(1)).obtenerPublicacionesVisiblesPorUsuario(usuarioId);
+        verify(publicacionService, times(1)).obtenerResumenesVisiblesPorUsuario(usuarioId);
     }
 
     /**
@@ -269,9 +522,9 @@ class PublicacionControllerTest {
     void buscarPublicaciones_deberiaRetornarListaYStatus200() throws Exception {
         // Arrange
         String query = "test";
-        List<Publicacion> publicaciones = List.of(publicacionTest);
+        List<PublicacionResumen> publicaciones = List.of(resumenTest);
         // El servicio usa trim() en el query
-        when(publicacionService.buscarPublicaciones(query)).thenReturn(publicaciones);
+        when(publicacionService.buscarResumenes(query)).thenReturn(publicaciones);
 
         // Act & Assert
         mockMvc.perform(get("/api/v1/publicacion/publicaciones/buscar")
@@ -280,7 +533,7 @@ class PublicacionControllerTest {
                .andExpect(status().isOk())
                .andExpect(jsonPath("$[0].titulo").value("Título de prueba"));
 
-        verify(publicacionService, times(1)).buscarPublicaciones(query);
+        verify(publicacionService, times(1)).buscarResumenes(query);
     }
 
     /**
@@ -331,12 +584,13 @@ class PublicacionControllerTest {
         Long id = 1L;
         String requestBody = """
             {
-                "imageUrl": "https://example.com/image.jpg"
+                "imageUrl": "https://example.com/image.jpg",
+                "version": 0
             }
             """;
 
         publicacionTest.setImageUrl("https://example.com/image.jpg");
-        when(publicacionService.actualizarImagenPublicacion(id, "https://example.com/image.jpg"))
+        when(publicacionService.actualizarImagenPublicacion(id, "https://example.com/image.jpg", 0L))
                 .thenReturn(publicacionTest);
 
         // Act & Assert
@@ -346,7 +600,7 @@ class PublicacionControllerTest {
                .andExpect(status().isOk())
                .andExpect(jsonPath("$.imageUrl").value("https://example.com/image.jpg"));
 
-        verify(publicacionService, times(1)).actualizarImagenPublicacion(id, "https://example.com/image.jpg");
+        verify(publicacionService, times(1)).actualizarImagenPublicacion(id, "https://example.com/image.jpg", 0L);
     }
 
     /**
@@ -361,15 +615,16 @@ class PublicacionControllerTest {
         publicacionTest.setFechaBaneo(null);
         publicacionTest.setMotivoBaneo(null);
 
-        when(publicacionService.mostrarPublicacion(id)).thenReturn(publicacionTest);
+        when(publicacionService.mostrarPublicacion(id, 0L)).thenReturn(publicacionTest);
 
         // Act & Assert
         mockMvc.perform(put("/api/v1/publicacion/publicaciones/{id}/mostrar", id)
+               .param("version", "0")
                .contentType(MediaType.APPLICATION_JSON))
                .andExpect(status().isOk())
                .andExpect(jsonPath("$.oculta").value(false));
 
-        verify(publicacionService, times(1)).mostrarPublicacion(id);
+        verify(publicacionService, times(1)).mostrarPublicacion(id, 0L);
     }
 
     /**
@@ -380,7 +635,7 @@ class PublicacionControllerTest {
     void existePublicacion_conIdExistente_deberiaRetornarTrue() throws Exception {
         // Arrange
         Long id = 1L;
-        when(publicacionService.obtenerPublicacionPorId(id)).thenReturn(Optional.of(publicacionTest));
+        when(publicacionService.existePublicacion(id)).thenReturn(true);
 
         // Act & Assert
         mockMvc.perform(get("/api/v1/publicacion/existe/{id}", id)
@@ -388,6 +643,292 @@ class PublicacionControllerTest {
                .andExpect(status().isOk())
                .andExpect(content().string("true"));
 
-        verify(publicacionService, times(1)).obtenerPublicacionPorId(id);
+        verify(publicacionService, times(1)).existePublicacion(id);
+        verify(publicacionService, never()).obtenerPublicacionPorId(anyLong());
+    }
+
+    /**
+     * Test: PUT /publicaciones/lote/ocultar - Ocultar publicaciones en lote
+     * Verifica que el endpoint delega en la moderación masiva y retorna el número procesado
+     */
+    @Test
+    void ocultarPublicacionesEnLote_conIds_deberiaRetornarProcesadas() throws Exception {
+        // Arrange
+        String requestBody = """
+            {
+                "ids": [1, 2, 3],
+                "motivoBaneo": "Spam"
+            }
+            """;
+        when(publicacionService.ocultarPublicaciones(List.of(1L, 2L, 3L), "Spam")).thenReturn(3);
+
+        // Act & Assert
+        mockMvc.perform(put("/api/v1/publicacion/publicaciones/lote/ocultar")
+               .contentType(MediaType.APPLICATION_JSON)
+               .content(requestBody))
+               .andExpect(status().isOk())
+               .andExpect(jsonPath("$.procesadas").value(3));
+
+        verify(publicacionService, times(1)).ocultarPublicaciones(List.of(1L, 2L, 3L), "Spam");
+    }
+
+    /**
+     * Test: GET /existen?ids=... - Verificar existencia de varias publicaciones
+     * Verifica que el endpoint retorna un mapa id -> existe en una sola llamada
+     */
+    @Test
+    void existenPublicaciones_deberiaRetornarMapaDeExistencia() throws Exception {
+        // Arrange
+        java.util.Map<Long, Boolean> existencia = new LinkedHashMap<>();
+        existencia.put(1L, true);
+        existencia.put(2L, false);
+        when(publicacionService.existenPublicaciones(List.of(1L, 2L))).thenReturn(existencia);
+
+        // Act & Assert
+        mockMvc.perform(get("/api/v1/publicacion/existen")
+               .param("ids", "1,2"))
+               .andExpect(status().isOk())
+               .andExpect(jsonPath("$['1']").value(true))
+               .andExpect(jsonPath("$['2']").value(false));
+
+        verify(publicacionService, times(1)).existenPublicaciones(List.of(1L, 2L));
+    }
+
+    /**
+     * Test: GET /publicaciones/tema/{id}?completo=true - Obtener publicaciones completas por tema
+     * Verifica que con completo=true el endpoint retorna las entidades completas
+     */
+    @Test
+    void obtenerPublicacionesPorTema_conCompleto_deberiaRetornarPublicacionesCompletas() throws Exception {
+        // Arrange
+        Long temaId = 1L;
+        when(publicacionService.obtenerPublicacionesVisiblesPorTema(temaId)).thenReturn(List.of(publicacionTest));
+
+        // Act & Assert
+        mockMvc.perform(get("/api/v1/publicacion/publicaciones/tema/{temaId}", temaId)
+               .param("completo", "true"))
+               .andExpect(status().isOk())
+               .andExpect(jsonPath("$[0].descripcion").value("Descripción de prueba"));
+
+        verify(publicacionService, never()).obtenerResumenesVisiblesPorTema(anyLong());
+    }
+
+    /**
+     * Test: GET /publicaciones/exportar - Exportar publicaciones como NDJSON
+     * Verifica que la respuesta se transmite con una publicación JSON por línea
+     */
+    @SuppressWarnings("unchecked")
+    @Test
+    void exportarPublicaciones_deberiaTransmitirNdjson() throws Exception {
+        // Arrange
+        doAnswer(invocation -> {
+            Consumer<Publicacion> consumidor = invocation.getArgument(1);
+            consumidor.accept(publicacionTest);
+            consumidor.accept(publicacionTest);
+            return 2L;
+        }).when(publicacionService).exportarPublicaciones(isNull(), any(Consumer.class));
+
+        // Act
+        MvcResult resultado = mockMvc.perform(get("/api/v1/publicacion/publicaciones/exportar"))
+               .andExpect(request().asyncStarted())
+               .andReturn();
+
+        // Assert
+        String cuerpo = mockMvc.perform(asyncDispatch(resultado))
+               .andExpect(status().isOk())
+               .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+               .andReturn().getResponse().getContentAsString();
+        String[] lineas = cuerpo.split("\n");
+        org.junit.jupiter.api.Assertions.assertEquals(2, lineas.length);
+        org.junit.jupiter.api.Assertions.assertTrue(lineas[0].contains("\"idPublicacion\":1"));
+    }
+
+    /**
+     * Test: POST /publicaciones/importar - Importación masiva desde CSV
+     * Verifica que el formato se toma del Content-Type y que los errores y el resumen se transmiten como NDJSON
+     */
+    @SuppressWarnings("unchecked")
+    @Test
+    void importarPublicaciones_csv_deberiaTransmitirErroresYResumen() throws Exception {
+        // Arrange
+        when(importacionPublicacionesService.importar(any(), eq(ImportacionPublicacionesService.Formato.CSV), any(Consumer.class)))
+                .thenAnswer(invocation -> {
+                    Consumer<ProgresoImportacion> informe = invocation.getArgument(2);
+                    informe.accept(ProgresoImportacion.error(3L, "El ID de tema es inválido"));
+                    ProgresoImportacion resumen = ProgresoImportacion.avance(2L, 1L, 1L);
+                    resumen.setFinalizada(true);
+                    return resumen;
+                });
+
+        // Act
+        MvcResult resultado = mockMvc.perform(post("/api/v1/publicacion/publicaciones/importar")
+               .contentType("text/csv")
+               .content("titulo,descripcion,usuarioId,temaId\nA,uno,1,2\nB,dos,1,x\n"))
+               .andExpect(request().asyncStarted())
+               .andReturn();
+
+        // Assert
+        String cuerpo = mockMvc.perform(asyncDispatch(resultado))
+               .andExpect(status().isOk())
+               .andReturn().getResponse().getContentAsString();
+        String[] lineas = cuerpo.split("\n");
+        assertEquals(2, lineas.length);
+        assertTrue(lineas[0].contains("\"linea\":3"));
+        assertTrue(lineas[1].contains("\"finalizada\":true"));
+    }
+
+    /**
+     * Test: GET /publicaciones/cambios - Sincronización incremental
+     * Verifica que el endpoint retorna los cambios y la nueva marca
+     */
+    @Test
+    void obtenerCambios_deberiaRetornarCambiosYMarca() throws Exception {
+        // Arrange
+        CambiosPublicaciones respuesta = new CambiosPublicaciones(15L, false, false,
+                List.of(new CambiosPublicaciones.Cambio(15L, 1L, CambioPublicacion.Tipo.ACTUALIZADA, resumenTest)));
+        when(publicacionService.obtenerCambios(10L, 500)).thenReturn(respuesta);
+
+        // Act & Assert
+        mockMvc.perform(get("/api/v1/publicacion/publicaciones/cambios").param("desde", "10"))
+               .andExpect(status().isOk())
+               .andExpect(jsonPath("$.marca").value(15))
+               .andExpect(jsonPath("$.cambios[0].tipo").value("ACTUALIZADA"))
+               .andExpect(jsonPath("$.cambios[0].publicacion.titulo").value("Título de prueba"));
+    }
+
+    /**
+     * Test: PUT /publicaciones/{id} con versión desactualizada
+     * Verifica que una modificación concurrente se informa con status 409
+     */
+    @Test
+    void actualizarPublicacion_conVersionDesactualizada_deberiaRetornarStatus409() throws Exception {
+        // Arrange
+        String requestBody = """
+            {
+                "titulo": "Título actualizado",
+                "version": 3
+            }
+            """;
+        when(publicacionService.actualizarPublicacion(1L, "Título actualizado", null, 3L))
+                .thenThrow(new OptimisticLockingFailureException("La publicación ID: 1 fue modificada por otra operación"));
+
+        // Act & Assert
+        mockMvc.perform(put("/api/v1/publicacion/publicaciones/{id}", 1L)
+               .contentType(MediaType.APPLICATION_JSON)
+               .content(requestBody))
+               .andExpect(status().isConflict());
+    }
+
+    /**
+     * Test: PUT /publicaciones/{id} sin versión
+     * Verifica que una modificación sin la versión leída se rechaza con status 428 sin llegar al servicio
+     */
+    @Test
+    void actualizarPublicacion_sinVersion_deberiaRetornarStatus428() throws Exception {
+        // Arrange
+        String requestBody = """
+            {
+                "titulo": "Título actualizado"
+            }
+            """;
+
+        // Act & Assert
+        mockMvc.perform(put("/api/v1/publicacion/publicaciones/{id}", 1L)
+               .contentType(MediaType.APPLICATION_JSON)
+               .content(requestBody))
+               .andExpect(status().isPreconditionRequired());
+
+        verify(publicacionService, never()).actualizarPublicacion(anyLong(), any(), any(), any());
+    }
+
+    @Test
+    void reaccionarPublicacion_deberiaRetornarTotal() throws Exception {
+        // Arrange
+        when(publicacionService.contarReacciones(1L)).thenReturn(8L, 7L);
+        doThrow(new RuntimeException("Publicación no encontrada ID: 99"))
+                .when(publicacionService).reaccionarPublicacion(99L, 5L);
+
+        // Act & Assert
+        mockMvc.perform(put("/api/v1/publicacion/publicaciones/{id}/reaccion", 1L)
+               .contentType(MediaType.APPLICATION_JSON)
+               .content("{\"usuarioId\": 5}"))
+               .andExpect(status().isOk())
+               .andExpect(jsonPath("$.reaccionada").value(true))
+               .andExpect(jsonPath("$.total").value(8));
+        mockMvc.perform(delete("/api/v1/publicacion/publicaciones/{id}/reaccion", 1L).param("usuarioId", "5"))
+               .andExpect(status().isOk())
+               .andExpect(jsonPath("$.reaccionada").value(false))
+               .andExpect(jsonPath("$.total").value(7));
+        mockMvc.perform(put("/api/v1/publicacion/publicaciones/{id}/reaccion", 99L)
+               .contentType(MediaType.APPLICATION_JSON)
+               .content("{\"usuarioId\": 5}"))
+               .andExpect(status().isBadRequest());
+
+        verify(publicacionService).reaccionarPublicacion(1L, 5L);
+        verify(publicacionService).quitarReaccionPublicacion(1L, 5L);
+    }
+
+    @Test
+    void contarReacciones_deVariasPublicaciones_deberiaRetornarMapa() throws Exception {
+        // Arrange
+        Map<Long, Long> totales = new java.util.LinkedHashMap<>();
+        totales.put(1L, 3L);
+        totales.put(2L, 0L);
+        when(publicacionService.contarReacciones(List.of(1L, 2L))).thenReturn(totales);
+        when(publicacionService.contarReacciones(1L)).thenReturn(3L);
+        when(publicacionService.haReaccionado(1L, 5L)).thenReturn(true);
+
+        // Act & Assert
+        mockMvc.perform(get("/api/v1/publicacion/publicaciones/reacciones").param("ids", "1,2"))
+               .andExpect(status().isOk())
+               .andExpect(jsonPath("$['1']").value(3))
+               .andExpect(jsonPath("$['2']").value(0));
+        mockMvc.perform(get("/api/v1/publicacion/publicaciones/{id}/reacciones", 1L).param("usuarioId", "5"))
+               .andExpect(status().isOk())
+               .andExpect(jsonPath("$.total").value(3))
+               .andExpect(jsonPath("$.reaccionada").value(true));
+    }
+
+    @Test
+    void obtenerVistasUnicas_deberiaRetornarHistoricoYPeriodo() throws Exception {
+        // Arrange
+        when(publicacionService.contarVistasUnicas(1L)).thenReturn(120L);
+        when(publicacionService.contarVistasUnicas(eq(1L), any(), any())).thenReturn(15L);
+        when(publicacionService.contarVistasUnicasPorTema(eq(3L), any(), any()))
+                .thenThrow(new RuntimeException("El rango de días es inválido (máximo 90 días)"));
+
+        // Act & Assert
+        mockMvc.perform(get("/api/v1/publicacion/publicaciones/{id}/vistas", 1L)
+               .param("desde", "2026-10-01").param("hasta", "2026-10-07"))
+               .andExpect(status().isOk())
+               .andExpect(jsonPath("$.unicas").value(120))
+               .andExpect(jsonPath("$.unicasPeriodo").value(15))
+               .andExpect(jsonPath("$.desde").value("2026-10-01"));
+        mockMvc.perform(get("/api/v1/publicacion/publicaciones/vistas/tema/{temaId}", 3L))
+               .andExpect(status().isBadRequest());
+
+        verify(publicacionService).contarVistasUnicas(1L, LocalDate.of(2026, 10, 1), LocalDate.of(2026, 10, 7));
+    }
+
+    @Test
+    void obtenerEstadisticas_deberiaRetornarDiasPorTemaYTotal() throws Exception {
+        // Arrange
+        when(publicacionService.obtenerEstadisticas(LocalDate.of(2026, 9, 20), LocalDate.of(2026, 10, 19), 2L)).thenReturn(List.of(
+                new com.qualifygym.publicaciones.model.ActividadDiaria(LocalDate.of(2026, 10, 1), 2L, 5L, 1L),
+                new com.qualifygym.publicaciones.model.ActividadDiaria(LocalDate.of(2026, 10, 2), 2L, 3L, 0L)));
+        when(publicacionService.obtenerEstadisticas(eq(LocalDate.of(2020, 1, 1)), any(), isNull()))
+                .thenThrow(new RuntimeException("El rango de días es inválido (máximo 366 días)"));
+
+        // Act & Assert
+        mockMvc.perform(get("/api/v1/publicacion/publicaciones/estadisticas")
+               .param("hasta", "2026-10-19").param("temaId", "2"))
+               .andExpect(status().isOk())
+               .andExpect(jsonPath("$.desde").value("2026-09-20"))
+               .andExpect(jsonPath("$.temaId").value(2))
+               .andExpect(jsonPath("$.publicadas").value(8))
+               .andExpect(jsonPath("$.dias[0].dia").value("2026-10-01"))
+               .andExpect(jsonPath("$.dias[0].visibles").value(4));
+        mockMvc.perform(get("/api/v1/publicacion/publicaciones/estadisticas").param("desde", "2020-01-01"))
+               .andExpect(status().isBadRequest());
     }
 }
@@ -0,0 +1,268 @@
+package com.qualifygym.publicaciones.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import com.qualifygym.publicaciones.model.ActividadDiaria;
+import com.qualifygym.publicaciones.repository.ActividadDiariaRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Tests unitarios para ActividadDiariaService
+ *
+ * Verifican que las consultas suman a los resúmenes persistidos los deltas aún no volcados,
+ * que el volcado agrega los deltas en un upsert por día y tema (y los conserva si falla) y que
+ * el relleno del histórico recalcula por tramos de días hasta ayer, continuando desde el último
+ * día recalculado, sin contar dos veces lo que se confirma durante un recuento.
+ */
+class ActividadDiariaServiceTest {
+
+    private static final LocalDate DIA = LocalDate.of(2025, 3, 10);
+
+    @Mock
+    private ActividadDiariaRepository actividadRepository;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @InjectMocks
+    private ActividadDiariaService actividadService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+    }
+
+    /**
+     * Test: Consultar con deltas pendientes
+     * Verifica que se suman a lo persistido, que crean días nuevos y que se descartan los de otro tema o vacíos
+     */
+    @Test
+    void obtener_debeSumarDeltasPendientes() {
+        // Arrange
+        List<ActividadDiaria> persistidas = new ArrayList<>();
+        persistidas.add(new ActividadDiaria(DIA, 2L, 5L, 1L));
+        when(actividadRepository.findEntreDias(DIA, DIA.plusDays(1), 2L)).thenReturn(persistidas);
+        actividadService.registrarCreada(2L, DIA.atTime(9, 0), false);
+        actividadService.registrarVisibilidad(2L, DIA.atTime(10, 0), true);
+        actividadService.registrarCreada(2L, DIA.plusDays(1).atTime(23, 59), false);
+        actividadService.registrarCreada(3L, DIA.atTime(9, 0), false);
+        // Creada y eliminada en la misma ventana: el día queda sin publicaciones
+        actividadService.registrarCreada(2L, DIA.minusDays(1).atTime(8, 0), false);
+        actividadService.registrarEliminada(2L, DIA.minusDays(1).atTime(8, 0), false);
+
+        // Act
+        List<ActividadDiaria> resultado = actividadService.obtener(DIA, DIA.plusDays(1), 2L);
+
+        // Assert
+        assertEquals(List.of(new ActividadDiaria(DIA, 2L, 6L, 2L), new ActividadDiaria(DIA.plusDays(1), 2L, 1L, 0L)), resultado);
+        assertEquals(4L, resultado.get(0).getVisibles());
+    }
+
+    /**
+     * Test: Rango inválido
+     * Verifica que se rechazan rangos invertidos o de más días que el máximo
+     */
+    @Test
+    void obtener_conRangoInvalido_debeLanzarExcepcion() {
+        assertThrows(RuntimeException.class, () -> actividadService.obtener(DIA, DIA.minusDays(1), null));
+        assertThrows(RuntimeException.class, () -> actividadService.obtener(DIA, DIA.plusDays(366), null));
+        verifyNoInteractions(actividadRepository);
+    }
+
+    /**
+     * Test: Volcado
+     * Verifica que los deltas de cada día y tema se escriben en un solo upsert y dejan de contar como pendientes
+     */
+    @SuppressWarnings("unchecked")
+    @Test
+    void volcar_debeEscribirUnUpsertPorDiaYTema() {
+        // Arrange
+        actividadService.registrarCreada(2L, DIA.atTime(9, 0), false);
+        actividadService.registrarCreada(2L, DIA.atTime(11, 0), true);
+        actividadService.registrarCreada(2L, DIA.atTime(12, 0), false);
+        actividadService.registrarCreada(3L, DIA.atTime(12, 0), false);
+
+        // Act
+        int volcados = actividadService.volcar();
+
+        // Assert
+        assertEquals(2, volcados);
+        ArgumentCaptor<List<Object[]>> filas = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).batchUpdate(startsWith("INSERT INTO publicaciones_actividad_diaria "), filas.capture());
+        List<Object[]> escritas = filas.getValue().stream().sorted(Comparator.comparing(fila -> (Long) fila[1])).toList();
+        assertArrayEquals(new Object[] { Date.valueOf(DIA), 2L, 3L, 1L }, escritas.get(0));
+        assertArrayEquals(new Object[] { Date.valueOf(DIA), 3L, 1L, 0L }, escritas.get(1));
+        assertEquals(List.of(), actividadService.obtener(DIA, DIA, null));
+        assertEquals(0, actividadService.volcar());
+    }
+
+    /**
+     * Test: Volcado fallido
+     * Verifica que los deltas vuelven a quedar pendientes, se siguen viendo en las consultas y se suman a los nuevos
+     */
+    @SuppressWarnings("unchecked")
+    @Test
+    void volcar_fallido_debeConservarLosDeltas() {
+        // Arrange
+        when(jdbcTemplate.batchUpdate(anyString(), anyList()))
+                .thenThrow(new DataIntegrityViolationException("fallo"))
+                .thenReturn(new int[] { 1 });
+        actividadService.registrarCreada(2L, DIA.atTime(9, 0), false);
+
+        // Act & Assert
+        assertThrows(DataIntegrityViolationException.class, () -> actividadService.volcar());
+        actividadService.registrarCreada(2L, DIA.atTime(10, 0), false);
+        assertEquals(List.of(new ActividadDiaria(DIA, 2L, 2L, 0L)), actividadService.obtener(DIA, DIA, null));
+        assertEquals(1, actividadService.volcar());
+        ArgumentCaptor<List<Object[]>> filas = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate, times(2)).batchUpdate(anyString(), filas.capture());
+        assertArrayEquals(new Object[] { Date.valueOf(DIA), 2L, 2L, 0L }, filas.getValue().get(0));
+    }
+
+    /**
+     * Test: Relleno del histórico
+     * Verifica que recalcula desde el día de la publicación más antigua por tramos y se detiene antes de hoy
+     */
+    @Test
+    void rellenarHistorico_debeRecalcularPorTramosHastaAyer() {
+        // Arrange
+        ReflectionTestUtils.setField(actividadService, "diasRelleno", 10);
+        LocalDate hoy = LocalDate.now();
+        LocalDate primerDia = hoy.minusDays(15);
+        when(jdbcTemplate.queryForObject("SELECT MIN(fecha) FROM publicaciones", Timestamp.class))
+                .thenReturn(Timestamp.valueOf(hoy.minusDays(3).atTime(8, 0)));
+        when(jdbcTemplate.queryForObject("SELECT MIN(fecha) FROM publicaciones_archivo", Timestamp.class))
+                .thenReturn(Timestamp.valueOf(primerDia.atTime(20, 0)));
+
+        // Act
+        int primerTramo = actividadService.rellenarHistorico();
+        int segundoTramo = actividadService.rellenarHistorico();
+        int tercerTramo = actividadService.rellenarHistorico();
+
+        // Assert
+        assertEquals(10, primerTramo);
+        assertEquals(5, segundoTramo);
+        assertEquals(0, tercerTramo);
+        verify(jdbcTemplate).update(startsWith("DELETE FROM publicaciones_actividad_diaria"),
+                eq(Date.valueOf(primerDia)), eq(Date.valueOf(primerDia.plusDays(9))));
+        verify(jdbcTemplate).update(startsWith("DELETE FROM publicaciones_actividad_diaria"),
+                eq(Date.valueOf(primerDia.plusDays(10))), eq(Date.valueOf(hoy.minusDays(1))));
+        verify(jdbcTemplate).update(startsWith("INSERT INTO publicaciones_actividad_diaria"),
+                eq(Timestamp.valueOf(primerDia.atStartOfDay())), eq(Timestamp.valueOf(primerDia.plusDays(10).atStartOfDay())),
+                eq(Timestamp.valueOf(primerDia.atStartOfDay())), eq(Timestamp.valueOf(primerDia.plusDays(10).atStartOfDay())));
+        verify(jdbcTemplate, times(1)).queryForObject("SELECT MIN(fecha) FROM publicaciones", Timestamp.class);
+    }
+
+    /**
+     * Test: Recalcular con deltas pendientes
+     * Verifica que los deltas se vuelcan antes del recuento para no sumarse sobre él
+     */
+    @Test
+    void recalcular_debeVolcarAntesDelRecuento() {
+        // Arrange
+        actividadService.registrarVisibilidad(2L, LocalDateTime.of(2024, 1, 5, 10, 0), true);
+
+        // Act
+        actividadService.recalcular(LocalDate.of(2024, 1, 1), LocalDate.of(2024, 1, 31));
+
+        // Assert
+        InOrder orden = inOrder(jdbcTemplate);
+        orden.verify(jdbcTemplate).batchUpdate(startsWith("INSERT INTO publicaciones_actividad_diaria "), anyList());
+        orden.verify(jdbcTemplate).update(startsWith("DELETE FROM publicaciones_actividad_diaria"),
+                eq(Date.valueOf(LocalDate.of(2024, 1, 1))), eq(Date.valueOf(LocalDate.of(2024, 1, 31))));
+        Timestamp inicio = Timestamp.valueOf(LocalDateTime.of(2024, 1, 1, 0, 0));
+        Timestamp fin = Timestamp.valueOf(LocalDateTime.of(2024, 2, 1, 0, 0));
+        orden.verify(jdbcTemplate).update(startsWith("INSERT INTO publicaciones_actividad_diaria"), eq(inicio), eq(fin), eq(inicio), eq(fin));
+    }
+
+    /**
+     * Test: Relleno del histórico con marcador persistido
+     * Verifica que continúa desde el día siguiente al último recalculado sin buscar la publicación más antigua
+     */
+    @Test
+    void rellenarHistorico_conMarcador_debeContinuarDesdeElDiaSiguiente() {
+        // Arrange
+        LocalDate hoy = LocalDate.now();
+        when(jdbcTemplate.queryForList(startsWith("SELECT hasta FROM publicaciones_actividad_relleno"), eq(Date.class), any()))
+                .thenReturn(List.of(Date.valueOf(hoy.minusDays(3))));
+
+        // Act
+        int tramo = actividadService.rellenarHistorico();
+        int siguiente = actividadService.rellenarHistorico();
+
+        // Assert
+        assertEquals(2, tramo);
+        assertEquals(0, siguiente);
+        verify(jdbcTemplate).update(startsWith("DELETE FROM publicaciones_actividad_diaria"),
+                eq(Date.valueOf(hoy.minusDays(2))), eq(Date.valueOf(hoy.minusDays(1))));
+        verify(jdbcTemplate).update(startsWith("INSERT INTO publicaciones_actividad_relleno"),
+                eq(1), eq(Date.valueOf(hoy.minusDays(1))));
+        verify(jdbcTemplate, never()).queryForObject("SELECT MIN(fecha) FROM publicaciones", Timestamp.class);
+    }
+
+    /**
+     * Test: Delta confirmado durante un recuento
+     * Verifica que el del rango se descarta (ya está en el recuento) y el de otro día se conserva
+     */
+    @Test
+    void recalcular_conDeltasDuranteElRecuento_debeDescartarSoloLosDelRango() {
+        // Arrange
+        when(jdbcTemplate.update(startsWith("INSERT INTO publicaciones_actividad_diaria"), any(), any(), any(), any()))
+                .thenAnswer(invocacion -> {
+                    actividadService.registrarCreada(2L, LocalDateTime.of(2024, 1, 5, 10, 0), false);
+                    actividadService.registrarCreada(2L, LocalDateTime.of(2024, 3, 5, 10, 0), false);
+                    return 1;
+                });
+
+        // Act
+        actividadService.recalcular(LocalDate.of(2024, 1, 1), LocalDate.of(2024, 1, 31));
+
+        // Assert
+        assertEquals(List.of(), actividadService.obtener(LocalDate.of(2024, 1, 1), LocalDate.of(2024, 1, 31), null));
+        assertEquals(List.of(new ActividadDiaria(LocalDate.of(2024, 3, 5), 2L, 1L, 0L)),
+                actividadService.obtener(LocalDate.of(2024, 3, 1), LocalDate.of(2024, 3, 31), null));
+    }
+
+    /**
+     * Test: Recuento fallido
+     * Verifica que los deltas confirmados durante el recuento vuelven a quedar pendientes
+     */
+    @Test
+    void recalcular_fallido_debeConservarLosDeltasDelRango() {
+        // Arrange
+        when(jdbcTemplate.update(startsWith("INSERT INTO publicaciones_actividad_diaria"), any(), any(), any(), any()))
+                .thenAnswer(invocacion -> {
+                    actividadService.registrarCreada(2L, LocalDateTime.of(2024, 1, 5, 10, 0), false);
+                    throw new DataIntegrityViolationException("fallo");
+                });
+
+        // Act & Assert
+        assertThrows(DataIntegrityViolationException.class,
+                () -> actividadService.recalcular(LocalDate.of(2024, 1, 1), LocalDate.of(2024, 1, 31)));
+        assertEquals(List.of(new ActividadDiaria(LocalDate.of(2024, 1, 5), 2L, 1L, 0L)),
+                actividadService.obtener(LocalDate.of(2024, 1, 1), LocalDate.of(2024, 1, 31), null));
+    }
+}
@@ -0,0 +1,97 @@
+package com.qualifygym.publicaciones.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import com.qualifygym.publicaciones.repository.PublicacionArchivadaRepository;
+import com.qualifygym.publicaciones.repository.PublicacionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Tests unitarios para ArchivoPublicacionesService
+ *
+ * Verifican que las publicaciones antiguas se mueven al archivo por bloques
+ * (copiar y eliminar los mismos IDs) y que el trabajo se detiene al agotar los candidatos.
+ */
+class ArchivoPublicacionesServiceTest {
+
+    @Mock
+    private PublicacionRepository publicacionRepository;
+
+    @Mock
+    private PublicacionArchivadaRepository archivadaRepository;
+
+    @Mock
+    private CambiosPublicacionService cambiosPublicacionService;
+
+    @Mock
+    private RelacionadasPublicacionService relacionadasPublicacionService;
+
+    @Mock
+    private EtiquetasPublicacionService etiquetasPublicacionService;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @InjectMocks
+    private ArchivoPublicacionesService archivoService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        ReflectionTestUtils.setField(archivoService, "tamanoLote", 2);
+    }
+
+    /**
+     * Test: Archivar por bloques
+     * Verifica que cada bloque se copia y elimina, y que un bloque incompleto termina la ejecución
+     */
+    @Test
+    void archivarAnterioresA_debeMoverPorBloques() {
+        // Arrange
+        LocalDateTime corte = LocalDateTime.now().minusMonths(12);
+        when(publicacionRepository.findIdsAnterioresA(eq(corte), any(Pageable.class)))
+                .thenReturn(List.of(1L, 2L))
+                .thenReturn(List.of(3L));
+
+        // Act
+        int archivadas = archivoService.archivarAnterioresA(corte);
+
+        // Assert
+        assertEquals(3, archivadas);
+        verify(archivadaRepository).copiarDesdePublicaciones(eq(List.of(1L, 2L)), any(LocalDateTime.class));
+        verify(publicacionRepository).eliminarPorIds(List.of(1L, 2L));
+        verify(archivadaRepository).copiarDesdePublicaciones(eq(List.of(3L)), any(LocalDateTime.class));
+        verify(publicacionRepository).eliminarPorIds(List.of(3L));
+        verify(publicacionRepository, times(2)).findIdsAnterioresA(eq(corte), any(Pageable.class));
+    }
+
+    /**
+     * Test: Sin publicaciones antiguas
+     * Verifica que no se copia ni elimina nada
+     */
+    @Test
+    void archivarAnterioresA_sinCandidatas_noDebeModificarNada() {
+        // Arrange
+        when(publicacionRepository.findIdsAnterioresA(any(LocalDateTime.class), any(Pageable.class))).thenReturn(List.of());
+
+        // Act
+        int archivadas = archivoService.archivarAntiguas();
+
+        // Assert
+        assertEquals(0, archivadas);
+        verify(archivadaRepository, never()).copiarDesdePublicaciones(anyCollection(), any());
+        verify(publicacionRepository, never()).eliminarPorIds(anyCollection());
+    }
+}
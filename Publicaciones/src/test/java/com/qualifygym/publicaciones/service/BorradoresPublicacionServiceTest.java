@@ -0,0 +1,182 @@
+package com.qualifygym.publicaciones.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import com.qualifygym.publicaciones.model.BorradorPublicacion;
+import com.qualifygym.publicaciones.repository.BorradorPublicacionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Tests unitarios para BorradoresPublicacionService
+ *
+ * Verifican que los autoguardados de un borrador se agrupan en un solo UPDATE por volcado
+ * que no pisa un contenido más nuevo, que las lecturas ven el último contenido aún no
+ * volcado, que un volcado fallido no pisa un autoguardado más nuevo y que publicar vuelca
+ * antes lo pendiente.
+ */
+class BorradoresPublicacionServiceTest {
+
+    @Mock
+    private BorradorPublicacionRepository borradorRepository;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @InjectMocks
+    private BorradoresPublicacionService borradoresService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(borradorRepository.existsByIdBorradorAndUsuarioId(1L, 5L)).thenReturn(true);
+    }
+
+    /**
+     * Test: Autoguardados repetidos
+     * Verifica que solo el primero consulta la base de datos y que el volcado escribe una fila con el último
+     */
+    @SuppressWarnings("unchecked")
+    @Test
+    void autoguardar_variasVeces_debeVolcarSoloElUltimoContenido() {
+        // Act
+        borradoresService.autoguardar(5L, 1L, "T", "uno", null, null);
+        borradoresService.autoguardar(5L, 1L, "T", "uno dos", null, null);
+        borradoresService.autoguardar(5L, 1L, "T", "uno dos tres", 3L, null);
+        int volcados = borradoresService.volcar();
+
+        // Assert
+        assertEquals(1, volcados);
+        assertEquals(0, borradoresService.contarPendientes());
+        verify(borradorRepository, times(1)).existsByIdBorradorAndUsuarioId(1L, 5L);
+        ArgumentCaptor<List<Object[]>> filas = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).batchUpdate(matches("UPDATE publicaciones_borradores .* AND fecha_actualizacion <= \\?"), filas.capture());
+        assertEquals(1, filas.getValue().size());
+        Object[] fila = filas.getValue().get(0);
+        assertEquals("uno dos tres", fila[1]);
+        assertEquals(3L, fila[2]);
+        assertEquals(1L, fila[5]);
+        assertEquals(5L, fila[6]);
+        assertEquals(fila[4], fila[7]);
+    }
+
+    /**
+     * Test: Lectura antes del volcado
+     * Verifica que el borrador se lee con el contenido pendiente y que uno ajeno no se puede autoguardar
+     */
+    @Test
+    void obtener_conAutoguardadoPendiente_debeVerElUltimoContenido() {
+        // Arrange
+        when(borradorRepository.findByIdBorradorAndUsuarioId(1L, 5L)).thenReturn(Optional.of(
+                new BorradorPublicacion(1L, 5L, "T", "viejo", null, null, LocalDateTime.now().minusMinutes(1))));
+        borradoresService.autoguardar(5L, 1L, "T", "nuevo", null, null);
+
+        // Act
+        Optional<BorradorPublicacion> borrador = borradoresService.obtener(5L, 1L);
+
+        // Assert
+        assertEquals("nuevo", borrador.get().getDescripcion());
+        assertThrows(RuntimeException.class, () -> borradoresService.autoguardar(6L, 1L, "T", "ajeno", null, null));
+    }
+
+    /**
+     * Test: Lectura con un contenido más nuevo volcado por otra instancia
+     * Verifica que lo pendiente más antiguo que la fila no la oculta
+     */
+    @Test
+    void obtener_conFilaMasNueva_debeVerLoPersistido() {
+        // Arrange
+        borradoresService.autoguardar(5L, 1L, "T", "viejo", null, null);
+        when(borradorRepository.findByIdBorradorAndUsuarioId(1L, 5L)).thenReturn(Optional.of(
+                new BorradorPublicacion(1L, 5L, "T", "nuevo", null, null, LocalDateTime.now().plusSeconds(1))));
+
+        // Act
+        Optional<BorradorPublicacion> borrador = borradoresService.obtener(5L, 1L);
+
+        // Assert
+        assertEquals("nuevo", borrador.get().getDescripcion());
+    }
+
+    /**
+     * Test: Publicar con contenido pendiente
+     * Verifica que lo pendiente se vuelca (con la misma condición de antigüedad) antes de leer la fila bloqueada
+     */
+    @SuppressWarnings("unchecked")
+    @Test
+    void obtenerParaPublicar_debeVolcarLoPendienteAntesDeLeer() {
+        // Arrange
+        BorradorPublicacion persistido = new BorradorPublicacion(1L, 5L, "T", "pendiente", null, null, LocalDateTime.now());
+        when(borradorRepository.findParaPublicar(1L, 5L)).thenReturn(Optional.of(persistido));
+        borradoresService.autoguardar(5L, 1L, "T", "pendiente", null, null);
+
+        // Act
+        Optional<BorradorPublicacion> borrador = borradoresService.obtenerParaPublicar(5L, 1L);
+
+        // Assert
+        assertSame(persistido, borrador.get());
+        ArgumentCaptor<List<Object[]>> filas = ArgumentCaptor.forClass(List.class);
+        InOrder orden = inOrder(jdbcTemplate, borradorRepository);
+        orden.verify(jdbcTemplate).batchUpdate(endsWith("AND fecha_actualizacion <= ?"), filas.capture());
+        orden.verify(borradorRepository).findParaPublicar(1L, 5L);
+        assertEquals("pendiente", filas.getValue().get(0)[1]);
+    }
+
+    /**
+     * Test: Volcado fallido
+     * Verifica que el contenido vuelve a pendientes sin pisar un autoguardado llegado después
+     */
+    @SuppressWarnings("unchecked")
+    @Test
+    void volcar_fallido_debeConservarElAutoguardadoMasNuevo() {
+        // Arrange
+        when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenAnswer(invocacion -> {
+            borradoresService.autoguardar(5L, 1L, "T", "durante el volcado", null, null);
+            throw new QueryTimeoutException("fallo");
+        }).thenReturn(new int[] { 1 });
+        borradoresService.autoguardar(5L, 1L, "T", "antes", null, null);
+
+        // Act & Assert
+        assertThrows(QueryTimeoutException.class, () -> borradoresService.volcar());
+        assertEquals(1, borradoresService.contarPendientes());
+        assertEquals(1, borradoresService.volcar());
+        ArgumentCaptor<List<Object[]>> filas = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate, times(2)).batchUpdate(anyString(), filas.capture());
+        assertEquals("durante el volcado", filas.getValue().get(0)[1]);
+    }
+
+    /**
+     * Test: Eliminar un borrador con contenido pendiente
+     * Verifica que lo pendiente se descarta y no se vuelca
+     */
+    @Test
+    void eliminar_debeDescartarLoPendiente() {
+        // Arrange
+        when(borradorRepository.eliminar(1L, 5L)).thenReturn(1);
+        borradoresService.autoguardar(5L, 1L, "T", "x", null, null);
+
+        // Act
+        boolean eliminado = borradoresService.eliminar(5L, 1L);
+
+        // Assert
+        assertTrue(eliminado);
+        assertEquals(0, borradoresService.volcar());
+        verifyNoInteractions(jdbcTemplate);
+    }
+}
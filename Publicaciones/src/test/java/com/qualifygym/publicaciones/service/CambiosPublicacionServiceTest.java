@@ -0,0 +1,246 @@
+package com.qualifygym.publicaciones.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import com.qualifygym.publicaciones.dto.CambiosPublicaciones;
+import com.qualifygym.publicaciones.dto.PublicacionResumen;
+import com.qualifygym.publicaciones.model.CambioPublicacion;
+import com.qualifygym.publicaciones.model.PurgaCambios;
+import com.qualifygym.publicaciones.repository.CambioPublicacionRepository;
+import com.qualifygym.publicaciones.repository.PublicacionRepository;
+import com.qualifygym.publicaciones.repository.PurgaCambiosRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Tests unitarios para CambiosPublicacionService
+ *
+ * Verifican la compactación de cambios por publicación, el avance de la marca
+ * (incluido el manejo de huecos en la secuencia) y la señal de reinicio.
+ */
+class CambiosPublicacionServiceTest {
+
+    @Mock
+    private CambioPublicacionRepository cambioRepository;
+
+    @Mock
+    private PublicacionRepository publicacionRepository;
+
+    @Mock
+    private PurgaCambiosRepository purgaRepository;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @InjectMocks
+    private CambiosPublicacionService cambiosService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(purgaRepository.findById(PurgaCambios.ID)).thenReturn(Optional.of(new PurgaCambios(PurgaCambios.ID, 0L)));
+    }
+
+    private CambioPublicacion cambio(long seq, long publicacionId, CambioPublicacion.Tipo tipo, LocalDateTime fecha) {
+        return new CambioPublicacion(seq, publicacionId, 1L, 1L, tipo, fecha);
+    }
+
+    /**
+     * Test: Compactar cambios
+     * Verifica que se entrega solo el último cambio de cada publicación, con su resumen si sigue visible
+     */
+    @Test
+    void obtenerCambios_debeCompactarPorPublicacion() {
+        // Arrange
+        LocalDateTime antes = LocalDateTime.now().minusMinutes(1);
+        when(cambioRepository.findPosteriores(eq(10L), any(Pageable.class))).thenReturn(List.of(
+                cambio(11, 1, CambioPublicacion.Tipo.CREADA, antes),
+                cambio(12, 2, CambioPublicacion.Tipo.CREADA, antes),
+                cambio(13, 1, CambioPublicacion.Tipo.ACTUALIZADA, antes),
+                cambio(14, 2, CambioPublicacion.Tipo.OCULTADA, antes)));
+        PublicacionResumen resumen = new PublicacionResumen(1L, "Título", "Texto", antes, 1L, 1L, null);
+        when(publicacionRepository.findResumenesVisiblesByIds(List.of(1L))).thenReturn(List.of(resumen));
+
+        // Act
+        CambiosPublicaciones respuesta = cambiosService.obtenerCambios(10L, 100);
+
+        // Assert
+        assertEquals(14L, respuesta.getMarca());
+        assertFalse(respuesta.isHayMas());
+        assertFalse(respuesta.isReiniciar());
+        assertEquals(2, respuesta.getCambios().size());
+        assertEquals(1L, respuesta.getCambios().get(0).getIdPublicacion());
+        assertEquals(CambioPublicacion.Tipo.ACTUALIZADA, respuesta.getCambios().get(0).getTipo());
+        assertSame(resumen, respuesta.getCambios().get(0).getPublicacion());
+        assertEquals(CambioPublicacion.Tipo.OCULTADA, respuesta.getCambios().get(1).getTipo());
+        assertNull(respuesta.getCambios().get(1).getPublicacion());
+    }
+
+    /**
+     * Test: Hueco reciente en la secuencia
+     * Verifica que la marca no salta un hueco que puede ser una transacción aún sin confirmar
+     */
+    @Test
+    void obtenerCambios_conHuecoReciente_debeDetenerLaMarca() {
+        // Arrange
+        LocalDateTime ahora = LocalDateTime.now();
+        when(cambioRepository.findPosteriores(eq(10L), any(Pageable.class))).thenReturn(List.of(
+                cambio(11, 1, CambioPublicacion.Tipo.CREADA, ahora),
+                cambio(13, 2, CambioPublicacion.Tipo.CREADA, ahora)));
+
+        // Act
+        CambiosPublicaciones respuesta = cambiosService.obtenerCambios(10L, 100);
+
+        // Assert
+        assertEquals(11L, respuesta.getMarca());
+        assertTrue(respuesta.isHayMas());
+        assertEquals(1, respuesta.getCambios().size());
+    }
+
+    /**
+     * Test: Hueco abierto más que el margen
+     * Verifica que un hueco visto abierto durante todo el margen (transacción revertida) no bloquea la sincronización
+     */
+    @Test
+    void obtenerCambios_conHuecoAbiertoMasQueElMargen_debeSaltarlo() {
+        // Arrange
+        LocalDateTime antes = LocalDateTime.now().minusMinutes(1);
+        when(cambioRepository.findPosteriores(eq(10L), any(Pageable.class))).thenReturn(List.of(
+                cambio(12, 1, CambioPublicacion.Tipo.ELIMINADA, antes)));
+        CambiosPublicaciones primera = cambiosService.obtenerCambios(10L, 100);
+        ReflectionTestUtils.setField(cambiosService, "margenHuecosMs", 0L);
+
+        // Act
+        CambiosPublicaciones respuesta = cambiosService.obtenerCambios(10L, 100);
+
+        // Assert
+        assertEquals(10L, primera.getMarca());
+        assertEquals(12L, respuesta.getMarca());
+        assertFalse(respuesta.isHayMas());
+        verify(publicacionRepository, never()).findResumenesVisiblesByIds(anyCollection());
+    }
+
+    /**
+     * Test: Secuencia baja confirmada tarde
+     * Verifica que un cambio de una transacción larga no se pierde aunque los posteriores sean antiguos
+     */
+    @Test
+    void obtenerCambios_conSecuenciaBajaConfirmadaTarde_debeEntregarla() {
+        // Arrange
+        LocalDateTime antes = LocalDateTime.now().minusMinutes(1);
+        when(cambioRepository.findPosteriores(eq(10L), any(Pageable.class)))
+                .thenReturn(List.of(cambio(12, 2, CambioPublicacion.Tipo.ELIMINADA, antes)))
+                .thenReturn(List.of(
+                        cambio(11, 1, CambioPublicacion.Tipo.OCULTADA, antes),
+                        cambio(12, 2, CambioPublicacion.Tipo.ELIMINADA, antes)));
+
+        // Act
+        CambiosPublicaciones antesDeConfirmar = cambiosService.obtenerCambios(10L, 100);
+        CambiosPublicaciones respuesta = cambiosService.obtenerCambios(antesDeConfirmar.getMarca(), 100);
+
+        // Assert
+        assertEquals(10L, antesDeConfirmar.getMarca());
+        assertTrue(antesDeConfirmar.isHayMas());
+        assertEquals(12L, respuesta.getMarca());
+        assertEquals(List.of(11L, 12L), respuesta.getCambios().stream().map(CambiosPublicaciones.Cambio::getSeq).toList());
+    }
+
+    /**
+     * Test: Marca anterior al registro retenido
+     * Verifica que se pide al cliente recargar el feed y se le entrega una marca inicial
+     */
+    @Test
+    void obtenerCambios_conMarcaDescartada_debePedirReinicio() {
+        // Arrange
+        when(purgaRepository.findById(PurgaCambios.ID)).thenReturn(Optional.of(new PurgaCambios(PurgaCambios.ID, 499L)));
+        when(cambioRepository.findMaxSeqHasta(any(LocalDateTime.class))).thenReturn(800L);
+
+        // Act
+        CambiosPublicaciones respuesta = cambiosService.obtenerCambios(10L, 100);
+
+        // Assert
+        assertTrue(respuesta.isReiniciar());
+        assertEquals(800L, respuesta.getMarca());
+        assertTrue(respuesta.getCambios().isEmpty());
+        verify(cambioRepository, never()).findPosteriores(anyLong(), any(Pageable.class));
+    }
+
+    /**
+     * Test: Registro vaciado por la retención
+     * Verifica que una marca anterior a lo purgado pide reinicio aunque no quede ningún cambio retenido
+     */
+    @Test
+    void obtenerCambios_conRegistroVaciado_debePedirReinicio() {
+        // Arrange
+        when(purgaRepository.findById(PurgaCambios.ID)).thenReturn(Optional.of(new PurgaCambios(PurgaCambios.ID, 900L)));
+        when(cambioRepository.findMinSeq()).thenReturn(null);
+
+        // Act
+        CambiosPublicaciones respuesta = cambiosService.obtenerCambios(10L, 100);
+
+        // Assert
+        assertTrue(respuesta.isReiniciar());
+        assertEquals(900L, respuesta.getMarca());
+        verify(cambioRepository, never()).findPosteriores(anyLong(), any(Pageable.class));
+    }
+
+    /**
+     * Test: Purga por retención
+     * Verifica que se elimina hasta la última secuencia anterior a la retención y que se registra como purgada
+     */
+    @Test
+    void limpiarAntiguos_debeRegistrarLaUltimaSecuenciaPurgada() {
+        // Arrange
+        when(cambioRepository.findMaxSeqAnteriorA(any(LocalDateTime.class))).thenReturn(700L);
+        when(cambioRepository.eliminarHastaSeq(700L)).thenReturn(42);
+
+        // Act
+        int eliminados = cambiosService.limpiarAntiguos();
+
+        // Assert
+        assertEquals(42, eliminados);
+        verify(purgaRepository).registrar(PurgaCambios.ID, 700L);
+    }
+
+    /**
+     * Test: Registro masivo
+     * Verifica que los cambios se insertan con un lote JDBC (sin INSERT ... SELECT, que deja huecos en la
+     * secuencia) tomando tema y usuario de las publicaciones que siguen existiendo
+     */
+    @SuppressWarnings("unchecked")
+    @Test
+    void registrarLote_debeInsertarConUnLoteJdbc() {
+        // Arrange
+        when(publicacionRepository.findIdTemaUsuarioByIds(List.of(1L, 2L, 3L))).thenReturn(List.of(
+                new Object[] {1L, 5L, 7L},
+                new Object[] {3L, 6L, 8L}));
+
+        // Act
+        int registrados = cambiosService.registrarLote(List.of(1L, 2L, 3L), CambioPublicacion.Tipo.OCULTADA);
+
+        // Assert
+        assertEquals(2, registrados);
+        ArgumentCaptor<List<Object[]>> captor = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).batchUpdate(startsWith("INSERT INTO publicaciones_cambios"), captor.capture());
+        assertEquals(2, captor.getValue().size());
+        assertArrayEquals(new Object[] {3L, 6L, 8L, "OCULTADA"}, Arrays.copyOf(captor.getValue().get(1), 4));
+    }
+}
@@ -0,0 +1,72 @@
+package com.qualifygym.publicaciones.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+/**
+ * Tests unitarios para ConjuntoIds
+ *
+ * Verifican la pertenencia y la paginación descendente frente a un TreeSet de
+ * referencia, incluido el paso de un grupo de arreglo a mapa de bits y de vuelta,
+ * y que los conjuntos anteriores no cambian al agregar o quitar.
+ */
+class ConjuntoIdsTest {
+
+    @Test
+    void conYSin_debenCoincidirConUnConjuntoDeReferencia() {
+        Random random = new Random(7);
+        TreeSet<Long> referencia = new TreeSet<>();
+        ConjuntoIds conjunto = ConjuntoIds.VACIO;
+        // Un grupo denso (supera el máximo del arreglo) y valores dispersos en otros grupos
+        for (int i = 0; i < 6000; i++) {
+            long id = random.nextInt(8000);
+            conjunto = conjunto.con(id);
+            referencia.add(id);
+        }
+        for (int i = 0; i < 300; i++) {
+            long id = random.nextInt(Integer.MAX_VALUE);
+            conjunto = conjunto.con(id);
+            referencia.add(id);
+        }
+        assertEquals(referencia.size(), conjunto.tamano());
+
+        // Quitar hasta que el grupo denso vuelva a ser un arreglo
+        for (int i = 0; i < 8000; i += 2) {
+            conjunto = conjunto.sin(i);
+            referencia.remove((long) i);
+        }
+        assertEquals(referencia.size(), conjunto.tamano());
+        for (long id = 0; id < 8000; id++) {
+            assertEquals(referencia.contains(id), conjunto.contiene(id));
+        }
+        assertEquals(new ArrayList<>(referencia.descendingSet()), conjunto.paginaDescendente(Long.MAX_VALUE, Integer.MAX_VALUE));
+    }
+
+    @Test
+    void paginaDescendente_debeRespetarCotaYLimite() {
+        ConjuntoIds conjunto = ConjuntoIds.desde(new long[] { 3L, 70_000L, 70_001L, 200_000L });
+
+        assertEquals(List.of(200_000L, 70_001L), conjunto.paginaDescendente(Long.MAX_VALUE, 2));
+        assertEquals(List.of(70_000L, 3L), conjunto.paginaDescendente(70_001L, 5));
+        assertTrue(conjunto.paginaDescendente(3L, 5).isEmpty());
+    }
+
+    @Test
+    void conjuntosAnteriores_noDebenCambiar() {
+        ConjuntoIds antes = ConjuntoIds.desde(new long[] { 1L, 2L });
+        ConjuntoIds despues = antes.con(5L).sin(1L);
+
+        assertTrue(antes.contiene(1L));
+        assertFalse(antes.contiene(5L));
+        assertEquals(2, antes.tamano());
+        assertEquals(List.of(5L, 2L), despues.paginaDescendente(Long.MAX_VALUE, 10));
+        assertSame(despues, despues.con(5L));
+        assertSame(despues, despues.sin(99L));
+    }
+}
@@ -0,0 +1,119 @@
+package com.qualifygym.publicaciones.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Tests unitarios para ConjuntosPorUsuario
+ *
+ * Verifican que los conjuntos se reconstruyen por usuario al cargar, que agregar
+ * un ID ya presente no vuelve a escribir, que se respeta el máximo por usuario y
+ * que la versión es una huella del contenido (igual en todas las instancias) y que
+ * el refresco recarga solo a los usuarios modificados.
+ */
+class ConjuntosPorUsuarioTest {
+
+    private final ConjuntosPorUsuario conjuntos = new ConjuntosPorUsuario(2, "Máximo alcanzado");
+
+    @Test
+    void cargar_debeReconstruirLosConjuntosPorUsuario() {
+        conjuntos.cargar(Stream.of(new Object[] { 1L, 10L }, new Object[] { 1L, 12L }, new Object[] { 2L, 10L }));
+
+        assertEquals(2, conjuntos.contar(1L));
+        assertTrue(conjuntos.contiene(2L, 10L));
+        assertFalse(conjuntos.contiene(2L, 12L));
+        assertFalse(conjuntos.contiene(null, 10L));
+        assertEquals(List.of(12L, 10L), conjuntos.pagina(1L, null, 10));
+        assertEquals(List.of(10L), conjuntos.pagina(1L, 12L, 10));
+    }
+
+    @Test
+    void agregarYQuitar_debenEscribirUnaVezYAvanzarLaVersion() {
+        List<Long> escrituras = new ArrayList<>();
+        long inicial = conjuntos.version(1L);
+
+        conjuntos.agregar(1L, 10L, () -> escrituras.add(10L));
+        long trasAgregar = conjuntos.version(1L);
+        conjuntos.agregar(1L, 10L, () -> escrituras.add(10L));
+        conjuntos.quitar(1L, 10L, () -> escrituras.add(-10L));
+
+        assertEquals(0L, inicial);
+        assertNotEquals(inicial, trasAgregar);
+        assertNotEquals(trasAgregar, conjuntos.version(1L));
+        assertEquals(0, conjuntos.contar(1L));
+        assertEquals(List.of(10L, -10L), escrituras);
+    }
+
+    @Test
+    void agregar_conElMaximoAlcanzado_debeLanzarExcepcionSinEscribir() {
+        List<Long> escrituras = new ArrayList<>();
+        conjuntos.agregar(1L, 10L, () -> escrituras.add(10L));
+        conjuntos.agregar(1L, 11L, () -> escrituras.add(11L));
+
+        RuntimeException exception = assertThrows(RuntimeException.class,
+                () -> conjuntos.agregar(1L, 12L, () -> escrituras.add(12L)));
+
+        assertEquals("Máximo alcanzado", exception.getMessage());
+        assertEquals(List.of(10L, 11L), escrituras);
+    }
+
+    @Test
+    void quitarAlConfirmar_debeQuitarLosParesDeCadaUsuario() {
+        conjuntos.cargar(Stream.of(new Object[] { 1L, 10L }, new Object[] { 2L, 10L }, new Object[] { 2L, 11L }));
+
+        List<Object[]> pares = new ArrayList<>();
+        pares.add(new Object[] { 1L, 10L });
+        pares.add(new Object[] { 2L, 10L });
+        conjuntos.quitarAlConfirmar(pares);
+
+        assertEquals(0, conjuntos.contar(1L));
+        assertEquals(List.of(11L), conjuntos.pagina(2L, null, 10));
+    }
+
+    @Test
+    void version_debeDependerSoloDelContenido() {
+        ConjuntosPorUsuario otraInstancia = new ConjuntosPorUsuario(2, "Máximo alcanzado");
+        conjuntos.cargar(Stream.of(new Object[] { 1L, 10L }, new Object[] { 1L, 12L }));
+        otraInstancia.agregar(1L, 12L, () -> { });
+        otraInstancia.agregar(1L, 10L, () -> { });
+
+        assertNotEquals(0L, conjuntos.version(1L));
+        assertEquals(conjuntos.version(1L), otraInstancia.version(1L));
+
+        otraInstancia.quitar(1L, 10L, () -> { });
+        otraInstancia.quitar(1L, 12L, () -> { });
+        assertEquals(0L, otraInstancia.version(1L));
+    }
+
+    @Test
+    void refrescar_debeRecargarSoloLosUsuariosConUnaModificacionNueva() {
+        conjuntos.cargar(Stream.of(new Object[] { 1L, 10L }, new Object[] { 2L, 10L }));
+        LocalDateTime fecha = LocalDateTime.now();
+        List<Object[]> modificados = List.of(new Object[] { 1L, fecha }, new Object[] { 2L, fecha });
+        List<Collection<Long>> lecturas = new ArrayList<>();
+
+        int recargados = conjuntos.refrescar(desde -> modificados, usuarios -> {
+            lecturas.add(List.copyOf(usuarios));
+            List<Object[]> filas = new ArrayList<>();
+            filas.add(new Object[] { 1L, 11L });
+            return filas;
+        });
+        int repetidos = conjuntos.refrescar(desde -> modificados, usuarios -> {
+            lecturas.add(List.copyOf(usuarios));
+            return List.of();
+        });
+
+        assertEquals(2, recargados);
+        assertEquals(0, repetidos);
+        assertEquals(List.of(List.of(1L, 2L)), lecturas);
+        assertEquals(List.of(11L), conjuntos.pagina(1L, null, 10));
+        assertEquals(0, conjuntos.contar(2L));
+    }
+}
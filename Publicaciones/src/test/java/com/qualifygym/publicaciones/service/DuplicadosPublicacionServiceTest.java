@@ -0,0 +1,82 @@
+package com.qualifygym.publicaciones.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Tests unitarios para DuplicadosPublicacionService
+ *
+ * Verifican que variaciones menores del mismo texto producen huellas cercanas,
+ * que solo se rechazan casi duplicados del mismo usuario dentro de la ventana
+ * y que una creación revertida libera su huella.
+ */
+class DuplicadosPublicacionServiceTest {
+
+    private static final String TITULO = "Suplementos baratos";
+    private static final String DESCRIPCION = "Compra proteína y creatina al mejor precio del mercado, envío gratis a todo el país. "
+            + "Escríbeme por mensaje privado para recibir el catálogo completo de productos y descuentos";
+
+    private DuplicadosPublicacionService duplicadosService;
+
+    @BeforeEach
+    void setUp() {
+        duplicadosService = new DuplicadosPublicacionService();
+    }
+
+    @Test
+    void simhash_variacionMenor_debeQuedarCerca() {
+        long original = DuplicadosPublicacionService.simhash(TITULO + " " + DESCRIPCION);
+        long variacion = DuplicadosPublicacionService.simhash("SUPLEMENTOS baratos!! " + DESCRIPCION.replace("gratis", "gratuito"));
+        long distinto = DuplicadosPublicacionService.simhash("Rutina de piernas para principiantes: sentadillas, "
+                + "zancadas y peso muerto rumano tres veces por semana con descanso adecuado");
+
+        assertTrue(DuplicadosPublicacionService.distancia(original, variacion) <= 6);
+        assertTrue(DuplicadosPublicacionService.distancia(original, distinto) > 15);
+    }
+
+    @Test
+    void verificarYReservar_casiDuplicadoDelMismoUsuario_debeRechazarse() {
+        duplicadosService.verificarYReservar(1L, TITULO, DESCRIPCION);
+
+        RuntimeException exception = assertThrows(RuntimeException.class, () ->
+                duplicadosService.verificarYReservar(1L, "Suplementos  baratos", DESCRIPCION.replace("gratis", "gratuito")));
+        assertTrue(exception.getMessage().contains("casi idéntica"));
+    }
+
+    @Test
+    void verificarYReservar_otroUsuarioOFueraDeVentana_debePermitirse() {
+        duplicadosService.verificarYReservar(1L, TITULO, DESCRIPCION);
+
+        assertDoesNotThrow(() -> duplicadosService.verificarYReservar(2L, TITULO, DESCRIPCION));
+
+        ReflectionTestUtils.setField(duplicadosService, "ventanaMinutos", 0L);
+        assertDoesNotThrow(() -> duplicadosService.verificarYReservar(1L, TITULO, DESCRIPCION));
+    }
+
+    @Test
+    void verificarYReservar_textoMuyCorto_noDebeVerificarse() {
+        duplicadosService.verificarYReservar(1L, "Hola", "Hola");
+
+        assertDoesNotThrow(() -> duplicadosService.verificarYReservar(1L, "Hola", "Hola"));
+    }
+
+    @Test
+    void verificarYReservar_creacionRevertida_debeLiberarLaHuella() {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            duplicadosService.verificarYReservar(1L, TITULO, DESCRIPCION);
+            for (TransactionSynchronization sincronizacion : TransactionSynchronizationManager.getSynchronizations()) {
+                sincronizacion.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK);
+            }
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertDoesNotThrow(() -> duplicadosService.verificarYReservar(1L, TITULO, DESCRIPCION));
+    }
+}
@@ -0,0 +1,142 @@
+package com.qualifygym.publicaciones.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import com.qualifygym.publicaciones.dto.EtiquetaConteo;
+import com.qualifygym.publicaciones.model.EtiquetaPublicacion;
+import com.qualifygym.publicaciones.model.Publicacion;
+import com.qualifygym.publicaciones.repository.EtiquetaPublicacionRepository;
+import com.qualifygym.publicaciones.repository.PublicacionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Tests unitarios para EtiquetasPublicacionService
+ *
+ * Verifican la extracción y normalización de hashtags, la paginación por clave
+ * sobre el índice en memoria, que al editar solo se escriben las diferencias y
+ * que ocultar una publicación la saca de los conteos. Las importaciones registran
+ * las etiquetas de muchas publicaciones con un solo lote.
+ */
+class EtiquetasPublicacionServiceTest {
+
+    @Mock
+    private EtiquetaPublicacionRepository etiquetaRepository;
+
+    @Mock
+    private PublicacionRepository publicacionRepository;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @InjectMocks
+    private EtiquetasPublicacionService etiquetasService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+    }
+
+    @Test
+    void extraerEtiquetas_debeNormalizarYDescartarInvalidas() {
+        Set<String> etiquetas = EtiquetasPublicacionService.extraerEtiquetas(
+                "Día de #Piernas y #piernas otra vez, #CardioFácil #2024 #x_1 sin#espacio");
+
+        assertEquals(List.of("piernas", "cardiofacil", "x_1"), List.copyOf(etiquetas));
+        assertNull(EtiquetasPublicacionService.normalizar("#123"));
+        assertEquals("nino", EtiquetasPublicacionService.normalizar("#Niño"));
+    }
+
+    @Test
+    void buscarPorEtiqueta_debePaginarDeMasRecienteAMasAntigua() {
+        for (long id = 1; id <= 5; id++) {
+            etiquetasService.registrar(publicacion(id, "Rutina #piernas"));
+        }
+        etiquetasService.registrar(publicacion(6L, "Rutina #espalda"));
+
+        assertEquals(List.of(5L, 4L), etiquetasService.buscarPorEtiqueta("#Piernas", null, 2));
+        assertEquals(List.of(3L, 2L), etiquetasService.buscarPorEtiqueta("piernas", 4L, 2));
+        assertEquals(List.of(1L), etiquetasService.buscarPorEtiqueta("piernas", 2L, 2));
+        assertEquals(5L, etiquetasService.contar("piernas"));
+        assertEquals(List.of(new EtiquetaConteo("piernas", 5L), new EtiquetaConteo("espalda", 1L)),
+                etiquetasService.obtenerPopulares(10));
+        verify(etiquetaRepository, times(5)).insertar(eq("piernas"), anyLong());
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    void registrarLote_debeInsertarEnUnSoloLoteEIndexarSoloLasVisibles() {
+        Publicacion oculta = publicacion(3L, "#piernas");
+        oculta.setOculta(true);
+
+        etiquetasService.registrarLote(List.of(publicacion(1L, "#piernas #gluteos"), publicacion(2L, "sin etiquetas"), oculta));
+
+        ArgumentCaptor<List<Object[]>> filas = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate, times(1)).batchUpdate(startsWith("INSERT INTO publicaciones_etiquetas "), filas.capture());
+        assertEquals(3, filas.getValue().size());
+        assertArrayEquals(new Object[] { "piernas", 1L }, filas.getValue().get(0));
+        assertEquals(List.of(1L), etiquetasService.buscarPorEtiqueta("piernas", null, 10));
+        assertEquals(1L, etiquetasService.contar("gluteos"));
+        verify(etiquetaRepository, never()).insertar(any(), any());
+    }
+
+    @Test
+    void actualizar_debeEscribirSoloLasDiferencias() {
+        etiquetasService.registrar(publicacion(1L, "#piernas #gluteos"));
+        when(etiquetaRepository.findEtiquetasByPublicacionId(1L)).thenReturn(List.of("piernas", "gluteos"));
+
+        etiquetasService.actualizar(publicacion(1L, "#piernas #cardio"));
+
+        verify(etiquetaRepository).eliminarEtiquetas(1L, Set.of("gluteos"));
+        verify(etiquetaRepository).insertar("cardio", 1L);
+        verify(etiquetaRepository, times(1)).insertar("piernas", 1L);
+        assertEquals(0L, etiquetasService.contar("gluteos"));
+        assertEquals(List.of(1L), etiquetasService.buscarPorEtiqueta("cardio", null, 10));
+    }
+
+    @Test
+    void ocultarYQuitar_debenSacarLaPublicacionDelIndice() {
+        etiquetasService.registrar(publicacion(1L, "#piernas"));
+        etiquetasService.registrar(publicacion(2L, "#piernas"));
+        when(etiquetaRepository.findByPublicacionIds(List.of(1L))).thenReturn(List.of(new EtiquetaPublicacion("piernas", 1L)));
+        when(etiquetaRepository.findByPublicacionIds(List.of(2L))).thenReturn(List.of(new EtiquetaPublicacion("piernas", 2L)));
+
+        etiquetasService.actualizarVisibilidad(List.of(1L), false);
+        assertEquals(List.of(2L), etiquetasService.buscarPorEtiqueta("piernas", null, 10));
+
+        etiquetasService.actualizarVisibilidad(List.of(1L), true);
+        etiquetasService.quitar(List.of(2L));
+        assertEquals(List.of(1L), etiquetasService.buscarPorEtiqueta("piernas", null, 10));
+        verify(etiquetaRepository).eliminarPorIds(List.of(2L));
+    }
+
+    @Test
+    void cargarInicial_debeReconstruirElIndice() {
+        when(etiquetaRepository.streamVisibles()).thenReturn(Stream.of(
+                new Object[] { "cardio", 3L }, new Object[] { "piernas", 8L }, new Object[] { "piernas", 2L }));
+
+        etiquetasService.cargarInicial();
+
+        assertEquals(List.of(8L, 2L), etiquetasService.buscarPorEtiqueta("piernas", null, 10));
+        assertEquals(1L, etiquetasService.contar("cardio"));
+    }
+
+    private static Publicacion publicacion(Long id, String descripcion) {
+        Publicacion publicacion = new Publicacion();
+        publicacion.setIdPublicacion(id);
+        publicacion.setDescripcion(descripcion);
+        publicacion.setOculta(false);
+        return publicacion;
+    }
+}
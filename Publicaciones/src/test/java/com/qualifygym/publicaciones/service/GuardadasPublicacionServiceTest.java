@@ -0,0 +1,75 @@
+package com.qualifygym.publicaciones.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import com.qualifygym.publicaciones.dto.PublicacionResumen;
+import com.qualifygym.publicaciones.repository.ConjuntoModificadoRepository;
+import com.qualifygym.publicaciones.repository.PublicacionGuardadaRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Tests unitarios para GuardadasPublicacionService
+ *
+ * Verifican lo propio de las guardadas: que los feeds se marcan sin consultar la
+ * base de datos y que eliminar una publicación la quita de todos los usuarios.
+ * El conjunto por usuario se prueba en ConjuntosPorUsuarioTest.
+ */
+class GuardadasPublicacionServiceTest {
+
+    @Mock
+    private PublicacionGuardadaRepository guardadaRepository;
+
+    @Mock
+    private ConjuntoModificadoRepository modificadoRepository;
+
+    @InjectMocks
+    private GuardadasPublicacionService guardadasService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+    }
+
+    @Test
+    void marcar_debeIndicarGuardadasSoloConUsuario() {
+        guardadasService.guardar(1L, 10L);
+        PublicacionResumen guardada = new PublicacionResumen(10L, "A", "a", LocalDateTime.now(), 3L, 1L, null);
+        PublicacionResumen otra = new PublicacionResumen(11L, "B", "b", LocalDateTime.now(), 3L, 1L, null);
+
+        guardadasService.marcar(List.of(guardada, otra), 1L);
+        assertTrue(guardada.getGuardada());
+        assertFalse(otra.getGuardada());
+
+        PublicacionResumen anonima = new PublicacionResumen(10L, "A", "a", LocalDateTime.now(), 3L, 1L, null);
+        guardadasService.marcar(List.of(anonima), null);
+        assertNull(anonima.getGuardada());
+        // Marcar no consulta la base de datos: la única interacción es el guardado inicial
+        verify(guardadaRepository).insertar(eq(1L), eq(10L), any(LocalDateTime.class));
+        verifyNoMoreInteractions(guardadaRepository);
+    }
+
+    @Test
+    void quitarPublicaciones_debeQuitarlaDeTodosLosUsuarios() {
+        guardadasService.guardar(1L, 10L);
+        guardadasService.guardar(2L, 10L);
+        guardadasService.guardar(2L, 11L);
+        when(guardadaRepository.findUsuariosByPublicacionIds(List.of(10L)))
+                .thenReturn(List.of(new Object[] { 1L, 10L }, new Object[] { 2L, 10L }));
+
+        guardadasService.quitarPublicaciones(List.of(10L));
+
+        assertFalse(guardadasService.estaGuardada(1L, 10L));
+        assertFalse(guardadasService.estaGuardada(2L, 10L));
+        assertTrue(guardadasService.estaGuardada(2L, 11L));
+        verify(guardadaRepository).eliminarPorPublicacionIds(List.of(10L));
+    }
+}
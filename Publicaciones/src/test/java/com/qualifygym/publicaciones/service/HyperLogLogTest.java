@@ -0,0 +1,63 @@
+package com.qualifygym.publicaciones.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests unitarios para HyperLogLog
+ *
+ * Verifican que la estimación queda dentro del error esperado, que repetir elementos
+ * o unir dos veces no cambia el conteo y que el sketch sobrevive a la serialización
+ * tanto disperso como denso.
+ */
+class HyperLogLogTest {
+
+    @Test
+    void estimar_debeQuedarDentroDelErrorEsperado() {
+        HyperLogLog sketch = new HyperLogLog();
+        for (int i = 0; i < 100_000; i++) {
+            sketch.agregar(TextoPublicacion.hash64("usuario:" + i));
+            sketch.agregar(TextoPublicacion.hash64("usuario:" + i));
+        }
+
+        long estimacion = sketch.estimar();
+
+        assertTrue(Math.abs(estimacion - 100_000) < 5_000, "estimación: " + estimacion);
+        assertEquals(HyperLogLog.REGISTROS + 1, sketch.serializar().length);
+    }
+
+    @Test
+    void pocosElementos_debenContarseCasiExactoYSerializarseDispersos() {
+        HyperLogLog sketch = new HyperLogLog();
+        for (int i = 0; i < 50; i++) {
+            sketch.agregar(TextoPublicacion.hash64("ip:10.0.0." + i));
+        }
+
+        byte[] bytes = sketch.serializar();
+        HyperLogLog copia = HyperLogLog.desde(bytes);
+
+        assertTrue(Math.abs(sketch.estimar() - 50) <= 1);
+        assertTrue(bytes.length <= 1 + 3 * 50);
+        assertEquals(sketch.estimar(), copia.estimar());
+        assertTrue(HyperLogLog.desde(null).vacio());
+    }
+
+    @Test
+    void unir_debeContarUnaVezLosElementosComunes() {
+        HyperLogLog a = new HyperLogLog();
+        HyperLogLog b = new HyperLogLog();
+        for (int i = 0; i < 3_000; i++) {
+            a.agregar(TextoPublicacion.hash64("usuario:" + i));
+            b.agregar(TextoPublicacion.hash64("usuario:" + (i + 1_500)));
+        }
+
+        a.unir(b);
+        long unida = a.estimar();
+        a.unir(b);
+        a.unir(HyperLogLog.desde(a.serializar()));
+
+        assertTrue(Math.abs(unida - 4_500) < 225, "estimación: " + unida);
+        assertEquals(unida, a.estimar());
+    }
+}
@@ -0,0 +1,194 @@
+package com.qualifygym.publicaciones.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.qualifygym.publicaciones.client.TemaClient;
+import com.qualifygym.publicaciones.client.UsuarioClient;
+import com.qualifygym.publicaciones.dto.ProgresoImportacion;
+import com.qualifygym.publicaciones.model.CambioPublicacion;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Tests unitarios para ImportacionPublicacionesService
+ *
+ * Verifican que cada usuario y tema se verifica una sola vez por importación, que las filas
+ * válidas se insertan por lotes con su registro de cambios y que cada línea inválida se
+ * informa con su número, en NDJSON y en CSV con campos de varias líneas.
+ */
+class ImportacionPublicacionesServiceTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private UsuarioClient usuarioClient;
+
+    @Mock
+    private TemaClient temaClient;
+
+    @Mock
+    private CambiosPublicacionService cambiosPublicacionService;
+
+    @Mock
+    private EtiquetasPublicacionService etiquetasPublicacionService;
+
+    @Mock
+    private RankingCalienteService rankingCalienteService;
+
+    @Mock
+    private ActividadDiariaService actividadDiariaService;
+
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper();
+
+    @InjectMocks
+    private ImportacionPublicacionesService importacionService;
+
+    private final List<ProgresoImportacion> eventos = new ArrayList<>();
+
+    private long siguienteId = 100L;
+
+    @SuppressWarnings("unchecked")
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        // Cada fila insertada recibe un ID generado consecutivo
+        when(jdbcTemplate.batchUpdate(any(PreparedStatementCreator.class), any(BatchPreparedStatementSetter.class), any(KeyHolder.class)))
+                .thenAnswer(invocacion -> {
+                    BatchPreparedStatementSetter filas = invocacion.getArgument(1);
+                    KeyHolder claves = invocacion.getArgument(2);
+                    for (int i = 0; i < filas.getBatchSize(); i++) {
+                        claves.getKeyList().add(Map.of("GENERATED_KEY", siguienteId++));
+                    }
+                    return new int[filas.getBatchSize()];
+                });
+        when(usuarioClient.existenUsuarios(any())).thenAnswer(invocacion -> {
+            Map<Long, Boolean> existentes = new HashMap<>();
+            for (Long id : (Set<Long>) invocacion.getArgument(0)) {
+                existentes.put(id, id != 99L);
+            }
+            return existentes;
+        });
+        when(temaClient.existenTemas(any())).thenAnswer(invocacion -> {
+            Map<Long, Boolean> existentes = new HashMap<>();
+            for (Long id : (Set<Long>) invocacion.getArgument(0)) {
+                existentes.put(id, true);
+            }
+            return existentes;
+        });
+    }
+
+    /**
+     * Test: Importar NDJSON
+     * Verifica que las líneas inválidas se informan con su número y las válidas se insertan y registran
+     */
+    @Test
+    void importar_ndjson_debeInsertarValidasEInformarErrores() {
+        // Arrange
+        String entrada = """
+                {"titulo": "A", "descripcion": "uno #tag", "usuarioId": 1, "temaId": 2}
+                {"titulo": "", "descripcion": "sin titulo", "usuarioId": 1, "temaId": 2}
+                no es json
+
+                {"titulo": "B", "descripcion": "dos", "usuarioId": 99, "temaId": 2}
+                {"titulo": "C", "descripcion": "tres", "usuarioId": "1", "temaId": 2, "fecha": "2020-05-01T10:00:00"}
+                """;
+
+        // Act
+        ProgresoImportacion resumen = importacionService.importar(new StringReader(entrada),
+                ImportacionPublicacionesService.Formato.NDJSON, eventos::add);
+
+        // Assert
+        assertTrue(resumen.getFinalizada());
+        assertEquals(5L, resumen.getProcesadas());
+        assertEquals(2L, resumen.getImportadas());
+        assertEquals(3L, resumen.getErrores());
+        assertEquals(List.of(2L, 3L, 5L), eventos.stream().filter(e -> e.getLinea() != null).map(ProgresoImportacion::getLinea).toList());
+        assertEquals("El usuario con ID 99 no existe", eventos.stream().filter(e -> Long.valueOf(5L).equals(e.getLinea()))
+                .findFirst().get().getError());
+        // El usuario repetido se verifica una sola vez
+        verify(usuarioClient, times(1)).existenUsuarios(Set.of(1L, 99L));
+        verify(cambiosPublicacionService).registrarLote(List.of(100L, 101L), CambioPublicacion.Tipo.CREADA);
+        verify(etiquetasPublicacionService, times(1)).registrarLote(argThat(publicaciones -> publicaciones.size() == 2));
+        verify(actividadDiariaService, times(2)).registrarCreada(eq(2L), any(), eq(false));
+        // Solo la publicación reciente entra al ranking caliente
+        verify(rankingCalienteService, times(1)).registrarPublicacion(eq(100L), eq(2L), any());
+    }
+
+    /**
+     * Test: Importar CSV por lotes
+     * Verifica los campos entre comillas con comas y saltos de línea, y que un usuario ya verificado
+     * en un lote anterior no se vuelve a consultar
+     */
+    @Test
+    void importar_csv_debeLeerCamposCitadosYVerificarCadaIdUnaVez() {
+        // Arrange
+        ReflectionTestUtils.setField(importacionService, "tamanoLote", 2);
+        String entrada = "titulo,descripcion,usuarioId,temaId\r\n" +
+                "A,\"uno, con coma\",1,2\r\n" +
+                "B,\"dos\r\ncon \"\"salto\"\"\",1,2\r\n" +
+                "C,tres,1,abc\r\n" +
+                "D,cuatro,1,2\r\n";
+
+        // Act
+        ProgresoImportacion resumen = importacionService.importar(new StringReader(entrada),
+                ImportacionPublicacionesService.Formato.CSV, eventos::add);
+
+        // Assert
+        assertTrue(resumen.getFinalizada());
+        assertEquals(3L, resumen.getImportadas());
+        assertEquals(1L, resumen.getErrores());
+        ProgresoImportacion error = eventos.stream().filter(e -> e.getLinea() != null).findFirst().get();
+        assertEquals(5L, error.getLinea());
+        assertEquals("El ID de tema es inválido", error.getError());
+        verify(usuarioClient, times(1)).existenUsuarios(any());
+        verify(jdbcTemplate, times(2)).batchUpdate(any(PreparedStatementCreator.class), any(BatchPreparedStatementSetter.class), any(KeyHolder.class));
+        // Un evento de avance por lote
+        assertEquals(2, eventos.stream().filter(e -> e.getLinea() == null).count());
+    }
+
+    /**
+     * Test: Servicio de usuarios no disponible
+     * Verifica que la importación se detiene con el motivo en el resumen, sin insertar
+     */
+    @Test
+    void importar_conErrorRemoto_debeDetenerseConResumen() {
+        // Arrange
+        doThrow(new RuntimeException("Error al verificar usuarios: timeout")).when(usuarioClient).existenUsuarios(any());
+
+        // Act
+        ProgresoImportacion resumen = importacionService.importar(
+                new StringReader("{\"titulo\": \"A\", \"descripcion\": \"uno\", \"usuarioId\": 1, \"temaId\": 2}\n"),
+                ImportacionPublicacionesService.Formato.NDJSON, eventos::add);
+
+        // Assert
+        assertFalse(resumen.getFinalizada());
+        assertEquals("Error al verificar usuarios: timeout", resumen.getError());
+        assertEquals(0L, resumen.getImportadas());
+        verifyNoInteractions(jdbcTemplate);
+    }
+}
@@ -0,0 +1,160 @@
+package com.qualifygym.publicaciones.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import com.qualifygym.publicaciones.model.Notificacion;
+import com.qualifygym.publicaciones.model.NotificacionOutbox;
+import com.qualifygym.publicaciones.repository.NotificacionOutboxRepository;
+import com.qualifygym.publicaciones.repository.NotificacionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Tests unitarios para NotificacionOutboxService
+ *
+ * Verifican el registro de entradas en el outbox, la entrega por lotes idempotente
+ * y el registro de reintentos con backoff cuando la entrega falla.
+ */
+class NotificacionOutboxServiceTest {
+
+    @Mock
+    private NotificacionOutboxRepository outboxRepository;
+
+    @Mock
+    private NotificacionRepository notificacionRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @InjectMocks
+    private NotificacionOutboxService outboxService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+    }
+
+    private NotificacionOutbox entrada(Long id) {
+        NotificacionOutbox entrada = new NotificacionOutbox();
+        entrada.setIdOutbox(id);
+        entrada.setUsuarioId(1L);
+        entrada.setPublicacionId(10L);
+        entrada.setMensaje("Spam");
+        entrada.setEstado(NotificacionOutbox.Estado.PENDIENTE);
+        entrada.setIntentos(0);
+        entrada.setFechaCreacion(LocalDateTime.now());
+        entrada.setProximoIntento(LocalDateTime.now());
+        return entrada;
+    }
+
+    /**
+     * Test: Registrar con mensaje vacío
+     * Verifica que no se crea ninguna entrada en el outbox y que no se lanza excepción,
+     * para no revertir la moderación que la origina
+     */
+    @Test
+    void registrar_conMensajeVacio_debeOmitirSinLanzar() {
+        assertNull(outboxService.registrar(1L, 10L, "  "));
+        verify(outboxRepository, never()).save(any());
+    }
+
+    /**
+     * Test: Registrar un lote con una entrada inválida
+     * Verifica que solo se insertan las entradas válidas
+     */
+    @SuppressWarnings("unchecked")
+    @Test
+    void registrarLote_conEntradaInvalida_debeOmitirla() {
+        Map<Long, Long> usuarioPorPublicacion = new LinkedHashMap<>();
+        usuarioPorPublicacion.put(10L, 1L);
+        usuarioPorPublicacion.put(11L, null);
+
+        assertEquals(1, outboxService.registrarLote(usuarioPorPublicacion, "Spam"));
+
+        ArgumentCaptor<List<Object[]>> captor = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).batchUpdate(anyString(), captor.capture());
+        assertEquals(1, captor.getValue().size());
+        assertEquals(10L, captor.getValue().get(0)[1]);
+    }
+
+    /**
+     * Test: Despachar un lote
+     * Verifica que se insertan solo las notificaciones no entregadas previamente
+     * y que todo el lote queda marcado como entregado
+     */
+    @SuppressWarnings("unchecked")
+    @Test
+    void despacharPendientes_debeOmitirEntradasYaEntregadas() {
+        // Arrange
+        when(outboxRepository.findPendientesVencidas(any(LocalDateTime.class), any(Pageable.class)))
+                .thenReturn(List.of(entrada(1L), entrada(2L)));
+        when(notificacionRepository.findOutboxIdsEntregados(anyCollection())).thenReturn(List.of(1L));
+
+        // Act
+        int entregadas = outboxService.despacharPendientes();
+
+        // Assert
+        assertEquals(2, entregadas);
+        ArgumentCaptor<List<Notificacion>> captor = ArgumentCaptor.forClass(List.class);
+        verify(notificacionRepository).saveAll(captor.capture());
+        assertEquals(1, captor.getValue().size());
+        assertEquals(2L, captor.getValue().get(0).getOutboxId());
+        verify(outboxRepository).marcarEntregadas(eq(List.of(1L, 2L)), any(LocalDateTime.class));
+    }
+
+    /**
+     * Test: Fallo de entrega
+     * Verifica que la entrada queda pendiente con un intento más y un próximo intento futuro
+     */
+    @Test
+    void despacharPendientes_conFallo_debeProgramarReintento() {
+        // Arrange
+        NotificacionOutbox pendiente = entrada(5L);
+        when(outboxRepository.findPendientesVencidas(any(LocalDateTime.class), any(Pageable.class)))
+                .thenReturn(List.of(pendiente));
+        when(outboxRepository.findById(5L)).thenReturn(Optional.of(pendiente));
+        when(notificacionRepository.findOutboxIdsEntregados(anyCollection()))
+                .thenThrow(new RuntimeException("BD no disponible"));
+
+        // Act
+        int entregadas = outboxService.despacharPendientes();
+
+        // Assert
+        assertEquals(0, entregadas);
+        assertEquals(1, pendiente.getIntentos());
+        assertEquals(NotificacionOutbox.Estado.PENDIENTE, pendiente.getEstado());
+        assertTrue(pendiente.getProximoIntento().isAfter(LocalDateTime.now()));
+        assertEquals("BD no disponible", pendiente.getUltimoError());
+        verify(outboxRepository).save(pendiente);
+    }
+
+    /**
+     * Test: Backoff exponencial
+     * Verifica que la espera se duplica con cada intento y respeta el máximo
+     */
+    @Test
+    void calcularBackoffMs_debeCrecerExponencialmenteHastaElMaximo() {
+        assertEquals(1000, outboxService.calcularBackoffMs(1));
+        assertEquals(2000, outboxService.calcularBackoffMs(2));
+        assertEquals(8000, outboxService.calcularBackoffMs(4));
+        assertEquals(600000, outboxService.calcularBackoffMs(40));
+    }
+}
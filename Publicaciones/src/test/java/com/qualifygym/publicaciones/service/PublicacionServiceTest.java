@@ -3,7 +3,13 @@ package com.qualifygym.publicaciones.service;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 
+import com.qualifygym.publicaciones.dto.PaginaPublicaciones;
+import com.qualifygym.publicaciones.dto.PublicacionResumen;
+import com.qualifygym.publicaciones.model.BorradorPublicacion;
+import com.qualifygym.publicaciones.model.CambioPublicacion;
 import com.qualifygym.publicaciones.model.Publicacion;
+import com.qualifygym.publicaciones.model.PublicacionArchivada;
+import com.qualifygym.publicaciones.repository.PublicacionArchivadaRepository;
 import com.qualifygym.publicaciones.repository.PublicacionRepository;
 import com.qualifygym.publicaciones.client.UsuarioClient;
 import com.qualifygym.publicaciones.client.TemaClient;
@@ -12,11 +18,18 @@ import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.PageRequest;
+
+import jakarta.persistence.EntityManager;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
 
 /**
  * Tests unitarios para PublicacionService
@@ -30,6 +43,9 @@ class PublicacionServiceTest {
     @Mock
     private PublicacionRepository publicacionRepository;
 
+    @Mock
+    private PublicacionArchivadaRepository publicacionArchivadaRepository;
+
     @Mock
     private UsuarioClient usuarioClient;
 
@@ -37,7 +53,43 @@ class PublicacionServiceTest {
     private TemaClient temaClient;
 
     @Mock
-    private NotificacionService notificacionService;
+    private NotificacionOutboxService notificacionOutboxService;
+
+    @Mock
+    private RankingCalienteService rankingCalienteService;
+
+    @Mock
+    private EntityManager entityManager;
+
+    @Mock
+    private CambiosPublicacionService cambiosPublicacionService;
+
+    @Mock
+    private DuplicadosPublicacionService duplicadosPublicacionService;
+
+    @Mock
+    private RelacionadasPublicacionService relacionadasPublicacionService;
+
+    @Mock
+    private EtiquetasPublicacionService etiquetasPublicacionService;
+
+    @Mock
+    private GuardadasPublicacionService guardadasPublicacionService;
+
+    @Mock
+    private ReaccionesPublicacionService reaccionesPublicacionService;
+
+    @Mock
+    private VistasUnicasService vistasUnicasService;
+
+    @Mock
+    private SilenciadosService silenciadosService;
+
+    @Mock
+    private BorradoresPublicacionService borradoresPublicacionService;
+
+    @Mock
+    private ActividadDiariaService actividadDiariaService;
 
     @InjectMocks
     private PublicacionService publicacionService;
@@ -61,6 +113,14 @@ class PublicacionServiceTest {
         publicacionTest.setTemaId(1L);
     }
 
+    // Fila (id, versión, oculta, tema, usuario, fecha) de la lectura de estado tras un UPDATE condicionado
+    private List<Object[]> estado(Publicacion publicacion, long version) {
+        List<Object[]> filas = new ArrayList<>();
+        filas.add(new Object[] {publicacion.getIdPublicacion(), version, publicacion.getOculta(),
+                publicacion.getTemaId(), publicacion.getUsuarioId(), publicacion.getFecha()});
+        return filas;
+    }
+
     /**
      * Test: Crear publicación exitosamente
      * Verifica que el servicio crea una publicación cuando el usuario y tema existen
@@ -142,6 +202,27 @@ class PublicacionServiceTest {
         verify(publicacionRepository, never()).save(any(Publicacion.class));
     }
 
+    /**
+     * Test: Crear publicación casi duplicada
+     * Verifica que un casi duplicado del mismo usuario se rechaza sin llamar a los servicios remotos
+     */
+    @Test
+    void crearPublicacion_casiDuplicada_debeRechazarseAntesDeValidarRemoto() {
+        // Arrange
+        doThrow(new RuntimeException("La publicación es casi idéntica a otra publicada recientemente por el mismo usuario"))
+            .when(duplicadosPublicacionService).verificarYReservar(1L, "Título", "Descripción");
+        
+        // Act & Assert
+        RuntimeException exception = assertThrows(RuntimeException.class, () -> {
+            publicacionService.crearPublicacion("Título", "Descripción", 1L, 1L, null);
+        });
+        
+        assertTrue(exception.getMessage().contains("casi idéntica"));
+        verify(usuarioClient, never()).existeUsuario(anyLong());
+        verify(temaClient, never()).existeTema(anyLong());
+        verify(publicacionRepository, never()).save(any(Publicacion.class));
+    }
+
     /**
      * Test: Crear publicación con tema inexistente
      * Verifica que el servicio lanza una excepción cuando el tema no existe
@@ -175,21 +256,22 @@ class PublicacionServiceTest {
         String nuevoTitulo = "Título actualizado";
         String nuevaDescripcion = "Descripción actualizada";
         
-        publicacionTest.setTitulo(nuevoTitulo);
-        publicacionTest.setDescripcion(nuevaDescripcion);
-        
-        when(publicacionRepository.findById(id)).thenReturn(Optional.of(publicacionTest));
-        when(publicacionRepository.save(any(Publicacion.class))).thenReturn(publicacionTest);
+        when(publicacionRepository.actualizarContenido(id, nuevoTitulo, nuevaDescripcion, 0L)).thenReturn(1);
+        when(publicacionRepository.findEstadoById(id)).thenReturn(estado(publicacionTest, 1L));
         
         // Act
-        Publicacion resultado = publicacionService.actualizarPublicacion(id, nuevoTitulo, nuevaDescripcion);
+        Publicacion resultado = publicacionService.actualizarPublicacion(id, nuevoTitulo, nuevaDescripcion, 0L);
         
         // Assert
         assertNotNull(resultado);
         assertEquals(nuevoTitulo, resultado.getTitulo());
         assertEquals(nuevaDescripcion, resultado.getDescripcion());
-        verify(publicacionRepository, times(1)).findById(id);
-        verify(publicacionRepository, times(1)).save(any(Publicacion.class));
+        assertEquals(1L, resultado.getVersion());
+        verify(publicacionRepository, times(1)).actualizarContenido(id, nuevoTitulo, nuevaDescripcion, 0L);
+        // UPDATE primero y después solo el estado, sin leer la fila completa (con su descripción)
+        verify(publicacionRepository, times(1)).findEstadoById(id);
+        verify(publicacionRepository, never()).findById(anyLong());
+        verify(publicacionRepository, never()).save(any(Publicacion.class));
     }
 
     /**
@@ -202,30 +284,31 @@ class PublicacionServiceTest {
         Long id = 1L;
         String motivo = "Contenido inapropiado";
         
+        when(publicacionRepository.ocultarSiVisible(eq(id), any(LocalDateTime.class), eq(motivo), eq(0L))).thenReturn(1);
         publicacionTest.setOculta(true);
-        publicacionTest.setMotivoBaneo(motivo);
-        publicacionTest.setFechaBaneo(LocalDateTime.now());
-        
-        when(publicacionRepository.findById(id)).thenReturn(Optional.of(publicacionTest));
-        when(publicacionRepository.save(any(Publicacion.class))).thenReturn(publicacionTest);
-        // Mock del servicio de notificaciones (el servicio lo llama cuando hay motivo)
-        // El método crearNotificacion retorna Notificacion, no void
-        com.qualifygym.publicaciones.model.Notificacion notificacionMock = 
-            new com.qualifygym.publicaciones.model.Notificacion();
-        when(notificacionService.crearNotificacion(anyLong(), anyLong(), anyString()))
-            .thenReturn(notificacionMock);
+        when(publicacionRepository.findEstadoById(id)).thenReturn(estado(publicacionTest, 1L));
+        // La notificación se registra en el outbox (el despachador la entrega después)
+        when(notificacionOutboxService.registrar(anyLong(), anyLong(), anyString()))
+            .thenReturn(new com.qualifygym.publicaciones.model.NotificacionOutbox());
         
         // Act
-        Publicacion resultado = publicacionService.ocultarPublicacion(id, motivo);
+        Publicacion resultado = publicacionService.ocultarPublicacion(id, motivo, 0L);
         
         // Assert
         assertNotNull(resultado);
         assertTrue(resultado.getOculta());
         assertEquals(motivo, resultado.getMotivoBaneo());
         assertNotNull(resultado.getFechaBaneo());
-        verify(publicacionRepository, times(1)).findById(id);
-        verify(publicacionRepository, times(1)).save(any(Publicacion.class));
-        verify(notificacionService, times(1)).crearNotificacion(
+        verify(publicacionRepository, times(1)).ocultarSiVisible(eq(id), any(LocalDateTime.class), eq(motivo), eq(0L));
+        verify(publicacionRepository, never()).ocultar(anyLong(), any(), any(), any());
+        // Los deltas del resumen diario salen de la lectura de estado, sin una consulta previa aparte
+        verify(actividadDiariaService, times(1)).registrarVisibilidad(publicacionTest.getTemaId(), publicacionTest.getFecha(), true);
+        verify(publicacionRepository, never()).findIdTemaFechaOcultaByIds(anyCollection());
+        verify(publicacionRepository, never()).save(any(Publicacion.class));
+        // Ocultar conserva el puntaje del ranking para cuando se vuelva a mostrar
+        verify(rankingCalienteService, times(1)).excluir(id);
+        verify(rankingCalienteService, never()).quitar(anyLong());
+        verify(notificacionOutboxService, times(1)).registrar(
             publicacionTest.getUsuarioId(),
             publicacionTest.getIdPublicacion(),
             motivo.trim()
@@ -250,6 +333,7 @@ class PublicacionServiceTest {
         // Assert
         verify(publicacionRepository, times(1)).existsById(id);
         verify(publicacionRepository, times(1)).deleteById(id);
+        verify(rankingCalienteService, times(1)).quitar(id);
     }
 
     /**
@@ -432,19 +516,18 @@ class PublicacionServiceTest {
         // Arrange
         Long id = 1L;
         String imageUrl = "https://example.com/image.jpg";
-        publicacionTest.setImageUrl(imageUrl);
         
-        when(publicacionRepository.findById(id)).thenReturn(Optional.of(publicacionTest));
-        when(publicacionRepository.save(any(Publicacion.class))).thenReturn(publicacionTest);
+        when(publicacionRepository.actualizarImagen(id, imageUrl, 0L)).thenReturn(1);
+        when(publicacionRepository.findEstadoById(id)).thenReturn(estado(publicacionTest, 1L));
         
         // Act
-        Publicacion resultado = publicacionService.actualizarImagenPublicacion(id, imageUrl);
+        Publicacion resultado = publicacionService.actualizarImagenPublicacion(id, imageUrl, 0L);
         
         // Assert
         assertNotNull(resultado);
         assertEquals(imageUrl, resultado.getImageUrl());
-        verify(publicacionRepository, times(1)).findById(id);
-        verify(publicacionRepository, times(1)).save(any(Publicacion.class));
+        verify(publicacionRepository, times(1)).actualizarImagen(id, imageUrl, 0L);
+        verify(publicacionRepository, never()).save(any(Publicacion.class));
     }
 
     /**
@@ -455,29 +538,24 @@ class PublicacionServiceTest {
     void mostrarPublicacion_debeMostrarYLimpiarDatosDeBaneo() {
         // Arrange
         Long id = 1L;
-        publicacionTest.setOculta(true);
-        publicacionTest.setMotivoBaneo("Motivo anterior");
-        publicacionTest.setFechaBaneo(LocalDateTime.now());
-        
-        when(publicacionRepository.findById(id)).thenReturn(Optional.of(publicacionTest));
-        when(publicacionRepository.save(any(Publicacion.class))).thenAnswer(invocation -> {
-            Publicacion p = invocation.getArgument(0);
-            p.setOculta(false);
-            p.setMotivoBaneo(null);
-            p.setFechaBaneo(null);
-            return p;
-        });
+        // La publicación estaba oculta: la sentencia condicionada a oculta = true afecta la fila
+        when(publicacionRepository.mostrarSiOculta(id, 0L)).thenReturn(1);
+        when(publicacionRepository.findEstadoById(id)).thenReturn(estado(publicacionTest, 1L));
         
         // Act
-        Publicacion resultado = publicacionService.mostrarPublicacion(id);
+        Publicacion resultado = publicacionService.mostrarPublicacion(id, 0L);
         
         // Assert
         assertNotNull(resultado);
         assertFalse(resultado.getOculta());
         assertNull(resultado.getMotivoBaneo());
         assertNull(resultado.getFechaBaneo());
-        verify(publicacionRepository, times(1)).findById(id);
-        verify(publicacionRepository, times(1)).save(any(Publicacion.class));
+        verify(publicacionRepository, times(1)).mostrarSiOculta(id, 0L);
+        verify(publicacionRepository, never()).mostrar(anyLong(), any());
+        verify(actividadDiariaService, times(1)).registrarVisibilidad(publicacionTest.getTemaId(), publicacionTest.getFecha(), false);
+        verify(publicacionRepository, never()).save(any(Publicacion.class));
+        verify(rankingCalienteService, times(1)).restaurar(id, publicacionTest.getTemaId(), publicacionTest.getFecha());
+        verify(rankingCalienteService, never()).registrarPublicacion(anyLong(), anyLong(), any());
     }
 
     /**
@@ -544,15 +622,15 @@ class PublicacionServiceTest {
     void actualizarPublicacion_conIdInexistente_debeLanzarExcepcion() {
         // Arrange
         Long idInexistente = 999L;
-        when(publicacionRepository.findById(idInexistente)).thenReturn(Optional.empty());
+        when(publicacionRepository.findEstadoById(idInexistente)).thenReturn(List.of());
         
         // Act & Assert
         RuntimeException exception = assertThrows(RuntimeException.class, () -> {
-            publicacionService.actualizarPublicacion(idInexistente, "Nuevo título", "Nueva descripción");
+            publicacionService.actualizarPublicacion(idInexistente, "Nuevo título", "Nueva descripción", 0L);
         });
         
         assertTrue(exception.getMessage().contains("Publicación no encontrada ID: " + idInexistente));
-        verify(publicacionRepository, times(1)).findById(idInexistente);
+        verify(publicacionRepository, atLeastOnce()).findEstadoById(idInexistente);
         verify(publicacionRepository, never()).save(any(Publicacion.class));
     }
 
@@ -564,15 +642,15 @@ class PublicacionServiceTest {
     void actualizarImagenPublicacion_conIdInexistente_debeLanzarExcepcion() {
         // Arrange
         Long idInexistente = 999L;
-        when(publicacionRepository.findById(idInexistente)).thenReturn(Optional.empty());
+        when(publicacionRepository.findEstadoById(idInexistente)).thenReturn(List.of());
         
         // Act & Assert
         RuntimeException exception = assertThrows(RuntimeException.class, () -> {
-            publicacionService.actualizarImagenPublicacion(idInexistente, "https://example.com/image.jpg");
+            publicacionService.actualizarImagenPublicacion(idInexistente, "https://example.com/image.jpg", 0L);
         });
         
         assertTrue(exception.getMessage().contains("Publicación no encontrada ID: " + idInexistente));
-        verify(publicacionRepository, times(1)).findById(idInexistente);
+        verify(publicacionRepository, atLeastOnce()).findEstadoById(idInexistente);
         verify(publicacionRepository, never()).save(any(Publicacion.class));
     }
 
@@ -584,15 +662,15 @@ class PublicacionServiceTest {
     void ocultarPublicacion_conIdInexistente_debeLanzarExcepcion() {
         // Arrange
         Long idInexistente = 999L;
-        when(publicacionRepository.findById(idInexistente)).thenReturn(Optional.empty());
+        when(publicacionRepository.findEstadoById(idInexistente)).thenReturn(List.of());
         
         // Act & Assert
         RuntimeException exception = assertThrows(RuntimeException.class, () -> {
-            publicacionService.ocultarPublicacion(idInexistente, "Motivo de baneo");
+            publicacionService.ocultarPublicacion(idInexistente, "Motivo de baneo", 0L);
         });
         
         assertTrue(exception.getMessage().contains("Publicación no encontrada ID: " + idInexistente));
-        verify(publicacionRepository, times(1)).findById(idInexistente);
+        verify(publicacionRepository, atLeastOnce()).findEstadoById(idInexistente);
         verify(publicacionRepository, never()).save(any(Publicacion.class));
     }
 
@@ -604,15 +682,710 @@ class PublicacionServiceTest {
     void mostrarPublicacion_conIdInexistente_debeLanzarExcepcion() {
         // Arrange
         Long idInexistente = 999L;
-        when(publicacionRepository.findById(idInexistente)).thenReturn(Optional.empty());
+        when(publicacionRepository.findEstadoById(idInexistente)).thenReturn(List.of());
         
         // Act & Assert
         RuntimeException exception = assertThrows(RuntimeException.class, () -> {
-            publicacionService.mostrarPublicacion(idInexistente);
+            publicacionService.mostrarPublicacion(idInexistente, 0L);
         });
         
         assertTrue(exception.getMessage().contains("Publicación no encontrada ID: " + idInexistente));
-        verify(publicacionRepository, times(1)).findById(idInexistente);
+        verify(publicacionRepository, atLeastOnce()).findEstadoById(idInexistente);
+        verify(publicacionRepository, never()).save(any(Publicacion.class));
+    }
+
+    /**
+     * Test: Ocultar publicaciones en lote
+     * Verifica que se oculta con UPDATE masivo y se registran las notificaciones en un solo lote
+     */
+    @Test
+    void ocultarPublicaciones_conIds_debeOcultarEnLoteYNotificar() {
+        // Arrange
+        List<Long> ids = List.of(1L, 2L, 2L, 3L);
+        List<Object[]> visibles = new ArrayList<>();
+        visibles.add(new Object[] {1L, 7L, 4L, LocalDateTime.now()});
+        visibles.add(new Object[] {2L, 7L, 4L, LocalDateTime.now()});
+        when(publicacionRepository.findVisiblesParaOcultarByIds(List.of(1L, 2L, 3L))).thenReturn(visibles);
+        when(publicacionRepository.ocultarPorIds(eq(List.of(1L, 2L)), any(LocalDateTime.class), eq("Spam")))
+                .thenReturn(2);
+
+        // Act
+        int resultado = publicacionService.ocultarPublicaciones(ids, " Spam ");
+
+        // Assert
+        assertEquals(2, resultado);
+        verify(publicacionRepository, never()).findById(anyLong());
         verify(publicacionRepository, never()).save(any(Publicacion.class));
+        verify(notificacionOutboxService, times(1)).registrarLote(java.util.Map.of(1L, 7L, 2L, 7L), "Spam");
+    }
+
+    /**
+     * Test: Ocultar publicaciones en lote sin IDs
+     * Verifica que el servicio rechaza una lista vacía
+     */
+    @Test
+    void ocultarPublicaciones_sinIds_debeLanzarExcepcion() {
+        assertThrows(RuntimeException.class, () -> publicacionService.ocultarPublicaciones(List.of(), "Spam"));
+        verify(publicacionRepository, never()).ocultarPorIds(anyCollection(), any(), any());
+    }
+
+    /**
+     * Test: Mostrar publicaciones ocultas de un usuario desde una fecha
+     * Verifica que se muestran con UPDATE masivo sin cargar las entidades
+     */
+    @Test
+    void mostrarPublicacionesDeUsuarioDesde_debeMostrarEnLote() {
+        // Arrange
+        LocalDateTime desde = LocalDateTime.now().minusHours(1);
+        List<Object[]> ocultas = new ArrayList<>();
+        ocultas.add(new Object[] {4L, 3L, desde.plusMinutes(5)});
+        ocultas.add(new Object[] {5L, 3L, desde.plusMinutes(10)});
+        when(publicacionRepository.findOcultasParaMostrarByUsuarioDesde(7L, desde)).thenReturn(ocultas);
+        when(publicacionRepository.mostrarPorIds(List.of(4L, 5L))).thenReturn(2);
+
+        // Act
+        int resultado = publicacionService.mostrarPublicacionesDeUsuarioDesde(7L, desde);
+
+        // Assert
+        assertEquals(2, resultado);
+        verify(publicacionRepository, times(1)).mostrarPorIds(List.of(4L, 5L));
+        verify(rankingCalienteService).restaurar(4L, 3L, desde.plusMinutes(5));
+        verify(publicacionRepository, never()).findVisiblesIdTemaFechaByIds(anyCollection());
+        verify(publicacionRepository, never()).findIdTemaFechaOcultaByIds(anyCollection());
+    }
+
+    /**
+     * Test: Verificar existencia de varias publicaciones
+     * Verifica que se resuelve con una sola consulta de IDs y se respeta el orden recibido
+     */
+    @Test
+    void existenPublicaciones_debeRetornarExistenciaPorId() {
+        // Arrange
+        when(publicacionRepository.findIdsExistentes(List.of(3L, 1L, 2L))).thenReturn(List.of(1L, 3L));
+
+        // Act
+        java.util.Map<Long, Boolean> resultado = publicacionService.existenPublicaciones(List.of(3L, 1L, 2L, 1L));
+
+        // Assert
+        assertEquals(List.of(3L, 1L, 2L), new ArrayList<>(resultado.keySet()));
+        assertTrue(resultado.get(3L));
+        assertTrue(resultado.get(1L));
+        assertFalse(resultado.get(2L));
+        verify(publicacionRepository, never()).findById(anyLong());
+    }
+
+    /**
+     * Test: Obtener publicaciones calientes
+     * Verifica que se respeta el orden del ranking y se descartan las publicaciones ocultas
+     */
+    @Test
+    void obtenerPublicacionesCalientes_debeRespetarOrdenDelRanking() {
+        // Arrange (la 3 está oculta, por lo que la consulta de resúmenes no la retorna)
+        PublicacionResumen primera = new PublicacionResumen(1L, "Uno", "Texto", LocalDateTime.now(), 1L, 1L, null);
+        PublicacionResumen segunda = new PublicacionResumen(2L, "Dos", "Texto", LocalDateTime.now(), 1L, 1L, null);
+        when(rankingCalienteService.obtenerTop(null, 20)).thenReturn(List.of(2L, 3L, 1L));
+        when(publicacionRepository.findResumenesVisiblesByIds(List.of(2L, 3L, 1L))).thenReturn(List.of(primera, segunda));
+
+        // Act
+        List<PublicacionResumen> resultado = publicacionService.obtenerPublicacionesCalientes(null, 20);
+
+        // Assert
+        assertEquals(2, resultado.size());
+        assertEquals(2L, resultado.get(0).getIdPublicacion());
+        assertEquals(1L, resultado.get(1).getIdPublicacion());
+    }
+
+    /**
+     * Test: Buscar resúmenes de publicaciones
+     * Verifica que la búsqueda usa la proyección de resumen y que la vista previa se trunca
+     */
+    @Test
+    void buscarResumenes_debeRetornarVistaPreviaTruncada() {
+        // Arrange (la consulta entrega un carácter más que la vista previa para detectar el truncado)
+        String descripcionLarga = "x".repeat(PublicacionResumen.LARGO_VISTA_PREVIA + 1);
+        PublicacionResumen resumen = new PublicacionResumen(1L, "Título", descripcionLarga, LocalDateTime.now(), 1L, 1L, null);
+        when(publicacionRepository.searchResumenes("test")).thenReturn(List.of(resumen));
+
+        // Act
+        List<PublicacionResumen> resultado = publicacionService.buscarResumenes(" test ");
+
+        // Assert
+        assertEquals(1, resultado.size());
+        assertEquals(PublicacionResumen.LARGO_VISTA_PREVIA + 1, resultado.get(0).getVistaPrevia().length());
+        assertTrue(resultado.get(0).getVistaPrevia().endsWith("…"));
+        verify(publicacionRepository, never()).searchPublicaciones(anyString());
+    }
+
+    /**
+     * Test: Exportar publicaciones en streaming
+     * Verifica que cada publicación se entrega al consumidor y se desacopla del contexto
+     * de persistencia, y que el stream se cierra al terminar
+     */
+    @Test
+    void exportarPublicaciones_debeEntregarYDesacoplarCadaFila() {
+        // Arrange
+        Publicacion otra = new Publicacion();
+        otra.setIdPublicacion(2L);
+        AtomicBoolean cerrado = new AtomicBoolean(false);
+        when(publicacionRepository.streamTodas())
+                .thenReturn(Stream.of(publicacionTest, otra).onClose(() -> cerrado.set(true)));
+        List<Long> exportadas = new ArrayList<>();
+
+        // Act
+        long total = publicacionService.exportarPublicaciones(null, p -> exportadas.add(p.getIdPublicacion()));
+
+        // Assert
+        assertEquals(2, total);
+        assertEquals(List.of(1L, 2L), exportadas);
+        verify(entityManager).detach(publicacionTest);
+        verify(entityManager).detach(otra);
+        assertTrue(cerrado.get());
+        verify(publicacionRepository, never()).streamDesde(any());
+    }
+
+    /**
+     * Test: Exportar publicaciones desde una fecha
+     * Verifica que se usa la consulta filtrada por fecha
+     */
+    @Test
+    void exportarPublicaciones_conFechaDesde_debeFiltrarPorFecha() {
+        // Arrange
+        LocalDateTime desde = LocalDateTime.now().minusDays(1);
+        when(publicacionRepository.streamDesde(desde)).thenReturn(Stream.of(publicacionTest));
+
+        // Act
+        long total = publicacionService.exportarPublicaciones(desde, p -> { });
+
+        // Assert
+        assertEquals(1, total);
+        verify(publicacionRepository, never()).streamTodas();
+    }
+
+    /**
+     * Test: Obtener publicación archivada por ID
+     * Verifica que si la publicación ya no está en la tabla caliente se obtiene desde el archivo
+     */
+    @Test
+    void obtenerPublicacionPorId_archivada_debeBuscarEnArchivo() {
+        // Arrange
+        PublicacionArchivada archivada = new PublicacionArchivada();
+        archivada.setIdPublicacion(9L);
+        archivada.setTitulo("Antigua");
+        archivada.setUsuarioId(1L);
+        archivada.setTemaId(1L);
+        archivada.setOculta(false);
+        when(publicacionRepository.findById(9L)).thenReturn(Optional.empty());
+        when(publicacionArchivadaRepository.findById(9L)).thenReturn(Optional.of(archivada));
+
+        // Act
+        Optional<Publicacion> resultado = publicacionService.obtenerPublicacionPorId(9L);
+
+        // Assert
+        assertTrue(resultado.isPresent());
+        assertEquals("Antigua", resultado.get().getTitulo());
+    }
+
+    /**
+     * Test: Historial de usuario con publicaciones archivadas
+     * Verifica que el historial incluye primero las recientes y luego las archivadas
+     */
+    @Test
+    void obtenerPublicacionesPorUsuario_debeIncluirArchivadas() {
+        // Arrange
+        PublicacionArchivada archivada = new PublicacionArchivada();
+        archivada.setIdPublicacion(9L);
+        when(publicacionRepository.findByUsuarioIdOrderByFechaDesc(1L)).thenReturn(List.of(publicacionTest));
+        when(publicacionArchivadaRepository.findByUsuarioIdOrderByFechaDesc(1L)).thenReturn(List.of(archivada));
+
+        // Act
+        List<Publicacion> historial = publicacionService.obtenerPublicacionesPorUsuario(1L);
+
+        // Assert
+        assertEquals(2, historial.size());
+        assertEquals(1L, historial.get(0).getIdPublicacion());
+        assertEquals(9L, historial.get(1).getIdPublicacion());
+    }
+
+    /**
+     * Test: Registro de cambios al actualizar
+     * Verifica que actualizar una publicación queda registrado para la sincronización incremental
+     */
+    @Test
+    void actualizarPublicacion_debeRegistrarCambio() {
+        // Arrange
+        when(publicacionRepository.actualizarContenido(1L, "Nuevo título", null, 0L)).thenReturn(1);
+        when(publicacionRepository.findEstadoById(1L)).thenReturn(estado(publicacionTest, 1L));
+
+        // Act
+        publicacionService.actualizarPublicacion(1L, "Nuevo título", null, 0L);
+
+        // Assert
+        verify(cambiosPublicacionService).registrar(
+                argThat(p -> p.getIdPublicacion().equals(1L) && p.getTemaId().equals(publicacionTest.getTemaId())),
+                eq(CambioPublicacion.Tipo.ACTUALIZADA));
+    }
+
+    /**
+     * Test: Registro de cambios en moderación masiva
+     * Verifica que ocultar en lote registra todos los cambios en un solo lote
+     */
+    @Test
+    void ocultarPublicaciones_debeRegistrarCambiosEnLote() {
+        // Arrange
+        List<Object[]> filas = new ArrayList<>();
+        filas.add(new Object[] {1L, 5L, 4L, LocalDateTime.now()});
+        filas.add(new Object[] {2L, 5L, 4L, LocalDateTime.now()});
+        when(publicacionRepository.findVisiblesParaOcultarByIds(List.of(1L, 2L))).thenReturn(filas);
+        when(publicacionRepository.ocultarPorIds(eq(List.of(1L, 2L)), any(LocalDateTime.class), any())).thenReturn(2);
+
+        // Act
+        publicacionService.ocultarPublicaciones(List.of(1L, 2L), null);
+
+        // Assert
+        verify(cambiosPublicacionService).registrarLote(Set.of(1L, 2L), CambioPublicacion.Tipo.OCULTADA);
+    }
+
+    /**
+     * Test: Actualización con versión desactualizada
+     * Verifica que si otra operación modificó la publicación se lanza un conflicto y no se registra el cambio
+     */
+    @Test
+    void actualizarPublicacion_conVersionDesactualizada_debeLanzarConflicto() {
+        // Arrange
+        when(publicacionRepository.actualizarContenido(1L, "Nuevo título", null, 3L)).thenReturn(0);
+        when(publicacionRepository.findEstadoById(1L)).thenReturn(estado(publicacionTest, 4L));
+
+        // Act & Assert
+        assertThrows(OptimisticLockingFailureException.class, () -> {
+            publicacionService.actualizarPublicacion(1L, "Nuevo título", null, 3L);
+        });
+        verify(cambiosPublicacionService, never()).registrar(any(Publicacion.class), any());
+    }
+
+    /**
+     * Test: Modificación con versión distinta a la leída o sin versión
+     * Verifica que una versión que ya no coincide es un conflicto sin cambios registrados
+     * y que la versión es obligatoria (sin ella no se ejecuta ningún UPDATE)
+     */
+    @Test
+    void ocultarPublicacion_conVersionDistintaOSinVersion_debeRechazar() {
+        // Arrange: ninguna sentencia condicionada afecta filas porque la versión vigente es otra
+        when(publicacionRepository.findEstadoById(1L)).thenReturn(estado(publicacionTest, 4L));
+
+        // Act & Assert
+        assertThrows(OptimisticLockingFailureException.class, () -> publicacionService.ocultarPublicacion(1L, "Spam", 3L));
+        assertThrows(RuntimeException.class, () -> publicacionService.mostrarPublicacion(1L, null));
+        verify(publicacionRepository, never()).mostrar(anyLong(), any());
+        verify(publicacionRepository, never()).mostrarSiOculta(anyLong(), any());
+        verify(cambiosPublicacionService, never()).registrar(any(Publicacion.class), any());
+        verify(notificacionOutboxService, never()).registrar(anyLong(), anyLong(), anyString());
+    }
+
+    /**
+     * Test: Ocultar una publicación que ya estaba oculta
+     * Verifica que se renueva el baneo con la sentencia sin condición de visibilidad y sin delta de ocultas
+     */
+    @Test
+    void ocultarPublicacion_yaOculta_debeRenovarSinDeltaDeVisibilidad() {
+        // Arrange
+        publicacionTest.setOculta(true);
+        when(publicacionRepository.ocultar(eq(1L), any(LocalDateTime.class), eq("Spam"), eq(2L))).thenReturn(1);
+        when(publicacionRepository.findEstadoById(1L)).thenReturn(estado(publicacionTest, 3L));
+
+        // Act
+        Publicacion resultado = publicacionService.ocultarPublicacion(1L, "Spam", 2L);
+
+        // Assert
+        assertEquals(3L, resultado.getVersion());
+        verify(publicacionRepository).ocultarSiVisible(eq(1L), any(LocalDateTime.class), eq("Spam"), eq(2L));
+        verify(actividadDiariaService, never()).registrarVisibilidad(anyLong(), any(), anyBoolean());
+        verify(cambiosPublicacionService).registrar(any(Publicacion.class), eq(CambioPublicacion.Tipo.OCULTADA));
+    }
+
+    /**
+     * Test: Ocultar con versión vigente
+     * Verifica que la versión enviada por el moderador condiciona la sentencia UPDATE
+     */
+    @Test
+    void ocultarPublicacion_conVersionVigente_debeActualizarEnUnaSentencia() {
+        // Arrange
+        when(publicacionRepository.ocultarSiVisible(eq(1L), any(LocalDateTime.class), isNull(), eq(2L))).thenReturn(1);
+        when(publicacionRepository.findEstadoById(1L)).thenReturn(estado(publicacionTest, 3L));
+
+        // Act
+        Publicacion resultado = publicacionService.ocultarPublicacion(1L, "  ", 2L);
+
+        // Assert
+        assertNotNull(resultado);
+        assertEquals(3L, resultado.getVersion());
+        verify(publicacionRepository, times(1)).ocultarSiVisible(eq(1L), any(LocalDateTime.class), isNull(), eq(2L));
+        verify(notificacionOutboxService, never()).registrar(anyLong(), anyLong(), anyString());
+    }
+
+    /**
+     * Test: Publicaciones relacionadas
+     * Verifica que se respeta el orden de similitud del índice y se descartan las no visibles
+     */
+    @Test
+    void obtenerPublicacionesRelacionadas_debeRespetarOrdenYDescartarOcultas() {
+        // Arrange
+        PublicacionResumen r3 = new PublicacionResumen(3L, "Tres", "d", LocalDateTime.now(), 1L, 1L, null);
+        PublicacionResumen r7 = new PublicacionResumen(7L, "Siete", "d", LocalDateTime.now(), 1L, 1L, null);
+        when(relacionadasPublicacionService.buscarRelacionadas(1L, 4)).thenReturn(List.of(7L, 5L, 3L));
+        when(publicacionRepository.findResumenesVisiblesByIds(List.of(7L, 5L, 3L))).thenReturn(List.of(r3, r7));
+
+        // Act
+        List<PublicacionResumen> resultado = publicacionService.obtenerPublicacionesRelacionadas(1L, 2);
+
+        // Assert
+        assertEquals(List.of(7L, 3L), resultado.stream().map(PublicacionResumen::getIdPublicacion).toList());
+    }
+
+    /**
+     * Test: Firma de relacionadas al crear
+     * Verifica que una publicación nueva queda registrada en el índice de relacionadas
+     */
+    @Test
+    void crearPublicacion_debeRegistrarFirmaDeRelacionadas() {
+        // Arrange
+        when(usuarioClient.existeUsuario(1L)).thenReturn(true);
+        when(temaClient.existeTema(1L)).thenReturn(true);
+        when(publicacionRepository.save(any(Publicacion.class))).thenReturn(publicacionTest);
+
+        // Act
+        publicacionService.crearPublicacion("Título", "Descripción", 1L, 1L, null);
+
+        // Assert
+        verify(relacionadasPublicacionService).registrar(publicacionTest.getIdPublicacion(), publicacionTest.getDescripcion());
+    }
+
+    /**
+     * Test: Publicaciones por etiqueta
+     * Verifica que la página sigue el orden del índice y que una etiqueta inválida se rechaza
+     */
+    @Test
+    void obtenerPublicacionesPorEtiqueta_debeRespetarOrdenDelIndice() {
+        // Arrange
+        PublicacionResumen r5 = new PublicacionResumen(5L, "Cinco", "d", LocalDateTime.now(), 1L, 1L, null);
+        PublicacionResumen r9 = new PublicacionResumen(9L, "Nueve", "d", LocalDateTime.now(), 1L, 1L, null);
+        when(etiquetasPublicacionService.buscarPorEtiqueta("#Piernas", 10L, 2)).thenReturn(List.of(9L, 5L));
+        when(publicacionRepository.findResumenesVisiblesByIds(List.of(9L, 5L))).thenReturn(List.of(r5, r9));
+
+        // Act
+        List<PublicacionResumen> resultado = publicacionService.obtenerPublicacionesPorEtiqueta("#Piernas", 10L, 2);
+
+        // Assert
+        assertEquals(List.of(9L, 5L), resultado.stream().map(PublicacionResumen::getIdPublicacion).toList());
+        assertThrows(RuntimeException.class, () -> publicacionService.obtenerPublicacionesPorEtiqueta("#123", null, 2));
+    }
+
+    /**
+     * Test: Etiquetas al crear y al ocultar
+     * Verifica que la publicación nueva registra sus etiquetas y que al ocultarla sale del índice
+     */
+    @Test
+    void crearYOcultarPublicacion_debenActualizarEtiquetas() {
+        // Arrange
+        when(usuarioClient.existeUsuario(1L)).thenReturn(true);
+        when(temaClient.existeTema(1L)).thenReturn(true);
+        when(publicacionRepository.save(any(Publicacion.class))).thenReturn(publicacionTest);
+        when(publicacionRepository.ocultarSiVisible(eq(1L), any(LocalDateTime.class), isNull(), eq(0L))).thenReturn(1);
+        when(publicacionRepository.findEstadoById(1L)).thenReturn(estado(publicacionTest, 1L));
+
+        // Act
+        publicacionService.crearPublicacion("Título", "Descripción #piernas", 1L, 1L, null);
+        publicacionService.ocultarPublicacion(1L, null, 0L);
+
+        // Assert
+        verify(etiquetasPublicacionService).registrar(publicacionTest);
+        verify(etiquetasPublicacionService).actualizarVisibilidad(List.of(1L), false);
+    }
+
+    /**
+     * Test: Guardar publicación inexistente
+     * Verifica que no se guarda una publicación que no existe ni con un usuario inválido
+     */
+    @Test
+    void guardarPublicacion_inexistenteOUsuarioInvalido_debeLanzarExcepcion() {
+        // Arrange
+        when(publicacionRepository.existsById(99L)).thenReturn(false);
+
+        // Act & Assert
+        assertThrows(RuntimeException.class, () -> publicacionService.guardarPublicacion(99L, 5L));
+        assertThrows(RuntimeException.class, () -> publicacionService.guardarPublicacion(1L, null));
+        verify(guardadasPublicacionService, never()).guardar(anyLong(), anyLong());
+    }
+
+    /**
+     * Test: Publicaciones guardadas
+     * Verifica que las guardadas ocultas se saltan y se sigue leyendo hasta llenar la página
+     */
+    @Test
+    void obtenerPublicacionesGuardadas_debeSaltarOcultasYMarcarGuardadas() {
+        // Arrange
+        PublicacionResumen r9 = new PublicacionResumen(9L, "Nueve", "d", LocalDateTime.now(), 1L, 1L, null);
+        PublicacionResumen r4 = new PublicacionResumen(4L, "Cuatro", "d", LocalDateTime.now(), 1L, 1L, null);
+        when(guardadasPublicacionService.buscarGuardadas(5L, null, 2)).thenReturn(List.of(9L, 7L));
+        when(guardadasPublicacionService.buscarGuardadas(5L, 7L, 2)).thenReturn(List.of(4L));
+        when(publicacionRepository.findResumenesVisiblesByIds(List.of(9L, 7L))).thenReturn(List.of(r9));
+        when(publicacionRepository.findResumenesVisiblesByIds(List.of(4L))).thenReturn(List.of(r4));
+
+        // Act
+        List<PublicacionResumen> resultado = publicacionService.obtenerPublicacionesGuardadas(5L, null, 2);
+
+        // Assert
+        assertEquals(List.of(9L, 4L), resultado.stream().map(PublicacionResumen::getIdPublicacion).toList());
+        assertTrue(resultado.stream().allMatch(r -> Boolean.TRUE.equals(r.getGuardada())));
+    }
+
+    /**
+     * Test: Reaccionar a publicación
+     * Verifica que solo una reacción nueva suma actividad al ranking caliente
+     */
+    @Test
+    void reaccionarPublicacion_debeSumarAlRankingSoloSiEsNueva() {
+        // Arrange
+        when(publicacionRepository.findVisiblesIdTemaFechaByIds(List.of(1L)))
+                .thenReturn(List.<Object[]>of(new Object[] { 1L, 3L, LocalDateTime.now() }));
+        when(reaccionesPublicacionService.reaccionar(1L, 5L)).thenReturn(true, false);
+
+        // Act
+        boolean primera = publicacionService.reaccionarPublicacion(1L, 5L);
+        boolean repetida = publicacionService.reaccionarPublicacion(1L, 5L);
+
+        // Assert
+        assertTrue(primera);
+        assertFalse(repetida);
+        verify(rankingCalienteService, times(1)).registrarReaccion(1L, 3L);
+    }
+
+    /**
+     * Test: Reaccionar a publicación oculta o con usuario inválido
+     * Verifica que se rechaza sin registrar la reacción
+     */
+    @Test
+    void reaccionarPublicacion_ocultaOUsuarioInvalido_debeLanzarExcepcion() {
+        // Arrange
+        when(publicacionRepository.findVisiblesIdTemaFechaByIds(List.of(2L))).thenReturn(List.of());
+
+        // Act & Assert
+        assertThrows(RuntimeException.class, () -> publicacionService.reaccionarPublicacion(2L, 5L));
+        assertThrows(RuntimeException.class, () -> publicacionService.reaccionarPublicacion(1L, 0L));
+        verify(reaccionesPublicacionService, never()).reaccionar(anyLong(), anyLong());
+    }
+
+    /**
+     * Test: Vistas únicas
+     * Verifica que solo las vistas de publicaciones visibles cuentan como vistas únicas
+     */
+    @Test
+    void registrarVista_soloPublicacionesVisibles_debeContarVistaUnica() {
+        // Arrange
+        Publicacion oculta = new Publicacion();
+        oculta.setIdPublicacion(2L);
+        oculta.setTemaId(1L);
+        oculta.setOculta(true);
+
+        // Act
+        publicacionService.registrarVista(publicacionTest, "usuario:5");
+        publicacionService.registrarVista(oculta, "usuario:5");
+
+        // Assert
+        verify(vistasUnicasService).registrar(publicacionTest.getIdPublicacion(), publicacionTest.getTemaId(), "usuario:5");
+        verify(vistasUnicasService, never()).registrar(eq(2L), any(), any());
+    }
+
+    /**
+     * Test: Página del feed con autores silenciados
+     * Verifica que se leen más filas según la fracción de silenciados, se descartan las silenciadas y
+     * el cursor apunta a la última fila recorrida
+     */
+    @Test
+    void obtenerPaginaResumenesVisibles_conSilenciados_debeLeerDeMasYAvanzarElCursor() {
+        // Arrange
+        LocalDateTime fecha = LocalDateTime.now();
+        List<PublicacionResumen> filas = List.of(
+                new PublicacionResumen(10L, "A", "a", fecha, 20L, 1L, null),
+                new PublicacionResumen(9L, "B", "b", fecha, 21L, 1L, null),
+                new PublicacionResumen(8L, "C", "c", fecha, 20L, 1L, null),
+                new PublicacionResumen(7L, "D", "d", fecha, 21L, 1L, null));
+        when(silenciadosService.contar(5L)).thenReturn(1);
+        when(silenciadosService.fraccionSilenciada(5L)).thenReturn(0.5);
+        when(silenciadosService.estaSilenciado(5L, 20L)).thenReturn(true);
+        when(publicacionRepository.findPaginaResumenesNotOculta(any(LocalDateTime.class), eq(Long.MAX_VALUE), eq(PageRequest.of(0, 4))))
+                .thenReturn(filas);
+
+        // Act
+        PaginaPublicaciones pagina = publicacionService.obtenerPaginaResumenesVisibles(null, 2, 5L);
+
+        // Assert
+        assertEquals(List.of(9L, 7L), pagina.getPublicaciones().stream().map(PublicacionResumen::getIdPublicacion).toList());
+        assertEquals(PublicacionService.codificarCursor(filas.get(3)), pagina.getSiguienteAntesDe());
+    }
+
+    /**
+     * Test: Página cuyas filas leídas son todas de silenciados
+     * Verifica que no se vuelve a consultar: la página viene vacía con el cursor de la última fila leída,
+     * y la lectura no supera el máximo aunque casi todo sea de silenciados
+     */
+    @Test
+    void obtenerPaginaResumenesVisiblesPorTema_todoSilenciado_debeRetornarPaginaCortaConCursor() {
+        // Arrange
+        LocalDateTime fecha = LocalDateTime.of(2024, 3, 1, 10, 0);
+        PublicacionResumen anterior = new PublicacionResumen(50L, "Z", "z", fecha, 21L, 1L, null);
+        PublicacionResumen ultima = new PublicacionResumen(6L, "D", "d", fecha.minusDays(1), 20L, 1L, null);
+        when(silenciadosService.contar(5L)).thenReturn(1);
+        when(silenciadosService.fraccionSilenciada(5L)).thenReturn(0.99);
+        when(silenciadosService.estaSilenciado(5L, 20L)).thenReturn(true);
+        when(publicacionRepository.findPaginaResumenesByTemaIdAndNotOculta(1L, fecha, 50L, PageRequest.of(0, 4))).thenReturn(List.of(
+                new PublicacionResumen(9L, "A", "a", fecha, 20L, 1L, null),
+                new PublicacionResumen(8L, "B", "b", fecha, 20L, 1L, null),
+                new PublicacionResumen(70L, "C", "c", fecha.minusDays(1), 20L, 1L, null),
+                ultima));
+
+        // Act
+        PaginaPublicaciones pagina = publicacionService.obtenerPaginaResumenesVisiblesPorTema(
+                1L, PublicacionService.codificarCursor(anterior), 1, 5L);
+
+        // Assert
+        assertTrue(pagina.getPublicaciones().isEmpty());
+        assertEquals(PublicacionService.codificarCursor(ultima), pagina.getSiguienteAntesDe());
+        verify(publicacionRepository).findPaginaResumenesByTemaIdAndNotOculta(anyLong(), any(), anyLong(), any());
+    }
+
+    /**
+     * Test: Última página del feed sin silenciados
+     * Verifica que se lee exactamente el límite y que una página incompleta no trae cursor
+     */
+    @Test
+    void obtenerPaginaResumenesVisibles_ultimaPagina_noDebeTraerCursor() {
+        // Arrange
+        LocalDateTime fecha = LocalDateTime.of(2024, 3, 1, 10, 0, 30, 123456000);
+        PublicacionResumen anterior = new PublicacionResumen(4L, "B", "b", fecha, 20L, 1L, null);
+        PublicacionResumen resumen = new PublicacionResumen(3L, "A", "a", fecha, 20L, 1L, null);
+        when(publicacionRepository.findPaginaResumenesNotOculta(fecha, 4L, PageRequest.of(0, 2))).thenReturn(List.of(resumen));
+
+        // Act
+        PaginaPublicaciones pagina = publicacionService.obtenerPaginaResumenesVisibles(PublicacionService.codificarCursor(anterior), 2, null);
+
+        // Assert
+        assertEquals(List.of(resumen), pagina.getPublicaciones());
+        assertNull(pagina.getSiguienteAntesDe());
+        verify(silenciadosService, never()).estaSilenciado(any(), any());
+    }
+
+    /**
+     * Test: Cursor de página inválido
+     * Verifica que se rechaza un cursor que no es de fecha e ID (por ejemplo, un ID suelto) sin consultar
+     */
+    @Test
+    void obtenerPaginaResumenesVisibles_conCursorInvalido_debeLanzarExcepcion() {
+        assertThrows(RuntimeException.class, () -> publicacionService.obtenerPaginaResumenesVisibles("50", 2, null));
+        assertThrows(RuntimeException.class, () -> publicacionService.obtenerPaginaResumenesVisibles("%%", 2, null));
+        verify(publicacionRepository, never()).findPaginaResumenesNotOculta(any(), any(), any());
+    }
+
+    /**
+     * Test: Silenciar autor inválido
+     * Verifica que no se puede silenciar a uno mismo ni a un usuario inexistente
+     */
+    @Test
+    void silenciarAutor_invalido_debeLanzarExcepcion() {
+        // Arrange
+        when(usuarioClient.existeUsuario(9L)).thenReturn(false);
+
+        // Act & Assert
+        RuntimeException propio = assertThrows(RuntimeException.class, () -> publicacionService.silenciarAutor(5L, 5L));
+        assertEquals("Un usuario no puede silenciarse a sí mismo", propio.getMessage());
+        assertThrows(RuntimeException.class, () -> publicacionService.silenciarAutor(5L, 9L));
+        assertThrows(RuntimeException.class, () -> publicacionService.silenciarAutor(null, 9L));
+        verify(silenciadosService, never()).silenciar(any(), any());
+    }
+
+    /**
+     * Test: Publicar un borrador
+     * Verifica que se publica el último contenido del borrador y que el borrador se elimina
+     */
+    @Test
+    void publicarBorrador_debeCrearPublicacionYEliminarBorrador() {
+        // Arrange
+        when(borradoresPublicacionService.obtenerParaPublicar(1L, 7L)).thenReturn(Optional.of(
+                new BorradorPublicacion(7L, 1L, "Rutina", "Último contenido", 1L, null, LocalDateTime.now())));
+        when(usuarioClient.existeUsuario(1L)).thenReturn(true);
+        when(temaClient.existeTema(1L)).thenReturn(true);
+        when(publicacionRepository.save(any(Publicacion.class))).thenAnswer(invocacion -> invocacion.getArgument(0));
+
+        // Act
+        Publicacion publicada = publicacionService.publicarBorrador(7L, 1L);
+
+        // Assert
+        assertEquals("Último contenido", publicada.getDescripcion());
+        verify(borradoresPublicacionService).eliminar(1L, 7L);
+    }
+
+    /**
+     * Test: Borrador incompleto o demasiado largo
+     * Verifica que no se publica un borrador sin descripción y que el autoguardado rechaza contenido que no cabe
+     */
+    @Test
+    void borrador_invalido_debeLanzarExcepcion() {
+        // Arrange
+        when(borradoresPublicacionService.obtenerParaPublicar(1L, 7L)).thenReturn(Optional.of(
+                new BorradorPublicacion(7L, 1L, "Rutina", null, 1L, null, LocalDateTime.now())));
+
+        // Act & Assert
+        assertThrows(RuntimeException.class, () -> publicacionService.publicarBorrador(7L, 1L));
+        assertThrows(RuntimeException.class, () -> publicacionService.autoguardarBorrador(7L, 1L, "x".repeat(201), null, null, null));
+        verify(borradoresPublicacionService, never()).eliminar(any(), any());
+        verify(borradoresPublicacionService, never()).autoguardar(any(), any(), any(), any(), any(), any());
+    }
+
+    /**
+     * Test: Resúmenes diarios al ocultar en lote
+     * Verifica que solo las publicaciones leídas (y bloqueadas) como visibles cuentan como ocultadas en su día y tema,
+     * que se ocultan exactamente esas y que no se hace otra lectura previa al UPDATE
+     */
+    @Test
+    void ocultarPublicaciones_debeRegistrarEnResumenesDiariosSoloLasVisibles() {
+        // Arrange
+        LocalDateTime fecha = LocalDateTime.of(2025, 3, 10, 18, 30);
+        List<Object[]> visibles = new ArrayList<>();
+        visibles.add(new Object[] {1L, 7L, 4L, fecha});
+        when(publicacionRepository.findVisiblesParaOcultarByIds(List.of(1L, 2L))).thenReturn(visibles);
+        when(publicacionRepository.ocultarPorIds(eq(List.of(1L)), any(LocalDateTime.class), eq("Spam"))).thenReturn(1);
+
+        // Act
+        int ocultadas = publicacionService.ocultarPublicaciones(List.of(1L, 2L), "Spam");
+
+        // Assert
+        assertEquals(1, ocultadas);
+        verify(actividadDiariaService, times(1)).registrarVisibilidad(4L, fecha, true);
+        verify(actividadDiariaService, times(1)).registrarVisibilidad(any(), any(), anyBoolean());
+        verify(notificacionOutboxService).registrarLote(java.util.Map.of(1L, 7L), "Spam");
+        verify(publicacionRepository, never()).findIdTemaFechaOcultaByIds(anyCollection());
+    }
+
+    /**
+     * Test: Resúmenes diarios al crear y eliminar
+     * Verifica que la publicación nueva suma en su día y tema, y que al eliminarla se descuenta con su visibilidad
+     */
+    @Test
+    void crearYEliminarPublicacion_debeActualizarResumenesDiarios() {
+        // Arrange
+        when(usuarioClient.existeUsuario(1L)).thenReturn(true);
+        when(temaClient.existeTema(1L)).thenReturn(true);
+        when(publicacionRepository.save(any(Publicacion.class))).thenReturn(publicacionTest);
+        when(publicacionRepository.existsById(1L)).thenReturn(true);
+        List<Object[]> fila = new ArrayList<>();
+        fila.add(new Object[] {1L, 1L, publicacionTest.getFecha(), true});
+        when(publicacionRepository.findIdTemaFechaOcultaByIds(List.of(1L))).thenReturn(fila);
+
+        // Act
+        publicacionService.crearPublicacion("Título", "Descripción", 1L, 1L, null);
+        publicacionService.eliminarPublicacion(1L);
+
+        // Assert
+        verify(actividadDiariaService).registrarCreada(1L, publicacionTest.getFecha(), false);
+        verify(actividadDiariaService).registrarEliminada(1L, publicacionTest.getFecha(), true);
     }
 }
@@ -0,0 +1,114 @@
+package com.qualifygym.publicaciones.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Tests unitarios para RankingCalienteService
+ *
+ * Verifican el orden por puntaje con decaimiento temporal, la separación por tema,
+ * la salida de publicaciones ocultas y que el rebase conserva el orden.
+ */
+class RankingCalienteServiceTest {
+
+    private RankingCalienteService rankingService;
+
+    @BeforeEach
+    void setUp() {
+        rankingService = new RankingCalienteService();
+    }
+
+    /**
+     * Test: Decaimiento temporal
+     * Verifica que, a igual actividad, una publicación más antigua queda por debajo de una reciente
+     */
+    @Test
+    void obtenerTop_debeOrdenarPorPuntajeDecaido() {
+        LocalDateTime ahora = LocalDateTime.now();
+        rankingService.registrarPublicacion(1L, 10L, ahora.minusDays(2));
+        rankingService.registrarPublicacion(2L, 10L, ahora);
+        rankingService.registrarPublicacion(3L, 20L, ahora.minusHours(6));
+
+        assertEquals(List.of(2L, 3L, 1L), rankingService.obtenerTop(null, 10));
+        assertEquals(List.of(2L, 1L), rankingService.obtenerTop(10L, 10));
+        assertEquals(List.of(2L), rankingService.obtenerTop(null, 1));
+    }
+
+    /**
+     * Test: Actividad reciente
+     * Verifica que la actividad sobre una publicación antigua la hace subir en el ranking
+     */
+    @Test
+    void registrarActividad_debeSubirLaPublicacion() {
+        LocalDateTime ahora = LocalDateTime.now();
+        rankingService.registrarPublicacion(1L, 10L, ahora.minusDays(1));
+        rankingService.registrarPublicacion(2L, 10L, ahora);
+
+        for (int i = 0; i < 5; i++) {
+            rankingService.registrarVista(1L, 10L);
+        }
+
+        assertEquals(List.of(1L, 2L), rankingService.obtenerTop(10L, 10));
+    }
+
+    /**
+     * Test: Quitar y rebasar
+     * Verifica que una publicación quitada sale del ranking y que el rebase conserva el orden
+     */
+    @Test
+    void quitarYRebasar_debenMantenerRankingConsistente() {
+        LocalDateTime ahora = LocalDateTime.now();
+        rankingService.registrarPublicacion(1L, 10L, ahora.minusHours(3));
+        rankingService.registrarPublicacion(2L, 10L, ahora.minusHours(1));
+        rankingService.registrarPublicacion(3L, 10L, ahora);
+        rankingService.registrarPublicacion(4L, 10L, ahora.minusDays(60));
+
+        rankingService.quitar(3L);
+        rankingService.rebasar();
+
+        // La publicación de hace 60 días tiene un puntaje despreciable y se descarta al rebasar
+        assertEquals(List.of(2L, 1L), rankingService.obtenerTop(null, 10));
+        assertEquals(List.of(2L, 1L), rankingService.obtenerTop(10L, 10));
+    }
+
+    /**
+     * Test: Ocultar y volver a mostrar
+     * Verifica que la publicación sale del ranking al excluirla y vuelve con la actividad acumulada, también tras rebasar
+     */
+    @Test
+    void excluirYRestaurar_debenConservarActividadAcumulada() {
+        LocalDateTime ahora = LocalDateTime.now();
+        rankingService.registrarPublicacion(1L, 10L, ahora.minusHours(2));
+        rankingService.registrarPublicacion(2L, 10L, ahora);
+        rankingService.registrarActividad(1L, 10L, 20);
+
+        rankingService.excluir(1L);
+        rankingService.rebasar();
+        assertEquals(List.of(2L), rankingService.obtenerTop(null, 10));
+        assertEquals(List.of(2L), rankingService.obtenerTop(10L, 10));
+
+        rankingService.restaurar(1L, 10L, ahora.minusHours(2));
+        rankingService.restaurar(2L, 10L, ahora);
+        assertEquals(List.of(1L, 2L), rankingService.obtenerTop(null, 10));
+        assertEquals(List.of(1L, 2L), rankingService.obtenerTop(10L, 10));
+    }
+
+    /**
+     * Test: Restaurar una publicación que no está en memoria
+     * Verifica que vuelve con el puntaje base de su fecha de creación
+     */
+    @Test
+    void restaurar_sinEntrada_debeRegistrarConPuntajeDeCreacion() {
+        LocalDateTime ahora = LocalDateTime.now();
+        rankingService.registrarPublicacion(1L, 10L, ahora.minusHours(1));
+
+        rankingService.restaurar(2L, 10L, ahora);
+
+        assertEquals(List.of(2L, 1L), rankingService.obtenerTop(null, 10));
+    }
+}
@@ -0,0 +1,222 @@
+package com.qualifygym.publicaciones.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import com.qualifygym.publicaciones.model.ReaccionPublicacion;
+import com.qualifygym.publicaciones.repository.ConteoReaccionesRepository;
+import com.qualifygym.publicaciones.repository.ReaccionPublicacionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Tests unitarios para ReaccionesPublicacionService
+ *
+ * Verifican que un usuario reacciona una sola vez, que los totales suman lo pendiente,
+ * que reaccionar y quitar antes del volcado se anulan y que el volcado escribe por lotes
+ * solo los cambios reales, devolviendo las operaciones a pendientes si falla. Al eliminar
+ * publicaciones, lo pendiente solo se descarta si la transacción se confirma.
+ */
+class ReaccionesPublicacionServiceTest {
+
+    @Mock
+    private ReaccionPublicacionRepository reaccionRepository;
+
+    @Mock
+    private ConteoReaccionesRepository conteoRepository;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @InjectMocks
+    private ReaccionesPublicacionService reaccionesService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+    }
+
+    /**
+     * Test: Reaccionar dos veces
+     * Verifica que la segunda reacción se ignora y que el total suma lo pendiente a lo persistido
+     */
+    @Test
+    void reaccionar_dosVeces_debeContarUnaSola() {
+        // Arrange
+        when(conteoRepository.findTotales(any())).thenReturn(List.<Object[]>of(new Object[] { 1L, 4L }));
+
+        // Act
+        boolean primera = reaccionesService.reaccionar(1L, 5L);
+        boolean repetida = reaccionesService.reaccionar(1L, 5L);
+
+        // Assert
+        assertTrue(primera);
+        assertFalse(repetida);
+        assertTrue(reaccionesService.haReaccionado(1L, 5L));
+        assertEquals(Map.of(1L, 5L, 2L, 0L), reaccionesService.contar(List.of(1L, 2L)));
+        verify(reaccionRepository, times(1)).existsById(new ReaccionPublicacion.Clave(1L, 5L));
+    }
+
+    /**
+     * Test: Reaccionar y quitar antes del volcado
+     * Verifica que las operaciones se anulan y el volcado no escribe nada
+     */
+    @Test
+    void reaccionarYQuitar_antesDelVolcado_debenAnularse() {
+        // Act
+        reaccionesService.reaccionar(1L, 5L);
+        boolean quitada = reaccionesService.quitar(1L, 5L);
+        int volcadas = reaccionesService.volcar();
+
+        // Assert
+        assertTrue(quitada);
+        assertEquals(0, volcadas);
+        assertEquals(Map.of(1L, 0L), reaccionesService.contar(List.of(1L)));
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    /**
+     * Test: Consulta de lo persistido fuera del candado
+     * Verifica que la consulta no retiene el candado del par (otra reacción del mismo par puede volcarse
+     * mientras tanto) y que, si entretanto se confirmó un volcado, se repite antes de decidir
+     */
+    @Test
+    void reaccionar_conVolcadoDuranteLaConsulta_debeRepetirlaYNoContarDosVeces() {
+        // Arrange: durante la primera consulta otra petición reacciona y se vuelca; desde entonces la fila existe
+        AtomicInteger consultas = new AtomicInteger();
+        when(reaccionRepository.existsById(new ReaccionPublicacion.Clave(1L, 5L))).thenAnswer(invocacion -> {
+            int consulta = consultas.incrementAndGet();
+            if (consulta == 1) {
+                CompletableFuture.runAsync(() -> {
+                    reaccionesService.reaccionar(1L, 5L);
+                    reaccionesService.volcar();
+                }).get(5, TimeUnit.SECONDS);
+                return false;
+            }
+            return consulta >= 3;
+        });
+        when(conteoRepository.findTotales(any())).thenReturn(List.<Object[]>of(new Object[] { 1L, 1L }));
+
+        // Act
+        boolean resultado = reaccionesService.reaccionar(1L, 5L);
+
+        // Assert
+        assertFalse(resultado);
+        assertEquals(3, consultas.get());
+        assertEquals(Map.of(1L, 1L), reaccionesService.contar(List.of(1L)));
+    }
+
+    /**
+     * Test: Volcado por lotes
+     * Verifica que se insertan y borran las reacciones y se suma a cada total el delta agregado
+     */
+    @SuppressWarnings("unchecked")
+    @Test
+    void volcar_debeEscribirReaccionesYDeltasPorLotes() {
+        // Arrange
+        when(reaccionRepository.existsById(new ReaccionPublicacion.Clave(2L, 7L))).thenReturn(true);
+        when(reaccionRepository.findPares(any(), any())).thenReturn(List.<Object[]>of(new Object[] { 2L, 7L }));
+        reaccionesService.reaccionar(1L, 5L);
+        reaccionesService.reaccionar(1L, 6L);
+        reaccionesService.quitar(2L, 7L);
+
+        // Act
+        int volcadas = reaccionesService.volcar();
+
+        // Assert
+        assertEquals(3, volcadas);
+        ArgumentCaptor<List<Object[]>> altas = ArgumentCaptor.forClass(List.class);
+        ArgumentCaptor<List<Object[]>> bajas = ArgumentCaptor.forClass(List.class);
+        ArgumentCaptor<List<Object[]>> conteos = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).batchUpdate(startsWith("INSERT INTO publicaciones_reacciones "), altas.capture());
+        verify(jdbcTemplate).batchUpdate(startsWith("DELETE FROM publicaciones_reacciones "), bajas.capture());
+        verify(jdbcTemplate).batchUpdate(startsWith("INSERT INTO publicaciones_reacciones_conteo "), conteos.capture());
+        assertEquals(2, altas.getValue().size());
+        assertArrayEquals(new Object[] { 2L, 7L }, bajas.getValue().get(0));
+        List<Object[]> deltas = conteos.getValue().stream()
+                .sorted(Comparator.comparing(fila -> (Long) fila[0])).toList();
+        assertArrayEquals(new Object[] { 1L, 2L }, deltas.get(0));
+        assertArrayEquals(new Object[] { 2L, -1L }, deltas.get(1));
+
+        // Lo volcado ya no cuenta como pendiente
+        when(conteoRepository.findTotales(any())).thenReturn(List.<Object[]>of(new Object[] { 1L, 2L }));
+        assertEquals(Map.of(1L, 2L), reaccionesService.contar(List.of(1L)));
+    }
+
+    /**
+     * Test: Volcado fallido
+     * Verifica que las operaciones vuelven a quedar pendientes y se persisten en el siguiente volcado
+     */
+    @Test
+    void volcar_fallido_debeDevolverLasOperacionesAPendientes() {
+        // Arrange
+        when(jdbcTemplate.batchUpdate(anyString(), anyList()))
+                .thenThrow(new DataIntegrityViolationException("fallo"))
+                .thenReturn(new int[] { 1 });
+        reaccionesService.reaccionar(1L, 5L);
+
+        // Act & Assert
+        assertThrows(DataIntegrityViolationException.class, () -> reaccionesService.volcar());
+        assertTrue(reaccionesService.haReaccionado(1L, 5L));
+        assertEquals(Map.of(1L, 1L), reaccionesService.contar(List.of(1L)));
+        assertEquals(1, reaccionesService.volcar());
+    }
+
+    /**
+     * Test: Eliminar publicaciones en una transacción revertida y luego confirmada
+     * Verifica que lo pendiente sobrevive al rollback, se descarta con el commit y que
+     * no se puede volcar mientras la transacción está abierta
+     */
+    @Test
+    void quitarPublicaciones_debeDescartarLoPendienteSoloAlConfirmar() {
+        // Arrange
+        reaccionesService.reaccionar(1L, 5L);
+
+        // Act & Assert: rollback
+        concluir(TransactionSynchronization.STATUS_ROLLED_BACK);
+        assertTrue(reaccionesService.haReaccionado(1L, 5L));
+        assertEquals(Map.of(1L, 1L), reaccionesService.contar(List.of(1L)));
+
+        // Act & Assert: commit
+        concluir(TransactionSynchronization.STATUS_COMMITTED);
+        assertEquals(Map.of(1L, 0L), reaccionesService.contar(List.of(1L)));
+        assertEquals(0, reaccionesService.volcar());
+        verify(reaccionRepository, times(2)).eliminarPorPublicacionIds(Set.of(1L));
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    // Elimina la publicación 1 en una transacción simulada que concluye con el estado indicado
+    private void concluir(int estado) {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            reaccionesService.quitarPublicaciones(List.of(1L));
+            assertEquals(0, CompletableFuture.supplyAsync(reaccionesService::volcar).join());
+            for (TransactionSynchronization sincronizacion : TransactionSynchronizationManager.getSynchronizations()) {
+                sincronizacion.afterCompletion(estado);
+            }
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.qualifygym.publicaciones.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import com.qualifygym.publicaciones.model.FirmaPublicacion;
+import com.qualifygym.publicaciones.repository.FirmaPublicacionRepository;
+import com.qualifygym.publicaciones.repository.PublicacionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.domain.Pageable;
+
+import java.util.List;
+
+/**
+ * Tests unitarios para RelacionadasPublicacionService
+ *
+ * Verifican que las descripciones similares se encuentran a través del índice LSH,
+ * que las no relacionadas se descartan y que el índice se reconstruye desde las
+ * firmas persistidas y se actualiza al quitar publicaciones.
+ */
+class RelacionadasPublicacionServiceTest {
+
+    private static final String RUTINA = "Rutina de piernas para principiantes con sentadillas, zancadas y peso muerto rumano, "
+            + "tres veces por semana y con un día de descanso entre sesiones para recuperar bien";
+
+    @Mock
+    private FirmaPublicacionRepository firmaRepository;
+
+    @Mock
+    private PublicacionRepository publicacionRepository;
+
+    @InjectMocks
+    private RelacionadasPublicacionService relacionadasService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+    }
+
+    @Test
+    void buscarRelacionadas_debeOrdenarPorSimilitudYDescartarNoRelacionadas() {
+        relacionadasService.registrar(1L, RUTINA);
+        relacionadasService.registrar(2L, RUTINA.replace("tres veces", "cuatro veces"));
+        relacionadasService.registrar(3L, RUTINA.replace("con un día de descanso entre sesiones para recuperar bien", "sin descanso"));
+        relacionadasService.registrar(4L, "Receta de batido de proteína con avena, plátano y mantequilla de maní para después de entrenar");
+
+        List<Long> relacionadas = relacionadasService.buscarRelacionadas(1L, 10);
+
+        assertEquals(List.of(2L, 3L), relacionadas);
+        verify(firmaRepository, times(4)).guardar(anyLong(), any(byte[].class));
+    }
+
+    @Test
+    void quitar_debeSacarLaPublicacionDelIndice() {
+        relacionadasService.registrar(1L, RUTINA);
+        relacionadasService.registrar(2L, RUTINA + " y estiramientos");
+
+        relacionadasService.quitar(List.of(2L));
+
+        assertTrue(relacionadasService.buscarRelacionadas(1L, 10).isEmpty());
+        verify(firmaRepository).eliminarPorIds(List.of(2L));
+    }
+
+    @Test
+    void cargarInicial_debeReconstruirElIndiceDesdeLasFirmasPersistidas() {
+        relacionadasService.registrar(1L, RUTINA);
+        relacionadasService.registrar(2L, RUTINA + " y estiramientos");
+        ArgumentCaptor<byte[]> firmas = ArgumentCaptor.forClass(byte[].class);
+        verify(firmaRepository, times(2)).guardar(anyLong(), firmas.capture());
+
+        RelacionadasPublicacionService reiniciado = new RelacionadasPublicacionService();
+        org.springframework.test.util.ReflectionTestUtils.setField(reiniciado, "firmaRepository", firmaRepository);
+        when(firmaRepository.findPosteriores(eq(0L), any(Pageable.class))).thenReturn(List.of(
+                new FirmaPublicacion(1L, firmas.getAllValues().get(0)),
+                new FirmaPublicacion(2L, firmas.getAllValues().get(1))));
+
+        reiniciado.cargarInicial();
+
+        assertEquals(List.of(2L), reiniciado.buscarRelacionadas(1L, 10));
+    }
+
+    @Test
+    void calcularFirma_textoSinPalabras_debeRetornarNull() {
+        assertNull(RelacionadasPublicacionService.calcularFirma("¡¡ ... !!"));
+
+        relacionadasService.registrar(9L, "...");
+
+        verify(firmaRepository, never()).guardar(anyLong(), any(byte[].class));
+    }
+}
@@ -0,0 +1,83 @@
+package com.qualifygym.publicaciones.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import com.qualifygym.publicaciones.dto.PublicacionResumen;
+import com.qualifygym.publicaciones.repository.ConjuntoModificadoRepository;
+import com.qualifygym.publicaciones.repository.PublicacionRepository;
+import com.qualifygym.publicaciones.repository.UsuarioSilenciadoRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Tests unitarios para SilenciadosService
+ *
+ * Verifican lo propio de los silenciados: que los feeds se filtran sin consultar
+ * la base de datos, que los cambios llegan a la tabla y la fracción estimada de
+ * silenciados. El conjunto por usuario se prueba en ConjuntosPorUsuarioTest.
+ */
+class SilenciadosServiceTest {
+
+    @Mock
+    private UsuarioSilenciadoRepository silenciadoRepository;
+
+    @Mock
+    private ConjuntoModificadoRepository modificadoRepository;
+
+    @Mock
+    private PublicacionRepository publicacionRepository;
+
+    @InjectMocks
+    private SilenciadosService silenciadosService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+    }
+
+    @Test
+    void filtrar_debeQuitarAutoresSilenciadosSoloConUsuario() {
+        silenciadosService.silenciar(1L, 20L);
+        PublicacionResumen silenciada = new PublicacionResumen(10L, "A", "a", LocalDateTime.now(), 20L, 3L, null);
+        PublicacionResumen visible = new PublicacionResumen(11L, "B", "b", LocalDateTime.now(), 21L, 3L, null);
+        List<PublicacionResumen> feed = List.of(silenciada, visible);
+
+        assertEquals(List.of(visible), silenciadosService.filtrar(feed, 1L));
+        assertSame(feed, silenciadosService.filtrar(feed, null));
+        assertSame(feed, silenciadosService.filtrar(feed, 2L));
+        // Filtrar no consulta la base de datos: la única interacción es el silenciado inicial
+        verify(silenciadoRepository).insertar(eq(1L), eq(20L), any(LocalDateTime.class));
+        verifyNoMoreInteractions(silenciadoRepository);
+    }
+
+    @Test
+    void silenciarYQuitar_debenEscribirEnLaTabla() {
+        silenciadosService.silenciar(1L, 20L);
+        silenciadosService.quitar(1L, 20L);
+
+        assertFalse(silenciadosService.estaSilenciado(1L, 20L));
+        verify(silenciadoRepository).insertar(eq(1L), eq(20L), any(LocalDateTime.class));
+        verify(silenciadoRepository).eliminar(1L, 20L);
+    }
+
+    @Test
+    void fraccionSilenciada_debeEstimarseConLosAutoresVisibles() {
+        silenciadosService.silenciar(1L, 20L);
+        silenciadosService.silenciar(1L, 21L);
+        assertEquals(1.0, silenciadosService.fraccionSilenciada(1L));
+
+        when(publicacionRepository.countAutoresVisibles()).thenReturn(8L);
+        silenciadosService.recontarAutores();
+
+        assertEquals(0.25, silenciadosService.fraccionSilenciada(1L));
+        assertEquals(0.0, silenciadosService.fraccionSilenciada(2L));
+    }
+}
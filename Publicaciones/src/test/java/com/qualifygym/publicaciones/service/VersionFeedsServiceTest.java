@@ -0,0 +1,93 @@
+package com.qualifygym.publicaciones.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import com.qualifygym.publicaciones.model.CambioPublicacion;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Tests unitarios para VersionFeedsService
+ *
+ * Verifican que cada feed cambia de ETag solo con los cambios que lo afectan,
+ * que un cambio sin tema ni usuario invalida todos los feeds y que no se
+ * emite ETag mientras el feed cambió hace muy poco.
+ */
+class VersionFeedsServiceTest {
+
+    @Mock
+    private CambiosPublicacionService cambiosPublicacionService;
+
+    @InjectMocks
+    private VersionFeedsService versionFeedsService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        ReflectionTestUtils.setField(versionFeedsService, "estabilidadMs", 0L);
+        when(cambiosPublicacionService.obtenerUltimaSeq()).thenReturn(10L);
+        versionFeedsService.inicializar();
+    }
+
+    @Test
+    void sinInicializar_noDebeEmitirEtag() {
+        VersionFeedsService nuevo = new VersionFeedsService();
+
+        assertNull(nuevo.etagGlobal("r"));
+        assertNull(nuevo.etagTema(1L, "r"));
+    }
+
+    @Test
+    void cambioConfirmado_debeAvanzarSoloLosFeedsAfectados() {
+        versionFeedsService.alConfirmarCambio(new CambiosPublicacionService.CambioRegistrado(1L, 7L, 11L));
+
+        assertEquals("W/\"11-r\"", versionFeedsService.etagGlobal("r"));
+        assertEquals("W/\"11-c\"", versionFeedsService.etagTema(1L, "c"));
+        assertEquals("W/\"11-r\"", versionFeedsService.etagUsuario(7L, "r"));
+        assertEquals("W/\"10-r\"", versionFeedsService.etagTema(2L, "r"));
+        assertEquals("W/\"10-r\"", versionFeedsService.etagUsuario(8L, "r"));
+    }
+
+    @Test
+    void cambioSinTemaNiUsuario_debeInvalidarTodosLosFeeds() {
+        versionFeedsService.alConfirmarCambio(new CambiosPublicacionService.CambioRegistrado(1L, 7L, 11L));
+        versionFeedsService.alConfirmarCambio(new CambiosPublicacionService.CambioRegistrado(null, null, 15L));
+
+        assertEquals("W/\"15-r\"", versionFeedsService.etagTema(1L, "r"));
+        assertEquals("W/\"15-r\"", versionFeedsService.etagTema(2L, "r"));
+        assertEquals("W/\"15-r\"", versionFeedsService.etagUsuario(7L, "r"));
+        assertEquals("W/\"15-r\"", versionFeedsService.etagGlobal("r"));
+    }
+
+    @Test
+    void refrescar_debeAplicarCambiosDeOtrasInstancias() {
+        LocalDateTime antes = LocalDateTime.now().minusMinutes(1);
+        when(cambiosPublicacionService.leerConfirmados(eq(10L), anyInt())).thenReturn(new CambiosPublicacionService.Lote(
+                List.of(new CambioPublicacion(11L, 5L, 3L, 9L, CambioPublicacion.Tipo.CREADA, antes)), 11L, false));
+
+        versionFeedsService.refrescar();
+
+        assertEquals("W/\"11-r\"", versionFeedsService.etagTema(3L, "r"));
+        assertEquals("W/\"11-r\"", versionFeedsService.etagUsuario(9L, "r"));
+        assertEquals("W/\"10-r\"", versionFeedsService.etagTema(1L, "r"));
+        verify(cambiosPublicacionService, times(1)).leerConfirmados(eq(10L), anyInt());
+    }
+
+    @Test
+    void feedRecienModificado_noDebeEmitirEtag() {
+        ReflectionTestUtils.setField(versionFeedsService, "estabilidadMs", 60_000L);
+        versionFeedsService.alConfirmarCambio(new CambiosPublicacionService.CambioRegistrado(1L, 7L, 11L));
+
+        assertNull(versionFeedsService.etagTema(1L, "r"));
+        assertNull(versionFeedsService.etagGlobal("r"));
+    }
+}
@@ -0,0 +1,164 @@
+package com.qualifygym.publicaciones.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import com.qualifygym.publicaciones.model.VistasUnicas;
+import com.qualifygym.publicaciones.repository.VistasUnicasRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Tests unitarios para VistasUnicasService
+ *
+ * Verifican que un mismo visitante cuenta una vez, que el volcado une lo acumulado con el
+ * sketch persistido, que un volcado fallido no pierde vistas, que se valida el rango de días y
+ * que eliminar publicaciones descarta sus vistas solo al confirmar.
+ */
+class VistasUnicasServiceTest {
+
+    @Mock
+    private VistasUnicasRepository vistasRepository;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @InjectMocks
+    private VistasUnicasService vistasService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+    }
+
+    /**
+     * Test: Vistas repetidas
+     * Verifica que un visitante que vuelve cuenta una sola vez, en la publicación y en el tema
+     */
+    @Test
+    void registrar_mismoVisitante_debeContarUnaVez() {
+        // Act
+        vistasService.registrar(1L, 3L, "usuario:5");
+        vistasService.registrar(1L, 3L, "usuario:5");
+        vistasService.registrar(1L, 3L, "ip:10.0.0.1");
+        vistasService.registrar(2L, 3L, "usuario:5");
+        vistasService.registrar(2L, 3L, null);
+
+        // Assert
+        LocalDate hoy = LocalDate.now();
+        assertEquals(2L, vistasService.contarPublicacion(1L));
+        assertEquals(2L, vistasService.contarPublicacion(1L, hoy.minusDays(6), hoy));
+        assertEquals(1L, vistasService.contarPublicacion(2L));
+        assertEquals(2L, vistasService.contarTema(3L, hoy, hoy));
+    }
+
+    /**
+     * Test: Volcado
+     * Verifica que se actualiza el sketch persistido uniéndolo con lo acumulado y se insertan los nuevos
+     */
+    @Test
+    void volcar_debeUnirConLoPersistidoEInsertarLoNuevo() {
+        // Arrange
+        HyperLogLog persistido = new HyperLogLog();
+        persistido.agregar(TextoPublicacion.hash64("usuario:9"));
+        when(vistasRepository.findParaActualizar(eq(VistasUnicas.Ambito.PUBLICACION), any(), eq(VistasUnicas.DIA_HISTORICO)))
+                .thenReturn(List.of(new VistasUnicas(VistasUnicas.Ambito.PUBLICACION, 1L, VistasUnicas.DIA_HISTORICO, persistido.serializar())));
+        vistasService.registrar(1L, 3L, "usuario:5");
+
+        // Act
+        int volcados = vistasService.volcar();
+
+        // Assert
+        assertEquals(3, volcados);
+        ArgumentCaptor<List<Object[]>> actualizaciones = captor();
+        verify(jdbcTemplate).batchUpdate(startsWith("UPDATE publicaciones_vistas_unicas"), actualizaciones.capture());
+        assertEquals(2L, HyperLogLog.desde((byte[]) actualizaciones.getValue().get(0)[0]).estimar());
+        verify(jdbcTemplate, times(2)).batchUpdate(startsWith("INSERT INTO publicaciones_vistas_unicas"), anyList());
+        assertEquals(0, vistasService.volcar());
+    }
+
+    /**
+     * Test: Volcado fallido
+     * Verifica que lo acumulado vuelve a memoria y sigue contando
+     */
+    @Test
+    void volcar_fallido_debeConservarLasVistas() {
+        // Arrange
+        when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenThrow(new QueryTimeoutException("fallo"));
+        vistasService.registrar(1L, null, "usuario:5");
+
+        // Act & Assert
+        assertThrows(QueryTimeoutException.class, () -> vistasService.volcar());
+        assertEquals(1L, vistasService.contarPublicacion(1L));
+    }
+
+    /**
+     * Test: Rango de días inválido
+     * Verifica que se rechazan rangos invertidos o más largos que la retención
+     */
+    @Test
+    void contar_conRangoInvalido_debeLanzarExcepcion() {
+        LocalDate hoy = LocalDate.now();
+        assertThrows(RuntimeException.class, () -> vistasService.contarTema(3L, hoy, hoy.minusDays(1)));
+        assertThrows(RuntimeException.class, () -> vistasService.contarPublicacion(1L, hoy.minusDays(400), hoy));
+    }
+
+    /**
+     * Test: Eliminar publicaciones en una transacción revertida y luego confirmada
+     * Verifica que las vistas pendientes sobreviven al rollback, se descartan con el commit y que
+     * no se puede volcar mientras la transacción está abierta
+     */
+    @Test
+    void quitarPublicaciones_debeDescartarLoPendienteSoloAlConfirmar() {
+        // Arrange
+        vistasService.registrar(1L, 3L, "usuario:5");
+        LocalDate hoy = LocalDate.now();
+
+        // Act & Assert: rollback
+        concluir(TransactionSynchronization.STATUS_ROLLED_BACK);
+        assertEquals(1L, vistasService.contarPublicacion(1L));
+
+        // Act & Assert: commit
+        concluir(TransactionSynchronization.STATUS_COMMITTED);
+        assertEquals(0L, vistasService.contarPublicacion(1L));
+        assertEquals(1L, vistasService.contarTema(3L, hoy, hoy));
+        verify(vistasRepository, times(2)).eliminarPorClaves(any(), eq(Set.of(1L)));
+    }
+
+    // Elimina la publicación 1 en una transacción simulada que concluye con el estado indicado
+    private void concluir(int estado) {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            vistasService.quitarPublicaciones(List.of(1L));
+            assertEquals(0, CompletableFuture.supplyAsync(vistasService::volcar).join());
+            for (TransactionSynchronization sincronizacion : TransactionSynchronizationManager.getSynchronizations()) {
+                sincronizacion.afterCompletion(estado);
+            }
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static ArgumentCaptor<List<Object[]>> captor() {
+        return ArgumentCaptor.forClass(List.class);
+    }
+}